@@ -0,0 +1,69 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectField;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectGetOption;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Measures {@code ResourceManagerImpl.optionMap}, which runs once per call. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OptionMapBenchmark {
+
+  private final ProjectGetOption[] noOptions = new ProjectGetOption[0];
+  private final ProjectGetOption[] getOptions = {
+    ProjectGetOption.fields(ProjectField.NAME, ProjectField.LABELS)
+  };
+  private final ProjectListOption[] listOptions = {
+    ProjectListOption.filter("labels.env:prod"),
+    ProjectListOption.pageSize(500),
+    ProjectListOption.pageToken("next-page-token"),
+    ProjectListOption.fields(ProjectField.PROJECT_ID, ProjectField.NAME, ProjectField.LABELS)
+  };
+
+  @Benchmark
+  public Map<ResourceManagerRpc.Option, ?> noOptions() {
+    return ResourceManagerImpl.optionMap(noOptions);
+  }
+
+  @Benchmark
+  public Map<ResourceManagerRpc.Option, ?> getOptions() {
+    return ResourceManagerImpl.optionMap(getOptions);
+  }
+
+  @Benchmark
+  public Map<ResourceManagerRpc.Option, ?> listOptions() {
+    return ResourceManagerImpl.optionMap(listOptions);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.services.cloudresourcemanager.model.Binding;
+import com.google.cloud.Identity;
+import com.google.cloud.Policy;
+import com.google.cloud.Role;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link PolicyMarshaller} on policies whose members are spread over a few roles, from a
+ * small policy to one with thousands of members.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PolicyMarshallerBenchmark {
+
+  private static final Role[] ROLES = {
+    Role.owner(), Role.editor(), Role.viewer(), Role.of("resourcemanager.projectIamAdmin")
+  };
+
+  @Param({"10", "5000"})
+  private int memberCount;
+
+  private Policy policy;
+  private com.google.api.services.cloudresourcemanager.model.Policy policyPb;
+
+  @Setup
+  public void setUp() {
+    Policy.Builder builder = Policy.newBuilder().setEtag("BwWWja0YfJA=").setVersion(1);
+    for (int i = 0; i < memberCount; i++) {
+      Role role = ROLES[i % ROLES.length];
+      switch (i % 3) {
+        case 0:
+          builder.addIdentity(role, Identity.user("user-" + i + "@example.com"));
+          break;
+        case 1:
+          builder.addIdentity(
+              role, Identity.serviceAccount("sa-" + i + "@project.iam.gserviceaccount.com"));
+          break;
+        default:
+          builder.addIdentity(role, Identity.group("group-" + i + "@example.com"));
+      }
+    }
+    policy = builder.build();
+    policyPb = PolicyMarshaller.INSTANCE.toPb(policy);
+  }
+
+  @Benchmark
+  public Policy fromPb() {
+    return PolicyMarshaller.INSTANCE.fromPb(policyPb);
+  }
+
+  @Benchmark
+  public void toPb(Blackhole blackhole) {
+    // The members of the returned bindings are transformed lazily, so they are consumed here.
+    for (Binding binding : PolicyMarshaller.INSTANCE.toPb(policy).getBindings()) {
+      for (String member : binding.getMembers()) {
+        blackhole.consume(member);
+      }
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.cloud.NoCredentials;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.threeten.bp.Instant;
+
+/**
+ * Measures the conversions between {@link ProjectInfo} and the model project, for a project with
+ * 64 labels. Also compares converting a model project to a {@link Project} through the builders, as
+ * {@code Project.fromPb} used to, with the direct construction path, and equality through {@code
+ * toPb()} with field by field equality.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectConversionBenchmark {
+
+  // The service allows up to 64 labels per project.
+  private static final int LABEL_COUNT = 64;
+
+  private ResourceManager resourceManager;
+  private com.google.api.services.cloudresourcemanager.model.Project projectPb;
+  private Project project;
+  private Project sameProject;
+
+  @Setup
+  public void setUp() {
+    resourceManager =
+        ResourceManagerOptions.newBuilder()
+            .setProjectId("benchmark-project")
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getService();
+    Map<String, String> labels = new HashMap<>();
+    for (int i = 0; i < LABEL_COUNT; i++) {
+      labels.put("label-" + i, "value-" + i);
+    }
+    projectPb =
+        new com.google.api.services.cloudresourcemanager.model.Project()
+            .setProjectId("benchmark-project")
+            .setName("Benchmark project")
+            .setProjectNumber(123456789012L)
+            .setLifecycleState("ACTIVE")
+            .setCreateTime("2020-03-11T17:28:42.519Z")
+            .setLabels(labels)
+            .setParent(
+                new com.google.api.services.cloudresourcemanager.model.ResourceId()
+                    .setType("organization")
+                    .setId("1234567890"));
+    project = Project.fromPb(resourceManager, projectPb);
+    sameProject = Project.fromPb(resourceManager, projectPb);
+  }
+
+  @Benchmark
+  public ProjectInfo projectInfoFromPb() {
+    return ProjectInfo.fromPb(projectPb);
+  }
+
+  @Benchmark
+  public com.google.api.services.cloudresourcemanager.model.Project projectInfoToPb() {
+    return project.toPb();
+  }
+
+  @Benchmark
+  public Project fromPbDirect() {
+    return Project.fromPb(resourceManager, projectPb);
+  }
+
+  @Benchmark
+  public Project fromPbThroughBuilders() {
+    ProjectInfo.Builder builder =
+        ProjectInfo.newBuilder(projectPb.getProjectId())
+            .setProjectNumber(projectPb.getProjectNumber())
+            .setName(projectPb.getName())
+            .setLabels(projectPb.getLabels())
+            .setState(ProjectInfo.State.valueOf(projectPb.getLifecycleState()))
+            .setCreateTimeMillis(
+                ProjectInfo.DATE_TIME_FORMATTER
+                    .parse(projectPb.getCreateTime(), Instant.FROM)
+                    .toEpochMilli())
+            .setParent(ProjectInfo.ResourceId.fromPb(projectPb.getParent()));
+    return new Project(resourceManager, new ProjectInfo.BuilderImpl(builder.build()));
+  }
+
+  @Benchmark
+  public boolean equalsFieldByField() {
+    return project.equals(sameProject);
+  }
+
+  @Benchmark
+  public boolean equalsThroughToPb() {
+    return project.toPb().equals(sameProject.toPb());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.cloud.NoCredentials;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the queries of a {@link ProjectInventory} holding {@code projectCount} projects spread
+ * over 4 environments, 20 teams and 50 folders, for a selective conjunction, a broad label filter
+ * and a name prefix, next to a linear scan evaluating the conjunction on every project.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectInventoryBenchmark {
+
+  private static final String[] ENVS = {"prod", "staging", "test", "dev"};
+
+  @Param({"1000", "100000"})
+  private int projectCount;
+
+  private ProjectInventory inventory;
+  private List<Project> projects;
+
+  @Setup
+  public void setUp() {
+    ResourceManager resourceManager =
+        ResourceManagerOptions.newBuilder()
+            .setProjectId("benchmark-project")
+            .setCredentials(NoCredentials.getInstance())
+            .build()
+            .getService();
+    projects = new ArrayList<>(projectCount);
+    for (int i = 0; i < projectCount; i++) {
+      ProjectInfo info =
+          ProjectInfo.newBuilder(String.format("project-%06d", i))
+              .setName("project-" + i)
+              .setLabels(ImmutableMap.of("env", ENVS[i % ENVS.length], "team", "team-" + i % 20))
+              .setParent(ProjectInfo.ResourceId.of(String.valueOf(i % 50), "folder"))
+              .setState(ProjectInfo.State.ACTIVE)
+              .build();
+      projects.add(new Project(resourceManager, new ProjectInfo.BuilderImpl(info)));
+    }
+    inventory = ProjectInventory.newBuilder(resourceManager).build();
+    inventory.load(projects);
+  }
+
+  @Benchmark
+  public List<Project> queryConjunction() {
+    return inventory.query("labels.env:prod labels.team:team-4 parent.id:4");
+  }
+
+  @Benchmark
+  public int countLabel() {
+    return inventory.count("labels.env:prod");
+  }
+
+  @Benchmark
+  public List<Project> queryNamePrefix() {
+    return inventory.query("name:project-12*");
+  }
+
+  @Benchmark
+  public List<Project> scanConjunction() {
+    List<Project> matches = new ArrayList<>();
+    for (Project project : projects) {
+      if ("prod".equals(project.getLabels().get("env"))
+          && "team-4".equals(project.getLabels().get("team"))
+          && "4".equals(project.getParent().getId())) {
+        matches.add(project);
+      }
+    }
+    return matches;
+  }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.loadtest;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.cloud.ServiceOptions;
+import com.google.cloud.resourcemanager.Project;
+import com.google.cloud.resourcemanager.ProjectInfo;
+import com.google.cloud.resourcemanager.ResourceManager;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.ResourceManagerOptions;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Drives a {@link ResourceManager} against a {@link LocalResourceManagerHelper} seeded with
+ * projects, and reports the throughput and the latency percentiles of every method.
+ *
+ * <p>The load is either closed-loop, where {@code --workers} threads send the next call as soon as
+ * the previous one completes, or open-loop, where calls are started at {@code --rate} calls per
+ * second whether or not the previous ones completed. In open-loop mode, latencies are measured from
+ * the time a call was scheduled to start, so that a slow client or server doesn't hide its own
+ * queueing delay. Usage:
+ *
+ * <pre>{@code
+ * java -cp target/benchmarks.jar com.google.cloud.resourcemanager.loadtest.LoadGenerator \
+ *     --projects=1000 --mix=get:60,list:10,create:5,replace:15,policy:10 \
+ *     --rate=200 --duration=60 --warmup=10 --page-size=100
+ * }</pre>
+ *
+ * <p>Client settings can be varied with {@code --page-size}, {@code --max-attempts} (the maximum
+ * number of attempts of every call) and {@code --max-connections} (the size of the HTTP keep-alive
+ * connection pool per host).
+ */
+public final class LoadGenerator {
+
+  /** The calls the generator can send. */
+  enum Method {
+    GET,
+    LIST,
+    CREATE,
+    REPLACE,
+    POLICY
+  }
+
+  private static final String SEED_PREFIX = "seed-";
+  private static final String CREATE_PREFIX = "load-";
+  private static final int SEED_THREADS = 16;
+
+  private final Config config;
+  private final ResourceManager resourceManager;
+  private final Method[] methods;
+  private final int[] cumulativeWeights;
+  private final Map<Method, ConcurrentHistogram> histograms = new EnumMap<>(Method.class);
+  private final Map<Method, AtomicLong> errors = new EnumMap<>(Method.class);
+  private final AtomicInteger createdProjects = new AtomicInteger();
+  private volatile long recordFromNanos;
+
+  private LoadGenerator(Config config, ResourceManager resourceManager) {
+    this.config = config;
+    this.resourceManager = resourceManager;
+    this.methods = config.mix.keySet().toArray(new Method[0]);
+    this.cumulativeWeights = new int[methods.length];
+    int total = 0;
+    for (int i = 0; i < methods.length; i++) {
+      total += config.mix.get(methods[i]);
+      cumulativeWeights[i] = total;
+    }
+    for (Method method : Method.values()) {
+      histograms.put(method, new ConcurrentHistogram(3));
+      errors.put(method, new AtomicLong());
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Config config = Config.parse(args);
+    if (config.maxConnections > 0) {
+      // Read by HttpURLConnection, which the default transport uses, when it is first loaded.
+      System.setProperty("http.maxConnections", Integer.toString(config.maxConnections));
+    }
+    LocalResourceManagerHelper helper = LocalResourceManagerHelper.create();
+    helper.start();
+    try {
+      ResourceManagerOptions.Builder options = helper.getOptions().toBuilder();
+      if (config.maxAttempts > 0) {
+        options.setRetrySettings(
+            ServiceOptions.getDefaultRetrySettings()
+                .toBuilder()
+                .setMaxAttempts(config.maxAttempts)
+                .build());
+      }
+      LoadGenerator generator = new LoadGenerator(config, options.build().getService());
+      generator.seed();
+      generator.run();
+      generator.report(System.out);
+    } finally {
+      helper.stop();
+    }
+  }
+
+  private void seed() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(SEED_THREADS);
+    for (int i = 0; i < config.projects; i++) {
+      final String projectId = seedProjectId(i);
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              resourceManager.create(
+                  ProjectInfo.newBuilder(projectId)
+                      .setName("Seeded project")
+                      .addLabel("env", "load")
+                      .build());
+            }
+          });
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.HOURS);
+  }
+
+  private void run() throws InterruptedException {
+    long startNanos = System.nanoTime();
+    recordFromNanos = startNanos + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+    long endNanos = recordFromNanos + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+    if (config.rate > 0) {
+      runOpenLoop(startNanos, endNanos);
+    } else {
+      runClosedLoop(endNanos);
+    }
+  }
+
+  private void runOpenLoop(long startNanos, long endNanos) throws InterruptedException {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    long periodNanos = TimeUnit.SECONDS.toNanos(1) / config.rate;
+    for (long intendedNanos = startNanos; intendedNanos < endNanos; intendedNanos += periodNanos) {
+      long delayNanos = intendedNanos - System.nanoTime();
+      if (delayNanos > 0) {
+        LockSupport.parkNanos(delayNanos);
+      }
+      final long intendedStartNanos = intendedNanos;
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              call(nextMethod(), intendedStartNanos);
+            }
+          });
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.HOURS);
+  }
+
+  private void runClosedLoop(final long endNanos) throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(config.workers);
+    for (int i = 0; i < config.workers; i++) {
+      executor.execute(
+          new Runnable() {
+            @Override
+            public void run() {
+              long startNanos;
+              while ((startNanos = System.nanoTime()) < endNanos) {
+                call(nextMethod(), startNanos);
+              }
+            }
+          });
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.HOURS);
+  }
+
+  private Method nextMethod() {
+    int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[methods.length - 1]);
+    for (int i = 0; i < methods.length; i++) {
+      if (value < cumulativeWeights[i]) {
+        return methods[i];
+      }
+    }
+    throw new AssertionError();
+  }
+
+  private void call(Method method, long startNanos) {
+    boolean failed = false;
+    try {
+      send(method);
+    } catch (RuntimeException ex) {
+      failed = true;
+    }
+    if (startNanos >= recordFromNanos) {
+      long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+      histograms.get(method).recordValue(Math.max(1, latencyMicros));
+      if (failed) {
+        errors.get(method).incrementAndGet();
+      }
+    }
+  }
+
+  private void send(Method method) {
+    switch (method) {
+      case GET:
+        resourceManager.get(randomSeedProjectId());
+        break;
+      case LIST:
+        for (Project project :
+            resourceManager.list(ProjectListOption.pageSize(config.pageSize)).getValues()) {
+          project.getProjectId();
+        }
+        break;
+      case CREATE:
+        resourceManager.create(
+            ProjectInfo.newBuilder(CREATE_PREFIX + createdProjects.incrementAndGet()).build());
+        break;
+      case REPLACE:
+        resourceManager.replace(
+            ProjectInfo.newBuilder(randomSeedProjectId())
+                .setName("Replaced project")
+                .addLabel("env", "load")
+                .addLabel("revision", Long.toString(System.nanoTime()))
+                .build());
+        break;
+      case POLICY:
+        resourceManager.getPolicy(randomSeedProjectId());
+        break;
+      default:
+        throw new AssertionError("Unexpected method " + method);
+    }
+  }
+
+  private String randomSeedProjectId() {
+    return seedProjectId(ThreadLocalRandom.current().nextInt(config.projects));
+  }
+
+  private static String seedProjectId(int index) {
+    return String.format(Locale.ROOT, "%s%06d", SEED_PREFIX, index);
+  }
+
+  private void report(PrintStream out) {
+    out.printf(
+        Locale.ROOT,
+        "%d seeded projects, %s, %d s measured after %d s of warm-up%n",
+        config.projects,
+        config.rate > 0 ? "open loop at " + config.rate + " calls/s" : config.workers + " workers",
+        config.durationSeconds,
+        config.warmupSeconds);
+    out.printf(
+        Locale.ROOT,
+        "%-8s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+        "method",
+        "calls",
+        "errors",
+        "calls/s",
+        "p50 ms",
+        "p90 ms",
+        "p99 ms",
+        "p99.9 ms",
+        "max ms");
+    for (Method method : methods) {
+      Histogram histogram = histograms.get(method);
+      long count = histogram.getTotalCount();
+      out.printf(
+          Locale.ROOT,
+          "%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+          method.name().toLowerCase(Locale.ROOT),
+          count,
+          errors.get(method).get(),
+          (double) count / config.durationSeconds,
+          histogram.getValueAtPercentile(50) / 1000.0,
+          histogram.getValueAtPercentile(90) / 1000.0,
+          histogram.getValueAtPercentile(99) / 1000.0,
+          histogram.getValueAtPercentile(99.9) / 1000.0,
+          histogram.getMaxValue() / 1000.0);
+    }
+  }
+
+  /** The command line settings of a run. */
+  static final class Config {
+
+    int projects = 1000;
+    Map<Method, Integer> mix = parseMix("get:60,list:10,create:5,replace:15,policy:10");
+    int rate;
+    int workers = 8;
+    int durationSeconds = 60;
+    int warmupSeconds = 10;
+    int pageSize = 100;
+    int maxAttempts;
+    int maxConnections;
+
+    static Config parse(String[] args) {
+      Config config = new Config();
+      for (String arg : args) {
+        int separator = arg.indexOf('=');
+        checkArgument(
+            arg.startsWith("--") && separator > 0, "Expected --name=value, got \"%s\"", arg);
+        String name = arg.substring(2, separator);
+        String value = arg.substring(separator + 1);
+        switch (name) {
+          case "projects":
+            config.projects = Integer.parseInt(value);
+            break;
+          case "mix":
+            config.mix = parseMix(value);
+            break;
+          case "rate":
+            config.rate = Integer.parseInt(value);
+            break;
+          case "workers":
+            config.workers = Integer.parseInt(value);
+            break;
+          case "duration":
+            config.durationSeconds = Integer.parseInt(value);
+            break;
+          case "warmup":
+            config.warmupSeconds = Integer.parseInt(value);
+            break;
+          case "page-size":
+            config.pageSize = Integer.parseInt(value);
+            break;
+          case "max-attempts":
+            config.maxAttempts = Integer.parseInt(value);
+            break;
+          case "max-connections":
+            config.maxConnections = Integer.parseInt(value);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option --" + name);
+        }
+      }
+      checkArgument(config.projects > 0, "--projects must be > 0");
+      checkArgument(config.rate >= 0, "--rate must be >= 0");
+      checkArgument(config.workers > 0, "--workers must be > 0");
+      checkArgument(config.durationSeconds > 0, "--duration must be > 0");
+      checkArgument(config.warmupSeconds >= 0, "--warmup must be >= 0");
+      checkArgument(config.pageSize > 0, "--page-size must be > 0");
+      return config;
+    }
+
+    /** Parses a mix such as {@code get:60,list:40} into the weight of every method. */
+    static Map<Method, Integer> parseMix(String value) {
+      Map<Method, Integer> mix = new EnumMap<>(Method.class);
+      for (String entry : value.split(",")) {
+        String[] parts = entry.trim().split(":");
+        checkArgument(parts.length == 2, "Expected method:weight, got \"%s\"", entry);
+        int weight = Integer.parseInt(parts[1]);
+        checkArgument(weight >= 0, "Weight of %s must be >= 0", parts[0]);
+        if (weight > 0) {
+          mix.put(Method.valueOf(parts[0].toUpperCase(Locale.ROOT)), weight);
+        }
+      }
+      checkArgument(!mix.isEmpty(), "The mix must contain at least one method");
+      return mix;
+    }
+  }
+}
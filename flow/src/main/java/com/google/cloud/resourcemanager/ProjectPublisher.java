@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the projects listed by {@link ResourceManager#listAsync} to {@link Flow.Subscriber
+ * subscribers}, following their demand.
+ *
+ * <p>Every subscription starts a new listing. A page is only requested when the subscriber has
+ * requested more projects than the buffered pages hold, and at most {@link
+ * Builder#setMaxBufferedPages max buffered pages} are held, being consumed, received or being
+ * requested. Cancelling the subscription cancels the page request in flight, which stops its
+ * retries and interrupts its attempt; with an interruptible transport, such as the {@code
+ * java.net.http} one, the HTTP exchange itself is aborted.
+ *
+ * <p>Projects are delivered from the thread that requests them or from the thread that completes
+ * a page request. Failures are signalled with {@link ResourceManagerException}.
+ *
+ * <pre>{@code
+ * ProjectPublisher publisher =
+ *     ProjectPublisher.newBuilder(resourceManager)
+ *         .setListOptions(ProjectListOption.filter("labels.env:prod"))
+ *         .setMaxBufferedPages(2)
+ *         .build();
+ * publisher.subscribe(subscriber);
+ * }</pre>
+ */
+public final class ProjectPublisher implements Flow.Publisher<Project> {
+
+  static final int DEFAULT_MAX_BUFFERED_PAGES = 2;
+
+  private final ResourceManager resourceManager;
+  private final List<ProjectListOption> listOptions;
+  private final int maxBufferedPages;
+
+  /** Builder for {@code ProjectPublisher}. */
+  public static final class Builder {
+
+    private final ResourceManager resourceManager;
+    private List<ProjectListOption> listOptions = Collections.emptyList();
+    private int maxBufferedPages = DEFAULT_MAX_BUFFERED_PAGES;
+
+    private Builder(ResourceManager resourceManager) {
+      this.resourceManager = checkNotNull(resourceManager);
+    }
+
+    /**
+     * Sets the options of the listing, such as its filter and page size. Page tokens are not
+     * supported: the publisher follows the page tokens itself.
+     */
+    public Builder setListOptions(ProjectListOption... listOptions) {
+      for (ProjectListOption option : listOptions) {
+        checkArgument(
+            option.getRpcOption() != ResourceManagerRpc.Option.PAGE_TOKEN,
+            "A published listing can't start from a page token");
+      }
+      this.listOptions = Arrays.asList(listOptions.clone());
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pages held by a subscription, including the page being requested.
+     * Defaults to 2, so that the next page can be requested while the previous one is consumed.
+     */
+    public Builder setMaxBufferedPages(int maxBufferedPages) {
+      checkArgument(maxBufferedPages > 0, "At least one page must be buffered");
+      this.maxBufferedPages = maxBufferedPages;
+      return this;
+    }
+
+    public ProjectPublisher build() {
+      return new ProjectPublisher(this);
+    }
+  }
+
+  private ProjectPublisher(Builder builder) {
+    this.resourceManager = builder.resourceManager;
+    this.listOptions = builder.listOptions;
+    this.maxBufferedPages = builder.maxBufferedPages;
+  }
+
+  /** Returns a builder for a publisher that uses {@code resourceManager} to list projects. */
+  public static Builder newBuilder(ResourceManager resourceManager) {
+    return new Builder(resourceManager);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super Project> subscriber) {
+    checkNotNull(subscriber);
+    ListingSubscription subscription = new ListingSubscription(subscriber);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private final class ListingSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super Project> subscriber;
+    private final AtomicLong requested = new AtomicLong();
+    // Serializes the signals to the subscriber: only the thread that raised it from 0 drains.
+    private final AtomicInteger drainRequests = new AtomicInteger();
+    // Received pages that are not being consumed. Its lock guards the fields below.
+    private final PageBuffer<Project> pages =
+        new PageBuffer<Project>() {
+          @Override
+          protected void maybeFetch() {
+            maybeRequestPage();
+          }
+
+          @Override
+          protected void onBuffered() {
+            drain();
+          }
+        };
+    private Iterator<Project> currentPage = Collections.emptyIterator();
+    private long bufferedProjects;
+    private String nextPageToken;
+    private boolean exhausted;
+    // Signalled right away, unlike a failed page request that ends the buffered projects.
+    private IllegalArgumentException invalidDemand;
+    private volatile boolean done;
+
+    ListingSubscription(Flow.Subscriber<? super Project> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (done) {
+        return;
+      }
+      if (n <= 0) {
+        synchronized (pages) {
+          invalidDemand =
+              new IllegalArgumentException(
+                  "Requested " + n + " projects, expected a positive count");
+        }
+      } else {
+        long current;
+        long updated;
+        do {
+          current = requested.get();
+          updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+        } while (!requested.compareAndSet(current, updated));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      done = true;
+      pages.close();
+      synchronized (pages) {
+        currentPage = Collections.emptyIterator();
+        bufferedProjects = 0;
+      }
+    }
+
+    private void drain() {
+      if (drainRequests.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        long demand = requested.get();
+        long delivered = 0;
+        while (delivered != demand && !done) {
+          Project project = poll();
+          if (project == null) {
+            break;
+          }
+          subscriber.onNext(project);
+          delivered++;
+        }
+        if (delivered != 0 && demand != Long.MAX_VALUE) {
+          requested.addAndGet(-delivered);
+        }
+        if (done) {
+          return;
+        }
+        Throwable terminalFailure;
+        boolean complete;
+        synchronized (pages) {
+          boolean empty = bufferedProjects == 0;
+          terminalFailure =
+              invalidDemand != null ? invalidDemand : empty ? pages.getFailure() : null;
+          complete = terminalFailure == null && empty && exhausted;
+        }
+        if (terminalFailure == null && !complete) {
+          pages.fetchMore();
+        }
+        if (terminalFailure != null) {
+          cancel();
+          subscriber.onError(terminalFailure);
+          return;
+        }
+        if (complete) {
+          done = true;
+          subscriber.onComplete();
+          return;
+        }
+        missed = drainRequests.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private Project poll() {
+      synchronized (pages) {
+        if (bufferedProjects == 0) {
+          return null;
+        }
+        // Buffered pages are never empty, and the failure only follows them.
+        while (!currentPage.hasNext()) {
+          currentPage = pages.poll().iterator();
+        }
+        bufferedProjects--;
+        return currentPage.next();
+      }
+    }
+
+    // Called while holding the lock of the pages.
+    private void maybeRequestPage() {
+      int heldPages = pages.bufferedPageCount() + (currentPage.hasNext() ? 1 : 0);
+      if (pages.inFlightCount() > 0
+          || exhausted
+          || requested.get() <= bufferedProjects
+          || heldPages >= maxBufferedPages) {
+        return;
+      }
+      List<ProjectListOption> requestOptions = new ArrayList<>(listOptions);
+      if (nextPageToken != null) {
+        requestOptions.add(ProjectListOption.pageToken(nextPageToken));
+      }
+      pages.fetch(
+          resourceManager.listAsync(requestOptions.toArray(new ProjectListOption[0])),
+          new PageBuffer.PageListener<Project>() {
+            @Override
+            public void onPage(List<Project> values, String pageToken) {
+              nextPageToken = pageToken;
+              exhausted = Strings.isNullOrEmpty(nextPageToken);
+              bufferedProjects += values.size();
+            }
+          });
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ProjectPublisher{listOptions="
+        + listOptions
+        + ", maxBufferedPages="
+        + maxBufferedPages
+        + "}";
+  }
+}
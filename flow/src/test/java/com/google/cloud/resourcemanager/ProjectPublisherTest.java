@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ProjectPublisherTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final int PROJECT_COUNT = 7;
+  private static final long TIMEOUT_SECONDS = 10;
+  private static final Object COMPLETE = new Object();
+
+  private static final List<String> PROJECT_IDS = new ArrayList<>();
+
+  /** Records the signals it receives, in order. */
+  private static final class RecordingSubscriber implements Flow.Subscriber<Project> {
+
+    // Projects, then COMPLETE or a Throwable.
+    private final BlockingQueue<Object> signals = new LinkedBlockingQueue<>();
+    private volatile Flow.Subscription subscription;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(Project project) {
+      signals.add(project);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      signals.add(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      signals.add(COMPLETE);
+    }
+
+    Object next() throws InterruptedException {
+      Object signal = signals.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      if (signal == null) {
+        fail("No signal received");
+      }
+      return signal;
+    }
+
+    String nextProjectId() throws InterruptedException {
+      return ((Project) next()).getProjectId();
+    }
+  }
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+    ResourceManager resourceManager = RESOURCE_MANAGER_HELPER.getOptions().getService();
+    for (int i = 0; i < PROJECT_COUNT; i++) {
+      String projectId = "publisher-project-" + i;
+      resourceManager.create(ProjectInfo.newBuilder(projectId).build());
+      PROJECT_IDS.add(projectId);
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  private static ResourceManager meteredResourceManager(InMemoryMetricsListener metricsListener) {
+    return RESOURCE_MANAGER_HELPER
+        .getOptions()
+        .toBuilder()
+        .setMetricsListener(metricsListener)
+        .build()
+        .getService();
+  }
+
+  @Test
+  public void testPublishAll() throws InterruptedException {
+    ProjectPublisher publisher =
+        ProjectPublisher.newBuilder(RESOURCE_MANAGER_HELPER.getOptions().getService())
+            .setListOptions(ProjectListOption.pageSize(2))
+            .build();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    for (String projectId : PROJECT_IDS) {
+      assertEquals(projectId, subscriber.nextProjectId());
+    }
+    assertEquals(COMPLETE, subscriber.next());
+  }
+
+  @Test
+  public void testPagesFollowDemand() throws InterruptedException {
+    InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+    ProjectPublisher publisher =
+        ProjectPublisher.newBuilder(meteredResourceManager(metricsListener))
+            .setListOptions(ProjectListOption.pageSize(3))
+            .setMaxBufferedPages(1)
+            .build();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    assertEquals(0, metricsListener.getPageCount());
+    subscriber.subscription.request(1);
+    assertEquals(PROJECT_IDS.get(0), subscriber.nextProjectId());
+    // The first page holds the next two projects, no other page is needed.
+    subscriber.subscription.request(2);
+    assertEquals(PROJECT_IDS.get(1), subscriber.nextProjectId());
+    assertEquals(PROJECT_IDS.get(2), subscriber.nextProjectId());
+    assertEquals(1, metricsListener.getPageCount());
+    subscriber.subscription.request(1);
+    assertEquals(PROJECT_IDS.get(3), subscriber.nextProjectId());
+    assertEquals(2, metricsListener.getPageCount());
+    subscriber.subscription.request(Long.MAX_VALUE);
+    for (String projectId : PROJECT_IDS.subList(4, PROJECT_COUNT)) {
+      assertEquals(projectId, subscriber.nextProjectId());
+    }
+    assertEquals(COMPLETE, subscriber.next());
+    assertEquals(3, metricsListener.getPageCount());
+  }
+
+  @Test
+  public void testCancel() throws InterruptedException {
+    InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+    ProjectPublisher publisher =
+        ProjectPublisher.newBuilder(meteredResourceManager(metricsListener))
+            .setListOptions(ProjectListOption.pageSize(2))
+            .build();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(2);
+    assertEquals(PROJECT_IDS.get(0), subscriber.nextProjectId());
+    assertEquals(PROJECT_IDS.get(1), subscriber.nextProjectId());
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(Long.MAX_VALUE);
+    assertNull(subscriber.signals.poll(200, TimeUnit.MILLISECONDS));
+    assertEquals(1, metricsListener.getPageCount());
+  }
+
+  @Test
+  public void testFailure() throws InterruptedException {
+    ProjectPublisher publisher =
+        ProjectPublisher.newBuilder(RESOURCE_MANAGER_HELPER.getOptions().getService())
+            .setListOptions(ProjectListOption.filter("unsupported:filter"))
+            .build();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(1);
+    Object signal = subscriber.next();
+    assertTrue(signal instanceof ResourceManagerException);
+    assertEquals(400, ((ResourceManagerException) signal).getCode());
+  }
+
+  @Test
+  public void testInvalidDemand() throws InterruptedException {
+    ProjectPublisher publisher =
+        ProjectPublisher.newBuilder(RESOURCE_MANAGER_HELPER.getOptions().getService()).build();
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    publisher.subscribe(subscriber);
+    subscriber.subscription.request(0);
+    assertTrue(subscriber.next() instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void testBuilderRejectsInvalidSettings() {
+    ProjectPublisher.Builder builder =
+        ProjectPublisher.newBuilder(RESOURCE_MANAGER_HELPER.getOptions().getService());
+    try {
+      builder.setMaxBufferedPages(0);
+      fail("Should reject a buffer of zero pages.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      builder.setListOptions(ProjectListOption.pageToken("token"));
+      fail("Should reject a page token.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
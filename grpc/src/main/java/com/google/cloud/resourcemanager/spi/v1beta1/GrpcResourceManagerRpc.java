@@ -0,0 +1,556 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFunction;
+import com.google.api.services.cloudresourcemanager.model.Policy;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.auth.Credentials;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Tuple;
+import com.google.cloud.resourcemanager.ResourceManagerException;
+import com.google.cloud.resourcemanager.ResourceManagerOptions;
+import com.google.cloud.resourcemanager.v3.CreateProjectRequest;
+import com.google.cloud.resourcemanager.v3.DeleteProjectRequest;
+import com.google.cloud.resourcemanager.v3.GetProjectRequest;
+import com.google.cloud.resourcemanager.v3.ProjectsGrpc;
+import com.google.cloud.resourcemanager.v3.SearchProjectsRequest;
+import com.google.cloud.resourcemanager.v3.SearchProjectsResponse;
+import com.google.cloud.resourcemanager.v3.UndeleteProjectRequest;
+import com.google.cloud.resourcemanager.v3.UpdateProjectRequest;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.iam.v1.GetIamPolicyRequest;
+import com.google.iam.v1.SetIamPolicyRequest;
+import com.google.iam.v1.TestIamPermissionsRequest;
+import com.google.iam.v1.TestIamPermissionsResponse;
+import com.google.longrunning.GetOperationRequest;
+import com.google.longrunning.Operation;
+import com.google.longrunning.OperationsGrpc;
+import com.google.protobuf.FieldMask;
+import io.grpc.Channel;
+import io.grpc.Deadline;
+import io.grpc.StatusRuntimeException;
+import io.grpc.auth.MoreCallCredentials;
+import io.grpc.stub.AbstractStub;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link ResourceManagerRpc} that calls the v3 gRPC API of Cloud Resource Manager with protobuf
+ * payloads, over a channel that can be shared, and multiplexed, by many instances.
+ *
+ * <p>The v1 requests map to their v3 equivalents: {@code list} searches the projects with the
+ * filter translated to a query, {@code replace} updates the display name and the labels of the
+ * project, and {@code delete} and {@code undelete} start operations without waiting for them. The
+ * {@code fields} option is ignored: the v3 API always returns whole projects. Batches send their
+ * requests concurrently on the channel instead of in one HTTP request.
+ *
+ * @see GrpcResourceManagerRpcFactory
+ */
+public class GrpcResourceManagerRpc implements ResourceManagerRpc {
+
+  private static final FieldMask UPDATE_MASK =
+      FieldMask.newBuilder().addPaths("display_name").addPaths("labels").build();
+
+  private final ProjectsGrpc.ProjectsBlockingStub projects;
+  private final ProjectsGrpc.ProjectsFutureStub projectsAsync;
+  private final OperationsGrpc.OperationsBlockingStub operations;
+  private final OperationsGrpc.OperationsFutureStub operationsAsync;
+  private final long rpcTimeoutMillis;
+  private final ApiClock clock;
+
+  public GrpcResourceManagerRpc(ResourceManagerOptions options, Channel channel) {
+    Credentials credentials = options.getScopedCredentials();
+    if (credentials instanceof NoCredentials) {
+      credentials = null;
+    }
+    projects = withCredentials(ProjectsGrpc.newBlockingStub(channel), credentials);
+    projectsAsync = withCredentials(ProjectsGrpc.newFutureStub(channel), credentials);
+    operations = withCredentials(OperationsGrpc.newBlockingStub(channel), credentials);
+    operationsAsync = withCredentials(OperationsGrpc.newFutureStub(channel), credentials);
+    rpcTimeoutMillis = options.getRetrySettings().getMaxRpcTimeout().toMillis();
+    clock = options.getClock();
+  }
+
+  private static <S extends AbstractStub<S>> S withCredentials(S stub, Credentials credentials) {
+    return credentials != null
+        ? stub.withCallCredentials(MoreCallCredentials.from(credentials))
+        : stub;
+  }
+
+  /** Returns {@code stub} with the deadline of a call starting now. */
+  private <S extends AbstractStub<S>> S withDeadline(S stub) {
+    return rpcTimeoutMillis > 0
+        ? stub.withDeadline(Deadline.after(rpcTimeoutMillis, TimeUnit.MILLISECONDS))
+        : stub;
+  }
+
+  /** Translates a gRPC status to the HTTP status code the REST API would have returned. */
+  static int httpCodeOf(io.grpc.Status.Code code) {
+    switch (code) {
+      case OK:
+        return 200;
+      case INVALID_ARGUMENT:
+      case FAILED_PRECONDITION:
+      case OUT_OF_RANGE:
+        return 400;
+      case UNAUTHENTICATED:
+        return 401;
+      case PERMISSION_DENIED:
+        return 403;
+      case NOT_FOUND:
+        return 404;
+      case ALREADY_EXISTS:
+      case ABORTED:
+        return 409;
+      case RESOURCE_EXHAUSTED:
+        return 429;
+      case CANCELLED:
+        return 499;
+      case UNIMPLEMENTED:
+        return 501;
+      case UNAVAILABLE:
+        return 503;
+      case DEADLINE_EXCEEDED:
+        return 504;
+      default:
+        return 500;
+    }
+  }
+
+  private static ResourceManagerException translate(StatusRuntimeException exception) {
+    io.grpc.Status status = exception.getStatus();
+    return new ResourceManagerException(
+        httpCodeOf(status.getCode()),
+        Strings.isNullOrEmpty(status.getDescription())
+            ? status.getCode().name()
+            : status.getDescription(),
+        exception);
+  }
+
+  private static GoogleJsonError toJsonError(Throwable throwable) {
+    io.grpc.Status status = io.grpc.Status.fromThrowable(throwable);
+    GoogleJsonError error = new GoogleJsonError();
+    error.setCode(httpCodeOf(status.getCode()));
+    error.setMessage(
+        Strings.isNullOrEmpty(status.getDescription())
+            ? status.getCode().name()
+            : status.getDescription());
+    return error;
+  }
+
+  @Override
+  public Project create(Project project) {
+    return HttpResourceManagerRpc.awaitCreate(this, startCreate(project), clock);
+  }
+
+  @Override
+  public ProjectOperation startCreate(Project project) {
+    try {
+      return ProtoConverters.fromPb(
+          withDeadline(projects)
+              .createProject(
+                  CreateProjectRequest.newBuilder()
+                      .setProject(ProtoConverters.toPb(project))
+                      .build()));
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+  }
+
+  @Override
+  public ProjectOperation getOperation(String name) {
+    try {
+      return ProtoConverters.fromPb(
+          withDeadline(operations)
+              .getOperation(GetOperationRequest.newBuilder().setName(name).build()));
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+  }
+
+  @Override
+  public void delete(String projectId) {
+    try {
+      withDeadline(projects).deleteProject(deleteRequest(projectId));
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+  }
+
+  @Override
+  public Project get(String projectId, Map<Option, ?> options) {
+    try {
+      return ProtoConverters.fromPb(withDeadline(projects).getProject(getRequest(projectId)));
+    } catch (StatusRuntimeException ex) {
+      ResourceManagerException translated = translate(ex);
+      if (translated.getCode() == HTTP_FORBIDDEN || translated.getCode() == HTTP_NOT_FOUND) {
+        // Service can return either 403 or 404 to signify that the project doesn't exist.
+        return null;
+      } else {
+        throw translated;
+      }
+    }
+  }
+
+  @Override
+  public Tuple<String, Iterable<Project>> list(Map<Option, ?> options) {
+    return listStreaming(
+        options,
+        new ApiFunction<Project, Project>() {
+          @Override
+          public Project apply(Project project) {
+            return project;
+          }
+        });
+  }
+
+  /**
+   * Lists the projects visible to the current user. The response is decoded as a whole, since
+   * protobuf decoding is cheap, but the projects are only converted as they are passed to {@code
+   * converter}.
+   */
+  @Override
+  public <T> Tuple<String, Iterable<T>> listStreaming(
+      Map<Option, ?> options, ApiFunction<Project, T> converter) {
+    SearchProjectsRequest.Builder request = SearchProjectsRequest.newBuilder();
+    String filter = (String) options.get(Option.FILTER);
+    if (filter != null) {
+      request.setQuery(ProtoConverters.toQuery(filter));
+    }
+    Integer pageSize = (Integer) options.get(Option.PAGE_SIZE);
+    if (pageSize != null) {
+      request.setPageSize(pageSize);
+    }
+    String pageToken = (String) options.get(Option.PAGE_TOKEN);
+    if (pageToken != null) {
+      request.setPageToken(pageToken);
+    }
+    SearchProjectsResponse response;
+    try {
+      response = withDeadline(projects).searchProjects(request.build());
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+    List<T> values = new ArrayList<>(response.getProjectsCount());
+    for (com.google.cloud.resourcemanager.v3.Project projectPb : response.getProjectsList()) {
+      values.add(converter.apply(ProtoConverters.fromPb(projectPb)));
+    }
+    return Tuple.<String, Iterable<T>>of(
+        Strings.emptyToNull(response.getNextPageToken()), values);
+  }
+
+  @Override
+  public void undelete(String projectId) {
+    try {
+      withDeadline(projects).undeleteProject(undeleteRequest(projectId));
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+  }
+
+  @Override
+  public Project replace(Project project) {
+    try {
+      return replacedProject(
+          project.getProjectId(), withDeadline(projects).updateProject(updateRequest(project)));
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+  }
+
+  /**
+   * Returns the project updated by {@code operation}, or the current state of the project if the
+   * operation is still running.
+   */
+  private Project replacedProject(String projectId, Operation operation) {
+    ProjectOperation converted = ProtoConverters.fromPb(operation);
+    if (converted.getError() != null) {
+      throw new ResourceManagerException(converted.getError());
+    }
+    if (converted.getResponse() != null) {
+      return converted.getResponse();
+    }
+    return ProtoConverters.fromPb(withDeadline(projects).getProject(getRequest(projectId)));
+  }
+
+  @Override
+  public Policy getPolicy(String projectId) {
+    try {
+      return ProtoConverters.fromPb(
+          withDeadline(projects)
+              .getIamPolicy(
+                  GetIamPolicyRequest.newBuilder()
+                      .setResource(ProtoConverters.projectName(projectId))
+                      .build()));
+    } catch (StatusRuntimeException ex) {
+      ResourceManagerException translated = translate(ex);
+      if (translated.getCode() == HTTP_FORBIDDEN) {
+        // Service returns permission denied if policy doesn't exist.
+        return null;
+      } else {
+        throw translated;
+      }
+    }
+  }
+
+  @Override
+  public Policy replacePolicy(String projectId, Policy newPolicy) {
+    try {
+      return ProtoConverters.fromPb(
+          withDeadline(projects)
+              .setIamPolicy(
+                  SetIamPolicyRequest.newBuilder()
+                      .setResource(ProtoConverters.projectName(projectId))
+                      .setPolicy(ProtoConverters.toPb(newPolicy))
+                      .build()));
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+  }
+
+  @Override
+  public List<Boolean> testPermissions(String projectId, List<String> permissions) {
+    TestIamPermissionsResponse response;
+    try {
+      response =
+          withDeadline(projects)
+              .testIamPermissions(
+                  TestIamPermissionsRequest.newBuilder()
+                      .setResource(ProtoConverters.projectName(projectId))
+                      .addAllPermissions(permissions)
+                      .build());
+    } catch (StatusRuntimeException ex) {
+      throw translate(ex);
+    }
+    Set<String> permissionsOwned = ImmutableSet.copyOf(response.getPermissionsList());
+    ImmutableList.Builder<Boolean> answer = ImmutableList.builder();
+    for (String p : permissions) {
+      answer.add(permissionsOwned.contains(p));
+    }
+    return answer.build();
+  }
+
+  @Override
+  public RpcBatch createBatch() {
+    return new GrpcRpcBatch();
+  }
+
+  private static GetProjectRequest getRequest(String projectId) {
+    return GetProjectRequest.newBuilder().setName(ProtoConverters.projectName(projectId)).build();
+  }
+
+  private static DeleteProjectRequest deleteRequest(String projectId) {
+    return DeleteProjectRequest.newBuilder()
+        .setName(ProtoConverters.projectName(projectId))
+        .build();
+  }
+
+  private static UndeleteProjectRequest undeleteRequest(String projectId) {
+    return UndeleteProjectRequest.newBuilder()
+        .setName(ProtoConverters.projectName(projectId))
+        .build();
+  }
+
+  private static UpdateProjectRequest updateRequest(Project project) {
+    return UpdateProjectRequest.newBuilder()
+        .setProject(
+            ProtoConverters.toPb(project).toBuilder()
+                .setName(ProtoConverters.projectName(project.getProjectId())))
+        .setUpdateMask(UPDATE_MASK)
+        .build();
+  }
+
+  /** A call of a batch, started when the batch is submitted. */
+  private abstract static class BatchCall<V, T> {
+
+    private final RpcBatch.Callback<T> callback;
+    private ListenableFuture<V> future;
+
+    BatchCall(RpcBatch.Callback<T> callback) {
+      this.callback = callback;
+    }
+
+    abstract ListenableFuture<V> start();
+
+    /** Converts the response of the call to the value passed to the callback. */
+    abstract T convert(V response);
+
+    /** Returns whether a failure with {@code code} is passed to the callback as {@code null}. */
+    boolean nullForCode(int code) {
+      return false;
+    }
+
+    final void send() {
+      future = start();
+    }
+
+    final void complete() throws InterruptedException {
+      V response;
+      try {
+        response = future.get();
+      } catch (ExecutionException ex) {
+        GoogleJsonError error = toJsonError(ex.getCause());
+        if (nullForCode(error.getCode())) {
+          callback.onSuccess(null);
+        } else {
+          callback.onFailure(error);
+        }
+        return;
+      }
+      T converted;
+      try {
+        converted = convert(response);
+      } catch (StatusRuntimeException ex) {
+        callback.onFailure(toJsonError(ex));
+        return;
+      } catch (ResourceManagerException ex) {
+        GoogleJsonError error = new GoogleJsonError();
+        error.setCode(ex.getCode());
+        error.setMessage(ex.getMessage());
+        callback.onFailure(error);
+        return;
+      }
+      callback.onSuccess(converted);
+    }
+  }
+
+  /**
+   * A batch whose requests are sent concurrently on the channel when it is submitted. The
+   * callbacks are then called in the order the requests were added, from the submitting thread.
+   */
+  private class GrpcRpcBatch implements RpcBatch {
+
+    private final List<BatchCall<?, ?>> calls = new ArrayList<>();
+
+    @Override
+    public void addGet(
+        final String projectId,
+        Callback<Project> callback,
+        Map<ResourceManagerRpc.Option, ?> options) {
+      calls.add(
+          new BatchCall<com.google.cloud.resourcemanager.v3.Project, Project>(callback) {
+            @Override
+            ListenableFuture<com.google.cloud.resourcemanager.v3.Project> start() {
+              return withDeadline(projectsAsync).getProject(getRequest(projectId));
+            }
+
+            @Override
+            Project convert(com.google.cloud.resourcemanager.v3.Project response) {
+              return ProtoConverters.fromPb(response);
+            }
+
+            @Override
+            boolean nullForCode(int code) {
+              // Service can return either 403 or 404 to signify that the project doesn't exist.
+              return code == HTTP_FORBIDDEN || code == HTTP_NOT_FOUND;
+            }
+          });
+    }
+
+    @Override
+    public void addReplace(final Project project, Callback<Project> callback) {
+      calls.add(
+          new BatchCall<Operation, Project>(callback) {
+            @Override
+            ListenableFuture<Operation> start() {
+              return withDeadline(projectsAsync).updateProject(updateRequest(project));
+            }
+
+            @Override
+            Project convert(Operation response) {
+              return replacedProject(project.getProjectId(), response);
+            }
+          });
+    }
+
+    @Override
+    public void addDelete(final String projectId, Callback<Void> callback) {
+      calls.add(
+          new BatchCall<Operation, Void>(callback) {
+            @Override
+            ListenableFuture<Operation> start() {
+              return withDeadline(projectsAsync).deleteProject(deleteRequest(projectId));
+            }
+
+            @Override
+            Void convert(Operation response) {
+              return null;
+            }
+          });
+    }
+
+    @Override
+    public void addUndelete(final String projectId, Callback<Void> callback) {
+      calls.add(
+          new BatchCall<Operation, Void>(callback) {
+            @Override
+            ListenableFuture<Operation> start() {
+              return withDeadline(projectsAsync).undeleteProject(undeleteRequest(projectId));
+            }
+
+            @Override
+            Void convert(Operation response) {
+              return null;
+            }
+          });
+    }
+
+    @Override
+    public void addGetOperation(final String name, Callback<ProjectOperation> callback) {
+      calls.add(
+          new BatchCall<Operation, ProjectOperation>(callback) {
+            @Override
+            ListenableFuture<Operation> start() {
+              return withDeadline(operationsAsync)
+                  .getOperation(GetOperationRequest.newBuilder().setName(name).build());
+            }
+
+            @Override
+            ProjectOperation convert(Operation response) {
+              return ProtoConverters.fromPb(response);
+            }
+          });
+    }
+
+    @Override
+    public void submit() {
+      for (BatchCall<?, ?> call : calls) {
+        call.send();
+      }
+      try {
+        for (BatchCall<?, ?> call : calls) {
+          call.complete();
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new ResourceManagerException(499, "Interrupted while waiting for the batch", ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.ServiceRpc;
+import com.google.cloud.resourcemanager.ResourceManagerOptions;
+import com.google.cloud.resourcemanager.spi.ResourceManagerRpcFactory;
+import io.grpc.Channel;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import java.net.URI;
+
+/**
+ * A {@link ResourceManagerRpcFactory} that creates {@link GrpcResourceManagerRpc} objects, all
+ * sending their calls on the same channel. Select it with {@link
+ * ResourceManagerOptions.Builder#setServiceRpcFactory}:
+ *
+ * <pre>{@code
+ * GrpcResourceManagerRpcFactory rpcFactory = new GrpcResourceManagerRpcFactory();
+ * ResourceManager resourceManager =
+ *     ResourceManagerOptions.newBuilder().setServiceRpcFactory(rpcFactory).build().getService();
+ * }</pre>
+ *
+ * <p>The credentials are set per call, so options with different credentials can share a factory
+ * and its channel.
+ */
+public class GrpcResourceManagerRpcFactory implements ResourceManagerRpcFactory {
+
+  private final Channel channel;
+  private ManagedChannel ownedChannel;
+
+  /**
+   * Creates a factory whose channel is opened on first use, to the host of the options of the
+   * first RPC object created. This constructor is also used when options are deserialized.
+   */
+  public GrpcResourceManagerRpcFactory() {
+    this.channel = null;
+  }
+
+  /** Creates a factory sending the calls on {@code channel}, which it doesn't shut down. */
+  public GrpcResourceManagerRpcFactory(Channel channel) {
+    this.channel = checkNotNull(channel);
+  }
+
+  @Override
+  public ServiceRpc create(ResourceManagerOptions options) {
+    return new GrpcResourceManagerRpc(options, getChannel(options));
+  }
+
+  private synchronized Channel getChannel(ResourceManagerOptions options) {
+    if (channel != null) {
+      return channel;
+    }
+    if (ownedChannel == null) {
+      ownedChannel = newChannel(options.getHost());
+    }
+    return ownedChannel;
+  }
+
+  /**
+   * Returns a channel to {@code host}, the URL of the service as set in the options. Plain {@code
+   * http} hosts are reached without TLS.
+   */
+  static ManagedChannel newChannel(String host) {
+    URI uri = URI.create(host);
+    boolean plaintext = "http".equals(uri.getScheme());
+    int port = uri.getPort() >= 0 ? uri.getPort() : plaintext ? 80 : 443;
+    ManagedChannelBuilder<?> builder = ManagedChannelBuilder.forAddress(uri.getHost(), port);
+    if (plaintext) {
+      builder.usePlaintext();
+    }
+    return builder.build();
+  }
+
+  /** Shuts down the channel opened by this factory, if any. */
+  public synchronized void shutdown() {
+    if (ownedChannel != null) {
+      ownedChannel.shutdown();
+    }
+  }
+}
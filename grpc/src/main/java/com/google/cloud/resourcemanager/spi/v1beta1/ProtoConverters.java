@@ -0,0 +1,266 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.cloudresourcemanager.model.Binding;
+import com.google.api.services.cloudresourcemanager.model.Expr;
+import com.google.api.services.cloudresourcemanager.model.Policy;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.api.services.cloudresourcemanager.model.ResourceId;
+import com.google.api.services.cloudresourcemanager.model.Status;
+import com.google.cloud.resourcemanager.ResourceManagerException;
+import com.google.common.base.Ascii;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.longrunning.Operation;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Converts between the protobuf messages of the v3 gRPC API and the JSON models of the v1 REST
+ * API that {@link ResourceManagerRpc} is defined with.
+ */
+final class ProtoConverters {
+
+  static final String PROJECTS_PREFIX = "projects/";
+
+  private ProtoConverters() {}
+
+  /** Returns the resource name of the project with ID {@code projectId}. */
+  static String projectName(String projectId) {
+    return PROJECTS_PREFIX + projectId;
+  }
+
+  static Project fromPb(com.google.cloud.resourcemanager.v3.Project projectPb) {
+    Project project = new Project().setProjectId(projectPb.getProjectId());
+    if (projectPb.getName().startsWith(PROJECTS_PREFIX)) {
+      String number = projectPb.getName().substring(PROJECTS_PREFIX.length());
+      if (isNumber(number)) {
+        project.setProjectNumber(Long.parseLong(number));
+      }
+    }
+    if (!projectPb.getDisplayName().isEmpty()) {
+      project.setName(projectPb.getDisplayName());
+    }
+    if (projectPb.getLabelsCount() > 0) {
+      project.setLabels(new HashMap<>(projectPb.getLabelsMap()));
+    }
+    switch (projectPb.getState()) {
+      case ACTIVE:
+        project.setLifecycleState("ACTIVE");
+        break;
+      case DELETE_REQUESTED:
+        project.setLifecycleState("DELETE_REQUESTED");
+        break;
+      default:
+        project.setLifecycleState("LIFECYCLE_STATE_UNSPECIFIED");
+        break;
+    }
+    if (projectPb.hasCreateTime()) {
+      project.setCreateTime(toRfc3339(projectPb.getCreateTime()));
+    }
+    if (!projectPb.getParent().isEmpty()) {
+      project.setParent(parentFromPb(projectPb.getParent()));
+    }
+    return project;
+  }
+
+  static com.google.cloud.resourcemanager.v3.Project toPb(Project project) {
+    com.google.cloud.resourcemanager.v3.Project.Builder builder =
+        com.google.cloud.resourcemanager.v3.Project.newBuilder()
+            .setProjectId(Strings.nullToEmpty(project.getProjectId()))
+            .setDisplayName(Strings.nullToEmpty(project.getName()));
+    if (project.getProjectNumber() != null) {
+      builder.setName(PROJECTS_PREFIX + project.getProjectNumber());
+    }
+    if (project.getLabels() != null) {
+      builder.putAllLabels(project.getLabels());
+    }
+    if (project.getParent() != null) {
+      builder.setParent(project.getParent().getType() + "s/" + project.getParent().getId());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Translates a v1 list filter to a v3 search query. The terms on {@code name}, {@code id}, {@code
+   * labels.key} and {@code lifecycleState} map to terms on {@code displayName}, {@code id}, {@code
+   * labels.key} and {@code state}, and a pair of {@code parent.type} and {@code parent.id} terms
+   * maps to one {@code parent} term. Field names are case insensitive, as in v1.
+   *
+   * @throws ResourceManagerException if a term has no v3 equivalent
+   */
+  static String toQuery(String filter) {
+    List<String> terms = new ArrayList<>();
+    String parentType = null;
+    String parentId = null;
+    for (String term : Splitter.on(' ').omitEmptyStrings().split(filter)) {
+      if ("AND".equals(term)) {
+        continue;
+      }
+      int separator = term.indexOf(':');
+      if (separator <= 0) {
+        throw unsupportedFilter(filter, term);
+      }
+      String field = Ascii.toLowerCase(term.substring(0, separator));
+      String value = term.substring(separator + 1);
+      if ("name".equals(field)) {
+        terms.add("displayName:" + value);
+      } else if ("id".equals(field)) {
+        terms.add("id:" + value);
+      } else if (field.startsWith("labels.") && field.length() > "labels.".length()) {
+        terms.add(term);
+      } else if ("lifecyclestate".equals(field)) {
+        terms.add("state:" + value);
+      } else if ("parent.type".equals(field) && parentType == null && isLiteral(value)) {
+        parentType = Ascii.toLowerCase(value);
+      } else if ("parent.id".equals(field) && parentId == null && isLiteral(value)) {
+        parentId = value;
+      } else {
+        throw unsupportedFilter(filter, term);
+      }
+    }
+    if (parentType != null && parentId != null) {
+      terms.add("parent:" + parentType + "s/" + parentId);
+    } else if (parentType != null || parentId != null) {
+      // v3 only matches on the whole parent resource name.
+      throw unsupportedFilter(filter, parentType != null ? "parent.type" : "parent.id");
+    }
+    return Joiner.on(' ').join(terms);
+  }
+
+  private static boolean isLiteral(String value) {
+    return !value.isEmpty() && value.indexOf('*') < 0;
+  }
+
+  private static ResourceManagerException unsupportedFilter(String filter, String term) {
+    return new ResourceManagerException(
+        400, "Filter '" + filter + "' cannot be translated to a v3 query at: " + term);
+  }
+
+  private static boolean isNumber(String value) {
+    if (value.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (!Character.isDigit(value.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Converts a parent such as {@code organizations/123} to a resource ID. */
+  private static ResourceId parentFromPb(String parent) {
+    int separator = parent.indexOf('/');
+    String collection = parent.substring(0, separator);
+    // The v1 types are the singular of the v3 collections: organization, folder.
+    String type =
+        collection.endsWith("s") ? collection.substring(0, collection.length() - 1) : collection;
+    return new ResourceId().setType(type).setId(parent.substring(separator + 1));
+  }
+
+  private static String toRfc3339(Timestamp timestamp) {
+    long millis = timestamp.getSeconds() * 1000 + timestamp.getNanos() / 1_000_000;
+    return new DateTime(millis).toStringRfc3339();
+  }
+
+  static Policy fromPb(com.google.iam.v1.Policy policyPb) {
+    List<Binding> bindings = new ArrayList<>(policyPb.getBindingsCount());
+    for (com.google.iam.v1.Binding bindingPb : policyPb.getBindingsList()) {
+      Binding binding =
+          new Binding()
+              .setRole(bindingPb.getRole())
+              .setMembers(new ArrayList<>(bindingPb.getMembersList()));
+      if (bindingPb.hasCondition()) {
+        com.google.type.Expr conditionPb = bindingPb.getCondition();
+        binding.setCondition(
+            new Expr()
+                .setExpression(conditionPb.getExpression())
+                .setTitle(Strings.emptyToNull(conditionPb.getTitle()))
+                .setDescription(Strings.emptyToNull(conditionPb.getDescription()))
+                .setLocation(Strings.emptyToNull(conditionPb.getLocation())));
+      }
+      bindings.add(binding);
+    }
+    Policy policy = new Policy().setVersion(policyPb.getVersion()).setBindings(bindings);
+    if (!policyPb.getEtag().isEmpty()) {
+      policy.encodeEtag(policyPb.getEtag().toByteArray());
+    }
+    return policy;
+  }
+
+  static com.google.iam.v1.Policy toPb(Policy policy) {
+    com.google.iam.v1.Policy.Builder builder = com.google.iam.v1.Policy.newBuilder();
+    if (policy.getVersion() != null) {
+      builder.setVersion(policy.getVersion());
+    }
+    if (policy.getBindings() != null) {
+      for (Binding binding : policy.getBindings()) {
+        com.google.iam.v1.Binding.Builder bindingBuilder =
+            com.google.iam.v1.Binding.newBuilder().setRole(binding.getRole());
+        if (binding.getMembers() != null) {
+          bindingBuilder.addAllMembers(binding.getMembers());
+        }
+        Expr condition = binding.getCondition();
+        if (condition != null) {
+          bindingBuilder.setCondition(
+              com.google.type.Expr.newBuilder()
+                  .setExpression(Strings.nullToEmpty(condition.getExpression()))
+                  .setTitle(Strings.nullToEmpty(condition.getTitle()))
+                  .setDescription(Strings.nullToEmpty(condition.getDescription()))
+                  .setLocation(Strings.nullToEmpty(condition.getLocation())));
+        }
+        builder.addBindings(bindingBuilder);
+      }
+    }
+    if (policy.getEtag() != null) {
+      builder.setEtag(ByteString.copyFrom(policy.decodeEtag()));
+    }
+    return builder.build();
+  }
+
+  /**
+   * Converts a long-running operation whose response is a project.
+   *
+   * @throws ResourceManagerException if the response is not a project
+   */
+  static ProjectOperation fromPb(Operation operationPb) {
+    ProjectOperation operation =
+        new ProjectOperation().setName(operationPb.getName()).setDone(operationPb.getDone());
+    if (operationPb.hasError()) {
+      com.google.rpc.Status errorPb = operationPb.getError();
+      operation.setError(new Status().setCode(errorPb.getCode()).setMessage(errorPb.getMessage()));
+    } else if (operationPb.hasResponse()) {
+      try {
+        operation.setResponse(
+            fromPb(
+                operationPb
+                    .getResponse()
+                    .unpack(com.google.cloud.resourcemanager.v3.Project.class)));
+      } catch (InvalidProtocolBufferException ex) {
+        throw new ResourceManagerException(500, "Unexpected operation response", ex);
+      }
+    }
+    return operation;
+  }
+}
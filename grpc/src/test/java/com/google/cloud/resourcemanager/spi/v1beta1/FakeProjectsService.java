@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.cloud.resourcemanager.v3.CreateProjectRequest;
+import com.google.cloud.resourcemanager.v3.DeleteProjectRequest;
+import com.google.cloud.resourcemanager.v3.GetProjectRequest;
+import com.google.cloud.resourcemanager.v3.Project;
+import com.google.cloud.resourcemanager.v3.ProjectsGrpc;
+import com.google.cloud.resourcemanager.v3.SearchProjectsRequest;
+import com.google.cloud.resourcemanager.v3.SearchProjectsResponse;
+import com.google.cloud.resourcemanager.v3.UndeleteProjectRequest;
+import com.google.cloud.resourcemanager.v3.UpdateProjectRequest;
+import com.google.common.base.Ascii;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.iam.v1.GetIamPolicyRequest;
+import com.google.iam.v1.Policy;
+import com.google.iam.v1.SetIamPolicyRequest;
+import com.google.iam.v1.TestIamPermissionsRequest;
+import com.google.iam.v1.TestIamPermissionsResponse;
+import com.google.longrunning.GetOperationRequest;
+import com.google.longrunning.Operation;
+import com.google.longrunning.OperationsGrpc;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Timestamp;
+import io.grpc.BindableService;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An in-memory stand-in for the Projects and Operations services of the v3 gRPC API. Projects are
+ * named by their number and found by their ID or their number. Project creations complete on their
+ * first poll, the other operations are done when returned. Searches support conjunctions of terms
+ * on the display name, ID, labels, state and parent of the projects.
+ */
+final class FakeProjectsService {
+
+  static final Set<String> GRANTED_PERMISSIONS = ImmutableSet.of("resourcemanager.projects.get");
+
+  private final Map<String, Project> projects = new TreeMap<>();
+  private final Map<String, Policy> policies = new HashMap<>();
+  private final Map<String, Operation> operations = new HashMap<>();
+  private long nextProjectNumber = 1;
+  private int policyVersion;
+
+  private final ProjectsGrpc.ProjectsImplBase projectsService =
+      new ProjectsGrpc.ProjectsImplBase() {
+        @Override
+        public void getProject(GetProjectRequest request, StreamObserver<Project> observer) {
+          synchronized (FakeProjectsService.this) {
+            Project project = find(request.getName());
+            if (project == null) {
+              observer.onError(Status.PERMISSION_DENIED.asRuntimeException());
+              return;
+            }
+            observer.onNext(project);
+            observer.onCompleted();
+          }
+        }
+
+        @Override
+        public void searchProjects(
+            SearchProjectsRequest request, StreamObserver<SearchProjectsResponse> observer) {
+          synchronized (FakeProjectsService.this) {
+            List<Project> all = new ArrayList<>();
+            for (Project project : projects.values()) {
+              Boolean matches = matches(project, request.getQuery());
+              if (matches == null) {
+                observer.onError(
+                    Status.INVALID_ARGUMENT.withDescription("Invalid query").asRuntimeException());
+                return;
+              }
+              if (matches) {
+                all.add(project);
+              }
+            }
+            int start =
+                request.getPageToken().isEmpty() ? 0 : Integer.parseInt(request.getPageToken());
+            int end = request.getPageSize() > 0 ? start + request.getPageSize() : all.size();
+            SearchProjectsResponse.Builder response = SearchProjectsResponse.newBuilder();
+            response.addAllProjects(all.subList(start, Math.min(end, all.size())));
+            if (end < all.size()) {
+              response.setNextPageToken(Integer.toString(end));
+            }
+            observer.onNext(response.build());
+            observer.onCompleted();
+          }
+        }
+
+        @Override
+        public void createProject(
+            CreateProjectRequest request, StreamObserver<Operation> observer) {
+          synchronized (FakeProjectsService.this) {
+            String projectId = request.getProject().getProjectId();
+            if (projects.containsKey(projectId)) {
+              observer.onError(
+                  Status.ALREADY_EXISTS.withDescription("Project exists").asRuntimeException());
+              return;
+            }
+            Project project =
+                request.getProject().toBuilder()
+                    .setName(ProtoConverters.projectName(Long.toString(nextProjectNumber)))
+                    .setState(Project.State.ACTIVE)
+                    .setCreateTime(Timestamp.newBuilder().setSeconds(1_500_000_000))
+                    .build();
+            projects.put(projectId, project);
+            String operationName = "operations/cp." + nextProjectNumber++;
+            operations.put(operationName, done(operationName, project));
+            observer.onNext(Operation.newBuilder().setName(operationName).build());
+            observer.onCompleted();
+          }
+        }
+
+        @Override
+        public void updateProject(
+            UpdateProjectRequest request, StreamObserver<Operation> observer) {
+          synchronized (FakeProjectsService.this) {
+            Project project = find(request.getProject().getName());
+            if (project == null) {
+              observer.onError(Status.NOT_FOUND.asRuntimeException());
+              return;
+            }
+            Project updated =
+                project.toBuilder()
+                    .setDisplayName(request.getProject().getDisplayName())
+                    .clearLabels()
+                    .putAllLabels(request.getProject().getLabelsMap())
+                    .build();
+            projects.put(updated.getProjectId(), updated);
+            observer.onNext(done("operations/up", updated));
+            observer.onCompleted();
+          }
+        }
+
+        @Override
+        public void deleteProject(
+            DeleteProjectRequest request, StreamObserver<Operation> observer) {
+          setState(request.getName(), Project.State.DELETE_REQUESTED, observer);
+        }
+
+        @Override
+        public void undeleteProject(
+            UndeleteProjectRequest request, StreamObserver<Operation> observer) {
+          setState(request.getName(), Project.State.ACTIVE, observer);
+        }
+
+        @Override
+        public void getIamPolicy(GetIamPolicyRequest request, StreamObserver<Policy> observer) {
+          synchronized (FakeProjectsService.this) {
+            Policy policy = policies.get(request.getResource());
+            observer.onNext(policy != null ? policy : Policy.getDefaultInstance());
+            observer.onCompleted();
+          }
+        }
+
+        @Override
+        public void setIamPolicy(SetIamPolicyRequest request, StreamObserver<Policy> observer) {
+          synchronized (FakeProjectsService.this) {
+            Policy policy =
+                request.getPolicy().toBuilder()
+                    .setEtag(ByteString.copyFromUtf8("etag-" + ++policyVersion))
+                    .build();
+            policies.put(request.getResource(), policy);
+            observer.onNext(policy);
+            observer.onCompleted();
+          }
+        }
+
+        @Override
+        public void testIamPermissions(
+            TestIamPermissionsRequest request,
+            StreamObserver<TestIamPermissionsResponse> observer) {
+          TestIamPermissionsResponse.Builder response = TestIamPermissionsResponse.newBuilder();
+          for (String permission : request.getPermissionsList()) {
+            if (GRANTED_PERMISSIONS.contains(permission)) {
+              response.addPermissions(permission);
+            }
+          }
+          observer.onNext(response.build());
+          observer.onCompleted();
+        }
+      };
+
+  private final OperationsGrpc.OperationsImplBase operationsService =
+      new OperationsGrpc.OperationsImplBase() {
+        @Override
+        public void getOperation(GetOperationRequest request, StreamObserver<Operation> observer) {
+          synchronized (FakeProjectsService.this) {
+            Operation operation = operations.get(request.getName());
+            if (operation == null) {
+              observer.onError(Status.NOT_FOUND.asRuntimeException());
+              return;
+            }
+            observer.onNext(operation);
+            observer.onCompleted();
+          }
+        }
+      };
+
+  private synchronized void setState(
+      String name, Project.State state, StreamObserver<Operation> observer) {
+    Project project = find(name);
+    if (project == null) {
+      observer.onError(Status.NOT_FOUND.asRuntimeException());
+      return;
+    }
+    Project updated = project.toBuilder().setState(state).build();
+    projects.put(updated.getProjectId(), updated);
+    observer.onNext(done("operations/state", updated));
+    observer.onCompleted();
+  }
+
+  /** Returns the project named {@code projects/} followed by its ID or its number. */
+  private synchronized Project find(String name) {
+    Project project = projects.get(name.substring(ProtoConverters.PROJECTS_PREFIX.length()));
+    if (project != null) {
+      return project;
+    }
+    for (Project candidate : projects.values()) {
+      if (candidate.getName().equals(name)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether {@code project} matches every term of {@code query}, or {@code null} if a term
+   * is on an unknown field. Values are case insensitive and can end with a {@code *} wildcard.
+   */
+  private static Boolean matches(Project project, String query) {
+    boolean matches = true;
+    for (String term : Splitter.on(' ').omitEmptyStrings().split(query)) {
+      int separator = term.indexOf(':');
+      if (separator <= 0) {
+        return null;
+      }
+      String field = term.substring(0, separator);
+      String actual;
+      if ("displayName".equals(field)) {
+        actual = project.getDisplayName();
+      } else if ("id".equals(field)) {
+        actual = project.getProjectId();
+      } else if (field.startsWith("labels.")) {
+        actual = project.getLabelsMap().get(field.substring("labels.".length()));
+      } else if ("state".equals(field)) {
+        actual = project.getState().name();
+      } else if ("parent".equals(field)) {
+        actual = project.getParent();
+      } else {
+        return null;
+      }
+      matches &= matches(actual, term.substring(separator + 1));
+    }
+    return matches;
+  }
+
+  private static boolean matches(String actual, String value) {
+    if (Strings.isNullOrEmpty(actual)) {
+      return false;
+    }
+    actual = Ascii.toLowerCase(actual);
+    value = Ascii.toLowerCase(value);
+    return value.endsWith("*")
+        ? actual.startsWith(value.substring(0, value.length() - 1))
+        : actual.equals(value);
+  }
+
+  private static Operation done(String name, Project project) {
+    return Operation.newBuilder()
+        .setName(name)
+        .setDone(true)
+        .setResponse(Any.pack(project))
+        .build();
+  }
+
+  BindableService projects() {
+    return projectsService;
+  }
+
+  BindableService operations() {
+    return operationsService;
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Identity;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.Policy;
+import com.google.cloud.Role;
+import com.google.cloud.resourcemanager.Project;
+import com.google.cloud.resourcemanager.ProjectInfo;
+import com.google.cloud.resourcemanager.ResourceId;
+import com.google.cloud.resourcemanager.ResourceManager;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.ResourceManagerBatch;
+import com.google.cloud.resourcemanager.ResourceManagerException;
+import com.google.cloud.resourcemanager.ResourceManagerOptions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GrpcResourceManagerRpcTest {
+
+  private static final ProjectInfo PROJECT =
+      ProjectInfo.newBuilder("grpc-project")
+          .setName("name")
+          .setLabels(ImmutableMap.of("k1", "v1"))
+          .setParent(new ResourceId("123", "organization"))
+          .build();
+  private static final Map<ResourceManagerRpc.Option, ?> EMPTY_RPC_OPTIONS = ImmutableMap.of();
+
+  private Server server;
+  private ManagedChannel channel;
+  private ResourceManager resourceManager;
+  private ResourceManagerRpc rpc;
+
+  @Before
+  public void setUp() throws Exception {
+    String serverName = InProcessServerBuilder.generateName();
+    FakeProjectsService service = new FakeProjectsService();
+    server =
+        InProcessServerBuilder.forName(serverName)
+            .directExecutor()
+            .addService(service.projects())
+            .addService(service.operations())
+            .build()
+            .start();
+    channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+    ResourceManagerOptions options =
+        ResourceManagerOptions.newBuilder()
+            .setCredentials(NoCredentials.getInstance())
+            .setServiceRpcFactory(new GrpcResourceManagerRpcFactory(channel))
+            .build();
+    resourceManager = options.getService();
+    rpc = (ResourceManagerRpc) options.getRpc();
+  }
+
+  @After
+  public void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  @Test
+  public void testCreateAndGet() {
+    Project created = resourceManager.create(PROJECT);
+    assertEquals("grpc-project", created.getProjectId());
+    assertEquals("name", created.getName());
+    assertEquals(ImmutableMap.of("k1", "v1"), created.getLabels());
+    assertEquals(new ResourceId("123", "organization"), created.getParent());
+    assertEquals(ProjectInfo.State.ACTIVE, created.getState());
+    assertEquals(1L, (long) created.getProjectNumber());
+    assertEquals(1_500_000_000_000L, (long) created.getCreateTimeMillis());
+    assertEquals(created, resourceManager.get("grpc-project"));
+    // The stand-in, like the service, answers permission denied for unknown projects.
+    assertNull(resourceManager.get("missing-project"));
+  }
+
+  @Test
+  public void testCreateExisting() {
+    resourceManager.create(PROJECT);
+    try {
+      resourceManager.create(PROJECT);
+      fail();
+    } catch (ResourceManagerException expected) {
+      assertEquals(409, expected.getCode());
+      assertEquals("Project exists", expected.getMessage());
+    }
+  }
+
+  @Test
+  public void testList() {
+    for (int i = 0; i < 5; i++) {
+      resourceManager.create(ProjectInfo.newBuilder("grpc-project-" + i).build());
+    }
+    Iterable<Project> projects =
+        resourceManager.list(ProjectListOption.pageSize(2)).iterateAll();
+    assertEquals(5, Iterables.size(projects));
+    assertEquals("grpc-project-0", Iterables.getFirst(projects, null).getProjectId());
+  }
+
+  @Test
+  public void testListFilter() {
+    resourceManager.create(PROJECT);
+    resourceManager.create(
+        ProjectInfo.newBuilder("grpc-other-project")
+            .setName("other")
+            .setLabels(ImmutableMap.of("k1", "v2"))
+            .setParent(new ResourceId("456", "folder"))
+            .build());
+    resourceManager.delete("grpc-other-project");
+    assertEquals(
+        ImmutableList.of("grpc-project"), listedIds(ProjectListOption.filter("name:NAME")));
+    assertEquals(
+        ImmutableList.of("grpc-project"),
+        listedIds(ProjectListOption.filter("id:grpc-p* AND labels.k1:v1")));
+    assertEquals(
+        ImmutableList.of("grpc-other-project"),
+        listedIds(ProjectListOption.filter("parent.type:folder parent.id:456")));
+    assertEquals(
+        ImmutableList.of("grpc-other-project"),
+        listedIds(ProjectListOption.filter("lifecycleState:DELETE_REQUESTED")));
+    assertEquals(
+        ImmutableList.of("grpc-other-project", "grpc-project"),
+        listedIds(ProjectListOption.filter("labels.k1:*")));
+  }
+
+  @Test
+  public void testListUnsupportedFilter() {
+    for (String filter :
+        ImmutableList.of("parent.id:123", "name:a OR name:b", "-name:a", "createTime:2020")) {
+      try {
+        resourceManager.list(ProjectListOption.filter(filter));
+        fail(filter);
+      } catch (ResourceManagerException expected) {
+        assertEquals(400, expected.getCode());
+      }
+    }
+  }
+
+  @Test
+  public void testToQuery() {
+    assertEquals(
+        "displayName:howl* labels.color:red state:ACTIVE parent:organizations/123",
+        ProtoConverters.toQuery(
+            "NAME:howl* parent.type:organization labels.color:red AND lifecycleState:ACTIVE"
+                + " parent.id:123"));
+    assertEquals("", ProtoConverters.toQuery(" "));
+  }
+
+  private List<String> listedIds(ProjectListOption... options) {
+    List<String> ids = new ArrayList<>();
+    for (Project project : resourceManager.list(options).iterateAll()) {
+      ids.add(project.getProjectId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testReplaceDeleteAndUndelete() {
+    resourceManager.create(PROJECT);
+    Project replaced =
+        resourceManager.replace(
+            PROJECT.toBuilder().setName("new name").setLabels(ImmutableMap.of("k2", "v2")).build());
+    assertEquals("new name", replaced.getName());
+    assertEquals(ImmutableMap.of("k2", "v2"), replaced.getLabels());
+    resourceManager.delete("grpc-project");
+    assertEquals(
+        ProjectInfo.State.DELETE_REQUESTED, resourceManager.get("grpc-project").getState());
+    resourceManager.undelete("grpc-project");
+    assertEquals(ProjectInfo.State.ACTIVE, resourceManager.get("grpc-project").getState());
+  }
+
+  @Test
+  public void testPolicy() {
+    resourceManager.create(PROJECT);
+    Policy policy =
+        Policy.newBuilder()
+            .addIdentity(Role.owner(), Identity.user("me@gmail.com"))
+            .addIdentity(Role.editor(), Identity.serviceAccount("sa@gmail.com"))
+            .build();
+    Policy replaced = resourceManager.replacePolicy("grpc-project", policy);
+    assertEquals(policy.getBindings(), replaced.getBindings());
+    assertNotNull(replaced.getEtag());
+    Policy read = resourceManager.getPolicy("grpc-project");
+    assertEquals(replaced.getBindings(), read.getBindings());
+    assertEquals(replaced.getEtag(), read.getEtag());
+    assertEquals(
+        ImmutableList.of(true, false),
+        resourceManager.testPermissions(
+            "grpc-project",
+            ImmutableList.of(
+                "resourcemanager.projects.get", "resourcemanager.projects.delete")));
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    resourceManager.create(PROJECT);
+    ResourceManagerBatch batch = resourceManager.batch();
+    ApiFuture<Project> existing = batch.get("grpc-project");
+    ApiFuture<Project> missing = batch.get("missing-project");
+    ApiFuture<Void> deleteMissing = batch.delete("missing-project");
+    batch.submit();
+    assertEquals("grpc-project", existing.get().getProjectId());
+    assertNull(missing.get());
+    try {
+      deleteMissing.get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertEquals(404, ((ResourceManagerException) expected.getCause()).getCode());
+    }
+  }
+
+  @Test
+  public void testRpcBatchCallbacksInOrder() {
+    resourceManager.create(PROJECT);
+    final StringBuilder order = new StringBuilder();
+    RpcBatch batch = rpc.createBatch();
+    batch.addGet(
+        "grpc-project",
+        new RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>() {
+          @Override
+          public void onSuccess(
+              com.google.api.services.cloudresourcemanager.model.Project response) {
+            order.append("get;");
+          }
+
+          @Override
+          public void onFailure(GoogleJsonError googleJsonError) {
+            fail();
+          }
+        },
+        EMPTY_RPC_OPTIONS);
+    batch.addUndelete(
+        "missing-project",
+        new RpcBatch.Callback<Void>() {
+          @Override
+          public void onSuccess(Void response) {
+            fail();
+          }
+
+          @Override
+          public void onFailure(GoogleJsonError googleJsonError) {
+            order.append("undelete:" + googleJsonError.getCode() + ";");
+          }
+        });
+    batch.submit();
+    assertEquals("get;undelete:404;", order.toString());
+  }
+
+  @Test
+  public void testHttpCodeOf() {
+    assertEquals(503, GrpcResourceManagerRpc.httpCodeOf(Status.Code.UNAVAILABLE));
+    assertEquals(429, GrpcResourceManagerRpc.httpCodeOf(Status.Code.RESOURCE_EXHAUSTED));
+    assertEquals(403, GrpcResourceManagerRpc.httpCodeOf(Status.Code.PERMISSION_DENIED));
+    assertEquals(500, GrpcResourceManagerRpc.httpCodeOf(Status.Code.DATA_LOSS));
+    assertTrue(new ResourceManagerException(503, "Unavailable").isRetryable());
+  }
+}
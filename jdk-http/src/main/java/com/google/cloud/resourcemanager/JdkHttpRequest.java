@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.util.StreamingContent;
+import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+
+/** A request sent with a {@link HttpClient}. */
+final class JdkHttpRequest extends LowLevelHttpRequest {
+
+  // Headers that HttpClient sets itself and refuses to get from the caller.
+  private static final Set<String> RESTRICTED_HEADERS =
+      ImmutableSet.of(
+          "connection",
+          "content-length",
+          "date",
+          "expect",
+          "from",
+          "host",
+          "upgrade",
+          "via",
+          "warning");
+
+  private final HttpClient httpClient;
+  private final String method;
+  private final HttpRequest.Builder builder;
+
+  JdkHttpRequest(HttpClient httpClient, String method, String url) {
+    this.httpClient = httpClient;
+    this.method = method;
+    this.builder = HttpRequest.newBuilder(URI.create(url));
+  }
+
+  @Override
+  public void addHeader(String name, String value) {
+    if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.US))) {
+      builder.header(name, value);
+    }
+  }
+
+  @Override
+  public void setTimeout(int connectTimeout, int readTimeout) {
+    // The connect timeout is a setting of the client, the read timeout bounds the wait for the
+    // response headers.
+    if (readTimeout > 0) {
+      builder.timeout(Duration.ofMillis(readTimeout));
+    }
+  }
+
+  @Override
+  public LowLevelHttpResponse execute() throws IOException {
+    if (getContentType() != null) {
+      builder.header("Content-Type", getContentType());
+    }
+    if (getContentEncoding() != null) {
+      builder.header("Content-Encoding", getContentEncoding());
+    }
+    StreamingContent content = getStreamingContent();
+    HttpRequest.BodyPublisher body;
+    if (content == null) {
+      body = HttpRequest.BodyPublishers.noBody();
+    } else {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      content.writeTo(out);
+      body = HttpRequest.BodyPublishers.ofByteArray(out.toByteArray());
+    }
+    builder.method(method, body);
+    try {
+      HttpResponse<InputStream> response =
+          httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+      return new JdkHttpResponse(response);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      InterruptedIOException interrupted = new InterruptedIOException(ex.getMessage());
+      interrupted.initCause(ex);
+      throw interrupted;
+    }
+  }
+}
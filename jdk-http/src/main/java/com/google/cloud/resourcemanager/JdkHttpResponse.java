@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import com.google.api.client.http.LowLevelHttpResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/** A response received by a {@link JdkHttpRequest}. */
+final class JdkHttpResponse extends LowLevelHttpResponse {
+
+  private final HttpResponse<InputStream> response;
+  private final List<String> headerNames = new ArrayList<>();
+  private final List<String> headerValues = new ArrayList<>();
+
+  JdkHttpResponse(HttpResponse<InputStream> response) {
+    this.response = response;
+    for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+      // Skips the HTTP/2 pseudo-headers, such as :status.
+      if (header.getKey().startsWith(":")) {
+        continue;
+      }
+      for (String value : header.getValue()) {
+        headerNames.add(header.getKey());
+        headerValues.add(value);
+      }
+    }
+  }
+
+  HttpClient.Version getVersion() {
+    return response.version();
+  }
+
+  @Override
+  public InputStream getContent() {
+    return response.body();
+  }
+
+  @Override
+  public String getContentEncoding() {
+    return response.headers().firstValue("Content-Encoding").orElse(null);
+  }
+
+  @Override
+  public long getContentLength() {
+    return response.headers().firstValueAsLong("Content-Length").orElse(-1);
+  }
+
+  @Override
+  public String getContentType() {
+    return response.headers().firstValue("Content-Type").orElse(null);
+  }
+
+  @Override
+  public String getStatusLine() {
+    String version = response.version() == HttpClient.Version.HTTP_2 ? "HTTP/2" : "HTTP/1.1";
+    return version + " " + response.statusCode();
+  }
+
+  @Override
+  public int getStatusCode() {
+    return response.statusCode();
+  }
+
+  /** Returns {@code null}: HTTP/2 has no reason phrase and HttpClient doesn't expose HTTP/1.1's. */
+  @Override
+  public String getReasonPhrase() {
+    return null;
+  }
+
+  @Override
+  public int getHeaderCount() {
+    return headerNames.size();
+  }
+
+  @Override
+  public String getHeaderName(int index) {
+    return headerNames.get(index);
+  }
+
+  @Override
+  public String getHeaderValue(int index) {
+    return headerValues.get(index);
+  }
+
+  @Override
+  public void disconnect() throws IOException {
+    response.body().close();
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.auth.http.HttpTransportFactory;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link HttpTransportFactory} that always returns the same transport, backed by one JDK
+ * {@link HttpClient}. With HTTP/2, which is negotiated with TLS servers that support it, the
+ * concurrent requests of all the services using the factory are multiplexed over a few
+ * connections instead of each taking a connection of its own.
+ *
+ * <p>Example of using HTTP/2 for a service:
+ *
+ * <pre>{@code
+ * JdkHttpTransportFactory transportFactory = JdkHttpTransportFactory.newBuilder().build();
+ * ResourceManager resourceManager =
+ *     ResourceManagerOptions.newBuilder()
+ *         .setTransportOptions(
+ *             HttpTransportOptions.newBuilder().setHttpTransportFactory(transportFactory).build())
+ *         .build()
+ *         .getService();
+ * }</pre>
+ *
+ * <p>The client is not serialized: options that are deserialized get a new factory with the
+ * default settings.
+ */
+public final class JdkHttpTransportFactory implements HttpTransportFactory {
+
+  private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(20);
+
+  private final HttpClient.Version version;
+  private final Duration connectTimeout;
+  private final JdkHttpTransport transport;
+
+  /** Builder for {@code JdkHttpTransportFactory} objects. */
+  public static final class Builder {
+
+    private HttpClient.Version version = HttpClient.Version.HTTP_2;
+    private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private Executor executor;
+
+    private Builder() {}
+
+    /**
+     * Sets the preferred HTTP version. With {@link HttpClient.Version#HTTP_2}, the client falls
+     * back to HTTP/1.1 with servers that don't support HTTP/2, and upgrades plain {@code http}
+     * connections with h2c. Defaults to {@link HttpClient.Version#HTTP_2}.
+     */
+    public Builder setVersion(HttpClient.Version version) {
+      this.version = checkNotNull(version);
+      return this;
+    }
+
+    /** Sets the timeout for opening a connection. Defaults to 20 seconds. */
+    public Builder setConnectTimeout(Duration connectTimeout) {
+      checkArgument(
+          !checkNotNull(connectTimeout).isNegative() && !connectTimeout.isZero(),
+          "Connect timeout must be > 0");
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    /**
+     * Sets the executor the client runs its internal tasks on. Defaults to {@code null}, in which
+     * case the client creates a cached thread pool.
+     */
+    public Builder setExecutor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /** Creates a {@code JdkHttpTransportFactory} object and its client. */
+    public JdkHttpTransportFactory build() {
+      return new JdkHttpTransportFactory(this);
+    }
+  }
+
+  /**
+   * Creates a factory with the default settings. This constructor is used when options are
+   * deserialized; prefer {@link #newBuilder()}.
+   */
+  public JdkHttpTransportFactory() {
+    this(newBuilder());
+  }
+
+  private JdkHttpTransportFactory(Builder builder) {
+    version = builder.version;
+    connectTimeout = builder.connectTimeout;
+    HttpClient.Builder clientBuilder =
+        HttpClient.newBuilder()
+            .version(version)
+            .connectTimeout(connectTimeout)
+            // Redirects are handled by the client, like with the default transport.
+            .followRedirects(HttpClient.Redirect.NEVER);
+    ProxySelector proxySelector = ProxySelector.getDefault();
+    if (proxySelector != null) {
+      clientBuilder.proxy(proxySelector);
+    }
+    if (builder.executor != null) {
+      clientBuilder.executor(builder.executor);
+    }
+    transport = new JdkHttpTransport(clientBuilder.build());
+  }
+
+  /** Returns the transport backed by the client, the same for every call. */
+  @Override
+  public HttpTransport create() {
+    return transport;
+  }
+
+  /** Returns the preferred HTTP version. */
+  public HttpClient.Version getVersion() {
+    return version;
+  }
+
+  /** Returns the timeout for opening a connection. */
+  public Duration getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  /** Returns a builder for {@code JdkHttpTransportFactory} objects. */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+}
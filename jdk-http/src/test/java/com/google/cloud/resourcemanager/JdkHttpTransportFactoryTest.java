@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.http.HttpTransportOptions;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import com.google.common.collect.ImmutableMap;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JdkHttpTransportFactoryTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final JdkHttpTransportFactory TRANSPORT_FACTORY =
+      JdkHttpTransportFactory.newBuilder().build();
+  private static final ResourceManager RESOURCE_MANAGER =
+      RESOURCE_MANAGER_HELPER
+          .getOptions()
+          .toBuilder()
+          .setTransportOptions(
+              HttpTransportOptions.newBuilder().setHttpTransportFactory(TRANSPORT_FACTORY).build())
+          .build()
+          .getService();
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  @Test
+  public void testBuilder() {
+    JdkHttpTransportFactory defaults = new JdkHttpTransportFactory();
+    assertEquals(HttpClient.Version.HTTP_2, defaults.getVersion());
+    assertEquals(Duration.ofSeconds(20), defaults.getConnectTimeout());
+    JdkHttpTransportFactory factory =
+        JdkHttpTransportFactory.newBuilder()
+            .setVersion(HttpClient.Version.HTTP_1_1)
+            .setConnectTimeout(Duration.ofSeconds(5))
+            .build();
+    assertEquals(HttpClient.Version.HTTP_1_1, factory.getVersion());
+    assertEquals(Duration.ofSeconds(5), factory.getConnectTimeout());
+    assertSame(factory.create(), factory.create());
+    try {
+      JdkHttpTransportFactory.newBuilder().setConnectTimeout(Duration.ZERO);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testCalls() {
+    ProjectInfo project =
+        ProjectInfo.newBuilder("jdk-http-project")
+            .setName("name")
+            .setLabels(ImmutableMap.of("k1", "v1"))
+            .build();
+    assertEquals("jdk-http-project", RESOURCE_MANAGER.create(project).getProjectId());
+    assertEquals("name", RESOURCE_MANAGER.get("jdk-http-project").getName());
+    Project replaced =
+        RESOURCE_MANAGER.replace(
+            project.toBuilder().setLabels(ImmutableMap.of("k2", "v2")).build());
+    assertEquals(ImmutableMap.of("k2", "v2"), replaced.getLabels());
+    assertTrue(RESOURCE_MANAGER.list().getValues().iterator().hasNext());
+    // A 404 response is read like with the default transport.
+    assertNull(RESOURCE_MANAGER.get("missing-project"));
+    try {
+      RESOURCE_MANAGER.create(project);
+      fail();
+    } catch (ResourceManagerException expected) {
+      assertEquals(409, expected.getCode());
+    }
+    RESOURCE_MANAGER.delete("jdk-http-project");
+    RESOURCE_MANAGER_HELPER.removeProject("jdk-http-project");
+  }
+
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    RESOURCE_MANAGER.create(ProjectInfo.newBuilder("concurrent-project").build());
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        results.add(
+            executor.submit(
+                new Callable<String>() {
+                  @Override
+                  public String call() {
+                    return RESOURCE_MANAGER.get("concurrent-project").getProjectId();
+                  }
+                }));
+      }
+      for (Future<String> result : results) {
+        assertEquals("concurrent-project", result.get());
+      }
+    } finally {
+      executor.shutdown();
+      RESOURCE_MANAGER_HELPER.removeProject("concurrent-project");
+    }
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+/**
+ * A {@link MetricsListener} that records the requests, the retries and the listed pages of a
+ * {@link ResourceManager} as JDK Flight Recorder events, optionally forwarding them to another
+ * listener. The events are {@link RequestEvent}, {@link RetryEvent} and {@link PageEvent}; when
+ * they are not enabled in a running recording, only a flag is checked. Since metrics are reported
+ * once a request is complete, the events have no meaningful duration: the time a request took is
+ * recorded in the {@code latency} field of its {@link RequestEvent}.
+ *
+ * <p>Example of recording the events of a client:
+ *
+ * <pre>{@code
+ * ResourceManager resourceManager =
+ *     ResourceManagerOptions.newBuilder()
+ *         .setMetricsListener(new JfrMetricsListener())
+ *         .build()
+ *         .getService();
+ * }</pre>
+ *
+ * <p>and, with a JDK 11 or later: {@code java -XX:StartFlightRecording=filename=rm.jfr ...}.
+ */
+public final class JfrMetricsListener implements MetricsListener {
+
+  private final MetricsListener delegate;
+
+  public JfrMetricsListener() {
+    this(null);
+  }
+
+  /** Creates a listener that also forwards every metric to {@code delegate}, if not null. */
+  public JfrMetricsListener(MetricsListener delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public void onAttempt(Method method, long latencyNanos, Throwable error) {
+    if (delegate != null) {
+      delegate.onAttempt(method, latencyNanos, error);
+    }
+  }
+
+  @Override
+  public void onRetry(Method method, int attempt, long delayNanos, Throwable cause) {
+    RetryEvent event = new RetryEvent();
+    if (event.isEnabled()) {
+      event.method = method.name();
+      event.attempt = attempt;
+      event.delay = delayNanos;
+      event.reason = ResourceManagerException.reasonOf(cause);
+      event.commit();
+    }
+    if (delegate != null) {
+      delegate.onRetry(method, attempt, delayNanos, cause);
+    }
+  }
+
+  @Override
+  public void onResponse(
+      Method method, String projectId, int statusCode, long bytes, long latencyNanos) {
+    RequestEvent event = new RequestEvent();
+    if (event.isEnabled()) {
+      event.method = method.name();
+      event.projectId = projectId;
+      event.status = statusCode;
+      event.bytes = bytes;
+      event.latency = latencyNanos;
+      event.commit();
+    }
+    if (delegate != null) {
+      delegate.onResponse(method, projectId, statusCode, bytes, latencyNanos);
+    }
+  }
+
+  @Override
+  public void onRequestBody(Method method, long bytes, long uncompressedBytes) {
+    if (delegate != null) {
+      delegate.onRequestBody(method, bytes, uncompressedBytes);
+    }
+  }
+
+  @Override
+  public void onResponseBody(Method method, long uncompressedBytes) {
+    if (delegate != null) {
+      delegate.onResponseBody(method, uncompressedBytes);
+    }
+  }
+
+  @Override
+  public void onPage(int projectCount) {
+    PageEvent event = new PageEvent();
+    if (event.isEnabled()) {
+      event.projectCount = projectCount;
+      event.commit();
+    }
+    if (delegate != null) {
+      delegate.onPage(projectCount);
+    }
+  }
+
+  @Override
+  public void onOperationDone(int pollCount) {
+    if (delegate != null) {
+      delegate.onOperationDone(pollCount);
+    }
+  }
+}
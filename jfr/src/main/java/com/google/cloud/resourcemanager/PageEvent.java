@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** A page of projects received from a {@code listProjects} call. */
+@Name(PageEvent.NAME)
+@Label("Resource Manager Page")
+@Category({"Google Cloud", "Resource Manager"})
+@Description("A page of projects received from a listProjects call")
+@StackTrace(false)
+public final class PageEvent extends Event {
+
+  public static final String NAME = "com.google.cloud.resourcemanager.Page";
+
+  @Label("Project Count")
+  int projectCount;
+}
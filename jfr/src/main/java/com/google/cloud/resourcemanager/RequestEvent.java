@@ -0,0 +1,63 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * An HTTP request sent to the Cloud Resource Manager API, recorded when its response arrives.
+ *
+ * <p>{@link MetricsListener} is only called once the response has arrived, so the event is created
+ * and committed at that time: its built-in duration is about zero, and its start time is the time
+ * of the response. The time the request took is in {@code latency}. Thresholds set on the event's
+ * duration therefore filter out every request.
+ */
+@Name(RequestEvent.NAME)
+@Label("Resource Manager Request")
+@Category({"Google Cloud", "Resource Manager"})
+@Description("An HTTP request sent to the Cloud Resource Manager API")
+@StackTrace(false)
+public final class RequestEvent extends Event {
+
+  public static final String NAME = "com.google.cloud.resourcemanager.Request";
+
+  @Label("Method")
+  String method;
+
+  @Label("Project ID")
+  String projectId;
+
+  @Label("Status")
+  int status;
+
+  @Label("Response Size")
+  @DataAmount
+  long bytes;
+
+  @Label("Latency")
+  @Description(
+      "Time between building the request and receiving the response headers, the event's own"
+          + " duration is not measured")
+  @Timespan
+  long latency;
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** A retry of a call, recorded when the retry attempt starts. */
+@Name(RetryEvent.NAME)
+@Label("Resource Manager Retry")
+@Category({"Google Cloud", "Resource Manager"})
+@Description("A retry of a call to the Cloud Resource Manager API")
+@StackTrace(false)
+public final class RetryEvent extends Event {
+
+  public static final String NAME = "com.google.cloud.resourcemanager.Retry";
+
+  @Label("Method")
+  String method;
+
+  @Label("Attempt")
+  @Description("Number of the retry attempt, starting at 2")
+  int attempt;
+
+  @Label("Delay")
+  @Description("Time between the end of the failed attempt and the start of the retry")
+  @Timespan
+  long delay;
+
+  @Label("Reason")
+  @Description("Reason or status code of the failure of the previous attempt")
+  String reason;
+}
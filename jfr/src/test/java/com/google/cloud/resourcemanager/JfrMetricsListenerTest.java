@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+public class JfrMetricsListenerTest {
+
+  @Test
+  public void testEvents() throws Exception {
+    LocalResourceManagerHelper helper = LocalResourceManagerHelper.create();
+    helper.start();
+    InMemoryMetricsListener inMemory = new InMemoryMetricsListener();
+    ResourceManager resourceManager =
+        helper
+            .getOptions()
+            .toBuilder()
+            .setMetricsListener(new JfrMetricsListener(inMemory))
+            .build()
+            .getService();
+    List<RecordedEvent> events;
+    try (Recording recording = new Recording()) {
+      recording.enable(RequestEvent.NAME);
+      recording.enable(RetryEvent.NAME);
+      recording.enable(PageEvent.NAME);
+      recording.start();
+      resourceManager.create(ProjectInfo.newBuilder("jfr-project").build());
+      resourceManager.get("jfr-project");
+      resourceManager.list();
+      resourceManager
+          .getOptions()
+          .getMetricsListener()
+          .onRetry(
+              MetricsListener.Method.GET,
+              2,
+              5000,
+              new ResourceManagerException(503, "Unavailable"));
+      recording.stop();
+      Path file = Files.createTempFile("resourcemanager", ".jfr");
+      try {
+        recording.dump(file);
+        events = RecordingFile.readAllEvents(file);
+      } finally {
+        Files.delete(file);
+      }
+    } finally {
+      helper.stop();
+    }
+
+    List<RecordedEvent> gets = requestsOf(events, MetricsListener.Method.GET);
+    assertEquals(1, gets.size());
+    assertEquals("jfr-project", gets.get(0).getString("projectId"));
+    assertEquals(200, gets.get(0).getInt("status"));
+    assertTrue(gets.get(0).getDuration("latency").compareTo(Duration.ZERO) > 0);
+    List<RecordedEvent> lists = requestsOf(events, MetricsListener.Method.LIST);
+    assertEquals(1, lists.size());
+    assertNull(lists.get(0).getString("projectId"));
+
+    List<RecordedEvent> pages = eventsNamed(events, PageEvent.NAME);
+    assertEquals(1, pages.size());
+    assertEquals(1, pages.get(0).getInt("projectCount"));
+
+    List<RecordedEvent> retries = eventsNamed(events, RetryEvent.NAME);
+    assertEquals(1, retries.size());
+    assertEquals(2, retries.get(0).getInt("attempt"));
+    assertEquals(Duration.ofNanos(5000), retries.get(0).getDuration("delay"));
+    assertEquals("503", retries.get(0).getString("reason"));
+
+    // The metrics are forwarded to the delegate.
+    assertEquals(1, inMemory.getPageCount());
+    assertEquals(1, inMemory.getMethodMetrics(MetricsListener.Method.GET).getRetryCount());
+  }
+
+  @Test
+  public void testDisabled() {
+    InMemoryMetricsListener inMemory = new InMemoryMetricsListener();
+    MetricsListener listener = new JfrMetricsListener(inMemory);
+    listener.onPage(10);
+    listener.onResponse(MetricsListener.Method.GET, "p1", 200, 100, 1000);
+    assertEquals(10, inMemory.getListedProjectCount());
+    assertEquals(1, inMemory.getMethodMetrics(MetricsListener.Method.GET).getResponseCount());
+  }
+
+  private static List<RecordedEvent> requestsOf(
+      List<RecordedEvent> events, MetricsListener.Method method) {
+    List<RecordedEvent> requests = new ArrayList<>();
+    for (RecordedEvent event : eventsNamed(events, RequestEvent.NAME)) {
+      if (event.getString("method").equals(method.name())) {
+        requests.add(event);
+      }
+    }
+    return requests;
+  }
+
+  private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+    List<RecordedEvent> named = new ArrayList<>();
+    for (RecordedEvent event : events) {
+      if (event.getEventType().getName().equals(name)) {
+        named.add(event);
+      }
+    }
+    return named;
+  }
+}
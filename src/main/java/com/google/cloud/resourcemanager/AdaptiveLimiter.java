@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Limits how many requests are in flight at once, adapting the limit to the rate and quota errors
+ * returned by the service.
+ *
+ * <p>The limit follows an additive-increase/multiplicative-decrease policy: every successful
+ * request that completes while at least half of the limit is in use raises the limit by one, and a
+ * request that fails because a rate or quota limit was exceeded halves it. Requests that were
+ * already in flight when the limit was halved don't halve it again, so a burst of quota errors
+ * caused by the same overload only backs off once. Requests that exceed the limit are queued, in
+ * order, until a request completes: synchronous requests block their caller, asynchronous ones
+ * wait for a {@link #acquireAsync() permit future} without holding a thread.
+ *
+ * <p>If disabled, requests are only counted.
+ */
+final class AdaptiveLimiter {
+
+  static final int INITIAL_LIMIT = 100;
+  static final int MIN_LIMIT = 1;
+  static final int MAX_LIMIT = 1000;
+  private static final double BACKOFF_RATIO = 0.5;
+
+  private final boolean enabled;
+  // The permit that the next request sent by the current thread uses instead of acquiring one.
+  private final ThreadLocal<Permit> boundPermit = new ThreadLocal<>();
+
+  // All the fields below are guarded by this lock.
+  private final Object lock = new Object();
+  private final Queue<SettableApiFuture<Permit>> waiters = new ArrayDeque<>();
+  private double limit = INITIAL_LIMIT;
+  private int inFlight;
+  private long limitExceededCount;
+  // Incremented every time the limit is decreased.
+  private long epoch;
+
+  /** A slot within the limit, held by one request. */
+  final class Permit {
+
+    private final long startEpoch;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Permit(long startEpoch) {
+      this.startEpoch = startEpoch;
+    }
+
+    /**
+     * Gives the slot back, adjusting the limit according to the outcome of the request. Only the
+     * first call has an effect.
+     */
+    void release(boolean succeeded, boolean limitExceeded) {
+      if (released.compareAndSet(false, true)) {
+        AdaptiveLimiter.this.release(startEpoch, succeeded, limitExceeded);
+      }
+    }
+  }
+
+  AdaptiveLimiter(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** Returns a callable that runs {@code callable} within the limit. */
+  <V> Callable<V> wrap(final Callable<V> callable) {
+    return new Callable<V>() {
+      @Override
+      public V call() {
+        return AdaptiveLimiter.this.call(callable);
+      }
+    };
+  }
+
+  /**
+   * Runs {@code callable} once fewer requests than the limit are in flight, and adjusts the limit
+   * according to its outcome. If a permit was {@linkplain #callWithPermit bound} to the current
+   * thread, it is used instead of waiting for one.
+   */
+  <V> V call(Callable<V> callable) {
+    Permit permit = boundPermit.get();
+    if (permit != null) {
+      boundPermit.remove();
+    } else {
+      permit = acquire();
+    }
+    boolean succeeded = false;
+    boolean limitExceeded = false;
+    try {
+      V result = callable.call();
+      succeeded = true;
+      return result;
+    } catch (Exception ex) {
+      limitExceeded =
+          ex instanceof ResourceManagerException
+              && ((ResourceManagerException) ex).isLimitExceeded();
+      Throwables.throwIfUnchecked(ex);
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, ex.getMessage(), ex);
+    } finally {
+      permit.release(succeeded, limitExceeded);
+    }
+  }
+
+  /**
+   * Runs {@code callable} with {@code permit} bound to the current thread, so that the first
+   * request it sends through this limiter uses it. The permit is released when {@code callable}
+   * returns if no request used it.
+   */
+  <V> V callWithPermit(Permit permit, Callable<V> callable) throws Exception {
+    boundPermit.set(permit);
+    try {
+      return callable.call();
+    } finally {
+      boundPermit.remove();
+      permit.release(false, false);
+    }
+  }
+
+  /**
+   * Returns a future that completes with a permit once fewer requests than the limit are in flight.
+   * Cancelling the future gives up the place in the queue.
+   */
+  ApiFuture<Permit> acquireAsync() {
+    synchronized (lock) {
+      if (!enabled || (waiters.isEmpty() && inFlight < (int) limit)) {
+        inFlight++;
+        return ApiFutures.immediateFuture(new Permit(epoch));
+      }
+      SettableApiFuture<Permit> waiter = SettableApiFuture.create();
+      waiters.add(waiter);
+      return waiter;
+    }
+  }
+
+  private Permit acquire() {
+    ApiFuture<Permit> permit = acquireAsync();
+    try {
+      return permit.get();
+    } catch (InterruptedException ex) {
+      if (!permit.cancel(false)) {
+        // The permit was granted in the meantime.
+        Futures.getUnchecked(permit).release(false, false);
+      }
+      Thread.currentThread().interrupt();
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, "Interrupted while waiting to send a request", ex);
+    } catch (ExecutionException ex) {
+      // Permits are only ever granted or cancelled.
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+
+  private void release(long startEpoch, boolean succeeded, boolean limitExceeded) {
+    List<SettableApiFuture<Permit>> granted = new ArrayList<>();
+    long grantEpoch;
+    synchronized (lock) {
+      if (limitExceeded) {
+        limitExceededCount++;
+      }
+      if (enabled) {
+        if (limitExceeded && startEpoch == epoch) {
+          limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+          epoch++;
+        } else if (succeeded && inFlight * 2 >= limit) {
+          limit = Math.min(MAX_LIMIT, limit + 1);
+        }
+      }
+      inFlight--;
+      while (!waiters.isEmpty() && inFlight < (int) limit) {
+        SettableApiFuture<Permit> waiter = waiters.poll();
+        if (!waiter.isDone()) {
+          inFlight++;
+          granted.add(waiter);
+        }
+      }
+      grantEpoch = epoch;
+    }
+    // Completed outside of the lock, since the waiters' listeners run inline.
+    for (SettableApiFuture<Permit> waiter : granted) {
+      Permit permit = new Permit(grantEpoch);
+      if (!waiter.set(permit)) {
+        // Cancelled since it was polled.
+        permit.release(false, false);
+      }
+    }
+  }
+
+  ThrottlingStats getStats() {
+    synchronized (lock) {
+      int waiting = 0;
+      for (SettableApiFuture<Permit> waiter : waiters) {
+        if (!waiter.isDone()) {
+          waiting++;
+        }
+      }
+      return new ThrottlingStats(
+          enabled ? (int) limit : Integer.MAX_VALUE, inFlight, waiting, limitExceededCount);
+    }
+  }
+}
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFunction;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.paging.AsyncPage;
+import com.google.api.gax.paging.Page;
+import com.google.cloud.Policy;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.threeten.bp.Duration;
+
+/**
+ * A {@link ResourceManager} that caches the projects returned by {@link #get(String,
+ * ProjectGetOption...)}.
+ *
+ * <p>Projects are cached by project ID and {@link ProjectGetOption#fields(ProjectField...) field
+ * mask}; a project that is not found (or not readable) is cached as well. Once an entry is older
+ * than the {@link Builder#setRefreshAfterWrite refresh interval}, the next read returns the cached
+ * project and reloads it in the background; entries older than the {@link
+ * Builder#setExpireAfterWrite expiration interval} are reloaded before being returned. Concurrent
+ * misses for the same entry, synchronous or not, share a single load. Projects
+ * modified through {@link #create}, {@link #replace}, {@link #delete} or {@link #undelete} (or
+ * their async variants) are updated in, or evicted from, the cache. Changes made by other clients,
+ * or through {@link #batch()}, only become visible once the cached entry is refreshed. All the
+ * other operations are forwarded to the wrapped service.
+ *
+ * <pre>{@code
+ * ResourceManager resourceManager =
+ *     CachingResourceManager.newBuilder(ResourceManagerOptions.getDefaultInstance().getService())
+ *         .setMaximumSize(1000)
+ *         .setRefreshAfterWrite(Duration.ofMinutes(1))
+ *         .build();
+ * Project project = resourceManager.get("my-project-id");
+ * }</pre>
+ */
+public final class CachingResourceManager implements ResourceManager {
+
+  static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+  static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+  static final Duration DEFAULT_REFRESH_AFTER_WRITE = Duration.ofMinutes(1);
+
+  private final ResourceManager resourceManager;
+  private final Executor loadExecutor;
+  private final LoadingCache<CacheKey, Entry> cache;
+  // The keys of the cached entries, ordered by project ID so that the entries of a project can be
+  // found without scanning the cache. Each key maps to the entry it was last loaded with.
+  private final ConcurrentNavigableMap<CacheKey, Entry> keys = new ConcurrentSkipListMap<>();
+
+  /** Builder for {@code CachingResourceManager}. */
+  public static final class Builder {
+
+    private final ResourceManager resourceManager;
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private Duration expireAfterWrite = DEFAULT_EXPIRE_AFTER_WRITE;
+    private Duration refreshAfterWrite = DEFAULT_REFRESH_AFTER_WRITE;
+    private Executor loadExecutor;
+
+    private Builder(ResourceManager resourceManager) {
+      this.resourceManager = checkNotNull(resourceManager);
+    }
+
+    /** Sets the maximum number of cached entries. Defaults to 10,000. */
+    public Builder setMaximumSize(long maximumSize) {
+      checkArgument(maximumSize >= 0, "Maximum size must not be negative");
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Sets how long after being loaded an entry is discarded, so that the next read waits for the
+     * project to be fetched again. Defaults to 10 minutes.
+     */
+    public Builder setExpireAfterWrite(Duration expireAfterWrite) {
+      checkArgument(isPositive(expireAfterWrite), "Expiration interval must be positive");
+      this.expireAfterWrite = expireAfterWrite;
+      return this;
+    }
+
+    /**
+     * Sets how long after being loaded an entry is reloaded in the background, while reads keep
+     * returning the cached project. Use {@code null} to disable background refreshes. Defaults to 1
+     * minute.
+     */
+    public Builder setRefreshAfterWrite(Duration refreshAfterWrite) {
+      checkArgument(
+          refreshAfterWrite == null || isPositive(refreshAfterWrite),
+          "Refresh interval must be positive");
+      this.refreshAfterWrite = refreshAfterWrite;
+      return this;
+    }
+
+    /**
+     * Sets the executor used to load entries in the background: the refreshes and the misses of
+     * {@link CachingResourceManager#getAsync}. Loads block while the project is fetched. Defaults
+     * to the wrapped service's {@link ResourceManagerOptions#getBlockingExecutor() blocking
+     * executor}.
+     */
+    public Builder setRefreshExecutor(Executor refreshExecutor) {
+      this.loadExecutor = checkNotNull(refreshExecutor);
+      return this;
+    }
+
+    public CachingResourceManager build() {
+      return new CachingResourceManager(this);
+    }
+
+    private static boolean isPositive(Duration duration) {
+      return !duration.isNegative() && !duration.isZero();
+    }
+  }
+
+  /** Hit, miss and eviction counts of a {@code CachingResourceManager}. */
+  public static final class Stats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    Stats(long hitCount, long missCount, long evictionCount) {
+      this.hitCount = hitCount;
+      this.missCount = missCount;
+      this.evictionCount = evictionCount;
+    }
+
+    /** Returns the number of reads served from the cache, including stale entries. */
+    public long getHitCount() {
+      return hitCount;
+    }
+
+    /** Returns the number of reads that had to fetch the project. */
+    public long getMissCount() {
+      return missCount;
+    }
+
+    /** Returns the number of entries evicted because the cache was full or they expired. */
+    public long getEvictionCount() {
+      return evictionCount;
+    }
+
+    @Override
+    public String toString() {
+      return MoreObjects.toStringHelper(this)
+          .add("hitCount", hitCount)
+          .add("missCount", missCount)
+          .add("evictionCount", evictionCount)
+          .toString();
+    }
+  }
+
+  private static final class CacheKey implements Comparable<CacheKey> {
+
+    private final String projectId;
+    private final String fields;
+    // The options the entry is loaded with, they are not part of the key's identity.
+    private final ProjectGetOption[] options;
+
+    CacheKey(String projectId, String fields, ProjectGetOption... options) {
+      this.projectId = projectId;
+      this.fields = fields;
+      this.options = options;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey other = (CacheKey) obj;
+      return projectId.equals(other.projectId) && Objects.equals(fields, other.fields);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(projectId, fields);
+    }
+
+    @Override
+    public int compareTo(CacheKey other) {
+      int result = projectId.compareTo(other.projectId);
+      return result != 0 ? result : FIELDS_ORDERING.compare(fields, other.fields);
+    }
+  }
+
+  // Sorts the key without field mask first, so that it is the first key of its project.
+  private static final Ordering<String> FIELDS_ORDERING = Ordering.<String>natural().nullsFirst();
+
+  /**
+   * A cached project, or {@code null} if it was not found. Entries are compared by identity, so
+   * that an entry replaced by a reload can be told from the new one.
+   */
+  private static final class Entry {
+
+    private final Project project;
+
+    Entry(Project project) {
+      this.project = project;
+    }
+  }
+
+  private CachingResourceManager(Builder builder) {
+    this.resourceManager = builder.resourceManager;
+    this.loadExecutor =
+        builder.loadExecutor != null
+            ? builder.loadExecutor
+            : resourceManager.getOptions().getBlockingExecutor();
+    final ApiClock clock = resourceManager.getOptions().getClock();
+    CacheBuilder<CacheKey, Entry> cacheBuilder =
+        CacheBuilder.newBuilder()
+            .maximumSize(builder.maximumSize)
+            .expireAfterWrite(builder.expireAfterWrite.toNanos(), TimeUnit.NANOSECONDS)
+            .ticker(
+                new Ticker() {
+                  @Override
+                  public long read() {
+                    return clock.nanoTime();
+                  }
+                })
+            .recordStats()
+            .removalListener(
+                new RemovalListener<CacheKey, Entry>() {
+                  @Override
+                  public void onRemoval(RemovalNotification<CacheKey, Entry> notification) {
+                    // Keeps the key if the entry was replaced, or loaded again since.
+                    keys.remove(notification.getKey(), notification.getValue());
+                  }
+                });
+    if (builder.refreshAfterWrite != null) {
+      cacheBuilder.refreshAfterWrite(builder.refreshAfterWrite.toNanos(), TimeUnit.NANOSECONDS);
+    }
+    this.cache =
+        cacheBuilder.build(
+            CacheLoader.asyncReloading(
+                new CacheLoader<CacheKey, Entry>() {
+                  @Override
+                  public Entry load(CacheKey key) {
+                    return index(
+                        key, new Entry(wrap(resourceManager.get(key.projectId, key.options))));
+                  }
+                },
+                loadExecutor));
+  }
+
+  /** Returns a builder for a {@code CachingResourceManager} wrapping {@code resourceManager}. */
+  public static Builder newBuilder(ResourceManager resourceManager) {
+    return new Builder(resourceManager);
+  }
+
+  /** Returns the cache's hit, miss and eviction counts. */
+  public Stats getStats() {
+    com.google.common.cache.CacheStats stats = cache.stats();
+    return new Stats(stats.hitCount(), stats.missCount(), stats.evictionCount());
+  }
+
+  /** Discards all the cached entries for the given project. */
+  public void invalidate(String projectId) {
+    List<CacheKey> projectKeys = new ArrayList<>();
+    for (CacheKey key : keys.tailMap(new CacheKey(projectId, null)).keySet()) {
+      if (!key.projectId.equals(projectId)) {
+        break;
+      }
+      projectKeys.add(key);
+    }
+    cache.invalidateAll(projectKeys);
+  }
+
+  /** Discards all the cached entries. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  @Override
+  public ResourceManagerOptions getOptions() {
+    return resourceManager.getOptions();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned project is served from the cache when possible.
+   */
+  @Override
+  public Project get(String projectId, ProjectGetOption... options) {
+    return load(cacheKey(projectId, options));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The returned future is already completed if the project is cached. Otherwise the project is
+   * loaded on the {@link Builder#setRefreshExecutor refresh executor}, sharing the load of any
+   * concurrent read of the same entry.
+   */
+  @Override
+  public ApiFuture<Project> getAsync(String projectId, ProjectGetOption... options) {
+    final CacheKey key = cacheKey(projectId, options);
+    if (cache.asMap().containsKey(key)) {
+      // Read through the cache, so that it is counted and refreshed like a synchronous read.
+      try {
+        return ApiFutures.immediateFuture(load(key));
+      } catch (ResourceManagerException ex) {
+        return ApiFutures.immediateFailedFuture(ex);
+      }
+    }
+    final SettableApiFuture<Project> future = SettableApiFuture.create();
+    loadExecutor.execute(
+        new Runnable() {
+          @Override
+          public void run() {
+            try {
+              future.set(load(key));
+            } catch (RuntimeException ex) {
+              future.setException(ex);
+            }
+          }
+        });
+    return future;
+  }
+
+  @Override
+  public Project create(ProjectInfo project) {
+    return cacheWritten(resourceManager.create(project));
+  }
+
+  @Override
+  public OperationFuture<Project> createAsync(ProjectInfo project) {
+    return OperationFutureImpl.transform(
+        resourceManager.createAsync(project), cacheWrittenFunction());
+  }
+
+  @Override
+  public Project replace(ProjectInfo newProject) {
+    return cacheWritten(resourceManager.replace(newProject));
+  }
+
+  @Override
+  public ApiFuture<Project> replaceAsync(ProjectInfo newProject) {
+    return ApiFutures.transform(
+        resourceManager.replaceAsync(newProject),
+        cacheWrittenFunction(),
+        MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public void delete(String projectId) {
+    resourceManager.delete(projectId);
+    invalidate(projectId);
+  }
+
+  @Override
+  public ApiFuture<Void> deleteAsync(String projectId) {
+    return ApiFutures.transform(
+        resourceManager.deleteAsync(projectId),
+        invalidateFunction(projectId),
+        MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public void undelete(String projectId) {
+    resourceManager.undelete(projectId);
+    invalidate(projectId);
+  }
+
+  @Override
+  public ApiFuture<Void> undeleteAsync(String projectId) {
+    return ApiFutures.transform(
+        resourceManager.undeleteAsync(projectId),
+        invalidateFunction(projectId),
+        MoreExecutors.directExecutor());
+  }
+
+  @Override
+  public Page<Project> list(ProjectListOption... options) {
+    return resourceManager.list(options);
+  }
+
+  @Override
+  public ApiFuture<AsyncPage<Project>> listAsync(ProjectListOption... options) {
+    return resourceManager.listAsync(options);
+  }
+
+  @Override
+  public Policy getPolicy(String projectId) {
+    return resourceManager.getPolicy(projectId);
+  }
+
+  @Override
+  public ApiFuture<Policy> getPolicyAsync(String projectId) {
+    return resourceManager.getPolicyAsync(projectId);
+  }
+
+  @Override
+  public Policy replacePolicy(String projectId, Policy newPolicy) {
+    return resourceManager.replacePolicy(projectId, newPolicy);
+  }
+
+  @Override
+  public ApiFuture<Policy> replacePolicyAsync(String projectId, Policy newPolicy) {
+    return resourceManager.replacePolicyAsync(projectId, newPolicy);
+  }
+
+  @Override
+  public List<Boolean> testPermissions(String projectId, List<String> permissions) {
+    return resourceManager.testPermissions(projectId, permissions);
+  }
+
+  @Override
+  public ApiFuture<List<Boolean>> testPermissionsAsync(String projectId, List<String> permissions) {
+    return resourceManager.testPermissionsAsync(projectId, permissions);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Operations in the returned batch bypass the cache.
+   */
+  @Override
+  public ResourceManagerBatch batch() {
+    return resourceManager.batch();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Reads served from the cache are not counted.
+   */
+  @Override
+  public CoalescingStats getCoalescingStats() {
+    return resourceManager.getCoalescingStats();
+  }
+
+  @Override
+  public ThrottlingStats getThrottlingStats() {
+    return resourceManager.getThrottlingStats();
+  }
+
+  @Override
+  public RetryBudgetStats getRetryBudgetStats() {
+    return resourceManager.getRetryBudgetStats();
+  }
+
+  @Override
+  public HedgingStats getHedgingStats() {
+    return resourceManager.getHedgingStats();
+  }
+
+  private Project load(CacheKey key) {
+    try {
+      return cache.getUnchecked(key).project;
+    } catch (UncheckedExecutionException ex) {
+      throw ResourceManagerException.translateAndThrow(ex.getCause());
+    }
+  }
+
+  private Entry index(CacheKey key, Entry entry) {
+    keys.put(key, entry);
+    return entry;
+  }
+
+  private static CacheKey cacheKey(String projectId, ProjectGetOption... options) {
+    String fields = null;
+    for (ProjectGetOption option : options) {
+      if (option.getRpcOption() == ResourceManagerRpc.Option.FIELDS) {
+        fields = (String) option.getValue();
+      }
+    }
+    return new CacheKey(checkNotNull(projectId), fields, options);
+  }
+
+  // Projects returned by this service use it for their own operations, so that they also go
+  // through the cache.
+  private Project wrap(Project project) {
+    return project == null ? null : new Project(this, project);
+  }
+
+  private Project cacheWritten(Project project) {
+    invalidate(project.getProjectId());
+    Project wrapped = wrap(project);
+    CacheKey key = new CacheKey(project.getProjectId(), null);
+    cache.put(key, index(key, new Entry(wrapped)));
+    return wrapped;
+  }
+
+  private ApiFunction<Project, Project> cacheWrittenFunction() {
+    return new ApiFunction<Project, Project>() {
+      @Override
+      public Project apply(Project project) {
+        return cacheWritten(project);
+      }
+    };
+  }
+
+  private ApiFunction<Void, Void> invalidateFunction(final String projectId) {
+    return new ApiFunction<Void, Void>() {
+      @Override
+      public Void apply(Void input) {
+        invalidate(projectId);
+        return null;
+      }
+    };
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.common.base.Strings;
+import com.google.common.collect.AbstractIterator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Lists projects while saving the position of the listing to a {@link ListCheckpointStore}, so
+ * that a listing that failed, or whose process ended, resumes where it stopped instead of starting
+ * over.
+ *
+ * <p>The iterables returned by {@link #iterateAll} save a {@link ListCheckpoint} every {@link
+ * Builder#setCheckpointInterval checkpoint interval} pages, once the projects of these pages have
+ * all been returned, and when a page request fails. A new iteration with the same key starts from
+ * the saved checkpoint, and the checkpoint is deleted when the listing completes. Projects are
+ * returned at least once: the projects of the pages consumed after the last checkpoint are
+ * returned again when the listing resumes.
+ *
+ * <pre>{@code
+ * CheckpointedProjectLister lister =
+ *     CheckpointedProjectLister.newBuilder(
+ *             resourceManager, new FileListCheckpointStore(Paths.get("checkpoints")))
+ *         .build();
+ * for (Project project : lister.iterateAll("inventory", ProjectListOption.pageSize(500))) {
+ *   // do something with the project
+ * }
+ * }</pre>
+ */
+public final class CheckpointedProjectLister {
+
+  static final int DEFAULT_CHECKPOINT_INTERVAL = 10;
+
+  private final ResourceManager resourceManager;
+  private final ListCheckpointStore store;
+  private final int checkpointInterval;
+
+  /** Builder for {@code CheckpointedProjectLister}. */
+  public static final class Builder {
+
+    private final ResourceManager resourceManager;
+    private final ListCheckpointStore store;
+    private int checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+
+    private Builder(ResourceManager resourceManager, ListCheckpointStore store) {
+      this.resourceManager = checkNotNull(resourceManager);
+      this.store = checkNotNull(store);
+    }
+
+    /** Sets the number of pages between two checkpoints. Defaults to 10. */
+    public Builder setCheckpointInterval(int checkpointInterval) {
+      checkArgument(checkpointInterval > 0, "Checkpoint interval must be at least one page");
+      this.checkpointInterval = checkpointInterval;
+      return this;
+    }
+
+    public CheckpointedProjectLister build() {
+      return new CheckpointedProjectLister(this);
+    }
+  }
+
+  private CheckpointedProjectLister(Builder builder) {
+    this.resourceManager = builder.resourceManager;
+    this.store = builder.store;
+    this.checkpointInterval = builder.checkpointInterval;
+  }
+
+  /**
+   * Returns a builder for a lister that uses {@code resourceManager} to fetch pages and saves its
+   * checkpoints to {@code store}.
+   */
+  public static Builder newBuilder(ResourceManager resourceManager, ListCheckpointStore store) {
+    return new Builder(resourceManager, store);
+  }
+
+  /**
+   * Returns an iterable over all the projects matching {@code options}, resuming from the
+   * checkpoint saved for {@code key}, if any. Each call to {@code iterator()} loads the checkpoint
+   * again. The same key must not be used by concurrent listings, nor with other options.
+   *
+   * @throws IllegalArgumentException if {@code options} contain a page token, which would be
+   *     overridden by the checkpoints
+   * @throws ResourceManagerException from the iterator's methods, if a page request fails or if a
+   *     checkpoint can't be loaded or saved
+   */
+  public Iterable<Project> iterateAll(final String key, final ProjectListOption... options) {
+    checkNotNull(key);
+    for (ProjectListOption option : options) {
+      checkArgument(
+          option.getRpcOption() != ResourceManagerRpc.Option.PAGE_TOKEN,
+          "A checkpointed listing can't start from a page token");
+    }
+    return new Iterable<Project>() {
+      @Override
+      public Iterator<Project> iterator() {
+        return new CheckpointingIterator(key, options);
+      }
+    };
+  }
+
+  /** Returns the checkpoint saved for {@code key}, or {@code null} if none. */
+  public ListCheckpoint getCheckpoint(String key) {
+    try {
+      return store.load(key);
+    } catch (IOException ex) {
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, "Could not load list checkpoint " + key, ex);
+    }
+  }
+
+  /** Deletes the checkpoint saved for {@code key}, so that its next listing starts over. */
+  public void reset(String key) {
+    try {
+      store.delete(key);
+    } catch (IOException ex) {
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, "Could not delete list checkpoint " + key, ex);
+    }
+  }
+
+  private final class CheckpointingIterator extends AbstractIterator<Project> {
+
+    private final String key;
+    private final ProjectListOption[] options;
+    private Iterator<Project> currentPage = Collections.emptyIterator();
+    // The token of the page following the current one, null before the first page.
+    private String nextPageToken;
+    private long projectCount;
+    private int pagesSinceCheckpoint;
+    private boolean exhausted;
+
+    CheckpointingIterator(String key, ProjectListOption... options) {
+      this.key = key;
+      this.options = options;
+      ListCheckpoint checkpoint = getCheckpoint(key);
+      if (checkpoint != null) {
+        nextPageToken = checkpoint.getPageToken();
+        projectCount = checkpoint.getProjectCount();
+      }
+    }
+
+    @Override
+    protected Project computeNext() {
+      while (!currentPage.hasNext()) {
+        if (exhausted) {
+          reset(key);
+          return endOfData();
+        }
+        // The projects of the current page have all been returned.
+        if (pagesSinceCheckpoint >= checkpointInterval) {
+          saveCheckpoint();
+        }
+        Page<Project> page;
+        try {
+          page = resourceManager.list(requestOptions());
+        } catch (RuntimeException ex) {
+          if (pagesSinceCheckpoint > 0) {
+            saveCheckpoint();
+          }
+          throw ex;
+        }
+        currentPage = page.getValues().iterator();
+        nextPageToken = page.getNextPageToken();
+        exhausted = Strings.isNullOrEmpty(nextPageToken);
+        pagesSinceCheckpoint++;
+      }
+      projectCount++;
+      return currentPage.next();
+    }
+
+    private ProjectListOption[] requestOptions() {
+      List<ProjectListOption> requestOptions = new ArrayList<>(options.length + 1);
+      Collections.addAll(requestOptions, options);
+      if (nextPageToken != null) {
+        requestOptions.add(ProjectListOption.pageToken(nextPageToken));
+      }
+      return requestOptions.toArray(new ProjectListOption[0]);
+    }
+
+    private void saveCheckpoint() {
+      try {
+        store.save(key, ListCheckpoint.of(nextPageToken, projectCount));
+      } catch (IOException ex) {
+        throw new ResourceManagerException(
+            ResourceManagerException.UNKNOWN_CODE, "Could not save list checkpoint " + key, ex);
+      }
+      pagesSinceCheckpoint = 0;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "CheckpointedProjectLister{store="
+        + store
+        + ", checkpointInterval="
+        + checkpointInterval
+        + "}";
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Counts of the {@code get} and {@code getPolicy} requests sent by a {@link ResourceManager}, and
+ * of the calls that shared the response of an identical request already in flight.
+ *
+ * @see ResourceManagerOptions.Builder#setReadCoalescingEnabled(boolean)
+ */
+public final class CoalescingStats {
+
+  private final long getRequestCount;
+  private final long getCollapsedCount;
+  private final long getPolicyRequestCount;
+  private final long getPolicyCollapsedCount;
+
+  CoalescingStats(
+      long getRequestCount,
+      long getCollapsedCount,
+      long getPolicyRequestCount,
+      long getPolicyCollapsedCount) {
+    this.getRequestCount = getRequestCount;
+    this.getCollapsedCount = getCollapsedCount;
+    this.getPolicyRequestCount = getPolicyRequestCount;
+    this.getPolicyCollapsedCount = getPolicyCollapsedCount;
+  }
+
+  /** Returns the number of "get project" requests sent. */
+  public long getGetRequestCount() {
+    return getRequestCount;
+  }
+
+  /** Returns the number of "get project" calls that shared another call's request. */
+  public long getGetCollapsedCount() {
+    return getCollapsedCount;
+  }
+
+  /** Returns the number of "get policy" requests sent. */
+  public long getGetPolicyRequestCount() {
+    return getPolicyRequestCount;
+  }
+
+  /** Returns the number of "get policy" calls that shared another call's request. */
+  public long getGetPolicyCollapsedCount() {
+    return getPolicyCollapsedCount;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("getRequestCount", getRequestCount)
+        .add("getCollapsedCount", getCollapsedCount)
+        .add("getPolicyRequestCount", getPolicyRequestCount)
+        .add("getPolicyCollapsedCount", getPolicyCollapsedCount)
+        .toString();
+  }
+}
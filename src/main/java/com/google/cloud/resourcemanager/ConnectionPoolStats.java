@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the state of the connection pool of a {@link PooledHttpTransportFactory}.
+ *
+ * @see PooledHttpTransportFactory#getPoolStats()
+ */
+public final class ConnectionPoolStats {
+
+  private final int leasedConnections;
+  private final int availableConnections;
+  private final int pendingRequests;
+  private final int maxConnections;
+  private final int routeCount;
+  private final long openedConnections;
+
+  ConnectionPoolStats(
+      int leasedConnections,
+      int availableConnections,
+      int pendingRequests,
+      int maxConnections,
+      int routeCount,
+      long openedConnections) {
+    this.leasedConnections = leasedConnections;
+    this.availableConnections = availableConnections;
+    this.pendingRequests = pendingRequests;
+    this.maxConnections = maxConnections;
+    this.routeCount = routeCount;
+    this.openedConnections = openedConnections;
+  }
+
+  /** Returns the number of connections in use by a request. */
+  public int getLeasedConnections() {
+    return leasedConnections;
+  }
+
+  /** Returns the number of open connections kept in the pool for reuse. */
+  public int getAvailableConnections() {
+    return availableConnections;
+  }
+
+  /** Returns the number of requests waiting for a connection. */
+  public int getPendingRequests() {
+    return pendingRequests;
+  }
+
+  /** Returns the maximum number of connections of the pool. */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /** Returns the number of hosts the pool has connections to. */
+  public int getRouteCount() {
+    return routeCount;
+  }
+
+  /**
+   * Returns the number of connections opened since the pool was created. Compared with the number
+   * of requests, it tells how often a connection, and a TLS handshake, was avoided by reuse.
+   */
+  public long getOpenedConnections() {
+    return openedConnections;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("leasedConnections", leasedConnections)
+        .add("availableConnections", availableConnections)
+        .add("pendingRequests", pendingRequests)
+        .add("maxConnections", maxConnections)
+        .add("routeCount", routeCount)
+        .add("openedConnections", openedConnections)
+        .toString();
+  }
+}
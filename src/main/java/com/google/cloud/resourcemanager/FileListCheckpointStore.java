@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link ListCheckpointStore} that keeps every checkpoint in a properties file named after its
+ * key, {@code <key>.checkpoint}, in a directory. A checkpoint is written to a temporary file that
+ * then replaces the previous one, so that a crash while saving leaves the previous checkpoint
+ * intact.
+ */
+public final class FileListCheckpointStore implements ListCheckpointStore {
+
+  private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+  private static final String SUFFIX = ".checkpoint";
+  private static final String PAGE_TOKEN = "pageToken";
+  private static final String PROJECT_COUNT = "projectCount";
+
+  private final Path directory;
+
+  /**
+   * Creates a store keeping its checkpoints in {@code directory}, which is created when the first
+   * checkpoint is saved if it doesn't exist.
+   */
+  public FileListCheckpointStore(Path directory) {
+    this.directory = checkNotNull(directory);
+  }
+
+  /** Returns the directory of the checkpoint files. */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  @Override
+  public ListCheckpoint load(String key) throws IOException {
+    Properties properties = new Properties();
+    try (InputStream input = Files.newInputStream(fileOf(key))) {
+      properties.load(input);
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+    String pageToken = properties.getProperty(PAGE_TOKEN);
+    String projectCount = properties.getProperty(PROJECT_COUNT);
+    if (pageToken == null || projectCount == null) {
+      throw new IOException("Invalid checkpoint file " + fileOf(key));
+    }
+    try {
+      return ListCheckpoint.of(pageToken, Long.parseLong(projectCount));
+    } catch (IllegalArgumentException ex) {
+      throw new IOException("Invalid checkpoint file " + fileOf(key), ex);
+    }
+  }
+
+  @Override
+  public void save(String key, ListCheckpoint checkpoint) throws IOException {
+    Path file = fileOf(key);
+    Properties properties = new Properties();
+    properties.setProperty(PAGE_TOKEN, checkpoint.getPageToken());
+    properties.setProperty(PROJECT_COUNT, Long.toString(checkpoint.getProjectCount()));
+    Files.createDirectories(directory);
+    Path temporaryFile = Files.createTempFile(directory, key, SUFFIX + ".tmp");
+    try {
+      try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+        properties.store(output, null);
+      }
+      try {
+        Files.move(
+            temporaryFile,
+            file,
+            StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  @Override
+  public void delete(String key) throws IOException {
+    Files.deleteIfExists(fileOf(key));
+  }
+
+  private Path fileOf(String key) {
+    checkArgument(KEY_PATTERN.matcher(key).matches(), "Invalid checkpoint key: %s", key);
+    return directory.resolve(key + SUFFIX);
+  }
+
+  @Override
+  public String toString() {
+    return "FileListCheckpointStore{directory=" + directory + "}";
+  }
+}
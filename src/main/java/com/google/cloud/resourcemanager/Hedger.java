@@ -0,0 +1,261 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.threeten.bp.Duration;
+
+/**
+ * Sends a second copy of an idempotent call if the first one has not completed after a delay, and
+ * completes with whichever copy succeeds first.
+ *
+ * <p>The delay is either fixed or the configured percentile of the latencies of the last {@link
+ * #SAMPLE_WINDOW} successful copies. Until {@link #MIN_SAMPLES} latencies have been observed, the
+ * fixed delay is used, if any; otherwise calls are not hedged. A call whose first copy fails before
+ * the second one is sent fails without being hedged. The number of second copies is limited by a
+ * token bucket: every call adds {@code budgetRatio} tokens, up to {@link #BUDGET_CAPACITY}, and
+ * every second copy takes one.
+ */
+final class Hedger {
+
+  static final int SAMPLE_WINDOW = 1024;
+  static final int MIN_SAMPLES = 100;
+  static final int BUDGET_CAPACITY = 10;
+  private static final int PERCENTILE_REFRESH_INTERVAL = 64;
+
+  /** Starts one copy of a hedged call. */
+  interface Leg<V> {
+
+    /**
+     * Starts a copy of the call. {@code hedge} is {@code true} for the second copy, which must not
+     * share a request with the first one.
+     */
+    ApiFuture<V> start(boolean hedge);
+  }
+
+  private final ScheduledExecutorService executor;
+  private final ApiClock clock;
+  private final Duration delay;
+  private final double percentile;
+  private final double budgetRatio;
+
+  // All the fields below are guarded by this lock.
+  private final Object lock = new Object();
+  private final long[] latencySamples = new long[SAMPLE_WINDOW];
+  private int sampleCount;
+  private long percentileNanos = -1;
+  private double tokens = BUDGET_CAPACITY;
+  private long callCount;
+  private long hedgesSent;
+  private long hedgesWon;
+
+  Hedger(
+      ScheduledExecutorService executor,
+      ApiClock clock,
+      Duration delay,
+      double percentile,
+      double budgetRatio) {
+    this.executor = executor;
+    this.clock = clock;
+    this.delay = delay;
+    this.percentile = percentile;
+    this.budgetRatio = budgetRatio;
+  }
+
+  /** Returns whether calls may be hedged. */
+  boolean isEnabled() {
+    return delay != null || percentile > 0;
+  }
+
+  /**
+   * Starts a copy of the call with {@code leg}, and a second copy if the first one didn't complete
+   * after the hedging delay. The returned future completes with the first successful copy, or fails
+   * if every copy started fails. Once it is done, or cancelled, the other copies are cancelled
+   * without interrupting them: a copy may be sharing its request with coalesced calls, which must
+   * still receive its result.
+   */
+  <V> ApiFuture<V> hedge(Leg<V> leg) {
+    final SettableApiFuture<V> result = SettableApiFuture.create();
+    final HedgedCall<V> call = new HedgedCall<>(leg, result);
+    long delayNanos;
+    synchronized (lock) {
+      callCount++;
+      tokens = Math.min(BUDGET_CAPACITY, tokens + budgetRatio);
+      delayNanos = getDelayNanos();
+    }
+    call.start(false);
+    if (delayNanos >= 0 && !result.isDone()) {
+      final ScheduledFuture<?> scheduledHedge =
+          executor.schedule(
+              new Runnable() {
+                @Override
+                public void run() {
+                  if (!result.isDone() && tryHedge()) {
+                    call.start(true);
+                  }
+                }
+              },
+              delayNanos,
+              TimeUnit.NANOSECONDS);
+      result.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              scheduledHedge.cancel(false);
+            }
+          },
+          MoreExecutors.directExecutor());
+    }
+    result.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            call.cancelLegs();
+          }
+        },
+        MoreExecutors.directExecutor());
+    return result;
+  }
+
+  private final class HedgedCall<V> {
+
+    private final Leg<V> leg;
+    private final SettableApiFuture<V> result;
+    // All the fields below are guarded by this.
+    private final List<ApiFuture<V>> legs = new ArrayList<>(2);
+    private int outstanding;
+    private boolean succeeded;
+
+    HedgedCall(Leg<V> leg, SettableApiFuture<V> result) {
+      this.leg = leg;
+      this.result = result;
+    }
+
+    void start(final boolean hedge) {
+      final long startNanos = clock.nanoTime();
+      ApiFuture<V> future;
+      synchronized (this) {
+        if (result.isDone()) {
+          return;
+        }
+        outstanding++;
+        try {
+          future = leg.start(hedge);
+        } catch (RuntimeException ex) {
+          future = ApiFutures.immediateFailedFuture(ex);
+        }
+        legs.add(future);
+      }
+      ApiFutures.addCallback(
+          future,
+          new ApiFutureCallback<V>() {
+            @Override
+            public void onSuccess(V value) {
+              recordLatency(clock.nanoTime() - startNanos);
+              synchronized (HedgedCall.this) {
+                if (succeeded) {
+                  return;
+                }
+                succeeded = true;
+              }
+              if (hedge) {
+                synchronized (lock) {
+                  hedgesWon++;
+                }
+              }
+              result.set(value);
+            }
+
+            @Override
+            public void onFailure(Throwable throwable) {
+              boolean last;
+              synchronized (HedgedCall.this) {
+                last = --outstanding == 0;
+              }
+              // A copy that fails while the other one is in flight doesn't fail the call.
+              if (last) {
+                result.setException(throwable);
+              }
+            }
+          },
+          MoreExecutors.directExecutor());
+    }
+
+    void cancelLegs() {
+      List<ApiFuture<V>> toCancel;
+      synchronized (this) {
+        toCancel = new ArrayList<>(legs);
+      }
+      for (ApiFuture<V> future : toCancel) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  private boolean tryHedge() {
+    synchronized (lock) {
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      hedgesSent++;
+      return true;
+    }
+  }
+
+  private void recordLatency(long latencyNanos) {
+    synchronized (lock) {
+      latencySamples[sampleCount % SAMPLE_WINDOW] = latencyNanos;
+      sampleCount++;
+      if (percentile > 0
+          && sampleCount >= MIN_SAMPLES
+          && (percentileNanos < 0 || sampleCount % PERCENTILE_REFRESH_INTERVAL == 0)) {
+        long[] sorted = Arrays.copyOf(latencySamples, Math.min(sampleCount, SAMPLE_WINDOW));
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        percentileNanos = sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+      }
+    }
+  }
+
+  // Must be called while holding the lock. Returns -1 if calls are not hedged.
+  private long getDelayNanos() {
+    if (percentileNanos >= 0) {
+      return percentileNanos;
+    }
+    return delay != null ? delay.toNanos() : -1;
+  }
+
+  HedgingStats getStats() {
+    synchronized (lock) {
+      long delayNanos = isEnabled() ? getDelayNanos() : -1;
+      return new HedgingStats(
+          callCount, hedgesSent, hedgesWon, delayNanos >= 0 ? Duration.ofNanos(delayNanos) : null);
+    }
+  }
+}
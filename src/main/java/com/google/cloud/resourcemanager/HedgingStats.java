@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.base.MoreObjects;
+import org.threeten.bp.Duration;
+
+/**
+ * Counts of the hedged {@code get} and {@code getPolicy} calls made by a {@link ResourceManager}.
+ *
+ * @see ResourceManagerOptions.Builder#setHedgingDelay(Duration)
+ */
+public final class HedgingStats {
+
+  private final long callCount;
+  private final long hedgesSent;
+  private final long hedgesWon;
+  private final Duration hedgingDelay;
+
+  HedgingStats(long callCount, long hedgesSent, long hedgesWon, Duration hedgingDelay) {
+    this.callCount = callCount;
+    this.hedgesSent = hedgesSent;
+    this.hedgesWon = hedgesWon;
+    this.hedgingDelay = hedgingDelay;
+  }
+
+  /** Returns the number of calls that could be hedged. */
+  public long getCallCount() {
+    return callCount;
+  }
+
+  /** Returns the number of second requests sent. */
+  public long getHedgesSent() {
+    return hedgesSent;
+  }
+
+  /** Returns the number of calls completed by their second request. */
+  public long getHedgesWon() {
+    return hedgesWon;
+  }
+
+  /**
+   * Returns how long a call currently waits before sending a second request, or {@code null} if
+   * calls are currently not hedged.
+   */
+  public Duration getHedgingDelay() {
+    return hedgingDelay;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("callCount", callCount)
+        .add("hedgesSent", hedgesSent)
+        .add("hedgesWon", hedgesWon)
+        .add("hedgingDelay", hedgingDelay)
+        .toString();
+  }
+}
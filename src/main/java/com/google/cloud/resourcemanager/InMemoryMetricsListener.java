@@ -0,0 +1,198 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link MetricsListener} that aggregates the metrics in memory. Recording a metric only updates
+ * atomic counters, and latencies are counted in buckets whose bounds are powers of two of
+ * microseconds, so sampling the metrics is cheap and can be done as often as needed.
+ *
+ * <p>Example of sampling the metrics of the {@code get} calls:
+ *
+ * <pre>{@code
+ * InMemoryMetricsListener metrics = new InMemoryMetricsListener();
+ * ResourceManager resourceManager =
+ *     ResourceManagerOptions.newBuilder().setMetricsListener(metrics).build().getService();
+ * // ...
+ * MethodMetrics getMetrics = metrics.getMethodMetrics(MetricsListener.Method.GET);
+ * Duration p99 = getMetrics.getLatencyPercentile(99);
+ * }</pre>
+ */
+public final class InMemoryMetricsListener implements MetricsListener {
+
+  static final int LATENCY_BUCKETS = 32;
+
+  private final MethodRecorder[] recorders;
+  private final AtomicLong pageCount = new AtomicLong();
+  private final AtomicLong listedProjectCount = new AtomicLong();
+  private final AtomicLong maxPageSize = new AtomicLong();
+  private final AtomicLong operationCount = new AtomicLong();
+  private final AtomicLong operationPollCount = new AtomicLong();
+
+  private static final class MethodRecorder {
+
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final ConcurrentMap<String, AtomicLong> retryReasons = new ConcurrentHashMap<>();
+    private final AtomicLongArray latencyBuckets = new AtomicLongArray(LATENCY_BUCKETS);
+    private final AtomicLong responses = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong uncompressedResponseBytes = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong uncompressedRequestBytes = new AtomicLong();
+  }
+
+  public InMemoryMetricsListener() {
+    Method[] methods = Method.values();
+    recorders = new MethodRecorder[methods.length];
+    for (int i = 0; i < methods.length; i++) {
+      recorders[i] = new MethodRecorder();
+    }
+  }
+
+  @Override
+  public void onAttempt(Method method, long latencyNanos, Throwable error) {
+    MethodRecorder recorder = recorders[method.ordinal()];
+    recorder.attempts.incrementAndGet();
+    if (error != null) {
+      recorder.failedAttempts.incrementAndGet();
+    }
+    recorder.latencyBuckets.incrementAndGet(latencyBucket(latencyNanos));
+  }
+
+  @Override
+  public void onRetry(Method method, int attempt, long delayNanos, Throwable cause) {
+    MethodRecorder recorder = recorders[method.ordinal()];
+    recorder.retries.incrementAndGet();
+    String reason = ResourceManagerException.reasonOf(cause);
+    AtomicLong count = recorder.retryReasons.get(reason);
+    if (count == null) {
+      AtomicLong newCount = new AtomicLong();
+      count = recorder.retryReasons.putIfAbsent(reason, newCount);
+      if (count == null) {
+        count = newCount;
+      }
+    }
+    count.incrementAndGet();
+  }
+
+  @Override
+  public void onResponse(
+      Method method, String projectId, int statusCode, long bytes, long latencyNanos) {
+    MethodRecorder recorder = recorders[method.ordinal()];
+    recorder.responses.incrementAndGet();
+    if (bytes > 0) {
+      recorder.responseBytes.addAndGet(bytes);
+    }
+  }
+
+  @Override
+  public void onRequestBody(Method method, long bytes, long uncompressedBytes) {
+    MethodRecorder recorder = recorders[method.ordinal()];
+    recorder.requestBytes.addAndGet(bytes);
+    recorder.uncompressedRequestBytes.addAndGet(uncompressedBytes);
+  }
+
+  @Override
+  public void onResponseBody(Method method, long uncompressedBytes) {
+    recorders[method.ordinal()].uncompressedResponseBytes.addAndGet(uncompressedBytes);
+  }
+
+  @Override
+  public void onPage(int projectCount) {
+    pageCount.incrementAndGet();
+    listedProjectCount.addAndGet(projectCount);
+    long max = maxPageSize.get();
+    while (projectCount > max && !maxPageSize.compareAndSet(max, projectCount)) {
+      max = maxPageSize.get();
+    }
+  }
+
+  @Override
+  public void onOperationDone(int pollCount) {
+    operationCount.incrementAndGet();
+    operationPollCount.addAndGet(pollCount);
+  }
+
+  /** Returns a snapshot of the metrics of the calls to {@code method}. */
+  public MethodMetrics getMethodMetrics(Method method) {
+    MethodRecorder recorder = recorders[method.ordinal()];
+    long[] latencyCounts = new long[LATENCY_BUCKETS];
+    for (int i = 0; i < LATENCY_BUCKETS; i++) {
+      latencyCounts[i] = recorder.latencyBuckets.get(i);
+    }
+    ImmutableMap.Builder<String, Long> retryReasons = ImmutableMap.builder();
+    for (Map.Entry<String, AtomicLong> entry : recorder.retryReasons.entrySet()) {
+      retryReasons.put(entry.getKey(), entry.getValue().get());
+    }
+    return new MethodMetrics(
+        method,
+        recorder.attempts.get(),
+        recorder.failedAttempts.get(),
+        recorder.retries.get(),
+        retryReasons.build(),
+        latencyCounts,
+        recorder.responses.get(),
+        recorder.responseBytes.get(),
+        recorder.uncompressedResponseBytes.get(),
+        recorder.requestBytes.get(),
+        recorder.uncompressedRequestBytes.get());
+  }
+
+  /** Returns the number of pages received by list calls. */
+  public long getPageCount() {
+    return pageCount.get();
+  }
+
+  /** Returns the number of projects received by list calls. */
+  public long getListedProjectCount() {
+    return listedProjectCount.get();
+  }
+
+  /** Returns the number of projects of the largest page received by a list call. */
+  public long getMaxPageSize() {
+    return maxPageSize.get();
+  }
+
+  /** Returns the number of project creation operations that are done. */
+  public long getOperationCount() {
+    return operationCount.get();
+  }
+
+  /**
+   * Returns the number of times the operations counted by {@link #getOperationCount()} were polled.
+   */
+  public long getOperationPollCount() {
+    return operationPollCount.get();
+  }
+
+  // Bucket 0 holds the latencies below 1 microsecond and bucket i > 0 the latencies in
+  // [2^(i-1), 2^i) microseconds. The last bucket also holds all the longer latencies.
+  static int latencyBucket(long latencyNanos) {
+    long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(0, latencyNanos));
+    return Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.AbstractApiFuture;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.retrying.RetryAlgorithm;
+import com.google.api.gax.retrying.RetryingFuture;
+import com.google.api.gax.retrying.ScheduledRetryingExecutor;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules the attempts of an asynchronous call like {@link ScheduledRetryingExecutor}, but runs
+ * them on a separate blocking executor once the {@link AdaptiveLimiter} grants them a permit. The
+ * scheduler's threads only time the attempts: they neither send requests nor wait for permits, so
+ * the timers of other calls, hedges and operation polls sharing the scheduler are never delayed by
+ * slow or throttled requests.
+ */
+final class LimitedRetryingExecutor<V> extends ScheduledRetryingExecutor<V> {
+
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService blockingExecutor;
+  private final AdaptiveLimiter limiter;
+
+  /** The result of an attempt, which remembers whether it was cancelled with an interruption. */
+  private static final class AttemptFuture<V> extends AbstractApiFuture<V> {
+
+    private volatile boolean interrupted;
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      interrupted = mayInterruptIfRunning;
+      return super.cancel(mayInterruptIfRunning);
+    }
+
+    boolean complete(V value) {
+      return set(value);
+    }
+
+    boolean fail(Throwable throwable) {
+      return setException(throwable);
+    }
+  }
+
+  LimitedRetryingExecutor(
+      RetryAlgorithm<V> retryAlgorithm,
+      ScheduledExecutorService scheduler,
+      ExecutorService blockingExecutor,
+      AdaptiveLimiter limiter) {
+    super(retryAlgorithm, scheduler);
+    this.scheduler = scheduler;
+    this.blockingExecutor = blockingExecutor;
+    this.limiter = limiter;
+  }
+
+  @Override
+  public ApiFuture<V> submit(RetryingFuture<V> retryingFuture) {
+    final Callable<V> attempt = retryingFuture.getCallable();
+    final AttemptFuture<V> result = new AttemptFuture<>();
+    long delayNanos = retryingFuture.getAttemptSettings().getRandomizedRetryDelay().toNanos();
+    if (delayNanos <= 0) {
+      dispatch(attempt, result);
+      return result;
+    }
+    try {
+      final ScheduledFuture<?> scheduled =
+          scheduler.schedule(
+              new Runnable() {
+                @Override
+                public void run() {
+                  dispatch(attempt, result);
+                }
+              },
+              delayNanos,
+              TimeUnit.NANOSECONDS);
+      result.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              scheduled.cancel(false);
+            }
+          },
+          MoreExecutors.directExecutor());
+    } catch (RejectedExecutionException ex) {
+      result.fail(ex);
+    }
+    return result;
+  }
+
+  private void dispatch(final Callable<V> attempt, final AttemptFuture<V> result) {
+    if (result.isDone()) {
+      return;
+    }
+    final ApiFuture<AdaptiveLimiter.Permit> permitFuture = limiter.acquireAsync();
+    result.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            // Gives up the place in the queue if the attempt is cancelled while waiting.
+            permitFuture.cancel(false);
+          }
+        },
+        MoreExecutors.directExecutor());
+    ApiFutures.addCallback(
+        permitFuture,
+        new ApiFutureCallback<AdaptiveLimiter.Permit>() {
+          @Override
+          public void onSuccess(AdaptiveLimiter.Permit permit) {
+            run(attempt, permit, result);
+          }
+
+          @Override
+          public void onFailure(Throwable throwable) {
+            result.fail(throwable);
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  private void run(
+      final Callable<V> attempt,
+      final AdaptiveLimiter.Permit permit,
+      final AttemptFuture<V> result) {
+    final Future<?> task;
+    try {
+      task =
+          blockingExecutor.submit(
+              new Runnable() {
+                @Override
+                public void run() {
+                  if (result.isDone()) {
+                    permit.release(false, false);
+                    return;
+                  }
+                  try {
+                    result.complete(limiter.callWithPermit(permit, attempt));
+                  } catch (Exception ex) {
+                    result.fail(ex);
+                  }
+                }
+              });
+    } catch (RejectedExecutionException ex) {
+      permit.release(false, false);
+      result.fail(ex);
+      return;
+    }
+    result.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (result.isCancelled()) {
+              // A task cancelled before it ran doesn't release its permit.
+              task.cancel(result.interrupted);
+              permit.release(false, false);
+            }
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+}
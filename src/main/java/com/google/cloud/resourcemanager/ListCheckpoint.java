@@ -0,0 +1,87 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.MoreObjects;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The position of a {@link CheckpointedProjectLister} listing: the token of the next page to
+ * request and the number of projects returned before it.
+ *
+ * @see ListCheckpointStore
+ */
+public final class ListCheckpoint implements Serializable {
+
+  private static final long serialVersionUID = -2985263461830312581L;
+
+  private final String pageToken;
+  private final long projectCount;
+
+  private ListCheckpoint(String pageToken, long projectCount) {
+    this.pageToken = checkNotNull(pageToken);
+    checkArgument(projectCount >= 0, "Project count must be >= 0");
+    this.projectCount = projectCount;
+  }
+
+  /**
+   * Returns a checkpoint resuming a listing at the page of {@code pageToken}, after {@code
+   * projectCount} projects.
+   */
+  public static ListCheckpoint of(String pageToken, long projectCount) {
+    return new ListCheckpoint(pageToken, projectCount);
+  }
+
+  /** Returns the token of the next page to request. */
+  public String getPageToken() {
+    return pageToken;
+  }
+
+  /** Returns the number of projects returned before the next page. */
+  public long getProjectCount() {
+    return projectCount;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (!(obj instanceof ListCheckpoint)) {
+      return false;
+    }
+    ListCheckpoint other = (ListCheckpoint) obj;
+    return pageToken.equals(other.pageToken) && projectCount == other.projectCount;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pageToken, projectCount);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("pageToken", pageToken)
+        .add("projectCount", projectCount)
+        .toString();
+  }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import java.io.IOException;
+
+/**
+ * Persists the {@link ListCheckpoint checkpoints} of {@link CheckpointedProjectLister} listings,
+ * so that a listing interrupted by a failure or by the end of the process can be resumed.
+ * Checkpoints are identified by a key chosen by the caller of the lister. Implementations must be
+ * thread-safe if listings run concurrently.
+ *
+ * @see FileListCheckpointStore
+ */
+public interface ListCheckpointStore {
+
+  /** Returns the checkpoint saved for {@code key}, or {@code null} if none. */
+  ListCheckpoint load(String key) throws IOException;
+
+  /** Saves {@code checkpoint} for {@code key}, replacing any checkpoint saved before. */
+  void save(String key, ListCheckpoint checkpoint) throws IOException;
+
+  /** Deletes the checkpoint saved for {@code key}, if any. */
+  void delete(String key) throws IOException;
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.threeten.bp.Duration;
+
+/**
+ * The metrics of the calls to an RPC method recorded by an {@link InMemoryMetricsListener}.
+ *
+ * @see InMemoryMetricsListener#getMethodMetrics(MetricsListener.Method)
+ */
+public final class MethodMetrics {
+
+  private final MetricsListener.Method method;
+  private final long attemptCount;
+  private final long failedAttemptCount;
+  private final long retryCount;
+  private final Map<String, Long> retryReasons;
+  private final long[] latencyCounts;
+  private final long responseCount;
+  private final long responseBytes;
+  private final long uncompressedResponseBytes;
+  private final long requestBytes;
+  private final long uncompressedRequestBytes;
+
+  MethodMetrics(
+      MetricsListener.Method method,
+      long attemptCount,
+      long failedAttemptCount,
+      long retryCount,
+      Map<String, Long> retryReasons,
+      long[] latencyCounts,
+      long responseCount,
+      long responseBytes,
+      long uncompressedResponseBytes,
+      long requestBytes,
+      long uncompressedRequestBytes) {
+    this.method = method;
+    this.attemptCount = attemptCount;
+    this.failedAttemptCount = failedAttemptCount;
+    this.retryCount = retryCount;
+    this.retryReasons = retryReasons;
+    this.latencyCounts = latencyCounts;
+    this.responseCount = responseCount;
+    this.responseBytes = responseBytes;
+    this.uncompressedResponseBytes = uncompressedResponseBytes;
+    this.requestBytes = requestBytes;
+    this.uncompressedRequestBytes = uncompressedRequestBytes;
+  }
+
+  /** Returns the RPC method. */
+  public MetricsListener.Method getMethod() {
+    return method;
+  }
+
+  /** Returns the number of attempts, including retries. */
+  public long getAttemptCount() {
+    return attemptCount;
+  }
+
+  /** Returns the number of attempts that failed. */
+  public long getFailedAttemptCount() {
+    return failedAttemptCount;
+  }
+
+  /** Returns the number of retries. */
+  public long getRetryCount() {
+    return retryCount;
+  }
+
+  /**
+   * Returns the number of retries by reason. The reason of a retry is the reason of the error that
+   * caused it, such as {@code rateLimitExceeded}, or its HTTP status code if it has no reason.
+   */
+  public Map<String, Long> getRetryReasons() {
+    return retryReasons;
+  }
+
+  /**
+   * Returns an upper bound of the {@code percentile} of the attempt latencies, or {@code null} if
+   * no attempt was recorded. The bound is the power of two of microseconds above the latency.
+   *
+   * @throws IllegalArgumentException if {@code percentile} is not in (0, 100]
+   */
+  public Duration getLatencyPercentile(double percentile) {
+    checkArgument(percentile > 0 && percentile <= 100, "Percentile must be in (0, 100]");
+    long total = 0;
+    for (long count : latencyCounts) {
+      total += count;
+    }
+    if (total == 0) {
+      return null;
+    }
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    int bucket = 0;
+    while (bucket < latencyCounts.length - 1) {
+      seen += latencyCounts[bucket];
+      if (seen >= rank) {
+        break;
+      }
+      bucket++;
+    }
+    return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(1L << bucket));
+  }
+
+  /** Returns the number of HTTP responses received. */
+  public long getResponseCount() {
+    return responseCount;
+  }
+
+  /**
+   * Returns the total size of the HTTP responses whose size is known, in bytes, as received on the
+   * wire: compressed, if the server compressed them.
+   */
+  public long getResponseBytes() {
+    return responseBytes;
+  }
+
+  /** Returns the total size of the decoded response bodies after decompression, in bytes. */
+  public long getUncompressedResponseBytes() {
+    return uncompressedResponseBytes;
+  }
+
+  /** Returns the total size of the request bodies as sent on the wire, in bytes. */
+  public long getRequestBytes() {
+    return requestBytes;
+  }
+
+  /** Returns the total size of the request bodies before compression, in bytes. */
+  public long getUncompressedRequestBytes() {
+    return uncompressedRequestBytes;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("method", method)
+        .add("attemptCount", attemptCount)
+        .add("failedAttemptCount", failedAttemptCount)
+        .add("retryCount", retryCount)
+        .add("retryReasons", retryReasons)
+        .add("latencyP50", getLatencyPercentile(50))
+        .add("latencyP99", getLatencyPercentile(99))
+        .add("responseCount", responseCount)
+        .add("responseBytes", responseBytes)
+        .add("uncompressedResponseBytes", uncompressedResponseBytes)
+        .add("requestBytes", requestBytes)
+        .add("uncompressedRequestBytes", uncompressedRequestBytes)
+        .toString();
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+/**
+ * Receives the metrics of the requests sent by a {@link ResourceManager}. Implementations are
+ * called from the threads sending the requests and reading their responses, concurrently, so they
+ * must be thread-safe and should return quickly.
+ *
+ * @see ResourceManagerOptions.Builder#setMetricsListener(MetricsListener)
+ * @see InMemoryMetricsListener
+ */
+public interface MetricsListener {
+
+  /** The RPC methods of the Cloud Resource Manager API called by the client. */
+  enum Method {
+    CREATE,
+    GET_OPERATION,
+    DELETE,
+    UNDELETE,
+    GET,
+    LIST,
+    REPLACE,
+    GET_POLICY,
+    REPLACE_POLICY,
+    TEST_PERMISSIONS,
+    BATCH
+  }
+
+  /**
+   * Called when an attempt of a call completes, successfully if {@code error} is {@code null}.
+   * Attempts sent in a batch are not reported.
+   *
+   * @param latencyNanos the time, in nanoseconds, between the start and the end of the attempt
+   */
+  void onAttempt(Method method, long latencyNanos, Throwable error);
+
+  /**
+   * Called when a call is retried, before the retry attempt starts.
+   *
+   * @param attempt the number of the retry attempt, starting at 2
+   * @param delayNanos the time, in nanoseconds, between the end of the failed attempt and the
+   *     start of the retry
+   * @param cause the failure of the previous attempt
+   */
+  void onRetry(Method method, int attempt, long delayNanos, Throwable cause);
+
+  /**
+   * Called when an HTTP response is received, including error responses and the responses of
+   * batch requests.
+   *
+   * @param projectId the ID of the project named by the request, or {@code null} if none
+   * @param bytes the size of the response body as sent on the wire, or {@code -1} if unknown
+   * @param latencyNanos the time, in nanoseconds, between building the request and receiving the
+   *     response headers
+   */
+  void onResponse(
+      Method method, String projectId, int statusCode, long bytes, long latencyNanos);
+
+  /**
+   * Called when a request with a body is sent, including each retry. Requests sent in a batch are
+   * not reported.
+   *
+   * @param bytes the size of the body as sent on the wire, after compression if any
+   * @param uncompressedBytes the size of the body before compression
+   */
+  void onRequestBody(Method method, long bytes, long uncompressedBytes);
+
+  /**
+   * Called when the body of a successful response has been decoded. The responses of batch
+   * requests are not reported.
+   *
+   * @param uncompressedBytes the size of the body after decompression
+   */
+  void onResponseBody(Method method, long uncompressedBytes);
+
+  /** Called when a page of {@code projectCount} projects is received from a list call. */
+  void onPage(int projectCount);
+
+  /**
+   * Called when the operation started by a project creation is done, after {@code pollCount}
+   * polls.
+   */
+  void onOperationDone(int pollCount);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.ApiFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A future for the result of a long-running operation, such as the creation of a project. The
+ * future completes once the operation is done.
+ *
+ * @param <V> the type of the operation's result
+ */
+public interface OperationFuture<V> extends ApiFuture<V> {
+
+  /**
+   * Returns the name of the long-running operation, waiting for the request that starts the
+   * operation to complete if needed.
+   *
+   * @throws ExecutionException if the request that starts the operation failed
+   * @throws InterruptedException if the current thread was interrupted while waiting
+   */
+  String getName() throws InterruptedException, ExecutionException;
+}
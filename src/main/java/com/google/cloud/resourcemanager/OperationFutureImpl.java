@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.AbstractApiFuture;
+import com.google.api.core.ApiFunction;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.concurrent.ExecutionException;
+
+/** Default implementation of {@link OperationFuture}, completed by its owner. */
+final class OperationFutureImpl<V> extends AbstractApiFuture<V> implements OperationFuture<V> {
+
+  // Exactly one of these is set: the future of the operation's name when this future tracks the
+  // operation directly, or the future whose result this one transforms.
+  private final ApiFuture<String> nameFuture;
+  private final OperationFuture<?> source;
+
+  private OperationFutureImpl(ApiFuture<String> nameFuture, OperationFuture<?> source) {
+    this.nameFuture = nameFuture;
+    this.source = source;
+  }
+
+  /** Creates a future for the operation whose name is provided by {@code nameFuture}. */
+  static <V> OperationFutureImpl<V> create(ApiFuture<String> nameFuture) {
+    return new OperationFutureImpl<>(nameFuture, null);
+  }
+
+  /**
+   * Returns a future for the same operation as {@code future}, whose result is {@code future}'s
+   * result transformed by {@code function}. Cancelling the returned future cancels {@code future}.
+   */
+  static <I, O> OperationFuture<O> transform(
+      final OperationFuture<I> future, final ApiFunction<? super I, ? extends O> function) {
+    final OperationFutureImpl<O> transformed = new OperationFutureImpl<>(null, future);
+    ApiFutures.addCallback(
+        future,
+        new ApiFutureCallback<I>() {
+          @Override
+          public void onSuccess(I result) {
+            try {
+              transformed.complete(function.apply(result));
+            } catch (RuntimeException ex) {
+              transformed.fail(ex);
+            }
+          }
+
+          @Override
+          public void onFailure(Throwable throwable) {
+            transformed.fail(throwable);
+          }
+        },
+        MoreExecutors.directExecutor());
+    transformed.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (transformed.isCancelled()) {
+              future.cancel(false);
+            }
+          }
+        },
+        MoreExecutors.directExecutor());
+    return transformed;
+  }
+
+  @Override
+  public String getName() throws InterruptedException, ExecutionException {
+    return source != null ? source.getName() : nameFuture.get();
+  }
+
+  boolean complete(V value) {
+    return set(value);
+  }
+
+  boolean fail(Throwable throwable) {
+    return setException(throwable);
+  }
+}
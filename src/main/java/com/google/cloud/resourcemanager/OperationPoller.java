@@ -0,0 +1,486 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFunction;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.resourcemanager.spi.v1beta1.ProjectOperation;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.cloud.resourcemanager.spi.v1beta1.RpcBatch;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.opencensus.trace.Span;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.threeten.bp.Duration;
+
+/**
+ * Tracks the long-running operations started by project creations until they are done.
+ *
+ * <p>All the operations of a service are polled from a single task scheduled on the service's async
+ * executor, so waiting for many operations doesn't take a thread per operation. The polls
+ * themselves block, so the task hands them off to the service's blocking executor. Operations whose
+ * next poll is due within {@link #BATCH_WINDOW_NANOS} of each other are polled with a single batch
+ * request. The time of the first poll follows the completion latency observed for previous
+ * operations, after which each operation is polled with an exponentially growing interval. Until
+ * an operation has been seen completing, operations are polled right away and then after the
+ * initial expected latency, as with the fixed retry settings this replaces. Polls that fail with a
+ * retryable error are retried while the {@link RetryBudget} allows it, and every batch request
+ * counts against the {@link AdaptiveLimiter}.
+ *
+ * <p>If a {@link MetricsListener} is given, the number of polls of each operation is reported to it
+ * once the operation is done. If an {@link RpcTracer} is given, every poll of an operation tracked
+ * with the span of its creation is traced as a child of that span.
+ */
+final class OperationPoller {
+
+  // SLO permits 30s at 90th percentile, 4x it for total limit.
+  static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(2);
+  // Linked doc recommends polling at 5th second.
+  static final Duration DEFAULT_INITIAL_EXPECTED_LATENCY = Duration.ofSeconds(5);
+  private static final long BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+  private static final long MIN_POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+  // Observed P95 latency is 11s. We probably shouldn't wait longer than this between polls.
+  private static final long MAX_POLL_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(11);
+  private static final double POLL_INTERVAL_MULTIPLIER = 1.5;
+  // The first poll is sent a bit before the operation is expected to be done.
+  private static final double FIRST_POLL_LATENCY_FRACTION = 0.75;
+  private static final double LATENCY_SMOOTHING = 0.2;
+
+  private final ResourceManagerRpc resourceManagerRpc;
+  private final ScheduledExecutorService executor;
+  private final Executor blockingExecutor;
+  private final ApiClock clock;
+  private final long timeoutNanos;
+  private final RetryBudget retryBudget;
+  private final AdaptiveLimiter limiter;
+  private final MetricsListener metricsListener;
+  private final RpcTracer rpcTracer;
+  private final Runnable pollTask =
+      new Runnable() {
+        @Override
+        public void run() {
+          try {
+            blockingExecutor.execute(
+                new Runnable() {
+                  @Override
+                  public void run() {
+                    pollDueOperations();
+                  }
+                });
+          } catch (RejectedExecutionException ex) {
+            failAll(ex);
+          }
+        }
+      };
+  private final AtomicLong pollCount = new AtomicLong();
+
+  // All the fields below are guarded by this lock, including the fields of TrackedOperation.
+  private final Object lock = new Object();
+  private final List<TrackedOperation> operations = new ArrayList<>();
+  private ScheduledFuture<?> scheduledPoll;
+  private long scheduledPollNanos;
+  private boolean polling;
+  private double expectedLatencyNanos;
+  private boolean hasLatencySample;
+
+  private static final class TrackedOperation {
+
+    private final String name;
+    private final OperationFutureImpl<Project> future;
+    private final Span createSpan;
+    private final RetryBudget.Call<ProjectOperation> budgetCall;
+    private final long startNanos;
+    private final long deadlineNanos;
+    private long nextPollNanos;
+    private long pollIntervalNanos;
+    private int polls;
+    // Only accessed by the thread polling the operation.
+    private Span pollSpan;
+
+    TrackedOperation(
+        String name,
+        OperationFutureImpl<Project> future,
+        Span createSpan,
+        RetryBudget.Call<ProjectOperation> budgetCall,
+        long startNanos,
+        long deadlineNanos) {
+      this.name = name;
+      this.future = future;
+      this.createSpan = createSpan;
+      this.budgetCall = budgetCall;
+      this.startNanos = startNanos;
+      this.deadlineNanos = deadlineNanos;
+    }
+  }
+
+  OperationPoller(
+      ResourceManagerRpc resourceManagerRpc,
+      ScheduledExecutorService executor,
+      Executor blockingExecutor,
+      ApiClock clock,
+      Duration timeout,
+      Duration initialExpectedLatency,
+      RetryBudget retryBudget,
+      AdaptiveLimiter limiter,
+      MetricsListener metricsListener,
+      RpcTracer rpcTracer) {
+    this.resourceManagerRpc = resourceManagerRpc;
+    this.executor = executor;
+    this.blockingExecutor = blockingExecutor;
+    this.clock = clock;
+    this.timeoutNanos = timeout.toNanos();
+    this.expectedLatencyNanos = initialExpectedLatency.toNanos();
+    this.retryBudget = retryBudget;
+    this.limiter = limiter;
+    this.metricsListener = metricsListener;
+    this.rpcTracer = rpcTracer;
+  }
+
+  /**
+   * Returns a future that completes with the project created by the operation that {@code started}
+   * completes with, once that operation is done.
+   */
+  OperationFuture<Project> track(ApiFuture<ProjectOperation> started) {
+    return track(started, null);
+  }
+
+  /**
+   * Returns a future like {@link #track(ApiFuture)}. If {@code createSpan} is not {@code null},
+   * the polls of the operation are traced as its children.
+   */
+  OperationFuture<Project> track(final ApiFuture<ProjectOperation> started, final Span createSpan) {
+    final OperationFutureImpl<Project> future =
+        OperationFutureImpl.create(
+            ApiFutures.transform(
+                started,
+                new ApiFunction<ProjectOperation, String>() {
+                  @Override
+                  public String apply(ProjectOperation operation) {
+                    return operation.getName();
+                  }
+                },
+                MoreExecutors.directExecutor()));
+    ApiFutures.addCallback(
+        started,
+        new ApiFutureCallback<ProjectOperation>() {
+          @Override
+          public void onSuccess(ProjectOperation operation) {
+            if (operation.isDone()) {
+              if (metricsListener != null) {
+                metricsListener.onOperationDone(0);
+              }
+              complete(future, operation);
+            } else {
+              register(operation.getName(), future, createSpan);
+            }
+          }
+
+          @Override
+          public void onFailure(Throwable throwable) {
+            future.fail(throwable);
+          }
+        },
+        MoreExecutors.directExecutor());
+    future.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            if (future.isCancelled()) {
+              started.cancel(false);
+            }
+          }
+        },
+        MoreExecutors.directExecutor());
+    return future;
+  }
+
+  /** Returns the number of operations that are not done yet. */
+  int getPendingCount() {
+    synchronized (lock) {
+      return operations.size();
+    }
+  }
+
+  /** Returns the number of times operations were polled. */
+  long getPollCount() {
+    return pollCount.get();
+  }
+
+  /** Returns the current estimate of how long an operation takes to complete once started. */
+  Duration getExpectedLatency() {
+    synchronized (lock) {
+      return Duration.ofNanos((long) expectedLatencyNanos);
+    }
+  }
+
+  private static void complete(OperationFutureImpl<Project> future, ProjectOperation operation) {
+    if (operation.getError() != null) {
+      future.fail(new ResourceManagerException(operation.getError()));
+    } else {
+      future.complete(operation.getResponse());
+    }
+  }
+
+  private void register(String name, OperationFutureImpl<Project> future, Span createSpan) {
+    long nowNanos = clock.nanoTime();
+    synchronized (lock) {
+      final TrackedOperation operation =
+          new TrackedOperation(
+              name,
+              future,
+              createSpan,
+              retryBudget.<ProjectOperation>newCall(null),
+              nowNanos,
+              nowNanos + timeoutNanos);
+      future.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              operation.budgetCall.finish();
+            }
+          },
+          MoreExecutors.directExecutor());
+      if (hasLatencySample) {
+        operation.nextPollNanos =
+            nowNanos + (long) (expectedLatencyNanos * FIRST_POLL_LATENCY_FRACTION);
+        operation.pollIntervalNanos =
+            Math.max(
+                MIN_POLL_INTERVAL_NANOS,
+                Math.min(MAX_POLL_INTERVAL_NANOS, (long) (expectedLatencyNanos / 4)));
+      } else {
+        // Poll right away, then once the initial expected latency has elapsed.
+        operation.nextPollNanos = nowNanos;
+        operation.pollIntervalNanos =
+            Math.max(MIN_POLL_INTERVAL_NANOS, (long) expectedLatencyNanos);
+      }
+      operations.add(operation);
+      schedulePoll(operation.nextPollNanos, nowNanos);
+    }
+  }
+
+  // Must be called while holding the lock.
+  private void schedulePoll(long dueNanos, long nowNanos) {
+    if (polling) {
+      // The running poll schedules the next one when it's done.
+      return;
+    }
+    if (scheduledPoll != null) {
+      if (scheduledPollNanos <= dueNanos) {
+        return;
+      }
+      scheduledPoll.cancel(false);
+    }
+    scheduledPollNanos = dueNanos;
+    scheduledPoll =
+        executor.schedule(pollTask, Math.max(0, dueNanos - nowNanos), TimeUnit.NANOSECONDS);
+  }
+
+  private void pollDueOperations() {
+    List<TrackedOperation> dueOperations = new ArrayList<>();
+    synchronized (lock) {
+      if (polling) {
+        return;
+      }
+      polling = true;
+      scheduledPoll = null;
+      long nowNanos = clock.nanoTime();
+      for (Iterator<TrackedOperation> iterator = operations.iterator(); iterator.hasNext(); ) {
+        TrackedOperation operation = iterator.next();
+        if (operation.future.isDone()) {
+          // Cancelled by the caller.
+          iterator.remove();
+        } else if (operation.nextPollNanos <= nowNanos + BATCH_WINDOW_NANOS) {
+          dueOperations.add(operation);
+        }
+      }
+    }
+    try {
+      for (List<TrackedOperation> chunk :
+          Lists.partition(dueOperations, ResourceManagerBatch.MAX_BATCH_SIZE)) {
+        poll(chunk);
+      }
+    } finally {
+      synchronized (lock) {
+        polling = false;
+        long nowNanos = clock.nanoTime();
+        long nextPollNanos = Long.MAX_VALUE;
+        for (Iterator<TrackedOperation> iterator = operations.iterator(); iterator.hasNext(); ) {
+          TrackedOperation operation = iterator.next();
+          if (operation.future.isDone()) {
+            iterator.remove();
+          } else if (nowNanos >= operation.deadlineNanos) {
+            iterator.remove();
+            if (metricsListener != null) {
+              metricsListener.onOperationDone(operation.polls);
+            }
+            operation.future.fail(
+                new ResourceManagerException(
+                    504,
+                    "Operation "
+                        + operation.name
+                        + " did not complete within "
+                        + TimeUnit.NANOSECONDS.toSeconds(timeoutNanos)
+                        + " seconds"));
+          } else {
+            nextPollNanos = Math.min(nextPollNanos, operation.nextPollNanos);
+          }
+        }
+        if (!operations.isEmpty()) {
+          schedulePoll(nextPollNanos, nowNanos);
+        }
+      }
+    }
+  }
+
+  private void poll(List<TrackedOperation> chunk) {
+    final Set<TrackedOperation> polled = new HashSet<>();
+    pollCount.addAndGet(chunk.size());
+    try {
+      final RpcBatch batch = resourceManagerRpc.createBatch();
+      for (final TrackedOperation operation : chunk) {
+        operation.budgetCall.startAttempt();
+        if (rpcTracer != null && operation.createSpan != null) {
+          operation.pollSpan = rpcTracer.startPoll(operation.createSpan, operation.name);
+        }
+        batch.addGetOperation(
+            operation.name,
+            new RpcBatch.Callback<ProjectOperation>() {
+              @Override
+              public void onSuccess(ProjectOperation response) {
+                polled.add(operation);
+                onPolled(operation, response, null);
+              }
+
+              @Override
+              public void onFailure(GoogleJsonError googleJsonError) {
+                polled.add(operation);
+                onPolled(operation, null, new ResourceManagerException(googleJsonError));
+              }
+            });
+      }
+      limiter.call(
+          new Callable<Void>() {
+            @Override
+            public Void call() {
+              batch.submit();
+              return null;
+            }
+          });
+    } catch (Throwable throwable) {
+      RuntimeException exception =
+          throwable instanceof RuntimeException
+              ? (RuntimeException) throwable
+              : new ResourceManagerException(
+                  BaseServiceException.UNKNOWN_CODE, throwable.getMessage(), throwable);
+      for (TrackedOperation operation : chunk) {
+        if (!polled.contains(operation)) {
+          onPolled(operation, null, exception);
+        }
+      }
+      if (throwable instanceof Error) {
+        throw (Error) throwable;
+      }
+    }
+  }
+
+  /**
+   * Fails all the tracked operations, used when no poll can be run because the blocking executor
+   * rejected it.
+   */
+  private void failAll(RejectedExecutionException cause) {
+    List<TrackedOperation> failed;
+    synchronized (lock) {
+      scheduledPoll = null;
+      failed = new ArrayList<>(operations);
+      operations.clear();
+    }
+    ResourceManagerException exception =
+        new ResourceManagerException(
+            BaseServiceException.UNKNOWN_CODE, "Could not poll the operations", cause);
+    for (TrackedOperation operation : failed) {
+      if (metricsListener != null) {
+        metricsListener.onOperationDone(operation.polls);
+      }
+      operation.future.fail(exception);
+    }
+  }
+
+  private void onPolled(
+      TrackedOperation operation, ProjectOperation response, RuntimeException exception) {
+    if (operation.pollSpan != null) {
+      RpcTracer.end(operation.pollSpan, exception);
+      operation.pollSpan = null;
+    }
+    long nowNanos = clock.nanoTime();
+    boolean retryable =
+        exception instanceof BaseServiceException
+            && ((BaseServiceException) exception).isRetryable()
+            && operation.budgetCall.shouldRetry(exception, null);
+    int polls;
+    synchronized (lock) {
+      polls = ++operation.polls;
+      if (exception == null && response.isDone()) {
+        operations.remove(operation);
+        recordLatency(nowNanos - operation.startNanos);
+      } else if (exception != null && !retryable) {
+        operations.remove(operation);
+      } else {
+        operation.nextPollNanos = nowNanos + operation.pollIntervalNanos;
+        operation.pollIntervalNanos =
+            Math.min(
+                MAX_POLL_INTERVAL_NANOS,
+                (long) (operation.pollIntervalNanos * POLL_INTERVAL_MULTIPLIER));
+        return;
+      }
+    }
+    if (metricsListener != null) {
+      metricsListener.onOperationDone(polls);
+    }
+    if (exception != null) {
+      operation.future.fail(exception);
+    } else {
+      complete(operation.future, response);
+    }
+  }
+
+  // Must be called while holding the lock.
+  private void recordLatency(long latencyNanos) {
+    if (hasLatencySample) {
+      expectedLatencyNanos += LATENCY_SMOOTHING * (latencyNanos - expectedLatencyNanos);
+    } else {
+      expectedLatencyNanos = latencyNanos;
+      hasLatencySample = true;
+    }
+  }
+}
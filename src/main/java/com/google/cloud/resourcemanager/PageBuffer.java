@@ -0,0 +1,203 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.InternalApi;
+import com.google.api.gax.paging.AsyncPage;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The pages of a listing that are requested ahead of their consumer, and the failure that ended
+ * the listing, if any. Subclasses decide in {@link #maybeFetch()} when pages are requested; the
+ * consumer takes or polls the pages in the order they were received.
+ *
+ * <p>The buffer's monitor guards its state. {@link #maybeFetch()} and the {@link PageListener
+ * listeners} of the requests are called while holding it, so the state of the listing they share,
+ * such as its next page token, can be guarded by it too. Once a request failed, no other request
+ * is started and the failure is thrown after the pages received before it.
+ */
+@InternalApi("Shared by the listing helpers of this library")
+public abstract class PageBuffer<T> {
+
+  /** Receives the pages returned by the requests of a buffer. */
+  public interface PageListener<T> {
+
+    /**
+     * Called while holding the buffer's lock with the values and the next page token of a page,
+     * before its values are buffered.
+     */
+    void onPage(List<T> values, String nextPageToken);
+  }
+
+  // Received pages (List<T>) or the failure that ended the listing (ResourceManagerException).
+  private final ArrayDeque<Object> pages = new ArrayDeque<>();
+  private final Set<ApiFuture<?>> requests = Sets.newIdentityHashSet();
+  private boolean failed;
+  private boolean closed;
+
+  /**
+   * Starts the page requests that should be started now, if any, by calling {@link #fetch}. Called
+   * while holding the buffer's lock by {@link #fetchMore()}, which is also called after every page
+   * received.
+   */
+  protected abstract void maybeFetch();
+
+  /**
+   * Called after a page or a failure was buffered, from the thread that completed its request.
+   * Does nothing by default.
+   */
+  protected void onBuffered() {}
+
+  /**
+   * Starts the page requests that {@link #maybeFetch()} allows now. Must be called when the state
+   * it depends on changes outside of the buffer, for instance after a page was taken.
+   */
+  public final synchronized void fetchMore() {
+    if (!failed && !closed) {
+      maybeFetch();
+    }
+  }
+
+  /**
+   * Buffers the page returned by {@code request} once it completes, after passing it to {@code
+   * listener}. Must be called while holding the buffer's lock.
+   */
+  protected final void fetch(
+      final ApiFuture<AsyncPage<T>> request, final PageListener<T> listener) {
+    requests.add(request);
+    ApiFutures.addCallback(
+        request,
+        new ApiFutureCallback<AsyncPage<T>>() {
+          @Override
+          public void onSuccess(AsyncPage<T> page) {
+            List<T> values = new ArrayList<>();
+            for (T value : page.getValues()) {
+              values.add(value);
+            }
+            synchronized (PageBuffer.this) {
+              if (!requests.remove(request)) {
+                return;
+              }
+              listener.onPage(values, page.getNextPageToken());
+              if (!values.isEmpty()) {
+                pages.add(values);
+              }
+              PageBuffer.this.notifyAll();
+            }
+            onBuffered();
+            fetchMore();
+          }
+
+          @Override
+          public void onFailure(Throwable throwable) {
+            ResourceManagerException failure =
+                throwable instanceof ResourceManagerException
+                    ? (ResourceManagerException) throwable
+                    : new ResourceManagerException(
+                        ResourceManagerException.UNKNOWN_CODE, throwable.getMessage(), throwable);
+            synchronized (PageBuffer.this) {
+              if (!requests.remove(request)) {
+                return;
+              }
+              failed = true;
+              pages.add(failure);
+              PageBuffer.this.notifyAll();
+            }
+            onBuffered();
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  /**
+   * Removes and returns the next buffered page, waiting for one while requests are in flight.
+   * Returns {@code null} once the listing is over.
+   *
+   * @throws ResourceManagerException if the listing failed, or if the thread is interrupted while
+   *     waiting
+   */
+  public final synchronized List<T> take() {
+    while (pages.isEmpty() && !requests.isEmpty()) {
+      try {
+        wait();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new ResourceManagerException(
+            ResourceManagerException.UNKNOWN_CODE, "Interrupted while waiting for a page", ex);
+      }
+    }
+    return poll();
+  }
+
+  /**
+   * Removes and returns the next buffered page, or returns {@code null} if none is buffered.
+   *
+   * @throws ResourceManagerException if the listing failed
+   */
+  public final synchronized List<T> poll() {
+    Object next = pages.peek();
+    if (next instanceof ResourceManagerException) {
+      throw (ResourceManagerException) next;
+    }
+    pages.poll();
+    @SuppressWarnings("unchecked")
+    List<T> page = (List<T>) next;
+    return page;
+  }
+
+  /** Returns the failure that ended the listing if no page is buffered before it, or null. */
+  public final synchronized ResourceManagerException getFailure() {
+    Object next = pages.peek();
+    return next instanceof ResourceManagerException ? (ResourceManagerException) next : null;
+  }
+
+  /** Returns the number of pages buffered. Must be called while holding the buffer's lock. */
+  protected final int bufferedPageCount() {
+    return pages.peekLast() instanceof ResourceManagerException ? pages.size() - 1 : pages.size();
+  }
+
+  /** Returns the number of requests in flight. Must be called while holding the buffer's lock. */
+  protected final int inFlightCount() {
+    return requests.size();
+  }
+
+  /**
+   * Cancels the requests in flight, interrupting them, and drops the buffered pages. Pages that
+   * are received afterwards are ignored.
+   */
+  public final void close() {
+    List<ApiFuture<?>> cancelled;
+    synchronized (this) {
+      closed = true;
+      cancelled = new ArrayList<>(requests);
+      requests.clear();
+      pages.clear();
+      notifyAll();
+    }
+    for (ApiFuture<?> request : cancelled) {
+      request.cancel(true);
+    }
+  }
+}
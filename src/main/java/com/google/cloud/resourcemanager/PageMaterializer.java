@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.ApiFunction;
+import com.google.cloud.resourcemanager.ResourceManagerOptions.PageMaterialization;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Converts the elements of a list page according to a {@link PageMaterialization}. */
+final class PageMaterializer {
+
+  // Pages smaller than this are not worth the hand-off to the executor.
+  static final int PARALLEL_THRESHOLD = 256;
+  static final int CHUNK_SIZE = 64;
+
+  private PageMaterializer() {}
+
+  /**
+   * Returns the elements of {@code page} converted by {@code converter}, lazily or into a list as
+   * {@code materialization} requires. Large pages materialized in {@link
+   * PageMaterialization#PARALLEL PARALLEL} are converted by chunks, in the calling thread and in
+   * {@code executor}.
+   */
+  static <F, T> Iterable<T> materialize(
+      PageMaterialization materialization,
+      Iterable<F> page,
+      final ApiFunction<? super F, ? extends T> converter,
+      Executor executor) {
+    if (page == null) {
+      return ImmutableList.of();
+    }
+    switch (materialization) {
+      case LAZY:
+        return Iterables.transform(
+            page,
+            new Function<F, T>() {
+              @Override
+              public T apply(F element) {
+                return converter.apply(element);
+              }
+            });
+      case PARALLEL:
+        @SuppressWarnings("unchecked")
+        List<F> elements =
+            page instanceof List && page instanceof RandomAccess
+                ? (List<F>) page
+                : Lists.newArrayList(page);
+        if (elements.size() >= PARALLEL_THRESHOLD) {
+          return new ParallelConversion<F, T>(elements, converter).run(executor);
+        }
+        return convert(elements, converter);
+      default:
+        return convert(page, converter);
+    }
+  }
+
+  private static <F, T> List<T> convert(
+      Iterable<F> page, ApiFunction<? super F, ? extends T> converter) {
+    Object[] converted = new Object[Iterables.size(page)];
+    int index = 0;
+    for (F element : page) {
+      converted[index++] = converter.apply(element);
+    }
+    return asList(converted);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> asList(Object[] converted) {
+    return Collections.unmodifiableList((List<T>) (List<?>) Arrays.asList(converted));
+  }
+
+  /**
+   * Converts the elements of a page by chunks of {@link #CHUNK_SIZE}. Each worker, the calling
+   * thread included, claims and converts chunks until none is left, so the conversion completes
+   * even if the executor never runs the workers it was given.
+   */
+  private static final class ParallelConversion<F, T> implements Runnable {
+
+    private final List<F> elements;
+    private final ApiFunction<? super F, ? extends T> converter;
+    private final Object[] converted;
+    private final int chunkCount;
+    private final AtomicInteger nextChunk = new AtomicInteger();
+    private final CountDownLatch chunksDone;
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    ParallelConversion(List<F> elements, ApiFunction<? super F, ? extends T> converter) {
+      this.elements = elements;
+      this.converter = converter;
+      this.converted = new Object[elements.size()];
+      this.chunkCount = (elements.size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      this.chunksDone = new CountDownLatch(chunkCount);
+    }
+
+    List<T> run(Executor executor) {
+      int helpers = Math.min(chunkCount - 1, Runtime.getRuntime().availableProcessors() - 1);
+      try {
+        for (int i = 0; i < helpers; i++) {
+          executor.execute(this);
+        }
+      } catch (RejectedExecutionException ex) {
+        // The chunks not taken by the workers already started are converted by this thread.
+      }
+      run();
+      // The chunks left are being converted by workers, waiting for them is bounded.
+      Uninterruptibles.awaitUninterruptibly(chunksDone);
+      RuntimeException exception = failure.get();
+      if (exception != null) {
+        throw exception;
+      }
+      return asList(converted);
+    }
+
+    @Override
+    public void run() {
+      int chunk;
+      while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+        try {
+          if (failure.get() == null) {
+            int to = Math.min(elements.size(), (chunk + 1) * CHUNK_SIZE);
+            for (int i = chunk * CHUNK_SIZE; i < to; i++) {
+              converted[i] = converter.apply(elements.get(i));
+            }
+          }
+        } catch (RuntimeException ex) {
+          failure.compareAndSet(null, ex);
+        } finally {
+          chunksDone.countDown();
+        }
+      }
+    }
+  }
+}
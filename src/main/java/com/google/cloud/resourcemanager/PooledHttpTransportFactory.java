@@ -0,0 +1,263 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.v2.ApacheHttpTransport;
+import com.google.auth.http.HttpTransportFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultRoutePlanner;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.threeten.bp.Duration;
+
+/**
+ * An {@link HttpTransportFactory} that always returns the same transport, backed by one pool of
+ * keep-alive connections. Sharing a factory between {@link ResourceManagerOptions} that use
+ * different credentials lets all their {@link ResourceManager} services reuse the same warm
+ * connections, since credentials are set per request and not per connection.
+ *
+ * <p>Example of sharing a pool between the services of many tenants:
+ *
+ * <pre>{@code
+ * PooledHttpTransportFactory pool =
+ *     PooledHttpTransportFactory.newBuilder().setMaxConnectionsPerRoute(50).build();
+ * HttpTransportOptions transportOptions =
+ *     HttpTransportOptions.newBuilder().setHttpTransportFactory(pool).build();
+ * ResourceManager tenantResourceManager =
+ *     ResourceManagerOptions.newBuilder()
+ *         .setCredentials(tenantCredentials)
+ *         .setTransportOptions(transportOptions)
+ *         .build()
+ *         .getService();
+ * // ...
+ * ConnectionPoolStats stats = pool.getPoolStats();
+ * }</pre>
+ *
+ * <p>This class is built on Apache HttpClient, which is an optional dependency of this library:
+ * applications that use it must add {@code com.google.http-client:google-http-client-apache-v2}
+ * to their own dependencies.
+ *
+ * <p>The pool is not serialized: options that are deserialized get a new factory with the default
+ * settings. Close the factory when no service uses it anymore, to close its connections and stop
+ * its idle connection evictor.
+ */
+public final class PooledHttpTransportFactory implements HttpTransportFactory, Closeable {
+
+  private static final int DEFAULT_MAX_CONNECTIONS = 200;
+  private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+  private static final Duration DEFAULT_KEEP_ALIVE = Duration.ofMinutes(2);
+  private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+
+  private final int maxConnections;
+  private final int maxConnectionsPerRoute;
+  private final Duration keepAlive;
+  private final Duration idleTimeout;
+  private final AtomicLong openedConnections = new AtomicLong();
+  private final PoolingHttpClientConnectionManager connectionManager;
+  private final ApacheHttpTransport transport;
+
+  /** Builder for {@code PooledHttpTransportFactory} objects. */
+  public static final class Builder {
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private Duration keepAlive = DEFAULT_KEEP_ALIVE;
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private Builder() {}
+
+    /**
+     * Sets the maximum number of connections of the pool, open or in use, to all hosts. Defaults to
+     * {@code 200}.
+     */
+    public Builder setMaxConnections(int maxConnections) {
+      checkArgument(maxConnections > 0, "Max connections must be > 0");
+      this.maxConnections = maxConnections;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of connections of the pool to a single host, which bounds the number
+     * of requests sent concurrently to the Cloud Resource Manager API. Requests that find all the
+     * connections in use wait for one to be released. Defaults to {@code 20}.
+     */
+    public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+      checkArgument(maxConnectionsPerRoute > 0, "Max connections per route must be > 0");
+      this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+      return this;
+    }
+
+    /**
+     * Sets how long a connection is kept open for reuse after a response, unless the server asks
+     * for less in a {@code Keep-Alive} header. Defaults to 2 minutes.
+     */
+    public Builder setKeepAlive(Duration keepAlive) {
+      checkArgument(!checkNotNull(keepAlive).isNegative(), "Keep-alive must be >= 0");
+      this.keepAlive = keepAlive;
+      return this;
+    }
+
+    /**
+     * Sets how long a connection may stay unused in the pool before a background thread closes it.
+     * {@link Duration#ZERO} disables the eviction of idle connections. Defaults to 30 seconds.
+     */
+    public Builder setIdleTimeout(Duration idleTimeout) {
+      checkArgument(!checkNotNull(idleTimeout).isNegative(), "Idle timeout must be >= 0");
+      this.idleTimeout = idleTimeout;
+      return this;
+    }
+
+    /** Creates a {@code PooledHttpTransportFactory} object and its connection pool. */
+    public PooledHttpTransportFactory build() {
+      return new PooledHttpTransportFactory(this);
+    }
+  }
+
+  /**
+   * Creates a factory with the default settings. This constructor is used when options are
+   * deserialized; prefer {@link #newBuilder()}.
+   */
+  public PooledHttpTransportFactory() {
+    this(newBuilder());
+  }
+
+  private PooledHttpTransportFactory(Builder builder) {
+    maxConnections = builder.maxConnections;
+    maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+    keepAlive = builder.keepAlive;
+    idleTimeout = builder.idleTimeout;
+    HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory =
+        new HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection>() {
+          @Override
+          public ManagedHttpClientConnection create(HttpRoute route, ConnectionConfig config) {
+            openedConnections.incrementAndGet();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+          }
+        };
+    connectionManager =
+        new PoolingHttpClientConnectionManager(
+            RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build(),
+            connectionFactory,
+            null,
+            null,
+            -1,
+            TimeUnit.MILLISECONDS);
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    final long keepAliveMillis = keepAlive.toMillis();
+    HttpClientBuilder clientBuilder =
+        HttpClientBuilder.create()
+            .useSystemProperties()
+            .setConnectionManager(connectionManager)
+            .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
+            .setKeepAliveStrategy(
+                new ConnectionKeepAliveStrategy() {
+                  @Override
+                  public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                    long serverKeepAlive =
+                        DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(
+                            response, context);
+                    return serverKeepAlive >= 0
+                        ? Math.min(serverKeepAlive, keepAliveMillis)
+                        : keepAliveMillis;
+                  }
+                })
+            // Redirects and retries are handled by the client, like with the default transport.
+            .disableRedirectHandling()
+            .disableAutomaticRetries()
+            .evictExpiredConnections();
+    if (!idleTimeout.isZero()) {
+      clientBuilder.evictIdleConnections(idleTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    CloseableHttpClient httpClient = clientBuilder.build();
+    transport = new ApacheHttpTransport(httpClient);
+  }
+
+  /** Returns the transport backed by the pool, the same for every call. */
+  @Override
+  public HttpTransport create() {
+    return transport;
+  }
+
+  /** Returns the maximum number of connections of the pool to all hosts. */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /** Returns the maximum number of connections of the pool to a single host. */
+  public int getMaxConnectionsPerRoute() {
+    return maxConnectionsPerRoute;
+  }
+
+  /** Returns how long a connection is kept open for reuse after a response. */
+  public Duration getKeepAlive() {
+    return keepAlive;
+  }
+
+  /** Returns how long a connection may stay unused before being closed. */
+  public Duration getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  /** Returns a snapshot of the state of the connection pool. */
+  public ConnectionPoolStats getPoolStats() {
+    PoolStats totalStats = connectionManager.getTotalStats();
+    return new ConnectionPoolStats(
+        totalStats.getLeased(),
+        totalStats.getAvailable(),
+        totalStats.getPending(),
+        totalStats.getMax(),
+        connectionManager.getRoutes().size(),
+        openedConnections.get());
+  }
+
+  /** Closes the connections of the pool and stops its idle connection evictor. */
+  @Override
+  public void close() throws IOException {
+    transport.shutdown();
+  }
+
+  /** Returns a builder for {@code PooledHttpTransportFactory} objects. */
+  public static Builder newBuilder() {
+    return new Builder();
+  }
+}
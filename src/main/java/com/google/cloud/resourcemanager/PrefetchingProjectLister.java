@@ -0,0 +1,295 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.api.core.ApiClock;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.common.base.Strings;
+import com.google.common.collect.AbstractIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.threeten.bp.Duration;
+
+/**
+ * Lists projects while fetching the following pages in the background.
+ *
+ * <p>{@link ResourceManager#list} only requests page N+1 once the caller has consumed page N. The
+ * iterables returned by {@link #iterateAll} instead request the next page as soon as the previous
+ * one arrives, keeping up to {@link Builder#setReadAheadPages read-ahead} pages buffered while the
+ * caller works through the current page. Unless a fixed {@link ProjectListOption#pageSize} is
+ * given, the page size is also tuned after every response: it grows while pages come back faster
+ * than the {@link Builder#setTargetPageLatency target latency} and shrinks when they come back
+ * slower.
+ *
+ * <pre>{@code
+ * PrefetchingProjectLister lister =
+ *     PrefetchingProjectLister.newBuilder(resourceManager).setReadAheadPages(4).build();
+ * for (Project project : lister.iterateAll(ProjectListOption.filter("labels.env:prod"))) {
+ *   // do something with the project
+ * }
+ * }</pre>
+ */
+public final class PrefetchingProjectLister {
+
+  static final int DEFAULT_READ_AHEAD_PAGES = 2;
+  static final int DEFAULT_MIN_PAGE_SIZE = 50;
+  static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+  static final Duration DEFAULT_TARGET_PAGE_LATENCY = Duration.ofSeconds(1);
+
+  private final ResourceManager resourceManager;
+  private final int readAheadPages;
+  private final int minPageSize;
+  private final int maxPageSize;
+  private final long targetPageLatencyNanos;
+
+  /** Builder for {@code PrefetchingProjectLister}. */
+  public static final class Builder {
+
+    private final ResourceManager resourceManager;
+    private int readAheadPages = DEFAULT_READ_AHEAD_PAGES;
+    private int minPageSize = DEFAULT_MIN_PAGE_SIZE;
+    private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+    private Duration targetPageLatency = DEFAULT_TARGET_PAGE_LATENCY;
+
+    private Builder(ResourceManager resourceManager) {
+      this.resourceManager = checkNotNull(resourceManager);
+    }
+
+    /**
+     * Sets the maximum number of pages that are fetched ahead of the page being consumed. Defaults
+     * to 2.
+     */
+    public Builder setReadAheadPages(int readAheadPages) {
+      checkArgument(readAheadPages > 0, "Read-ahead must be at least one page");
+      this.readAheadPages = readAheadPages;
+      return this;
+    }
+
+    /**
+     * Sets the bounds within which the page size is tuned when no fixed {@link
+     * ProjectListOption#pageSize} is given. Defaults to 50 and 1000.
+     */
+    public Builder setPageSizeBounds(int minPageSize, int maxPageSize) {
+      checkArgument(
+          minPageSize > 0 && minPageSize <= maxPageSize,
+          "Page size bounds must satisfy 0 < min <= max");
+      this.minPageSize = minPageSize;
+      this.maxPageSize = maxPageSize;
+      return this;
+    }
+
+    /**
+     * Sets the response latency the page size is tuned towards when no fixed {@link
+     * ProjectListOption#pageSize} is given. Defaults to one second.
+     */
+    public Builder setTargetPageLatency(Duration targetPageLatency) {
+      checkArgument(
+          !targetPageLatency.isNegative() && !targetPageLatency.isZero(),
+          "Target page latency must be positive");
+      this.targetPageLatency = targetPageLatency;
+      return this;
+    }
+
+    public PrefetchingProjectLister build() {
+      return new PrefetchingProjectLister(this);
+    }
+  }
+
+  private PrefetchingProjectLister(Builder builder) {
+    this.resourceManager = builder.resourceManager;
+    this.readAheadPages = builder.readAheadPages;
+    this.minPageSize = builder.minPageSize;
+    this.maxPageSize = builder.maxPageSize;
+    this.targetPageLatencyNanos = builder.targetPageLatency.toNanos();
+  }
+
+  /** Returns a builder for a lister that uses {@code resourceManager} to fetch pages. */
+  public static Builder newBuilder(ResourceManager resourceManager) {
+    return new Builder(resourceManager);
+  }
+
+  /**
+   * Returns an iterable over all the projects matching {@code options}. Each call to {@code
+   * iterator()} starts a new listing; the first page is requested when the iterator is created.
+   *
+   * @throws ResourceManagerException from the iterator's methods, if a page request fails
+   */
+  public Iterable<Project> iterateAll(final ProjectListOption... options) {
+    return new Iterable<Project>() {
+      @Override
+      public Iterator<Project> iterator() {
+        return new PrefetchingIterator(options);
+      }
+    };
+  }
+
+  /**
+   * Returns whether a page of {@code returnedSize} projects, returned for a request of {@code
+   * requestedSize}, shows that the server caps the page size. Filtered listings routinely return
+   * short pages, so one of their pages only counts as capped if it has the same size as the
+   * previous page, {@code previousReturnedSize}, which is {@code -1} for the first page.
+   */
+  static boolean isCappedPage(
+      int requestedSize,
+      int returnedSize,
+      int previousReturnedSize,
+      boolean hasNextPage,
+      boolean filtered) {
+    return hasNextPage
+        && returnedSize > 0
+        && returnedSize < requestedSize
+        && (!filtered || returnedSize == previousReturnedSize);
+  }
+
+  /**
+   * Returns the size to request for the next page, given the size and the latency of the last
+   * response, and whether the server capped its size.
+   */
+  static int nextPageSize(
+      int requestedSize,
+      int returnedSize,
+      boolean capped,
+      long latencyNanos,
+      long targetLatencyNanos,
+      int minPageSize,
+      int maxPageSize) {
+    int nextSize = requestedSize;
+    if (capped) {
+      // Asking for more than the server's cap is pointless.
+      nextSize = returnedSize;
+    } else if (latencyNanos < targetLatencyNanos / 2) {
+      nextSize = requestedSize * 2;
+    } else if (latencyNanos > targetLatencyNanos) {
+      nextSize = requestedSize / 2;
+    }
+    return Math.max(minPageSize, Math.min(maxPageSize, nextSize));
+  }
+
+  private final class PrefetchingIterator extends AbstractIterator<Project> {
+
+    private final List<ProjectListOption> baseOptions = new ArrayList<>();
+    private final boolean adaptivePageSize;
+    private final boolean filtered;
+    private final ApiClock clock = resourceManager.getOptions().getClock();
+    // The pages fetched ahead. Its lock guards the fields below.
+    private final PageBuffer<Project> buffer =
+        new PageBuffer<Project>() {
+          @Override
+          protected void maybeFetch() {
+            PrefetchingIterator.this.maybeFetch();
+          }
+        };
+    private Iterator<Project> currentPage = Collections.emptyIterator();
+    private String nextPageToken;
+    private int pageSize;
+    private int previousPageSize = -1;
+    private boolean exhausted;
+
+    PrefetchingIterator(ProjectListOption... options) {
+      Integer fixedPageSize = null;
+      boolean filtered = false;
+      for (ProjectListOption option : options) {
+        if (option.getRpcOption() == ResourceManagerRpc.Option.FILTER) {
+          filtered = true;
+        }
+        if (option.getRpcOption() == ResourceManagerRpc.Option.PAGE_SIZE) {
+          fixedPageSize = (Integer) option.getValue();
+        } else if (option.getRpcOption() == ResourceManagerRpc.Option.PAGE_TOKEN) {
+          nextPageToken = (String) option.getValue();
+        } else {
+          baseOptions.add(option);
+        }
+      }
+      this.filtered = filtered;
+      adaptivePageSize = fixedPageSize == null;
+      pageSize = adaptivePageSize ? minPageSize : fixedPageSize;
+      buffer.fetchMore();
+    }
+
+    @Override
+    protected Project computeNext() {
+      while (!currentPage.hasNext()) {
+        List<Project> page = buffer.take();
+        if (page == null) {
+          return endOfData();
+        }
+        buffer.fetchMore();
+        currentPage = page.iterator();
+      }
+      return currentPage.next();
+    }
+
+    // Called while holding the buffer's lock.
+    private void maybeFetch() {
+      if (buffer.inFlightCount() > 0 || exhausted || buffer.bufferedPageCount() >= readAheadPages) {
+        return;
+      }
+      final int requestedSize = pageSize;
+      final long startNanos = clock.nanoTime();
+      List<ProjectListOption> requestOptions = new ArrayList<>(baseOptions);
+      requestOptions.add(ProjectListOption.pageSize(requestedSize));
+      if (nextPageToken != null) {
+        requestOptions.add(ProjectListOption.pageToken(nextPageToken));
+      }
+      buffer.fetch(
+          resourceManager.listAsync(requestOptions.toArray(new ProjectListOption[0])),
+          new PageBuffer.PageListener<Project>() {
+            @Override
+            public void onPage(List<Project> values, String pageToken) {
+              long latencyNanos = clock.nanoTime() - startNanos;
+              nextPageToken = pageToken;
+              exhausted = Strings.isNullOrEmpty(nextPageToken);
+              if (adaptivePageSize) {
+                boolean capped =
+                    isCappedPage(
+                        requestedSize, values.size(), previousPageSize, !exhausted, filtered);
+                previousPageSize = values.size();
+                pageSize =
+                    nextPageSize(
+                        requestedSize,
+                        values.size(),
+                        capped,
+                        latencyNanos,
+                        targetPageLatencyNanos,
+                        minPageSize,
+                        maxPageSize);
+              }
+            }
+          });
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "PrefetchingProjectLister{readAheadPages="
+        + readAheadPages
+        + ", pageSizeBounds=["
+        + minPageSize
+        + ", "
+        + maxPageSize
+        + "], targetPageLatencyMillis="
+        + TimeUnit.NANOSECONDS.toMillis(targetPageLatencyNanos)
+        + "}";
+  }
+}
@@ -122,6 +122,13 @@ public class Project extends ProjectInfo {
     this.options = resourceManager.getOptions();
   }
 
+  /** Creates a project that shares the immutable fields of {@code info}. */
+  Project(ResourceManager resourceManager, ProjectInfo info) {
+    super(info);
+    this.resourceManager = checkNotNull(resourceManager);
+    this.options = resourceManager.getOptions();
+  }
+
   /** Returns the {@link ResourceManager} service object associated with this Project. */
   public ResourceManager getResourceManager() {
     return resourceManager;
@@ -262,7 +269,7 @@ public class Project extends ProjectInfo {
       return false;
     }
     Project other = (Project) obj;
-    return Objects.equals(toPb(), other.toPb()) && Objects.equals(options, other.options);
+    return fieldsEqual(other) && Objects.equals(options, other.options);
   }
 
   @Override
@@ -278,7 +285,6 @@ public class Project extends ProjectInfo {
   static Project fromPb(
       ResourceManager resourceManager,
       com.google.api.services.cloudresourcemanager.model.Project answer) {
-    ProjectInfo info = ProjectInfo.fromPb(answer);
-    return new Project(resourceManager, new ProjectInfo.BuilderImpl(info));
+    return new Project(resourceManager, ProjectInfo.fromPb(answer));
   }
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.primitives.Ints;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable set of projects with inverted indexes on the fields of the list filters: the ID,
+ * the name, the labels, the lifecycle state and the parent. Projects are numbered in the order of
+ * their IDs, and every indexed value maps to the sorted numbers of the projects having it.
+ */
+final class ProjectIndex {
+
+  static final ProjectIndex EMPTY = new ProjectIndex(Collections.<Project>emptyList());
+
+  private static final int[] NONE = new int[0];
+
+  private final Project[] projects;
+  private final int[] all;
+  private final Field ids;
+  private final Field names;
+  private final Field states;
+  private final Field parentTypes;
+  private final Field parentIds;
+  private final Map<String, Field> labels;
+
+  /** The sorted distinct values of a field, lowercased, and the projects having each of them. */
+  private static final class Field {
+
+    private final String[] values;
+    private final int[][] postings;
+    private final int[] present;
+
+    private Field(TreeMap<String, List<Integer>> index) {
+      values = index.keySet().toArray(new String[0]);
+      postings = new int[values.length][];
+      BitSet present = new BitSet();
+      int i = 0;
+      for (List<Integer> projects : index.values()) {
+        postings[i++] = Ints.toArray(projects);
+        for (int project : projects) {
+          present.set(project);
+        }
+      }
+      this.present = toArray(present);
+    }
+
+    /** Returns the projects whose value is {@code value}. */
+    int[] exact(String value) {
+      int index = Arrays.binarySearch(values, value);
+      return index >= 0 ? postings[index] : NONE;
+    }
+
+    /** Returns the projects whose value starts with {@code prefix}. */
+    int[] prefix(String prefix) {
+      int from = Arrays.binarySearch(values, prefix);
+      if (from < 0) {
+        from = -from - 1;
+      }
+      int to = from;
+      while (to < values.length && values[to].startsWith(prefix)) {
+        to++;
+      }
+      if (to - from == 1) {
+        return postings[from];
+      }
+      BitSet union = new BitSet();
+      for (int i = from; i < to; i++) {
+        for (int project : postings[i]) {
+          union.set(project);
+        }
+      }
+      return toArray(union);
+    }
+  }
+
+  ProjectIndex(List<Project> unsortedProjects) {
+    projects = unsortedProjects.toArray(new Project[0]);
+    Arrays.sort(
+        projects,
+        new Comparator<Project>() {
+          @Override
+          public int compare(Project first, Project second) {
+            return first.getProjectId().compareTo(second.getProjectId());
+          }
+        });
+    all = new int[projects.length];
+    TreeMap<String, List<Integer>> idIndex = new TreeMap<>();
+    TreeMap<String, List<Integer>> nameIndex = new TreeMap<>();
+    TreeMap<String, List<Integer>> stateIndex = new TreeMap<>();
+    TreeMap<String, List<Integer>> parentTypeIndex = new TreeMap<>();
+    TreeMap<String, List<Integer>> parentIdIndex = new TreeMap<>();
+    Map<String, TreeMap<String, List<Integer>>> labelIndexes = new HashMap<>();
+    for (int i = 0; i < projects.length; i++) {
+      Project project = projects[i];
+      all[i] = i;
+      add(idIndex, project.getProjectId(), i);
+      add(nameIndex, project.getName(), i);
+      add(stateIndex, project.getState() != null ? project.getState().name() : null, i);
+      if (project.getParent() != null) {
+        add(parentTypeIndex, project.getParent().getType(), i);
+        add(parentIdIndex, project.getParent().getId(), i);
+      }
+      for (Map.Entry<String, String> label : project.getLabels().entrySet()) {
+        String key = label.getKey().toLowerCase(Locale.ROOT);
+        TreeMap<String, List<Integer>> labelIndex = labelIndexes.get(key);
+        if (labelIndex == null) {
+          labelIndex = new TreeMap<>();
+          labelIndexes.put(key, labelIndex);
+        }
+        add(labelIndex, label.getValue(), i);
+      }
+    }
+    ids = new Field(idIndex);
+    names = new Field(nameIndex);
+    states = new Field(stateIndex);
+    parentTypes = new Field(parentTypeIndex);
+    parentIds = new Field(parentIdIndex);
+    labels = new HashMap<>();
+    for (Map.Entry<String, TreeMap<String, List<Integer>>> entry : labelIndexes.entrySet()) {
+      labels.put(entry.getKey(), new Field(entry.getValue()));
+    }
+  }
+
+  private static void add(TreeMap<String, List<Integer>> index, String value, int project) {
+    if (value == null) {
+      return;
+    }
+    String key = value.toLowerCase(Locale.ROOT);
+    List<Integer> projects = index.get(key);
+    if (projects == null) {
+      projects = new ArrayList<>(1);
+      index.put(key, projects);
+    }
+    projects.add(project);
+  }
+
+  private static int[] toArray(BitSet bits) {
+    int[] array = new int[bits.cardinality()];
+    int i = 0;
+    for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+      array[i++] = bit;
+    }
+    return array;
+  }
+
+  int size() {
+    return projects.length;
+  }
+
+  /** Returns the project whose ID is {@code projectId}, or {@code null} if none. */
+  Project get(String projectId) {
+    int[] matches = ids.exact(projectId.toLowerCase(Locale.ROOT));
+    return matches.length > 0 ? projects[matches[0]] : null;
+  }
+
+  /** Returns the projects matching {@code filter}, ordered by ID. */
+  List<Project> query(String filter) {
+    int[] matches = match(filter);
+    Project[] result = new Project[matches.length];
+    for (int i = 0; i < matches.length; i++) {
+      result[i] = projects[matches[i]];
+    }
+    return Collections.unmodifiableList(Arrays.asList(result));
+  }
+
+  /** Returns the number of projects matching {@code filter}. */
+  int count(String filter) {
+    return match(filter).length;
+  }
+
+  /**
+   * Returns the numbers of the projects matching {@code filter}, a conjunction of terms separated
+   * by spaces, or by {@code AND}.
+   *
+   * @throws ResourceManagerException if a term is not a supported {@code field:value} expression
+   */
+  private int[] match(String filter) {
+    List<int[]> terms = new ArrayList<>();
+    if (filter != null) {
+      for (String term : filter.trim().split("\\s+")) {
+        if (!term.isEmpty() && !"AND".equalsIgnoreCase(term)) {
+          terms.add(matchTerm(term));
+        }
+      }
+    }
+    if (terms.isEmpty()) {
+      return all;
+    }
+    // Intersecting from the most selective term keeps the intermediate results small.
+    Collections.sort(
+        terms,
+        new Comparator<int[]>() {
+          @Override
+          public int compare(int[] first, int[] second) {
+            return Integer.compare(first.length, second.length);
+          }
+        });
+    int[] result = terms.get(0);
+    for (int i = 1; i < terms.size() && result.length > 0; i++) {
+      result = intersect(result, terms.get(i));
+    }
+    return result;
+  }
+
+  private int[] matchTerm(String term) {
+    int separator = term.indexOf(':');
+    if (separator <= 0 || separator == term.length() - 1) {
+      throw new ResourceManagerException(400, "Could not parse the filter term " + term);
+    }
+    String name = term.substring(0, separator).toLowerCase(Locale.ROOT);
+    String value = term.substring(separator + 1).toLowerCase(Locale.ROOT);
+    Field field;
+    switch (name) {
+      case "id":
+        field = ids;
+        break;
+      case "name":
+        field = names;
+        break;
+      case "lifecyclestate":
+        field = states;
+        break;
+      case "parent.type":
+        field = parentTypes;
+        break;
+      case "parent.id":
+        field = parentIds;
+        break;
+      default:
+        if (!name.startsWith("labels.") || name.length() == "labels.".length()) {
+          throw new ResourceManagerException(400, "Unsupported filter field " + name);
+        }
+        field = labels.get(name.substring("labels.".length()));
+        if (field == null) {
+          return NONE;
+        }
+    }
+    if ("*".equals(value)) {
+      return field.present;
+    }
+    if (value.endsWith("*")) {
+      return field.prefix(value.substring(0, value.length() - 1));
+    }
+    return field.exact(value);
+  }
+
+  private static int[] intersect(int[] first, int[] second) {
+    int[] result = new int[Math.min(first.length, second.length)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < first.length && j < second.length) {
+      if (first[i] < second[j]) {
+        i++;
+      } else if (first[i] > second[j]) {
+        j++;
+      } else {
+        result[count++] = first[i];
+        i++;
+        j++;
+      }
+    }
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+}
@@ -29,7 +29,6 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
-import org.threeten.bp.Instant;
 import org.threeten.bp.ZoneOffset;
 import org.threeten.bp.format.DateTimeFormatter;
 
@@ -132,7 +131,15 @@ public class ProjectInfo implements Serializable {
 
     @Override
     public boolean equals(Object obj) {
-      return obj instanceof ResourceId && Objects.equals(toPb(), ((ResourceId) obj).toPb());
+      if (obj == this) {
+        return true;
+      }
+      if (!(obj instanceof ResourceId)) {
+        return false;
+      }
+      // The type is sent in lower case, so types differing only by case are the same.
+      ResourceId other = (ResourceId) obj;
+      return id.equals(other.id) && type.equalsIgnoreCase(other.type);
     }
 
     @Override
@@ -301,13 +308,44 @@ public class ProjectInfo implements Serializable {
   }
 
   ProjectInfo(BuilderImpl builder) {
-    this.name = builder.name;
-    this.projectId = builder.projectId;
-    this.labels = ImmutableMap.copyOf(builder.labels);
-    this.projectNumber = builder.projectNumber;
-    this.state = builder.state;
-    this.createTimeMillis = builder.createTimeMillis;
-    this.parent = builder.parent;
+    this(
+        builder.name,
+        builder.projectId,
+        ImmutableMap.copyOf(builder.labels),
+        builder.projectNumber,
+        builder.state,
+        builder.createTimeMillis,
+        builder.parent);
+  }
+
+  /** Creates a copy of {@code info} that shares its immutable fields. */
+  ProjectInfo(ProjectInfo info) {
+    this(
+        info.name,
+        info.projectId,
+        // A no-op for the immutable labels of a built project.
+        ImmutableMap.copyOf(info.labels),
+        info.projectNumber,
+        info.state,
+        info.createTimeMillis,
+        info.parent);
+  }
+
+  private ProjectInfo(
+      String name,
+      String projectId,
+      ImmutableMap<String, String> labels,
+      Long projectNumber,
+      State state,
+      Long createTimeMillis,
+      ResourceId parent) {
+    this.name = name;
+    this.projectId = projectId;
+    this.labels = labels;
+    this.projectNumber = projectNumber;
+    this.state = state;
+    this.createTimeMillis = createTimeMillis;
+    this.parent = parent;
   }
 
   /**
@@ -370,7 +408,18 @@ public class ProjectInfo implements Serializable {
     return obj == this
         || obj != null
             && obj.getClass().equals(ProjectInfo.class)
-            && Objects.equals(toPb(), ((ProjectInfo) obj).toPb());
+            && fieldsEqual((ProjectInfo) obj);
+  }
+
+  /** Returns whether this object and {@code other} have the same project information. */
+  final boolean fieldsEqual(ProjectInfo other) {
+    return Objects.equals(projectId, other.projectId)
+        && Objects.equals(name, other.name)
+        && Objects.equals(projectNumber, other.projectNumber)
+        && Objects.equals(state, other.state)
+        && Objects.equals(createTimeMillis, other.createTimeMillis)
+        && Objects.equals(parent, other.parent)
+        && labels.equals(other.labels);
   }
 
   @Override
@@ -397,10 +446,7 @@ public class ProjectInfo implements Serializable {
       projectPb.setLifecycleState(state.toString());
     }
     if (createTimeMillis != null) {
-      projectPb.setCreateTime(
-          DateTimeFormatter.ISO_DATE_TIME
-              .withZone(ZoneOffset.UTC)
-              .format(Instant.ofEpochMilli(createTimeMillis)));
+      projectPb.setCreateTime(Rfc3339.formatMillis(createTimeMillis));
     }
     if (parent != null) {
       projectPb.setParent(parent.toPb());
@@ -409,24 +455,18 @@ public class ProjectInfo implements Serializable {
   }
 
   static ProjectInfo fromPb(com.google.api.services.cloudresourcemanager.model.Project projectPb) {
-    Builder builder =
-        newBuilder(projectPb.getProjectId()).setProjectNumber(projectPb.getProjectNumber());
-    if (projectPb.getName() != null && !projectPb.getName().equals("Unnamed")) {
-      builder.setName(projectPb.getName());
-    }
-    if (projectPb.getLabels() != null) {
-      builder.setLabels(projectPb.getLabels());
-    }
-    if (projectPb.getLifecycleState() != null) {
-      builder.setState(State.valueOf(projectPb.getLifecycleState()));
-    }
-    if (projectPb.getCreateTime() != null) {
-      builder.setCreateTimeMillis(
-          DATE_TIME_FORMATTER.parse(projectPb.getCreateTime(), Instant.FROM).toEpochMilli());
-    }
-    if (projectPb.getParent() != null) {
-      builder.setParent(ResourceId.fromPb(projectPb.getParent()));
-    }
-    return builder.build();
+    // Builds the object directly so that the labels are only copied once.
+    String name = projectPb.getName();
+    Map<String, String> labels = projectPb.getLabels();
+    String lifecycleState = projectPb.getLifecycleState();
+    String createTime = projectPb.getCreateTime();
+    return new ProjectInfo(
+        name != null && !name.equals("Unnamed") ? name : null,
+        projectPb.getProjectId(),
+        labels != null ? ImmutableMap.copyOf(labels) : ImmutableMap.<String, String>of(),
+        projectPb.getProjectNumber(),
+        lifecycleState != null ? State.valueOf(lifecycleState) : null,
+        createTime != null ? Rfc3339.parseMillis(createTime) : null,
+        projectPb.getParent() != null ? ResourceId.fromPb(projectPb.getParent()) : null);
   }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A local copy of the projects matching a listing, indexed to answer {@link
+ * ProjectListOption#filter list filters} without sending requests.
+ *
+ * <p>{@link #sync()} lists the projects and replaces the copy; queries then run against the last
+ * synced copy, in microseconds, and may be sent concurrently with a sync. Queries accept the
+ * {@code field:value} terms of the list filters on {@code id}, {@code name}, {@code labels.<key>},
+ * {@code lifecycleState}, {@code parent.type} and {@code parent.id}, joined by spaces or {@code
+ * AND}. As with the service, field names and values are case insensitive, a value of {@code *}
+ * matches any project having the field and a value ending with {@code *} matches by prefix.
+ *
+ * <pre>{@code
+ * ProjectInventory inventory = ProjectInventory.newBuilder(resourceManager).build();
+ * inventory.sync();
+ * List<Project> projects = inventory.query("labels.env:prod name:how*");
+ * }</pre>
+ */
+public final class ProjectInventory {
+
+  private final ResourceManager resourceManager;
+  private final List<ProjectListOption> listOptions;
+  private final ProjectScanner scanner;
+  private volatile ProjectIndex index = ProjectIndex.EMPTY;
+  private volatile long syncTimeMillis = -1;
+
+  /** Builder for {@code ProjectInventory}. */
+  public static final class Builder {
+
+    private final ResourceManager resourceManager;
+    private List<ProjectListOption> listOptions = ImmutableList.of();
+    private ProjectScanner scanner;
+
+    private Builder(ResourceManager resourceManager) {
+      this.resourceManager = checkNotNull(resourceManager);
+    }
+
+    /**
+     * Sets the options of the listings, for instance a filter restricting the inventory to an
+     * organization. Defaults to no options, listing every project visible to the caller.
+     *
+     * @throws IllegalArgumentException if {@code listOptions} contain a page token
+     */
+    public Builder setListOptions(ProjectListOption... listOptions) {
+      for (ProjectListOption option : listOptions) {
+        checkArgument(
+            option.getRpcOption() != ResourceManagerRpc.Option.PAGE_TOKEN,
+            "An inventory lists all the pages");
+      }
+      this.listOptions = ImmutableList.copyOf(listOptions);
+      return this;
+    }
+
+    /**
+     * Sets a scanner listing the projects concurrently, for large inventories. Defaults to {@code
+     * null}, listing the projects with {@link ResourceManager#list}.
+     */
+    public Builder setScanner(ProjectScanner scanner) {
+      this.scanner = scanner;
+      return this;
+    }
+
+    public ProjectInventory build() {
+      return new ProjectInventory(this);
+    }
+  }
+
+  private ProjectInventory(Builder builder) {
+    this.resourceManager = builder.resourceManager;
+    this.listOptions = builder.listOptions;
+    this.scanner = builder.scanner;
+  }
+
+  /** Returns a builder for an inventory that uses {@code resourceManager} to list the projects. */
+  public static Builder newBuilder(ResourceManager resourceManager) {
+    return new Builder(resourceManager);
+  }
+
+  /**
+   * Lists the projects and replaces the local copy with them. Queries keep answering from the
+   * previous copy until the listing completes; if it fails, the previous copy is kept.
+   *
+   * @throws ResourceManagerException upon failure
+   */
+  public void sync() {
+    long startMillis = resourceManager.getOptions().getClock().millisTime();
+    ProjectListOption[] options = listOptions.toArray(new ProjectListOption[0]);
+    Iterable<Project> projects =
+        scanner != null ? scanner.scan(options) : resourceManager.list(options).iterateAll();
+    load(projects);
+    syncTimeMillis = startMillis;
+  }
+
+  /** Replaces the local copy with {@code projects}. */
+  void load(Iterable<Project> projects) {
+    List<Project> copy = new ArrayList<>();
+    for (Project project : projects) {
+      copy.add(project);
+    }
+    index = new ProjectIndex(copy);
+  }
+
+  /**
+   * Returns the time, in milliseconds since the epoch, at which the listing of the last successful
+   * sync started, or {@code -1} if the inventory was never synced. Changes made after that time
+   * may not be reflected by the queries.
+   */
+  public long getSyncTimeMillis() {
+    return syncTimeMillis;
+  }
+
+  /** Returns the number of projects in the inventory. */
+  public int size() {
+    return index.size();
+  }
+
+  /** Returns the project with ID {@code projectId}, or {@code null} if not in the inventory. */
+  public Project get(String projectId) {
+    return index.get(projectId);
+  }
+
+  /**
+   * Returns the projects of the inventory matching {@code filter}, ordered by ID. A {@code null}
+   * or blank filter matches every project.
+   *
+   * @throws ResourceManagerException with code 400 if {@code filter} has a term that is not a
+   *     supported {@code field:value} expression
+   */
+  public List<Project> query(String filter) {
+    return index.query(filter);
+  }
+
+  /**
+   * Returns the number of projects of the inventory matching {@code filter}, without collecting
+   * them.
+   *
+   * @throws ResourceManagerException with code 400 if {@code filter} has a term that is not a
+   *     supported {@code field:value} expression
+   */
+  public int count(String filter) {
+    return index.count(filter);
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.common.base.Strings;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lists projects by splitting the listing into shards that are listed concurrently.
+ *
+ * <p>{@link ResourceManager#list} follows a single chain of page tokens, so listing a large
+ * organization takes at least one request latency per page. A scanner instead lists a set of
+ * disjoint {@link ProjectListOption#filter filters}, the shards, up to {@link
+ * Builder#setParallelism parallelism} shards at a time, and merges their pages into one iterable.
+ * By default, the shards split the projects by the first letter of their ID, with which every
+ * project ID starts. With {@linkplain Builder#setShards custom shards}, projects returned by more
+ * than one shard, because the shards overlap or because a project changed while it was listed, are
+ * only returned once: the IDs of all the projects returned so far are held until the iteration
+ * ends, which takes memory in proportion to the number of projects. The default shards are
+ * disjoint whatever the projects' changes, so no IDs are held.
+ *
+ * <p>Projects are returned in no particular order. At most {@link Builder#setBufferedPages
+ * buffered pages} are held, received or being requested, so that an iteration that is abandoned
+ * stops sending requests.
+ *
+ * <pre>{@code
+ * ProjectScanner scanner = ProjectScanner.newBuilder(resourceManager).setParallelism(8).build();
+ * for (Project project : scanner.scan(ProjectListOption.filter("labels.env:prod"))) {
+ *   // do something with the project
+ * }
+ * }</pre>
+ */
+public final class ProjectScanner {
+
+  static final int DEFAULT_PARALLELISM = 4;
+
+  private final ResourceManager resourceManager;
+  private final List<String> shards;
+  private final boolean deduplicated;
+  private final int parallelism;
+  private final int bufferedPages;
+
+  /** Builder for {@code ProjectScanner}. */
+  public static final class Builder {
+
+    private final ResourceManager resourceManager;
+    private List<String> shards = idPrefixShards();
+    private boolean deduplicated;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private Integer bufferedPages;
+
+    private Builder(ResourceManager resourceManager) {
+      this.resourceManager = checkNotNull(resourceManager);
+    }
+
+    /**
+     * Sets the filters of the shards. Every project must match at least one of them, for
+     * instance {@code parent.id:123} and {@code parent.id:456} when listing two folders. Defaults
+     * to {@link #idPrefixShards()}. The shards may overlap: the projects they return are
+     * deduplicated.
+     */
+    public Builder setShards(List<String> shards) {
+      checkArgument(!shards.isEmpty(), "At least one shard is required");
+      this.shards = ImmutableList.copyOf(shards);
+      this.deduplicated = true;
+      return this;
+    }
+
+    /** Sets the maximum number of shards that are listed concurrently. Defaults to 4. */
+    public Builder setParallelism(int parallelism) {
+      checkArgument(parallelism > 0, "Parallelism must be at least one shard");
+      this.parallelism = parallelism;
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of pages that are buffered or being requested ahead of the page
+     * being consumed. Must be at least the parallelism. Defaults to twice the parallelism.
+     */
+    public Builder setBufferedPages(int bufferedPages) {
+      checkArgument(bufferedPages > 0, "At least one page must be buffered");
+      this.bufferedPages = bufferedPages;
+      return this;
+    }
+
+    public ProjectScanner build() {
+      checkArgument(
+          bufferedPages == null || bufferedPages >= parallelism,
+          "Buffered pages must be at least the parallelism");
+      return new ProjectScanner(this);
+    }
+  }
+
+  private ProjectScanner(Builder builder) {
+    this.resourceManager = builder.resourceManager;
+    this.shards = builder.shards;
+    this.deduplicated = builder.deduplicated;
+    this.parallelism = builder.parallelism;
+    this.bufferedPages =
+        builder.bufferedPages != null ? builder.bufferedPages : 2 * builder.parallelism;
+  }
+
+  /** Returns a builder for a scanner that uses {@code resourceManager} to list the shards. */
+  public static Builder newBuilder(ResourceManager resourceManager) {
+    return new Builder(resourceManager);
+  }
+
+  /**
+   * Returns the filters of the shards that split the projects by the first letter of their ID,
+   * from {@code id:a*} to {@code id:z*}. Project IDs always start with a lowercase letter.
+   */
+  public static List<String> idPrefixShards() {
+    ImmutableList.Builder<String> shards = ImmutableList.builder();
+    for (char letter = 'a'; letter <= 'z'; letter++) {
+      shards.add("id:" + letter + "*");
+    }
+    return shards.build();
+  }
+
+  /**
+   * Returns an iterable over all the projects matching {@code options}. A filter in {@code
+   * options} is combined with the filter of every shard. Each call to {@code iterator()} starts a
+   * new scan; the first pages are requested when the iterator is created.
+   *
+   * @throws IllegalArgumentException if {@code options} contain a page token, which has no
+   *     meaning across shards
+   * @throws ResourceManagerException from the iterator's methods, if a page request fails
+   */
+  public Iterable<Project> scan(final ProjectListOption... options) {
+    for (ProjectListOption option : options) {
+      checkArgument(
+          option.getRpcOption() != ResourceManagerRpc.Option.PAGE_TOKEN,
+          "A scan can't start from a page token");
+    }
+    return new Iterable<Project>() {
+      @Override
+      public Iterator<Project> iterator() {
+        return new ScanIterator(options);
+      }
+    };
+  }
+
+  /** A position in the listing of a shard. */
+  private static final class Cursor {
+
+    private final String filter;
+    private final String pageToken;
+
+    Cursor(String filter, String pageToken) {
+      this.filter = filter;
+      this.pageToken = pageToken;
+    }
+  }
+
+  private final class ScanIterator extends AbstractIterator<Project> {
+
+    private final List<ProjectListOption> baseOptions = new ArrayList<>();
+    // The pages received from all the shards. Its lock guards the cursors.
+    private final PageBuffer<Project> buffer =
+        new PageBuffer<Project>() {
+          @Override
+          protected void maybeFetch() {
+            ScanIterator.this.maybeFetch();
+          }
+        };
+    // Shard positions waiting to be requested.
+    private final ArrayDeque<Cursor> cursors = new ArrayDeque<>();
+    // Only accessed by the consuming thread. Null if the shards are disjoint.
+    private final Set<String> returnedIds = deduplicated ? new HashSet<String>() : null;
+    private Iterator<Project> currentPage = Collections.emptyIterator();
+
+    ScanIterator(ProjectListOption... options) {
+      String baseFilter = null;
+      for (ProjectListOption option : options) {
+        if (option.getRpcOption() == ResourceManagerRpc.Option.FILTER) {
+          baseFilter = (String) option.getValue();
+        } else {
+          baseOptions.add(option);
+        }
+      }
+      synchronized (buffer) {
+        for (String shard : shards) {
+          String filter = Strings.isNullOrEmpty(baseFilter) ? shard : baseFilter + " " + shard;
+          cursors.add(new Cursor(filter, null));
+        }
+      }
+      buffer.fetchMore();
+    }
+
+    @Override
+    protected Project computeNext() {
+      while (true) {
+        while (!currentPage.hasNext()) {
+          List<Project> page = buffer.take();
+          if (page == null) {
+            return endOfData();
+          }
+          buffer.fetchMore();
+          currentPage = page.iterator();
+        }
+        Project project = currentPage.next();
+        if (returnedIds == null || returnedIds.add(project.getProjectId())) {
+          return project;
+        }
+      }
+    }
+
+    // Called while holding the buffer's lock.
+    private void maybeFetch() {
+      while (!cursors.isEmpty()
+          && buffer.inFlightCount() < parallelism
+          && buffer.inFlightCount() + buffer.bufferedPageCount() < bufferedPages) {
+        fetch(cursors.poll());
+      }
+    }
+
+    // Must be called while holding the buffer's lock.
+    private void fetch(final Cursor cursor) {
+      List<ProjectListOption> requestOptions = new ArrayList<>(baseOptions);
+      requestOptions.add(ProjectListOption.filter(cursor.filter));
+      if (cursor.pageToken != null) {
+        requestOptions.add(ProjectListOption.pageToken(cursor.pageToken));
+      }
+      buffer.fetch(
+          resourceManager.listAsync(requestOptions.toArray(new ProjectListOption[0])),
+          new PageBuffer.PageListener<Project>() {
+            @Override
+            public void onPage(List<Project> values, String nextPageToken) {
+              if (!Strings.isNullOrEmpty(nextPageToken)) {
+                // Finishing the shards already started keeps fewer page tokens pending.
+                cursors.addFirst(new Cursor(cursor.filter, nextPageToken));
+              }
+            }
+          });
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "ProjectScanner{shards="
+        + shards.size()
+        + ", parallelism="
+        + parallelism
+        + ", bufferedPages="
+        + bufferedPages
+        + "}";
+  }
+}
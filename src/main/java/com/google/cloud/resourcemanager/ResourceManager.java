@@ -16,6 +16,8 @@
 
 package com.google.cloud.resourcemanager;
 
+import com.google.api.core.ApiFuture;
+import com.google.api.gax.paging.AsyncPage;
 import com.google.api.gax.paging.Page;
 import com.google.cloud.FieldSelector;
 import com.google.cloud.FieldSelector.Helper;
@@ -116,6 +118,7 @@ public interface ResourceManager extends Service<ResourceManagerOptions> {
      *   <li>name:Howl The project's name is Howl or howl.
      *   <li>name:HOWL Equivalent to above.
      *   <li>NAME:howl Equivalent to above.
+     *   <li>name:how* The project's name starts with how.
      *   <li>labels.color:* The project has the label color.
      *   <li>labels.color:red The project's label color has the value red.
      *   <li>labels.color:red label.size:big The project's label color has the value red and its
@@ -337,4 +340,109 @@ public interface ResourceManager extends Service<ResourceManagerOptions> {
    *     Platform Services</a>
    */
   List<Boolean> testPermissions(String projectId, List<String> permissions);
+
+  /**
+   * Sends a create project request. The returned future completes with the new project's metadata.
+   * See {@link #create(ProjectInfo)} for details.
+   *
+   * <p>Retries are scheduled on {@link ResourceManagerOptions#getAsyncExecutor()} and attempts are
+   * run on {@link ResourceManagerOptions#getBlockingExecutor()}; no thread is blocked waiting
+   * between attempts, or waiting for the adaptive throttling limit. Cancelling the returned future
+   * cancels the current attempt and any pending retry. If the call fails the future fails with a
+   * {@link ResourceManagerException}.
+   *
+   * <p>Once the create request succeeds, the returned operation is polled until it is done. The
+   * operations of all the pending creations are polled together, in batch requests, by a single
+   * task scheduled on the async executor and run on the blocking executor.
+   */
+  OperationFuture<Project> createAsync(ProjectInfo project);
+
+  /**
+   * Sends a delete project request. See {@link #delete(String)} for details. See {@link
+   * #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<Void> deleteAsync(String projectId);
+
+  /**
+   * Sends a get project request. The returned future completes with {@code null} if the project is
+   * not found or if the user doesn't have read permissions for the project. See {@link
+   * #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<Project> getAsync(String projectId, ProjectGetOption... options);
+
+  /**
+   * Sends a list projects request. The returned page can fetch the next page asynchronously via
+   * {@link AsyncPage#getNextPageAsync()}. See {@link #createAsync(ProjectInfo)} for how
+   * asynchronous calls are executed.
+   */
+  ApiFuture<AsyncPage<Project>> listAsync(ProjectListOption... options);
+
+  /**
+   * Sends a replace project request. See {@link #replace(ProjectInfo)} for details. See {@link
+   * #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<Project> replaceAsync(ProjectInfo newProject);
+
+  /**
+   * Sends an undelete project request. See {@link #undelete(String)} for details. See {@link
+   * #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<Void> undeleteAsync(String projectId);
+
+  /**
+   * Sends a get IAM policy request. The returned future completes with {@code null} if the resource
+   * does not exist or if you do not have adequate permission to get the policy. See {@link
+   * #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<Policy> getPolicyAsync(String projectId);
+
+  /**
+   * Sends a set IAM policy request. See {@link #replacePolicy(String, Policy)} for details. See
+   * {@link #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<Policy> replacePolicyAsync(String projectId, Policy newPolicy);
+
+  /**
+   * Sends a test IAM permissions request. See {@link #testPermissions(String, List)} for details.
+   * See {@link #createAsync(ProjectInfo)} for how asynchronous calls are executed.
+   */
+  ApiFuture<List<Boolean>> testPermissionsAsync(String projectId, List<String> permissions);
+
+  /**
+   * Creates a new empty batch for grouping multiple get, replace, delete and undelete operations in
+   * a single HTTP request.
+   */
+  ResourceManagerBatch batch();
+
+  /**
+   * Returns how many {@code get} and {@code getPolicy} requests this service sent, and how many
+   * calls shared the response of an identical request that was already in flight.
+   *
+   * @see ResourceManagerOptions.Builder#setReadCoalescingEnabled(boolean)
+   */
+  CoalescingStats getCoalescingStats();
+
+  /**
+   * Returns the current limit on the number of requests in flight, and how many requests are in
+   * flight and waiting.
+   *
+   * @see ResourceManagerOptions.Builder#setAdaptiveThrottlingEnabled(boolean)
+   */
+  ThrottlingStats getThrottlingStats();
+
+  /**
+   * Returns how many retries this service made, and how many retryable failures were not retried
+   * because the retry budget was exhausted.
+   *
+   * @see ResourceManagerOptions.Builder#setRetryBudgetEnabled(boolean)
+   */
+  RetryBudgetStats getRetryBudgetStats();
+
+  /**
+   * Returns how many {@code get} and {@code getPolicy} calls could be hedged, how many of them sent
+   * a second request and how many were completed by it.
+   *
+   * @see ResourceManagerOptions.Builder#setHedgingDelay(org.threeten.bp.Duration)
+   */
+  HedgingStats getHedgingStats();
 }
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.retrying.ExponentialRetryAlgorithm;
+import com.google.api.gax.retrying.TimedAttemptSettings;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectGetOption;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.cloud.resourcemanager.spi.v1beta1.RpcBatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * A batch of operations to be submitted to Google Cloud Resource Manager using a single HTTP
+ * request per round trip.
+ *
+ * <p>Each operation returns an {@link ApiFuture} that completes once {@link #submit()} has
+ * processed it. Operations that fail with a retryable error are retried individually, in a later
+ * batch request, according to the service's {@link ResourceManagerOptions#getRetrySettings() retry
+ * settings} and retry budget; operations that succeeded are not sent again. Each batch request
+ * counts as one request against the service's adaptive throttling limit.
+ *
+ * <pre>{@code
+ * ResourceManagerBatch batch = resourceManager.batch();
+ * ApiFuture<Project> project = batch.get("my-project-id");
+ * ApiFuture<Void> deleted = batch.delete("my-other-project-id");
+ * batch.submit();
+ * }</pre>
+ */
+public class ResourceManagerBatch {
+
+  // Cloud Resource Manager accepts at most 1000 calls in a single batch request.
+  static final int MAX_BATCH_SIZE = 1000;
+
+  private final ResourceManagerOptions options;
+  private final ResourceManagerRpc resourceManagerRpc;
+  private final ExponentialRetryAlgorithm retryAlgorithm;
+  private final List<BatchItem<?>> pendingItems = new ArrayList<>();
+
+  ResourceManagerBatch(ResourceManagerOptions options) {
+    this.options = options;
+    this.resourceManagerRpc = options.getResourceManagerRpcV1Beta1();
+    this.retryAlgorithm =
+        new ExponentialRetryAlgorithm(options.getRetrySettings(), options.getClock());
+  }
+
+  private abstract class BatchItem<T> {
+
+    final SettableApiFuture<T> future = SettableApiFuture.create();
+    final RetryBudget.Call<T> budgetCall = options.getRetryBudget().newCall(null);
+    TimedAttemptSettings attemptSettings;
+
+    abstract void addTo(RpcBatch rpcBatch);
+
+    void fail(ResourceManagerException exception) {
+      TimedAttemptSettings nextAttemptSettings =
+          exception.isRetryable() ? retryAlgorithm.createNextAttempt(attemptSettings) : null;
+      if (nextAttemptSettings != null
+          && retryAlgorithm.shouldRetry(nextAttemptSettings)
+          && budgetCall.shouldRetry(exception, null)) {
+        attemptSettings = nextAttemptSettings;
+        pendingItems.add(this);
+      } else {
+        future.setException(exception);
+      }
+    }
+  }
+
+  private abstract class BatchItemCallback<P, T> implements RpcBatch.Callback<P> {
+
+    private final BatchItem<T> item;
+
+    BatchItemCallback(BatchItem<T> item) {
+      this.item = item;
+    }
+
+    abstract T convert(P response);
+
+    @Override
+    public void onSuccess(P response) {
+      item.future.set(convert(response));
+    }
+
+    @Override
+    public void onFailure(GoogleJsonError googleJsonError) {
+      item.fail(new ResourceManagerException(googleJsonError));
+    }
+  }
+
+  private void enqueue(final BatchItem<?> item) {
+    item.attemptSettings = retryAlgorithm.createFirstAttempt();
+    item.future.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            item.budgetCall.finish();
+          }
+        },
+        MoreExecutors.directExecutor());
+    pendingItems.add(item);
+  }
+
+  /**
+   * Adds a request representing the "get project" operation to this batch. The returned future
+   * completes with {@code null} if the project is not found or if the user doesn't have read
+   * permissions for the project.
+   *
+   * @see ResourceManager#get(String, ProjectGetOption...)
+   */
+  public ApiFuture<Project> get(final String projectId, ProjectGetOption... options) {
+    final Map<ResourceManagerRpc.Option, ?> optionsMap = ResourceManagerImpl.optionMap(options);
+    BatchItem<Project> item =
+        new BatchItem<Project>() {
+          @Override
+          void addTo(RpcBatch rpcBatch) {
+            rpcBatch.addGet(projectId, projectCallback(this), optionsMap);
+          }
+        };
+    enqueue(item);
+    return item.future;
+  }
+
+  /**
+   * Adds a request representing the "replace project" operation to this batch.
+   *
+   * @see ResourceManager#replace(ProjectInfo)
+   */
+  public ApiFuture<Project> replace(final ProjectInfo newProject) {
+    final com.google.api.services.cloudresourcemanager.model.Project projectPb = newProject.toPb();
+    BatchItem<Project> item =
+        new BatchItem<Project>() {
+          @Override
+          void addTo(RpcBatch rpcBatch) {
+            rpcBatch.addReplace(projectPb, projectCallback(this));
+          }
+        };
+    enqueue(item);
+    return item.future;
+  }
+
+  /**
+   * Adds a request representing the "delete project" operation to this batch.
+   *
+   * @see ResourceManager#delete(String)
+   */
+  public ApiFuture<Void> delete(final String projectId) {
+    BatchItem<Void> item =
+        new BatchItem<Void>() {
+          @Override
+          void addTo(RpcBatch rpcBatch) {
+            rpcBatch.addDelete(projectId, voidCallback(this));
+          }
+        };
+    enqueue(item);
+    return item.future;
+  }
+
+  /**
+   * Adds a request representing the "undelete project" operation to this batch.
+   *
+   * @see ResourceManager#undelete(String)
+   */
+  public ApiFuture<Void> undelete(final String projectId) {
+    BatchItem<Void> item =
+        new BatchItem<Void>() {
+          @Override
+          void addTo(RpcBatch rpcBatch) {
+            rpcBatch.addUndelete(projectId, voidCallback(this));
+          }
+        };
+    enqueue(item);
+    return item.future;
+  }
+
+  /**
+   * Submits this batch for processing and blocks until every operation has either completed or
+   * exhausted its retries. Operations are sent in batch requests of at most 1000 calls each. If
+   * some operations fail with a retryable error, only those operations are sent again after the
+   * retry delay.
+   */
+  public void submit() {
+    while (!pendingItems.isEmpty()) {
+      List<BatchItem<?>> items = new ArrayList<>(pendingItems);
+      pendingItems.clear();
+      long delayMillis = 0;
+      for (BatchItem<?> item : items) {
+        delayMillis =
+            Math.max(delayMillis, item.attemptSettings.getRandomizedRetryDelay().toMillis());
+      }
+      if (delayMillis > 0) {
+        try {
+          Thread.sleep(delayMillis);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          for (BatchItem<?> item : items) {
+            item.future.setException(
+                new ResourceManagerException(
+                    ResourceManagerException.UNKNOWN_CODE, "Batch submission interrupted", ex));
+          }
+          return;
+        }
+      }
+      for (List<BatchItem<?>> chunk : Lists.partition(items, MAX_BATCH_SIZE)) {
+        try {
+          final RpcBatch rpcBatch = resourceManagerRpc.createBatch();
+          for (BatchItem<?> item : chunk) {
+            item.budgetCall.startAttempt();
+            item.addTo(rpcBatch);
+          }
+          options
+              .getLimiter()
+              .call(
+                  new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                      rpcBatch.submit();
+                      return null;
+                    }
+                  });
+        } catch (RuntimeException ex) {
+          // Items whose callback already scheduled a retry are left to it.
+          Set<BatchItem<?>> retried = Sets.newIdentityHashSet();
+          retried.addAll(pendingItems);
+          for (BatchItem<?> item : chunk) {
+            if (item.future.isDone() || retried.contains(item)) {
+              continue;
+            }
+            if (ex instanceof ResourceManagerException) {
+              item.fail((ResourceManagerException) ex);
+            } else {
+              item.future.setException(ex);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>
+      projectCallback(BatchItem<Project> item) {
+    return new BatchItemCallback<
+        com.google.api.services.cloudresourcemanager.model.Project, Project>(item) {
+      @Override
+      Project convert(com.google.api.services.cloudresourcemanager.model.Project response) {
+        return response == null ? null : Project.fromPb(options.getService(), response);
+      }
+    };
+  }
+
+  private RpcBatch.Callback<Void> voidCallback(BatchItem<Void> item) {
+    return new BatchItemCallback<Void, Void>(item) {
+      @Override
+      Void convert(Void response) {
+        return null;
+      }
+    };
+  }
+}
@@ -16,9 +16,14 @@
 
 package com.google.cloud.resourcemanager;
 
+import static com.google.common.base.MoreObjects.firstNonNull;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.cloudresourcemanager.model.Status;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.http.BaseHttpServiceException;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import java.io.IOException;
 import java.util.Set;
@@ -45,6 +50,27 @@ public final class ResourceManagerException extends BaseHttpServiceException {
           new Error(403, "userRateLimitExceeded"),
           new Error(403, "userRateLimitExceededUnreg"),
           new Error(403, "variableTermLimitExceeded"));
+  // reference: https://github.com/googleapis/googleapis/blob/master/google/rpc/code.proto
+  private static final ImmutableMap<Integer, Integer> RPC_TO_HTTP_CODES =
+      ImmutableMap.<Integer, Integer>builder()
+          .put(0, 200)
+          .put(1, 499)
+          .put(2, 500)
+          .put(3, 400)
+          .put(4, 504)
+          .put(5, 404)
+          .put(6, 409)
+          .put(7, 403)
+          .put(16, 401)
+          .put(8, 429)
+          .put(9, 400)
+          .put(10, 409)
+          .put(11, 400)
+          .put(12, 501)
+          .put(13, 500)
+          .put(14, 503)
+          .put(15, 500)
+          .build();
   private static final long serialVersionUID = -9207194488966554136L;
 
   public ResourceManagerException(int code, String message) {
@@ -59,6 +85,39 @@ public final class ResourceManagerException extends BaseHttpServiceException {
     super(exception, true, RETRYABLE_ERRORS);
   }
 
+  public ResourceManagerException(GoogleJsonError error) {
+    super(error, true, RETRYABLE_ERRORS);
+  }
+
+  /** Creates an exception for a long-running operation that completed with {@code status}. */
+  public ResourceManagerException(Status status) {
+    this(firstNonNull(RPC_TO_HTTP_CODES.get(status.getCode()), UNKNOWN_CODE), status.getMessage());
+  }
+
+  /**
+   * Returns whether the request failed because a rate or quota limit was exceeded, i.e. the service
+   * responded with {@code 429} or with a retryable {@code 403}.
+   */
+  boolean isLimitExceeded() {
+    return getCode() == 429
+        || (getCode() == 403 && RETRYABLE_ERRORS.contains(new Error(403, getReason())));
+  }
+
+  /**
+   * Returns the reason of {@code failure}, such as {@code rateLimitExceeded}: the reason of a
+   * service error, its HTTP status code if it has no reason, or the class name of any other
+   * failure.
+   */
+  static String reasonOf(Throwable failure) {
+    if (failure instanceof BaseServiceException) {
+      BaseServiceException exception = (BaseServiceException) failure;
+      return exception.getReason() != null
+          ? exception.getReason()
+          : Integer.toString(exception.getCode());
+    }
+    return failure == null ? "unknown" : failure.getClass().getSimpleName();
+  }
+
   /**
    * Translate RetryHelperException to the ResourceManagerException that caused the error. This
    * method will always throw an exception.
@@ -70,4 +129,18 @@ public final class ResourceManagerException extends BaseHttpServiceException {
     BaseServiceException.translate(ex);
     throw new ResourceManagerException(UNKNOWN_CODE, ex.getMessage(), ex.getCause());
   }
+
+  /**
+   * Translate the failure of an asynchronous call to the ResourceManagerException that caused the
+   * error. This method will always throw an exception.
+   *
+   * @throws BaseServiceException when {@code throwable} is a {@code BaseServiceException}
+   * @throws ResourceManagerException otherwise
+   */
+  static ResourceManagerException translateAndThrow(Throwable throwable) {
+    if (throwable instanceof BaseServiceException) {
+      throw (BaseServiceException) throwable;
+    }
+    throw new ResourceManagerException(UNKNOWN_CODE, throwable.getMessage(), throwable);
+  }
 }
@@ -16,96 +16,237 @@
 
 package com.google.cloud.resourcemanager;
 
-import static com.google.cloud.RetryHelper.runWithRetries;
 import static com.google.common.base.Preconditions.checkArgument;
 
+import com.google.api.core.ApiFunction;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.paging.AsyncPage;
 import com.google.api.gax.paging.Page;
+import com.google.api.gax.retrying.ExponentialRetryAlgorithm;
+import com.google.api.gax.retrying.RetryAlgorithm;
+import com.google.api.gax.retrying.RetryingFuture;
+import com.google.api.gax.retrying.ScheduledRetryingExecutor;
+import com.google.cloud.AsyncPageImpl;
 import com.google.cloud.BaseService;
 import com.google.cloud.PageImpl;
 import com.google.cloud.PageImpl.NextPageFetcher;
 import com.google.cloud.Policy;
+import com.google.cloud.RetryHelper;
 import com.google.cloud.RetryHelper.RetryHelperException;
 import com.google.cloud.Tuple;
+import com.google.cloud.resourcemanager.ResourceManagerOptions.PageMaterialization;
+import com.google.cloud.resourcemanager.spi.v1beta1.ProjectOperation;
 import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
-import com.google.common.base.Function;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.opencensus.trace.Span;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 final class ResourceManagerImpl extends BaseService<ResourceManagerOptions>
     implements ResourceManager {
 
   private final ResourceManagerRpc resourceManagerRpc;
+  private final SingleFlight<List<?>, com.google.api.services.cloudresourcemanager.model.Project>
+      getFlights;
+  private final SingleFlight<String, com.google.api.services.cloudresourcemanager.model.Policy>
+      getPolicyFlights;
+  private final OperationPoller operationPoller;
 
   ResourceManagerImpl(ResourceManagerOptions options) {
     super(options);
     resourceManagerRpc = options.getResourceManagerRpcV1Beta1();
+    getFlights = new SingleFlight<>(options.isReadCoalescingEnabled());
+    getPolicyFlights = new SingleFlight<>(options.isReadCoalescingEnabled());
+    operationPoller =
+        new OperationPoller(
+            resourceManagerRpc,
+            options.getAsyncExecutor(),
+            options.getBlockingExecutor(),
+            options.getClock(),
+            OperationPoller.DEFAULT_TIMEOUT,
+            OperationPoller.DEFAULT_INITIAL_EXPECTED_LATENCY,
+            options.getRetryBudget(),
+            options.getLimiter(),
+            options.getMetricsListener(),
+            options.getRpcTracer());
   }
 
   @Override
-  public Project create(final ProjectInfo project) {
-    try {
-      return Project.fromPb(
-          this,
-          runWithRetries(
-              new Callable<com.google.api.services.cloudresourcemanager.model.Project>() {
-                @Override
-                public com.google.api.services.cloudresourcemanager.model.Project call() {
-                  return resourceManagerRpc.create(project.toPb());
-                }
-              },
-              getOptions().getRetrySettings(),
-              EXCEPTION_HANDLER,
-              getOptions().getClock()));
-    } catch (RetryHelperException ex) {
-      throw ResourceManagerException.translateAndThrow(ex);
+  public CoalescingStats getCoalescingStats() {
+    return new CoalescingStats(
+        getFlights.getCallCount(),
+        getFlights.getCollapsedCount(),
+        getPolicyFlights.getCallCount(),
+        getPolicyFlights.getCollapsedCount());
+  }
+
+  @Override
+  public ThrottlingStats getThrottlingStats() {
+    return getOptions().getLimiter().getStats();
+  }
+
+  @Override
+  public RetryBudgetStats getRetryBudgetStats() {
+    return getOptions().getRetryBudget().getStats();
+  }
+
+  @Override
+  public HedgingStats getHedgingStats() {
+    return getOptions().getHedger().getStats();
+  }
+
+  @Override
+  public ResourceManagerBatch batch() {
+    return new ResourceManagerBatch(getOptions());
+  }
+
+  @Override
+  public Project create(ProjectInfo project) {
+    return await(createAsync(project));
+  }
+
+  @Override
+  public OperationFuture<Project> createAsync(ProjectInfo project) {
+    // The span of a creation also covers the polls of the started operation.
+    RpcTracer rpcTracer = getOptions().getRpcTracer();
+    Span span = rpcTracer != null ? rpcTracer.startCall(MetricsListener.Method.CREATE) : null;
+    OperationFuture<Project> future =
+        OperationFutureImpl.transform(
+            operationPoller.track(
+                catching(
+                    runAsyncWithRetries(
+                        getOptions(),
+                        MetricsListener.Method.CREATE,
+                        span,
+                        startCreateCallable(project))),
+                span),
+            projectFunction());
+    if (span != null) {
+      endOnCompletion(span, future);
     }
+    return future;
+  }
+
+  private Callable<ProjectOperation> startCreateCallable(final ProjectInfo project) {
+    return getOptions()
+        .getLimiter()
+        .wrap(
+            new Callable<ProjectOperation>() {
+              @Override
+              public ProjectOperation call() {
+                return resourceManagerRpc.startCreate(project.toPb());
+              }
+            });
   }
 
   @Override
   public void delete(final String projectId) {
     try {
-      runWithRetries(
-          new Callable<Void>() {
-            @Override
-            public Void call() {
-              resourceManagerRpc.delete(projectId);
-              return null;
-            }
-          },
-          getOptions().getRetrySettings(),
-          EXCEPTION_HANDLER,
-          getOptions().getClock());
+      runWithRetries(getOptions(), MetricsListener.Method.DELETE, deleteCallable(projectId));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  @Override
+  public ApiFuture<Void> deleteAsync(String projectId) {
+    return catching(
+        runAsyncWithRetries(
+            getOptions(), MetricsListener.Method.DELETE, deleteCallable(projectId)));
+  }
+
+  private Callable<Void> deleteCallable(final String projectId) {
+    return getOptions()
+        .getLimiter()
+        .wrap(
+            new Callable<Void>() {
+              @Override
+              public Void call() {
+                resourceManagerRpc.delete(projectId);
+                return null;
+              }
+            });
+  }
+
   @Override
   public Project get(final String projectId, ProjectGetOption... options) {
     final Map<ResourceManagerRpc.Option, ?> optionsMap = optionMap(options);
     try {
       com.google.api.services.cloudresourcemanager.model.Project answer =
-          runWithRetries(
-              new Callable<com.google.api.services.cloudresourcemanager.model.Project>() {
-                @Override
-                public com.google.api.services.cloudresourcemanager.model.Project call() {
-                  return resourceManagerRpc.get(projectId, optionsMap);
-                }
-              },
-              getOptions().getRetrySettings(),
-              EXCEPTION_HANDLER,
-              getOptions().getClock());
+          getOptions().getHedger().isEnabled()
+              ? await(hedgedGet(projectId, optionsMap))
+              : runWithRetries(
+                  getOptions(),
+                  MetricsListener.Method.GET,
+                  getCallable(projectId, optionsMap, true));
       return answer == null ? null : Project.fromPb(this, answer);
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  @Override
+  public ApiFuture<Project> getAsync(String projectId, ProjectGetOption... options) {
+    Map<ResourceManagerRpc.Option, ?> optionsMap = optionMap(options);
+    return transform(
+        getOptions().getHedger().isEnabled()
+            ? hedgedGet(projectId, optionsMap)
+            : runAsyncWithRetries(
+                getOptions(), MetricsListener.Method.GET, getCallable(projectId, optionsMap, true)),
+        projectFunction());
+  }
+
+  private ApiFuture<com.google.api.services.cloudresourcemanager.model.Project> hedgedGet(
+      final String projectId, final Map<ResourceManagerRpc.Option, ?> optionsMap) {
+    return getOptions()
+        .getHedger()
+        .hedge(
+            new Hedger.Leg<com.google.api.services.cloudresourcemanager.model.Project>() {
+              @Override
+              public ApiFuture<com.google.api.services.cloudresourcemanager.model.Project> start(
+                  boolean hedge) {
+                return runAsyncWithRetries(
+                    getOptions(),
+                    MetricsListener.Method.GET,
+                    getCallable(projectId, optionsMap, !hedge));
+              }
+            });
+  }
+
+  /**
+   * Returns a callable that gets a project. If {@code coalesce} is {@code true}, the request may be
+   * shared with identical calls.
+   */
+  private Callable<com.google.api.services.cloudresourcemanager.model.Project> getCallable(
+      final String projectId,
+      final Map<ResourceManagerRpc.Option, ?> optionsMap,
+      final boolean coalesce) {
+    return new Callable<com.google.api.services.cloudresourcemanager.model.Project>() {
+      @Override
+      public com.google.api.services.cloudresourcemanager.model.Project call() {
+        return getFlights.call(
+            coalesce ? Arrays.<Object>asList(projectId, optionsMap) : null,
+            getOptions()
+                .getLimiter()
+                .wrap(
+                    new Callable<com.google.api.services.cloudresourcemanager.model.Project>() {
+                      @Override
+                      public com.google.api.services.cloudresourcemanager.model.Project call() {
+                        return resourceManagerRpc.get(projectId, optionsMap);
+                      }
+                    }));
+      }
+    };
+  }
+
   private static class ProjectPageFetcher implements NextPageFetcher<Project> {
 
     private static final long serialVersionUID = 2158209410430566961L;
@@ -127,153 +268,332 @@ final class ResourceManagerImpl extends BaseService<ResourceManagerOptions>
     }
   }
 
+  private static class AsyncProjectPageFetcher implements AsyncPageImpl.NextPageFetcher<Project> {
+
+    private static final long serialVersionUID = -7914839542163213584L;
+    private final Map<ResourceManagerRpc.Option, ?> requestOptions;
+    private final ResourceManagerOptions serviceOptions;
+
+    AsyncProjectPageFetcher(
+        ResourceManagerOptions serviceOptions,
+        String cursor,
+        Map<ResourceManagerRpc.Option, ?> optionMap) {
+      this.requestOptions =
+          PageImpl.nextRequestOptions(ResourceManagerRpc.Option.PAGE_TOKEN, cursor, optionMap);
+      this.serviceOptions = serviceOptions;
+    }
+
+    @Override
+    public ApiFuture<AsyncPage<Project>> getNextPage() {
+      return listProjectsAsync(serviceOptions, requestOptions);
+    }
+  }
+
   @Override
   public Page<Project> list(ProjectListOption... options) {
     return listProjects(getOptions(), optionMap(options));
   }
 
+  @Override
+  public ApiFuture<AsyncPage<Project>> listAsync(ProjectListOption... options) {
+    return listProjectsAsync(getOptions(), optionMap(options));
+  }
+
   private static Page<Project> listProjects(
       final ResourceManagerOptions serviceOptions,
       final Map<ResourceManagerRpc.Option, ?> optionsMap) {
     try {
-      Tuple<String, Iterable<com.google.api.services.cloudresourcemanager.model.Project>> result =
+      Tuple<String, Iterable<Project>> result =
           runWithRetries(
-              new Callable<
-                  Tuple<
-                      String,
-                      Iterable<com.google.api.services.cloudresourcemanager.model.Project>>>() {
-                @Override
-                public Tuple<
-                        String,
-                        Iterable<com.google.api.services.cloudresourcemanager.model.Project>>
-                    call() {
-                  return serviceOptions.getResourceManagerRpcV1Beta1().list(optionsMap);
-                }
-              },
-              serviceOptions.getRetrySettings(),
-              EXCEPTION_HANDLER,
-              serviceOptions.getClock());
+              serviceOptions,
+              MetricsListener.Method.LIST,
+              listCallable(serviceOptions, optionsMap));
       String cursor = result.x();
-      Iterable<Project> projects =
-          result.y() == null
-              ? ImmutableList.<Project>of()
-              : Iterables.transform(
-                  result.y(),
-                  new Function<
-                      com.google.api.services.cloudresourcemanager.model.Project, Project>() {
-                    @Override
-                    public Project apply(
-                        com.google.api.services.cloudresourcemanager.model.Project projectPb) {
-                      return new Project(
-                          serviceOptions.getService(),
-                          new ProjectInfo.BuilderImpl(ProjectInfo.fromPb(projectPb)));
-                    }
-                  });
       return new PageImpl<>(
-          new ProjectPageFetcher(serviceOptions, cursor, optionsMap), cursor, projects);
+          new ProjectPageFetcher(serviceOptions, cursor, optionsMap), cursor, result.y());
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  private static ApiFuture<AsyncPage<Project>> listProjectsAsync(
+      final ResourceManagerOptions serviceOptions,
+      final Map<ResourceManagerRpc.Option, ?> optionsMap) {
+    return transform(
+        runAsyncWithRetries(
+            serviceOptions, MetricsListener.Method.LIST, listCallable(serviceOptions, optionsMap)),
+        new ApiFunction<Tuple<String, Iterable<Project>>, AsyncPage<Project>>() {
+          @Override
+          public AsyncPage<Project> apply(Tuple<String, Iterable<Project>> result) {
+            String cursor = result.x();
+            return new AsyncPageImpl<>(
+                new AsyncProjectPageFetcher(serviceOptions, cursor, optionsMap),
+                cursor,
+                result.y());
+          }
+        });
+  }
+
+  /**
+   * Returns a callable that lists a page of projects. If streaming list decoding is enabled, the
+   * projects are converted while the response is read, unless they are to be converted in parallel;
+   * otherwise the parsed response is converted as the page materialization option requires.
+   */
+  private static Callable<Tuple<String, Iterable<Project>>> listCallable(
+      final ResourceManagerOptions serviceOptions,
+      final Map<ResourceManagerRpc.Option, ?> optionsMap) {
+    return serviceOptions
+        .getLimiter()
+        .wrap(
+            new Callable<Tuple<String, Iterable<Project>>>() {
+              @Override
+              public Tuple<String, Iterable<Project>> call() {
+                ResourceManagerRpc rpc = serviceOptions.getResourceManagerRpcV1Beta1();
+                MetricsListener metricsListener = serviceOptions.getMetricsListener();
+                PageMaterialization materialization = serviceOptions.getPageMaterialization();
+                if (serviceOptions.isStreamingListEnabled()
+                    && materialization != PageMaterialization.PARALLEL) {
+                  // The decoder converts each project once, as it is read.
+                  Tuple<String, Iterable<Project>> result =
+                      rpc.listStreaming(optionsMap, projectConverter(serviceOptions));
+                  if (metricsListener != null) {
+                    metricsListener.onPage(Iterables.size(result.y()));
+                  }
+                  return result;
+                }
+                Tuple<String, Iterable<com.google.api.services.cloudresourcemanager.model.Project>>
+                    result =
+                        serviceOptions.isStreamingListEnabled()
+                            ? rpc.listStreaming(optionsMap, PROJECT_PB_IDENTITY)
+                            : rpc.list(optionsMap);
+                if (metricsListener != null) {
+                  // Sized before the conversion, which may be lazy.
+                  metricsListener.onPage(result.y() == null ? 0 : Iterables.size(result.y()));
+                }
+                return Tuple.of(
+                    result.x(),
+                    PageMaterializer.materialize(
+                        materialization,
+                        result.y(),
+                        projectConverter(serviceOptions),
+                        serviceOptions.getBlockingExecutor()));
+              }
+            });
+  }
+
+  private static ApiFunction<com.google.api.services.cloudresourcemanager.model.Project, Project>
+      projectConverter(final ResourceManagerOptions serviceOptions) {
+    return new ApiFunction<com.google.api.services.cloudresourcemanager.model.Project, Project>() {
+      @Override
+      public Project apply(com.google.api.services.cloudresourcemanager.model.Project projectPb) {
+        return Project.fromPb(serviceOptions.getService(), projectPb);
+      }
+    };
+  }
+
   @Override
   public Project replace(final ProjectInfo newProject) {
     try {
       return Project.fromPb(
           this,
           runWithRetries(
-              new Callable<com.google.api.services.cloudresourcemanager.model.Project>() {
-                @Override
-                public com.google.api.services.cloudresourcemanager.model.Project call() {
-                  return resourceManagerRpc.replace(newProject.toPb());
-                }
-              },
-              getOptions().getRetrySettings(),
-              EXCEPTION_HANDLER,
-              getOptions().getClock()));
+              getOptions(), MetricsListener.Method.REPLACE, replaceCallable(newProject)));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  @Override
+  public ApiFuture<Project> replaceAsync(ProjectInfo newProject) {
+    return transform(
+        runAsyncWithRetries(
+            getOptions(), MetricsListener.Method.REPLACE, replaceCallable(newProject)),
+        projectFunction());
+  }
+
+  private Callable<com.google.api.services.cloudresourcemanager.model.Project> replaceCallable(
+      final ProjectInfo newProject) {
+    return getOptions()
+        .getLimiter()
+        .wrap(
+            new Callable<com.google.api.services.cloudresourcemanager.model.Project>() {
+              @Override
+              public com.google.api.services.cloudresourcemanager.model.Project call() {
+                return resourceManagerRpc.replace(newProject.toPb());
+              }
+            });
+  }
+
   @Override
   public void undelete(final String projectId) {
     try {
-      runWithRetries(
-          new Callable<Void>() {
-            @Override
-            public Void call() {
-              resourceManagerRpc.undelete(projectId);
-              return null;
-            }
-          },
-          getOptions().getRetrySettings(),
-          EXCEPTION_HANDLER,
-          getOptions().getClock());
+      runWithRetries(getOptions(), MetricsListener.Method.UNDELETE, undeleteCallable(projectId));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  @Override
+  public ApiFuture<Void> undeleteAsync(String projectId) {
+    return catching(
+        runAsyncWithRetries(
+            getOptions(), MetricsListener.Method.UNDELETE, undeleteCallable(projectId)));
+  }
+
+  private Callable<Void> undeleteCallable(final String projectId) {
+    return getOptions()
+        .getLimiter()
+        .wrap(
+            new Callable<Void>() {
+              @Override
+              public Void call() {
+                resourceManagerRpc.undelete(projectId);
+                return null;
+              }
+            });
+  }
+
   @Override
   public Policy getPolicy(final String projectId) {
     try {
       com.google.api.services.cloudresourcemanager.model.Policy answer =
-          runWithRetries(
-              new Callable<com.google.api.services.cloudresourcemanager.model.Policy>() {
-                @Override
-                public com.google.api.services.cloudresourcemanager.model.Policy call() {
-                  return resourceManagerRpc.getPolicy(projectId);
-                }
-              },
-              getOptions().getRetrySettings(),
-              EXCEPTION_HANDLER,
-              getOptions().getClock());
+          getOptions().getHedger().isEnabled()
+              ? await(hedgedGetPolicy(projectId))
+              : runWithRetries(
+                  getOptions(),
+                  MetricsListener.Method.GET_POLICY,
+                  getPolicyCallable(projectId, true));
       return answer == null ? null : PolicyMarshaller.INSTANCE.fromPb(answer);
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  @Override
+  public ApiFuture<Policy> getPolicyAsync(String projectId) {
+    return transform(
+        getOptions().getHedger().isEnabled()
+            ? hedgedGetPolicy(projectId)
+            : runAsyncWithRetries(
+                getOptions(),
+                MetricsListener.Method.GET_POLICY,
+                getPolicyCallable(projectId, true)),
+        POLICY_FUNCTION);
+  }
+
+  private ApiFuture<com.google.api.services.cloudresourcemanager.model.Policy> hedgedGetPolicy(
+      final String projectId) {
+    return getOptions()
+        .getHedger()
+        .hedge(
+            new Hedger.Leg<com.google.api.services.cloudresourcemanager.model.Policy>() {
+              @Override
+              public ApiFuture<com.google.api.services.cloudresourcemanager.model.Policy> start(
+                  boolean hedge) {
+                return runAsyncWithRetries(
+                    getOptions(),
+                    MetricsListener.Method.GET_POLICY,
+                    getPolicyCallable(projectId, !hedge));
+              }
+            });
+  }
+
+  /**
+   * Returns a callable that gets a project's policy. If {@code coalesce} is {@code true}, the
+   * request may be shared with identical calls.
+   */
+  private Callable<com.google.api.services.cloudresourcemanager.model.Policy> getPolicyCallable(
+      final String projectId, final boolean coalesce) {
+    return new Callable<com.google.api.services.cloudresourcemanager.model.Policy>() {
+      @Override
+      public com.google.api.services.cloudresourcemanager.model.Policy call() {
+        return getPolicyFlights.call(
+            coalesce ? projectId : null,
+            getOptions()
+                .getLimiter()
+                .wrap(
+                    new Callable<com.google.api.services.cloudresourcemanager.model.Policy>() {
+                      @Override
+                      public com.google.api.services.cloudresourcemanager.model.Policy call() {
+                        return resourceManagerRpc.getPolicy(projectId);
+                      }
+                    }));
+      }
+    };
+  }
+
   @Override
   public Policy replacePolicy(final String projectId, final Policy newPolicy) {
     try {
       return PolicyMarshaller.INSTANCE.fromPb(
           runWithRetries(
-              new Callable<com.google.api.services.cloudresourcemanager.model.Policy>() {
-                @Override
-                public com.google.api.services.cloudresourcemanager.model.Policy call() {
-                  return resourceManagerRpc.replacePolicy(
-                      projectId, PolicyMarshaller.INSTANCE.toPb(newPolicy));
-                }
-              },
-              getOptions().getRetrySettings(),
-              EXCEPTION_HANDLER,
-              getOptions().getClock()));
+              getOptions(),
+              MetricsListener.Method.REPLACE_POLICY,
+              replacePolicyCallable(projectId, newPolicy)));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
+  @Override
+  public ApiFuture<Policy> replacePolicyAsync(String projectId, Policy newPolicy) {
+    return transform(
+        runAsyncWithRetries(
+            getOptions(),
+            MetricsListener.Method.REPLACE_POLICY,
+            replacePolicyCallable(projectId, newPolicy)),
+        POLICY_FUNCTION);
+  }
+
+  private Callable<com.google.api.services.cloudresourcemanager.model.Policy> replacePolicyCallable(
+      final String projectId, final Policy newPolicy) {
+    return getOptions()
+        .getLimiter()
+        .wrap(
+            new Callable<com.google.api.services.cloudresourcemanager.model.Policy>() {
+              @Override
+              public com.google.api.services.cloudresourcemanager.model.Policy call() {
+                return resourceManagerRpc.replacePolicy(
+                    projectId, PolicyMarshaller.INSTANCE.toPb(newPolicy));
+              }
+            });
+  }
+
   @Override
   public List<Boolean> testPermissions(final String projectId, final List<String> permissions) {
     try {
       return runWithRetries(
-          new Callable<List<Boolean>>() {
-            @Override
-            public List<Boolean> call() {
-              return resourceManagerRpc.testPermissions(projectId, permissions);
-            }
-          },
-          getOptions().getRetrySettings(),
-          EXCEPTION_HANDLER,
-          getOptions().getClock());
+          getOptions(),
+          MetricsListener.Method.TEST_PERMISSIONS,
+          testPermissionsCallable(projectId, permissions));
     } catch (RetryHelperException ex) {
       throw ResourceManagerException.translateAndThrow(ex);
     }
   }
 
-  private Map<ResourceManagerRpc.Option, ?> optionMap(Option... options) {
+  @Override
+  public ApiFuture<List<Boolean>> testPermissionsAsync(String projectId, List<String> permissions) {
+    return catching(
+        runAsyncWithRetries(
+            getOptions(),
+            MetricsListener.Method.TEST_PERMISSIONS,
+            testPermissionsCallable(projectId, permissions)));
+  }
+
+  private Callable<List<Boolean>> testPermissionsCallable(
+      final String projectId, final List<String> permissions) {
+    return getOptions()
+        .getLimiter()
+        .wrap(
+            new Callable<List<Boolean>>() {
+              @Override
+              public List<Boolean> call() {
+                return resourceManagerRpc.testPermissions(projectId, permissions);
+              }
+            });
+  }
+
+  static Map<ResourceManagerRpc.Option, ?> optionMap(Option... options) {
     Map<ResourceManagerRpc.Option, Object> temp = Maps.newEnumMap(ResourceManagerRpc.Option.class);
     for (Option option : options) {
       Object prev = temp.put(option.getRpcOption(), option.getValue());
@@ -281,4 +601,183 @@ final class ResourceManagerImpl extends BaseService<ResourceManagerOptions>
     }
     return ImmutableMap.copyOf(temp);
   }
+
+  private static final ApiFunction<
+          com.google.api.services.cloudresourcemanager.model.Policy, Policy>
+      POLICY_FUNCTION =
+          new ApiFunction<com.google.api.services.cloudresourcemanager.model.Policy, Policy>() {
+            @Override
+            public Policy apply(com.google.api.services.cloudresourcemanager.model.Policy answer) {
+              return answer == null ? null : PolicyMarshaller.INSTANCE.fromPb(answer);
+            }
+          };
+
+  // Keeps the projects as decoded, to convert them once the whole page is read.
+  private static final ApiFunction<
+          com.google.api.services.cloudresourcemanager.model.Project,
+          com.google.api.services.cloudresourcemanager.model.Project>
+      PROJECT_PB_IDENTITY =
+          new ApiFunction<
+              com.google.api.services.cloudresourcemanager.model.Project,
+              com.google.api.services.cloudresourcemanager.model.Project>() {
+            @Override
+            public com.google.api.services.cloudresourcemanager.model.Project apply(
+                com.google.api.services.cloudresourcemanager.model.Project projectPb) {
+              return projectPb;
+            }
+          };
+
+  private ApiFunction<com.google.api.services.cloudresourcemanager.model.Project, Project>
+      projectFunction() {
+    return new ApiFunction<com.google.api.services.cloudresourcemanager.model.Project, Project>() {
+      @Override
+      public Project apply(com.google.api.services.cloudresourcemanager.model.Project answer) {
+        return answer == null ? null : Project.fromPb(ResourceManagerImpl.this, answer);
+      }
+    };
+  }
+
+  /**
+   * Waits for the result of {@code future}, throwing its failure as a {@code
+   * ResourceManagerException}. If interrupted, the future is cancelled.
+   */
+  private static <V> V await(ApiFuture<V> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, "Interrupted while waiting for a response", ex);
+    } catch (ExecutionException ex) {
+      throw ResourceManagerException.translateAndThrow(ex.getCause());
+    }
+  }
+
+  /**
+   * Runs {@code callable} with the options' retry settings, retrying retryable failures while the
+   * options' retry budget allows it. The attempts and retries are reported to the options' metrics
+   * listener, if any, as calls to {@code method}. If the options have a tracer, the call and its
+   * attempts are traced.
+   */
+  private static <V> V runWithRetries(
+      ResourceManagerOptions serviceOptions, MetricsListener.Method method, Callable<V> callable) {
+    RpcTracer rpcTracer = serviceOptions.getRpcTracer();
+    Span span = null;
+    if (rpcTracer != null) {
+      span = rpcTracer.startCall(method);
+      callable = rpcTracer.traceAttempts(span, callable);
+    }
+    RetryBudget.Call<V> call =
+        serviceOptions
+            .getRetryBudget()
+            .newCall(callable, method, serviceOptions.getMetricsListener());
+    RuntimeException failure = null;
+    try {
+      return RetryHelper.runWithRetries(
+          call, serviceOptions.getRetrySettings(), call, serviceOptions.getClock());
+    } catch (RuntimeException ex) {
+      failure = ex;
+      throw ex;
+    } finally {
+      call.finish();
+      if (span != null) {
+        RpcTracer.end(span, failure);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code callable} with the same retry policy as {@code runWithRetries}, but schedules the
+   * attempts on the options' async executor instead of sleeping between them, and runs them on the
+   * options' blocking executor once the limiter lets them through. Cancelling the returned future
+   * cancels (and interrupts) the current attempt and any pending retry.
+   */
+  private static <V> ApiFuture<V> runAsyncWithRetries(
+      ResourceManagerOptions serviceOptions, MetricsListener.Method method, Callable<V> callable) {
+    RpcTracer rpcTracer = serviceOptions.getRpcTracer();
+    if (rpcTracer == null) {
+      return runAsyncWithRetries(serviceOptions, method, null, callable);
+    }
+    Span span = rpcTracer.startCall(method);
+    ApiFuture<V> future = runAsyncWithRetries(serviceOptions, method, span, callable);
+    endOnCompletion(span, future);
+    return future;
+  }
+
+  /**
+   * Runs {@code callable} like {@link #runAsyncWithRetries(ResourceManagerOptions,
+   * MetricsListener.Method, Callable)}, tracing its attempts as children of {@code span} unless it
+   * is {@code null}. The span is not ended.
+   */
+  private static <V> ApiFuture<V> runAsyncWithRetries(
+      ResourceManagerOptions serviceOptions,
+      MetricsListener.Method method,
+      Span span,
+      Callable<V> callable) {
+    if (span != null) {
+      callable = serviceOptions.getRpcTracer().traceAttempts(span, callable);
+    }
+    final RetryBudget.Call<V> call =
+        serviceOptions
+            .getRetryBudget()
+            .newCall(callable, method, serviceOptions.getMetricsListener());
+    RetryAlgorithm<V> retryAlgorithm =
+        new RetryAlgorithm<>(
+            call,
+            new ExponentialRetryAlgorithm(
+                serviceOptions.getRetrySettings(), serviceOptions.getClock()));
+    ScheduledRetryingExecutor<V> executor =
+        new LimitedRetryingExecutor<>(
+            retryAlgorithm,
+            serviceOptions.getAsyncExecutor(),
+            serviceOptions.getBlockingExecutor(),
+            serviceOptions.getLimiter());
+    RetryingFuture<V> retryingFuture = executor.createFuture(call);
+    retryingFuture.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            call.finish();
+          }
+        },
+        MoreExecutors.directExecutor());
+    retryingFuture.setAttemptFuture(executor.submit(retryingFuture));
+    return retryingFuture;
+  }
+
+  private static <V> void endOnCompletion(final Span span, ApiFuture<V> future) {
+    ApiFutures.addCallback(
+        future,
+        new ApiFutureCallback<V>() {
+          @Override
+          public void onSuccess(V result) {
+            RpcTracer.end(span, null);
+          }
+
+          @Override
+          public void onFailure(Throwable throwable) {
+            RpcTracer.end(span, throwable);
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  private static <V> ApiFuture<V> catching(ApiFuture<V> future) {
+    return ApiFutures.catching(
+        future,
+        Throwable.class,
+        new ApiFunction<Throwable, V>() {
+          @Override
+          public V apply(Throwable throwable) {
+            throw ResourceManagerException.translateAndThrow(throwable);
+          }
+        },
+        MoreExecutors.directExecutor());
+  }
+
+  private static <I, O> ApiFuture<O> transform(
+      ApiFuture<I> future, ApiFunction<? super I, ? extends O> function) {
+    return ApiFutures.transform(catching(future), function, MoreExecutors.directExecutor());
+  }
 }
@@ -16,6 +16,9 @@
 
 package com.google.cloud.resourcemanager;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.google.cloud.ServiceDefaults;
 import com.google.cloud.ServiceOptions;
 import com.google.cloud.ServiceRpc;
@@ -25,7 +28,17 @@ import com.google.cloud.resourcemanager.spi.ResourceManagerRpcFactory;
 import com.google.cloud.resourcemanager.spi.v1beta1.HttpResourceManagerRpc;
 import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.opencensus.trace.Tracer;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.threeten.bp.Duration;
 
 public class ResourceManagerOptions
     extends ServiceOptions<ResourceManager, ResourceManagerOptions> {
@@ -35,6 +48,54 @@ public class ResourceManagerOptions
   private static final String GCRM_SCOPE = "https://www.googleapis.com/auth/cloud-platform";
   private static final Set<String> SCOPES = ImmutableSet.of(GCRM_SCOPE);
   private static final String DEFAULT_HOST = "https://cloudresourcemanager.googleapis.com";
+  private static final double DEFAULT_HEDGING_BUDGET_RATIO = 0.1;
+  private static final int DEFAULT_ASYNC_EXECUTOR_THREADS =
+      Math.max(4, Runtime.getRuntime().availableProcessors());
+  private static final int DEFAULT_BLOCKING_EXECUTOR_THREADS = 100;
+
+  private final transient ScheduledExecutorService asyncExecutor;
+  private final transient ExecutorService blockingExecutor;
+  private final boolean readCoalescingEnabled;
+  private final boolean adaptiveThrottlingEnabled;
+  private final boolean retryBudgetEnabled;
+  private final double retryBudgetRatio;
+  private final Duration hedgingDelay;
+  private final double hedgingPercentile;
+  private final double hedgingBudgetRatio;
+  private final boolean streamingListEnabled;
+  private final boolean responseCompressionEnabled;
+  private final int requestCompressionThreshold;
+  private final PageMaterialization pageMaterialization;
+  private final transient MetricsListener metricsListener;
+  private final transient Tracer tracer;
+  private final transient RpcTracer rpcTracer;
+  private transient AdaptiveLimiter limiter;
+  private transient RetryBudget retryBudget;
+  private transient Hedger hedger;
+
+  /**
+   * How the projects of a {@link ResourceManager#list(ResourceManager.ProjectListOption...) list}
+   * page are converted from the response.
+   *
+   * @see Builder#setPageMaterialization(PageMaterialization)
+   */
+  public enum PageMaterialization {
+    /**
+     * The projects are converted every time the page values are iterated. Cheap for pages that
+     * are iterated once, but iterating again converts and allocates every project again.
+     */
+    LAZY,
+
+    /** The projects are converted once, in order, into an array-backed list. */
+    EAGER,
+
+    /**
+     * Like {@link #EAGER}, but the projects of large pages are converted in parallel, in the
+     * calling thread and in the {@link Builder#setBlockingExecutor(ExecutorService) blocking
+     * executor}. Small pages are converted in the calling thread.
+     */
+    PARALLEL
+  }
 
   public static class DefaultResourceManagerFactory implements ResourceManagerFactory {
     private static final ResourceManagerFactory INSTANCE = new DefaultResourceManagerFactory();
@@ -68,10 +129,256 @@ public class ResourceManagerOptions
   public static class Builder
       extends ServiceOptions.Builder<ResourceManager, ResourceManagerOptions, Builder> {
 
+    private ScheduledExecutorService asyncExecutor;
+    private ExecutorService blockingExecutor;
+    private boolean readCoalescingEnabled = true;
+    private boolean adaptiveThrottlingEnabled;
+    private boolean retryBudgetEnabled;
+    private double retryBudgetRatio = RetryBudget.DEFAULT_RATIO;
+    private Duration hedgingDelay;
+    private double hedgingPercentile;
+    private double hedgingBudgetRatio = DEFAULT_HEDGING_BUDGET_RATIO;
+    private boolean streamingListEnabled = true;
+    private boolean responseCompressionEnabled;
+    private int requestCompressionThreshold = -1;
+    private PageMaterialization pageMaterialization = PageMaterialization.LAZY;
+    private MetricsListener metricsListener;
+    private Tracer tracer;
+
     private Builder() {}
 
     private Builder(ResourceManagerOptions options) {
       super(options);
+      this.asyncExecutor = options.asyncExecutor;
+      this.blockingExecutor = options.blockingExecutor;
+      this.readCoalescingEnabled = options.readCoalescingEnabled;
+      this.adaptiveThrottlingEnabled = options.adaptiveThrottlingEnabled;
+      this.retryBudgetEnabled = options.retryBudgetEnabled;
+      this.retryBudgetRatio = options.retryBudgetRatio;
+      this.hedgingDelay = options.hedgingDelay;
+      this.hedgingPercentile = options.hedgingPercentile;
+      this.hedgingBudgetRatio = options.hedgingBudgetRatio;
+      this.streamingListEnabled = options.streamingListEnabled;
+      this.responseCompressionEnabled = options.responseCompressionEnabled;
+      this.requestCompressionThreshold = options.requestCompressionThreshold;
+      this.pageMaterialization = options.pageMaterialization;
+      this.metricsListener = options.metricsListener;
+      this.tracer = options.tracer;
+    }
+
+    /**
+     * Sets the executor used to schedule the attempts and retries of asynchronous calls, the
+     * hedged requests and the polls of project creations. Only short, non-blocking tasks are run
+     * on it. If not set, a daemon executor shared by all {@code ResourceManagerOptions} instances
+     * is used. The executor is not shut down by the client.
+     */
+    public Builder setAsyncExecutor(ScheduledExecutorService asyncExecutor) {
+      this.asyncExecutor = asyncExecutor;
+      return this;
+    }
+
+    /**
+     * Sets the executor used to run the attempts of asynchronous calls and the polls of project
+     * creations, which block while the request is in flight. Its size bounds how many of these
+     * requests can be in flight at once. If not set, a daemon executor of 100 threads shared by all
+     * {@code ResourceManagerOptions} instances is used. The executor is not shut down by the
+     * client.
+     */
+    public Builder setBlockingExecutor(ExecutorService blockingExecutor) {
+      this.blockingExecutor = blockingExecutor;
+      return this;
+    }
+
+    /**
+     * Sets whether concurrent identical {@link ResourceManager#get(String,
+     * ResourceManager.ProjectGetOption...) get} and {@link ResourceManager#getPolicy(String)
+     * getPolicy} calls made through the same service share a single request. When enabled, a call
+     * issued while an identical request is in flight waits for that request and receives its result
+     * or exception. Each retry attempt is coalesced separately. Defaults to {@code true}.
+     *
+     * @see ResourceManager#getCoalescingStats()
+     */
+    public Builder setReadCoalescingEnabled(boolean readCoalescingEnabled) {
+      this.readCoalescingEnabled = readCoalescingEnabled;
+      return this;
+    }
+
+    /**
+     * Sets whether the number of requests in flight is limited adaptively. When enabled, the
+     * requests sent by the service, including each retry attempt, share a limit on how many of them
+     * can be in flight at once. The limit grows by one as requests succeed at high utilization and
+     * is halved when the service responds that a rate or quota limit was exceeded, so that all the
+     * callers back off together instead of each retrying on its own. Requests over the limit are
+     * queued until a request completes: synchronous calls block, asynchronous calls wait without
+     * holding a thread. Defaults to {@code false}.
+     *
+     * @see ResourceManager#getThrottlingStats()
+     */
+    public Builder setAdaptiveThrottlingEnabled(boolean adaptiveThrottlingEnabled) {
+      this.adaptiveThrottlingEnabled = adaptiveThrottlingEnabled;
+      return this;
+    }
+
+    /**
+     * Sets whether retries are limited by a retry budget. When enabled, the calls sent through
+     * these options share a budget of retries that grows by {@linkplain
+     * #setRetryBudgetRatio(double) a fraction of a retry} for every call, up to 10 retries. A call
+     * that fails with a retryable error while the budget is exhausted is not retried, so that
+     * during an outage retries don't multiply the load on the service. The budget also covers the
+     * retries of the operations of a {@link ResourceManagerBatch} and of the polls of project
+     * creations. Defaults to {@code false}: retries are only limited by the {@linkplain
+     * #setRetrySettings retry settings}.
+     *
+     * @see ResourceManager#getRetryBudgetStats()
+     */
+    public Builder setRetryBudgetEnabled(boolean retryBudgetEnabled) {
+      this.retryBudgetEnabled = retryBudgetEnabled;
+      return this;
+    }
+
+    /**
+     * Sets the number of retries added to the retry budget for every call, i.e. the fraction of the
+     * calls that can be retried once the budget is exhausted. Defaults to {@code 0.1}.
+     *
+     * @throws IllegalArgumentException if {@code retryBudgetRatio} is negative
+     * @see #setRetryBudgetEnabled(boolean)
+     */
+    public Builder setRetryBudgetRatio(double retryBudgetRatio) {
+      checkArgument(retryBudgetRatio >= 0, "Retry budget ratio must be >= 0");
+      this.retryBudgetRatio = retryBudgetRatio;
+      return this;
+    }
+
+    /**
+     * Sets how long a {@link ResourceManager#get(String, ResourceManager.ProjectGetOption...) get}
+     * or {@link ResourceManager#getPolicy(String) getPolicy} call waits for a response before
+     * sending a second, identical request. The call completes with whichever request succeeds first
+     * and the other one is cancelled without being interrupted: its HTTP request runs to
+     * completion, and keeps its connection and its share of the throttling limit until then, so
+     * that coalesced calls waiting for it still get its response. If a
+     * {@linkplain #setHedgingPercentile(double) hedging percentile} is also set, this delay is only
+     * used until enough latencies have been observed. Calls are not hedged by default.
+     *
+     * @see ResourceManager#getHedgingStats()
+     */
+    public Builder setHedgingDelay(Duration hedgingDelay) {
+      checkArgument(
+          hedgingDelay == null || !hedgingDelay.isNegative(), "Hedging delay must be >= 0");
+      this.hedgingDelay = hedgingDelay;
+      return this;
+    }
+
+    /**
+     * Sets the percentile of the observed {@code get} and {@code getPolicy} latencies after which a
+     * second request is sent, for instance {@code 95}. Setting it to {@code 0} disables
+     * percentile-based hedging. Defaults to {@code 0}.
+     *
+     * @throws IllegalArgumentException if {@code hedgingPercentile} is not in [0, 100)
+     * @see #setHedgingDelay(Duration)
+     */
+    public Builder setHedgingPercentile(double hedgingPercentile) {
+      checkArgument(
+          hedgingPercentile >= 0 && hedgingPercentile < 100,
+          "Hedging percentile must be in [0, 100)");
+      this.hedgingPercentile = hedgingPercentile;
+      return this;
+    }
+
+    /**
+     * Sets the fraction of the hedged calls that may send a second request, so that hedging can't
+     * multiply the number of requests. Up to 10 calls in a row may be hedged. Defaults to {@code
+     * 0.1}.
+     *
+     * @throws IllegalArgumentException if {@code hedgingBudgetRatio} is negative
+     * @see #setHedgingDelay(Duration)
+     */
+    public Builder setHedgingBudgetRatio(double hedgingBudgetRatio) {
+      checkArgument(hedgingBudgetRatio >= 0, "Hedging budget ratio must be >= 0");
+      this.hedgingBudgetRatio = hedgingBudgetRatio;
+      return this;
+    }
+
+    /**
+     * Sets whether the responses of {@link
+     * ResourceManager#list(ResourceManager.ProjectListOption...) list} calls are decoded as they
+     * are read. When enabled, each project is converted as soon as it is parsed from the response
+     * stream, so that no intermediate response object holding the whole page is built. When
+     * disabled, the response is first parsed by the generic API client parser. Defaults to {@code
+     * true}.
+     */
+    public Builder setStreamingListEnabled(boolean streamingListEnabled) {
+      this.streamingListEnabled = streamingListEnabled;
+      return this;
+    }
+
+    /**
+     * Sets how the projects of {@link ResourceManager#list(ResourceManager.ProjectListOption...)
+     * list} pages are converted. {@link PageMaterialization#EAGER EAGER} or {@link
+     * PageMaterialization#PARALLEL PARALLEL} avoid converting the projects again each time the
+     * values of a page are iterated. With streaming list decoding, the projects are always
+     * converted once as they are read, so {@code LAZY} behaves like {@code EAGER}. Defaults to
+     * {@link PageMaterialization#LAZY LAZY}.
+     */
+    public Builder setPageMaterialization(PageMaterialization pageMaterialization) {
+      this.pageMaterialization = checkNotNull(pageMaterialization);
+      return this;
+    }
+
+    /**
+     * Sets whether gzip-compressed responses are requested. When enabled, every request is sent
+     * with {@code Accept-Encoding: gzip}, whatever the transport or the request initializers set,
+     * so that large {@code list} and {@code getPolicy} responses are compressed. When disabled,
+     * the {@code Accept-Encoding} header set by the transport and the request initializers is left
+     * as is. Defaults to {@code false}.
+     */
+    public Builder setResponseCompressionEnabled(boolean responseCompressionEnabled) {
+      this.responseCompressionEnabled = responseCompressionEnabled;
+      return this;
+    }
+
+    /**
+     * Sets the size, in bytes, from which the bodies of {@link ResourceManager#replace replace}
+     * and {@link ResourceManager#replacePolicy replacePolicy} requests are gzip-compressed. Small
+     * bodies don't get smaller enough to be worth the compression. A threshold of {@code 0}
+     * compresses every body. Defaults to {@code -1}, in which case request bodies are not
+     * compressed.
+     *
+     * @throws IllegalArgumentException if {@code requestCompressionThreshold} is less than {@code
+     *     -1}
+     */
+    public Builder setRequestCompressionThreshold(int requestCompressionThreshold) {
+      checkArgument(
+          requestCompressionThreshold >= -1, "Request compression threshold must be >= -1");
+      this.requestCompressionThreshold = requestCompressionThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the listener that receives the metrics of the requests sent through these options:
+     * attempts and their latencies, retries and their reasons, response sizes, list page sizes and
+     * the number of polls of the operations started by project creations. Like the async executor,
+     * the listener is not serialized with the options. Defaults to {@code null}, in which case no
+     * metrics are recorded and the requests pay nothing for them.
+     *
+     * @see InMemoryMetricsListener
+     */
+    public Builder setMetricsListener(MetricsListener metricsListener) {
+      this.metricsListener = metricsListener;
+      return this;
+    }
+
+    /**
+     * Sets the tracer used to trace the calls sent through these options, such as {@code
+     * Tracing.getTracer()}. Every call gets a span, child of the current span, with a child span
+     * per attempt and, for project creations, per poll of the started operation. Attempt spans
+     * carry the project ID, whether a page token was sent and the HTTP status of the request, and
+     * the reason of the previous attempt's failure if the attempt is a retry. The tracer is not
+     * serialized with the options. Defaults to {@code null}, in which case calls are not traced
+     * and pay nothing for tracing.
+     */
+    public Builder setTracer(Tracer tracer) {
+      this.tracer = tracer;
+      return this;
     }
 
     @Override
@@ -95,6 +402,58 @@ public class ResourceManagerOptions
         ResourceManagerRpcFactory.class,
         builder,
         new ResourceManagerDefaults());
+    this.asyncExecutor = builder.asyncExecutor;
+    this.blockingExecutor = builder.blockingExecutor;
+    this.readCoalescingEnabled = builder.readCoalescingEnabled;
+    this.adaptiveThrottlingEnabled = builder.adaptiveThrottlingEnabled;
+    this.retryBudgetEnabled = builder.retryBudgetEnabled;
+    this.retryBudgetRatio = builder.retryBudgetRatio;
+    this.hedgingDelay = builder.hedgingDelay;
+    this.hedgingPercentile = builder.hedgingPercentile;
+    this.hedgingBudgetRatio = builder.hedgingBudgetRatio;
+    this.streamingListEnabled = builder.streamingListEnabled;
+    this.responseCompressionEnabled = builder.responseCompressionEnabled;
+    this.requestCompressionThreshold = builder.requestCompressionThreshold;
+    this.pageMaterialization = builder.pageMaterialization;
+    this.metricsListener = builder.metricsListener;
+    this.tracer = builder.tracer;
+    this.rpcTracer = tracer != null ? new RpcTracer(tracer) : null;
+  }
+
+  private static class SharedAsyncExecutorHolder {
+    private static final ScheduledExecutorService INSTANCE;
+
+    static {
+      ScheduledThreadPoolExecutor executor =
+          new ScheduledThreadPoolExecutor(
+              DEFAULT_ASYNC_EXECUTOR_THREADS,
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("resourcemanager-async-%d")
+                  .build());
+      executor.setRemoveOnCancelPolicy(true);
+      INSTANCE = executor;
+    }
+  }
+
+  private static class SharedBlockingExecutorHolder {
+    private static final ExecutorService INSTANCE;
+
+    static {
+      ThreadPoolExecutor executor =
+          new ThreadPoolExecutor(
+              DEFAULT_BLOCKING_EXECUTOR_THREADS,
+              DEFAULT_BLOCKING_EXECUTOR_THREADS,
+              60,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>(),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("resourcemanager-blocking-%d")
+                  .build());
+      executor.allowCoreThreadTimeOut(true);
+      INSTANCE = executor;
+    }
   }
 
   @Override
@@ -130,18 +489,178 @@ public class ResourceManagerOptions
     return SCOPES;
   }
 
+  /**
+   * Returns the executor used to schedule the attempts and retries of asynchronous calls, the
+   * hedged requests and the polls of project creations.
+   */
+  public ScheduledExecutorService getAsyncExecutor() {
+    return asyncExecutor != null ? asyncExecutor : SharedAsyncExecutorHolder.INSTANCE;
+  }
+
+  /**
+   * Returns the executor used to run the attempts of asynchronous calls and the polls of project
+   * creations.
+   */
+  public ExecutorService getBlockingExecutor() {
+    return blockingExecutor != null ? blockingExecutor : SharedBlockingExecutorHolder.INSTANCE;
+  }
+
+  /**
+   * Returns whether concurrent identical {@code get} and {@code getPolicy} calls share a single
+   * request.
+   */
+  public boolean isReadCoalescingEnabled() {
+    return readCoalescingEnabled;
+  }
+
+  /** Returns whether the number of requests in flight is limited adaptively. */
+  public boolean isAdaptiveThrottlingEnabled() {
+    return adaptiveThrottlingEnabled;
+  }
+
+  /**
+   * Returns the limiter shared by the requests sent through these options, including the requests
+   * of the pages they return.
+   */
+  synchronized AdaptiveLimiter getLimiter() {
+    if (limiter == null) {
+      limiter = new AdaptiveLimiter(adaptiveThrottlingEnabled);
+    }
+    return limiter;
+  }
+
+  /** Returns whether retries are limited by a retry budget. */
+  public boolean isRetryBudgetEnabled() {
+    return retryBudgetEnabled;
+  }
+
+  /** Returns the number of retries added to the retry budget for every call. */
+  public double getRetryBudgetRatio() {
+    return retryBudgetRatio;
+  }
+
+  /** Returns the retry budget shared by the calls sent through these options. */
+  synchronized RetryBudget getRetryBudget() {
+    if (retryBudget == null) {
+      retryBudget = new RetryBudget(retryBudgetEnabled, retryBudgetRatio);
+    }
+    return retryBudget;
+  }
+
+  /**
+   * Returns how long a {@code get} or {@code getPolicy} call waits before sending a second request,
+   * or {@code null} if no fixed hedging delay is set.
+   */
+  public Duration getHedgingDelay() {
+    return hedgingDelay;
+  }
+
+  /**
+   * Returns the percentile of the observed latencies after which a second request is sent, or
+   * {@code 0} if percentile-based hedging is disabled.
+   */
+  public double getHedgingPercentile() {
+    return hedgingPercentile;
+  }
+
+  /** Returns the fraction of the hedged calls that may send a second request. */
+  public double getHedgingBudgetRatio() {
+    return hedgingBudgetRatio;
+  }
+
+  /** Returns whether the responses of {@code list} calls are decoded as they are read. */
+  public boolean isStreamingListEnabled() {
+    return streamingListEnabled;
+  }
+
+  /** Returns how the projects of {@code list} pages are converted. */
+  public PageMaterialization getPageMaterialization() {
+    return pageMaterialization;
+  }
+
+  /** Returns whether gzip-compressed responses are requested. */
+  public boolean isResponseCompressionEnabled() {
+    return responseCompressionEnabled;
+  }
+
+  /**
+   * Returns the size, in bytes, from which the bodies of {@code replace} and {@code replacePolicy}
+   * requests are gzip-compressed, or a negative value if they are not compressed.
+   */
+  public int getRequestCompressionThreshold() {
+    return requestCompressionThreshold;
+  }
+
+  /**
+   * Returns the listener that receives the metrics of the requests, or {@code null} if no metrics
+   * are recorded.
+   */
+  public MetricsListener getMetricsListener() {
+    return metricsListener;
+  }
+
+  /** Returns the tracer used to trace the calls, or {@code null} if calls are not traced. */
+  public Tracer getTracer() {
+    return tracer;
+  }
+
+  /**
+   * Returns the tracer of the calls sent through these options, or {@code null} if calls are not
+   * traced.
+   */
+  RpcTracer getRpcTracer() {
+    return rpcTracer;
+  }
+
+  /** Returns the hedger shared by the calls sent through these options. */
+  synchronized Hedger getHedger() {
+    if (hedger == null) {
+      hedger =
+          new Hedger(
+              getAsyncExecutor(), getClock(), hedgingDelay, hedgingPercentile, hedgingBudgetRatio);
+    }
+    return hedger;
+  }
+
   protected ResourceManagerRpc getResourceManagerRpcV1Beta1() {
     return (ResourceManagerRpc) getRpc();
   }
 
   @Override
   public boolean equals(Object obj) {
-    return obj instanceof ResourceManagerOptions && baseEquals((ResourceManagerOptions) obj);
+    if (!(obj instanceof ResourceManagerOptions)) {
+      return false;
+    }
+    ResourceManagerOptions other = (ResourceManagerOptions) obj;
+    return baseEquals(other)
+        && readCoalescingEnabled == other.readCoalescingEnabled
+        && adaptiveThrottlingEnabled == other.adaptiveThrottlingEnabled
+        && retryBudgetEnabled == other.retryBudgetEnabled
+        && retryBudgetRatio == other.retryBudgetRatio
+        && Objects.equals(hedgingDelay, other.hedgingDelay)
+        && hedgingPercentile == other.hedgingPercentile
+        && hedgingBudgetRatio == other.hedgingBudgetRatio
+        && streamingListEnabled == other.streamingListEnabled
+        && responseCompressionEnabled == other.responseCompressionEnabled
+        && requestCompressionThreshold == other.requestCompressionThreshold
+        && pageMaterialization == other.pageMaterialization;
   }
 
   @Override
   public int hashCode() {
-    return baseHashCode();
+    return Objects.hash(
+        baseHashCode(),
+        readCoalescingEnabled,
+        adaptiveThrottlingEnabled,
+        retryBudgetEnabled,
+        retryBudgetRatio,
+        hedgingDelay,
+        hedgingPercentile,
+        hedgingBudgetRatio,
+        streamingListEnabled,
+        responseCompressionEnabled,
+        requestCompressionThreshold,
+        pageMaterialization);
   }
 
   @SuppressWarnings("unchecked")
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.gax.retrying.ResultRetryAlgorithm;
+import com.google.api.gax.retrying.TimedAttemptSettings;
+import com.google.cloud.BaseService;
+import java.util.concurrent.Callable;
+
+/**
+ * A token bucket that limits the retries of the calls sent through the same options to a fraction
+ * of the calls.
+ *
+ * <p>Every call adds {@code ratio} tokens to the bucket and every retry takes one token out of it.
+ * The bucket holds at most {@link #CAPACITY} tokens and starts full, so that a client sending few
+ * calls can still retry them. Once the bucket is empty, calls that fail with a retryable error are
+ * not retried and fail with that error.
+ *
+ * <p>If disabled, retries are only counted.
+ *
+ * <p>The attempts and retries of a call created with a {@link MetricsListener} are reported to it.
+ */
+final class RetryBudget {
+
+  static final double DEFAULT_RATIO = 0.1;
+  static final int CAPACITY = 10;
+
+  private final boolean enabled;
+  private final double ratio;
+
+  // All the fields below are guarded by this lock.
+  private final Object lock = new Object();
+  private double tokens = CAPACITY;
+  private long retriesSpent;
+  private long retriesDenied;
+
+  RetryBudget(boolean enabled, double ratio) {
+    this.enabled = enabled;
+    this.ratio = ratio;
+  }
+
+  /**
+   * Returns a call that runs {@code callable} and decides whether its failed attempts are retried.
+   * The returned object must be used both as the callable and as the result retry algorithm of the
+   * call, and {@link Call#finish()} must be called once the call completes. If the attempts are
+   * sent by other means, {@code callable} may be {@code null} and {@link Call#startAttempt()} must
+   * be called before each of them instead.
+   */
+  <V> Call<V> newCall(Callable<V> callable) {
+    return new Call<>(callable, null, null);
+  }
+
+  /**
+   * Returns a call like {@link #newCall(Callable)} whose attempts and retries are reported to
+   * {@code metricsListener}, unless it is {@code null}.
+   */
+  <V> Call<V> newCall(
+      Callable<V> callable, MetricsListener.Method method, MetricsListener metricsListener) {
+    return new Call<>(callable, method, metricsListener);
+  }
+
+  /**
+   * A call subject to the budget: a retryable failure is retried only if the budget has a token
+   * left.
+   */
+  final class Call<V> implements Callable<V>, ResultRetryAlgorithm<V> {
+
+    private final Callable<V> callable;
+    private final MetricsListener.Method method;
+    private final MetricsListener metricsListener;
+    // All the fields below are guarded by this.
+    private int attempts;
+    private boolean retryPending;
+    private int decidedAttempt;
+    private boolean decision;
+    // Only set if attempts are reported to a metrics listener.
+    private Throwable lastFailure;
+    private long lastFailureNanos;
+
+    private Call(
+        Callable<V> callable, MetricsListener.Method method, MetricsListener metricsListener) {
+      this.callable = callable;
+      this.method = method;
+      this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public V call() throws Exception {
+      int attempt;
+      Throwable retryCause;
+      long retryCauseNanos;
+      synchronized (this) {
+        startAttempt();
+        attempt = attempts;
+        retryCause = lastFailure;
+        retryCauseNanos = lastFailureNanos;
+      }
+      if (metricsListener == null) {
+        return callable.call();
+      }
+      long startNanos = System.nanoTime();
+      if (retryCause != null) {
+        // Reported when the retry starts, so that its actual delay is known.
+        metricsListener.onRetry(method, attempt, startNanos - retryCauseNanos, retryCause);
+      }
+      try {
+        V result = callable.call();
+        metricsListener.onAttempt(method, System.nanoTime() - startNanos, null);
+        return result;
+      } catch (Exception ex) {
+        long endNanos = System.nanoTime();
+        synchronized (this) {
+          lastFailure = ex;
+          lastFailureNanos = endNanos;
+        }
+        metricsListener.onAttempt(method, endNanos - startNanos, ex);
+        throw ex;
+      }
+    }
+
+    /**
+     * Records the start of an attempt that is not sent through {@link #call()}, such as an
+     * operation of a batch request.
+     */
+    synchronized void startAttempt() {
+      if (attempts++ == 0) {
+        onCall();
+      }
+      retryPending = false;
+    }
+
+    @Override
+    public synchronized boolean shouldRetry(Throwable prevThrowable, V prevResponse) {
+      // The retry algorithm asks more than once about the same attempt.
+      if (decidedAttempt == attempts) {
+        return decision;
+      }
+      decision =
+          BaseService.EXCEPTION_HANDLER.shouldRetry(prevThrowable, prevResponse) && tryRetry();
+      decidedAttempt = attempts;
+      retryPending = decision;
+      return decision;
+    }
+
+    @Override
+    public TimedAttemptSettings createNextAttempt(
+        Throwable prevThrowable, V prevResponse, TimedAttemptSettings prevSettings) {
+      return BaseService.EXCEPTION_HANDLER.createNextAttempt(
+          prevThrowable, prevResponse, prevSettings);
+    }
+
+    /**
+     * Gives back the token taken for a retry that was never attempted, because the retry settings
+     * didn't allow another attempt or because the call was cancelled.
+     */
+    synchronized void finish() {
+      if (retryPending) {
+        retryPending = false;
+        refund();
+      }
+    }
+  }
+
+  private void onCall() {
+    synchronized (lock) {
+      tokens = Math.min(CAPACITY, tokens + ratio);
+    }
+  }
+
+  private boolean tryRetry() {
+    synchronized (lock) {
+      if (enabled && tokens < 1) {
+        retriesDenied++;
+        return false;
+      }
+      if (enabled) {
+        tokens--;
+      }
+      retriesSpent++;
+      return true;
+    }
+  }
+
+  private void refund() {
+    synchronized (lock) {
+      if (enabled) {
+        tokens = Math.min(CAPACITY, tokens + 1);
+      }
+      retriesSpent--;
+    }
+  }
+
+  RetryBudgetStats getStats() {
+    synchronized (lock) {
+      return new RetryBudgetStats(enabled ? tokens : CAPACITY, retriesSpent, retriesDenied);
+    }
+  }
+}
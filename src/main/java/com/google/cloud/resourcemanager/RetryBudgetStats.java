@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Counts of the retries made and denied by the retry budget of a {@link ResourceManager}.
+ *
+ * @see ResourceManagerOptions.Builder#setRetryBudgetRatio(double)
+ */
+public final class RetryBudgetStats {
+
+  private final double availableRetries;
+  private final long retriesSpent;
+  private final long retriesDenied;
+
+  RetryBudgetStats(double availableRetries, long retriesSpent, long retriesDenied) {
+    this.availableRetries = availableRetries;
+    this.retriesSpent = retriesSpent;
+    this.retriesDenied = retriesDenied;
+  }
+
+  /** Returns how many retries the budget currently allows. */
+  public double getAvailableRetries() {
+    return availableRetries;
+  }
+
+  /** Returns the number of retries made. */
+  public long getRetriesSpent() {
+    return retriesSpent;
+  }
+
+  /**
+   * Returns the number of retryable failures that were not retried because the budget was
+   * exhausted.
+   */
+  public long getRetriesDenied() {
+    return retriesDenied;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("availableRetries", availableRetries)
+        .add("retriesSpent", retriesSpent)
+        .add("retriesDenied", retriesDenied)
+        .toString();
+  }
+}
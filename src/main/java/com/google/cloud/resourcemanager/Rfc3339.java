@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import org.threeten.bp.Instant;
+import org.threeten.bp.ZoneOffset;
+import org.threeten.bp.format.DateTimeFormatter;
+
+/**
+ * Converts RFC 3339 timestamps, such as the {@code createTime} of a project, to and from
+ * milliseconds since the epoch.
+ *
+ * <p>Timestamps of the form {@code yyyy-MM-ddTHH:mm:ss[.fraction](Z|+HH:mm|-HH:mm)}, which is what
+ * the service returns, are converted directly without allocating intermediate objects. Any other
+ * timestamp, and any year outside [1, 9999], is handed to {@link DateTimeFormatter#ISO_DATE_TIME},
+ * so the results are the same as with the formatter.
+ */
+final class Rfc3339 {
+
+  private static final DateTimeFormatter FORMATTER =
+      DateTimeFormatter.ISO_DATE_TIME.withZone(ZoneOffset.UTC);
+  private static final long INVALID = Long.MIN_VALUE;
+  private static final int SECONDS_PER_DAY = 86400;
+  // Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar.
+  private static final int DAYS_0000_TO_1970 = 719468;
+  private static final int DAYS_PER_ERA = 146097;
+
+  private Rfc3339() {}
+
+  /**
+   * Returns the milliseconds since the epoch of {@code value}, truncating sub-millisecond digits.
+   */
+  static long parseMillis(String value) {
+    long millis = tryParseMillis(value);
+    return millis != INVALID ? millis : FORMATTER.parse(value, Instant.FROM).toEpochMilli();
+  }
+
+  /**
+   * Returns {@code millis} formatted as an UTC timestamp. Like {@link
+   * DateTimeFormatter#ISO_DATE_TIME}, the fraction of second is omitted if zero and stripped of its
+   * trailing zeros otherwise.
+   */
+  static String formatMillis(long millis) {
+    long seconds = floorDiv(millis, 1000);
+    int millisOfSecond = (int) (millis - seconds * 1000);
+    long days = floorDiv(seconds, SECONDS_PER_DAY);
+    int secondOfDay = (int) (seconds - days * SECONDS_PER_DAY);
+    long z = days + DAYS_0000_TO_1970;
+    long era = floorDiv(z, DAYS_PER_ERA);
+    int dayOfEra = (int) (z - era * DAYS_PER_ERA);
+    int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    int shiftedMonth = (5 * dayOfYear + 2) / 153;
+    int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+    int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+    long year = era * 400 + yearOfEra + (month <= 2 ? 1 : 0);
+    if (year < 1 || year > 9999) {
+      return FORMATTER.format(Instant.ofEpochMilli(millis));
+    }
+    char[] chars = new char[24];
+    appendDigits(chars, 0, (int) year, 4);
+    chars[4] = '-';
+    appendDigits(chars, 5, month, 2);
+    chars[7] = '-';
+    appendDigits(chars, 8, day, 2);
+    chars[10] = 'T';
+    appendDigits(chars, 11, secondOfDay / 3600, 2);
+    chars[13] = ':';
+    appendDigits(chars, 14, secondOfDay / 60 % 60, 2);
+    chars[16] = ':';
+    appendDigits(chars, 17, secondOfDay % 60, 2);
+    int length = 19;
+    if (millisOfSecond != 0) {
+      chars[length++] = '.';
+      appendDigits(chars, length, millisOfSecond, 3);
+      length += 3;
+      while (chars[length - 1] == '0') {
+        length--;
+      }
+    }
+    chars[length++] = 'Z';
+    return new String(chars, 0, length);
+  }
+
+  // Returns INVALID if value is not of the form handled without the formatter.
+  private static long tryParseMillis(String value) {
+    int length = value.length();
+    if (length < 20
+        || value.charAt(4) != '-'
+        || value.charAt(7) != '-'
+        || (value.charAt(10) != 'T' && value.charAt(10) != 't')
+        || value.charAt(13) != ':'
+        || value.charAt(16) != ':') {
+      return INVALID;
+    }
+    int year = parseDigits(value, 0, 4);
+    int month = parseDigits(value, 5, 2);
+    int day = parseDigits(value, 8, 2);
+    int hour = parseDigits(value, 11, 2);
+    int minute = parseDigits(value, 14, 2);
+    int second = parseDigits(value, 17, 2);
+    if (year < 1
+        || month < 1
+        || month > 12
+        || day < 1
+        || day > lengthOfMonth(year, month)
+        || hour < 0
+        || hour > 23
+        || minute < 0
+        || minute > 59
+        || second < 0
+        || second > 59) {
+      return INVALID;
+    }
+    int index = 19;
+    int millisOfSecond = 0;
+    if (value.charAt(index) == '.') {
+      int start = ++index;
+      while (index < length && value.charAt(index) >= '0' && value.charAt(index) <= '9') {
+        if (index - start < 3) {
+          millisOfSecond = millisOfSecond * 10 + value.charAt(index) - '0';
+        }
+        index++;
+      }
+      int digits = index - start;
+      if (digits == 0 || digits > 9) {
+        return INVALID;
+      }
+      for (int i = digits; i < 3; i++) {
+        millisOfSecond *= 10;
+      }
+    }
+    int offsetSeconds;
+    if (index == length - 1 && (value.charAt(index) == 'Z' || value.charAt(index) == 'z')) {
+      offsetSeconds = 0;
+    } else if (index == length - 6
+        && (value.charAt(index) == '+' || value.charAt(index) == '-')
+        && value.charAt(index + 3) == ':') {
+      int offsetHours = parseDigits(value, index + 1, 2);
+      int offsetMinutes = parseDigits(value, index + 4, 2);
+      if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) {
+        return INVALID;
+      }
+      offsetSeconds = offsetHours * 3600 + offsetMinutes * 60;
+      if (value.charAt(index) == '-') {
+        offsetSeconds = -offsetSeconds;
+      }
+    } else {
+      return INVALID;
+    }
+    long seconds =
+        epochDay(year, month, day) * SECONDS_PER_DAY
+            + hour * 3600
+            + minute * 60
+            + second
+            - offsetSeconds;
+    return seconds * 1000 + millisOfSecond;
+  }
+
+  // Returns the days since 1970-01-01 of a date whose year is positive.
+  private static long epochDay(int year, int month, int day) {
+    int shiftedYear = month <= 2 ? year - 1 : year;
+    int era = shiftedYear / 400;
+    int yearOfEra = shiftedYear - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return (long) era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  // Returns -1 if the characters are not all digits.
+  private static int parseDigits(String value, int start, int count) {
+    int result = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      result = result * 10 + c - '0';
+    }
+    return result;
+  }
+
+  private static void appendDigits(char[] chars, int start, int value, int count) {
+    for (int i = start + count - 1; i >= start; i--) {
+      chars[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  private static long floorDiv(long x, long y) {
+    long result = x / y;
+    return (x % y != 0 && (x ^ y) < 0) ? result - 1 : result;
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.cloud.BaseServiceException;
+import com.google.cloud.RetryHelper.RetryHelperException;
+import com.google.common.base.CaseFormat;
+import io.opencensus.common.Scope;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.Tracer;
+import java.util.concurrent.Callable;
+
+/**
+ * Creates the spans of the calls sent through the same options: a span per logical call, with a
+ * child span per attempt, and a child span per poll of the operation started by a project
+ * creation.
+ *
+ * <p>An attempt span is the current span while the attempt runs, so that the HTTP layer can add the
+ * project ID, page token presence and HTTP status of the request to it, and so that the spans of
+ * the HTTP client are its children. An attempt that follows a failed attempt carries the reason of
+ * the failure as its {@link #RETRY_REASON} attribute.
+ */
+final class RpcTracer {
+
+  static final String ATTEMPT = "resourcemanager.attempt";
+  static final String RETRY_REASON = "resourcemanager.retry_reason";
+  static final String OPERATION = "resourcemanager.operation";
+  static final String HTTP_STATUS = "http.status_code";
+
+  private final Tracer tracer;
+
+  RpcTracer(Tracer tracer) {
+    this.tracer = tracer;
+  }
+
+  /** Returns the tracer the spans are created with. */
+  Tracer getTracer() {
+    return tracer;
+  }
+
+  /** Starts the span of a call to {@code method}, as a child of the current span. */
+  Span startCall(MetricsListener.Method method) {
+    return tracer.spanBuilder(spanName(method)).setRecordEvents(true).startSpan();
+  }
+
+  /**
+   * Returns a callable that runs every attempt of {@code callable} in a child span of {@code
+   * callSpan}.
+   */
+  <V> Callable<V> traceAttempts(final Span callSpan, final Callable<V> callable) {
+    return new Callable<V>() {
+      // Attempts are never concurrent, but may run on different threads.
+      private volatile int attempt;
+      private volatile Throwable lastFailure;
+
+      @Override
+      public V call() throws Exception {
+        Span span =
+            tracer
+                .spanBuilderWithExplicitParent("Attempt", callSpan)
+                .setRecordEvents(true)
+                .startSpan();
+        span.putAttribute(ATTEMPT, AttributeValue.longAttributeValue(++attempt));
+        if (lastFailure != null) {
+          span.putAttribute(
+              RETRY_REASON,
+              AttributeValue.stringAttributeValue(ResourceManagerException.reasonOf(lastFailure)));
+        }
+        try (Scope scope = tracer.withSpan(span)) {
+          V result = callable.call();
+          end(span, null);
+          return result;
+        } catch (Exception ex) {
+          lastFailure = ex;
+          end(span, ex);
+          throw ex;
+        }
+      }
+    };
+  }
+
+  /** Starts the span of a poll of {@code operationName}, as a child of {@code createSpan}. */
+  Span startPoll(Span createSpan, String operationName) {
+    Span span =
+        tracer.spanBuilderWithExplicitParent("Poll", createSpan).setRecordEvents(true).startSpan();
+    span.putAttribute(OPERATION, AttributeValue.stringAttributeValue(operationName));
+    return span;
+  }
+
+  /** Ends {@code span}, with an error status if {@code error} is not {@code null}. */
+  static void end(Span span, Throwable error) {
+    if (error instanceof RetryHelperException && error.getCause() != null) {
+      error = error.getCause();
+    }
+    if (error != null) {
+      if (error instanceof BaseServiceException) {
+        int code = ((BaseServiceException) error).getCode();
+        if (code > 0) {
+          span.putAttribute(HTTP_STATUS, AttributeValue.longAttributeValue(code));
+        }
+      }
+      span.setStatus(toStatus(error));
+    }
+    span.end();
+  }
+
+  static String spanName(MetricsListener.Method method) {
+    return "ResourceManager."
+        + CaseFormat.UPPER_UNDERSCORE.to(CaseFormat.LOWER_CAMEL, method.name());
+  }
+
+  private static Status toStatus(Throwable error) {
+    Status status = Status.UNKNOWN;
+    if (error instanceof BaseServiceException) {
+      switch (((BaseServiceException) error).getCode()) {
+        case 400:
+          status = Status.INVALID_ARGUMENT;
+          break;
+        case 401:
+          status = Status.UNAUTHENTICATED;
+          break;
+        case 403:
+          status = Status.PERMISSION_DENIED;
+          break;
+        case 404:
+          status = Status.NOT_FOUND;
+          break;
+        case 409:
+          status = Status.ALREADY_EXISTS;
+          break;
+        case 429:
+          status = Status.RESOURCE_EXHAUSTED;
+          break;
+        case 503:
+          status = Status.UNAVAILABLE;
+          break;
+        case 504:
+          status = Status.DEADLINE_EXCEEDED;
+          break;
+        default:
+          break;
+      }
+    }
+    return status.withDescription(error.getMessage());
+  }
+}
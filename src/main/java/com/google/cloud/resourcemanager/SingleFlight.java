@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.api.core.SettableApiFuture;
+import com.google.common.base.Throwables;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls for the same key: while a call is in flight, other calls for an equal
+ * key wait for it and share its result or exception instead of running their own callable. A call
+ * that fails because its caller was interrupted or cancelled doesn't share its failure: the waiting
+ * calls run again, one of them taking over the key. If disabled, every call runs its own callable
+ * and is only counted.
+ */
+final class SingleFlight<K, V> {
+
+  private final boolean enabled;
+  private final ConcurrentMap<K, SettableApiFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong callCount = new AtomicLong();
+  private final AtomicLong collapsedCount = new AtomicLong();
+
+  SingleFlight(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  V call(K key, Callable<V> callable) {
+    while (true) {
+      SettableApiFuture<V> future = null;
+      if (enabled && key != null) {
+        future = SettableApiFuture.create();
+        SettableApiFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+          collapsedCount.incrementAndGet();
+          try {
+            return await(existing);
+          } catch (CancellationException ex) {
+            // The call in flight was abandoned by its caller, nothing was shared: try again.
+            collapsedCount.decrementAndGet();
+          }
+          continue;
+        }
+      }
+      return run(key, future, callable);
+    }
+  }
+
+  private V run(K key, SettableApiFuture<V> future, Callable<V> callable) {
+    callCount.incrementAndGet();
+    V result;
+    try {
+      result = callable.call();
+    } catch (Throwable throwable) {
+      if (future != null) {
+        inFlight.remove(key, future);
+        if (isCallerFailure(throwable)) {
+          future.cancel(false);
+        } else {
+          future.setException(throwable);
+        }
+      }
+      Throwables.throwIfUnchecked(throwable);
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, throwable.getMessage(), throwable);
+    }
+    if (future != null) {
+      inFlight.remove(key, future);
+      future.set(result);
+    }
+    return result;
+  }
+
+  private V await(SettableApiFuture<V> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, "Interrupted while waiting for a shared call", ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      Throwables.throwIfUnchecked(cause);
+      throw new ResourceManagerException(
+          ResourceManagerException.UNKNOWN_CODE, cause.getMessage(), cause);
+    }
+  }
+
+  /**
+   * Returns whether {@code throwable} was caused by the calling thread being interrupted or its
+   * call being cancelled, rather than by the RPC itself.
+   */
+  private static boolean isCallerFailure(Throwable throwable) {
+    if (Thread.currentThread().isInterrupted()) {
+      return true;
+    }
+    for (Throwable cause : Throwables.getCausalChain(throwable)) {
+      if (cause instanceof InterruptedException
+          || cause instanceof CancellationException
+          || cause instanceof ClosedByInterruptException
+          || (cause instanceof InterruptedIOException
+              && !(cause instanceof SocketTimeoutException))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the number of callables that were run. */
+  long getCallCount() {
+    return callCount.get();
+  }
+
+  /** Returns the number of calls that shared the result of a call already in flight. */
+  long getCollapsedCount() {
+    return collapsedCount.get();
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A snapshot of the client-side throttling of the requests sent by a {@link ResourceManager}.
+ *
+ * @see ResourceManagerOptions.Builder#setAdaptiveThrottlingEnabled(boolean)
+ */
+public final class ThrottlingStats {
+
+  private final int limit;
+  private final int inFlightCount;
+  private final int queueDepth;
+  private final long limitExceededCount;
+
+  ThrottlingStats(int limit, int inFlightCount, int queueDepth, long limitExceededCount) {
+    this.limit = limit;
+    this.inFlightCount = inFlightCount;
+    this.queueDepth = queueDepth;
+    this.limitExceededCount = limitExceededCount;
+  }
+
+  /**
+   * Returns how many requests may currently be in flight at once, or {@link Integer#MAX_VALUE} if
+   * adaptive throttling is disabled.
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /** Returns the number of requests in flight. */
+  public int getInFlightCount() {
+    return inFlightCount;
+  }
+
+  /** Returns the number of requests waiting for the number of requests in flight to drop. */
+  public int getQueueDepth() {
+    return queueDepth;
+  }
+
+  /** Returns the number of requests that failed because a rate or quota limit was exceeded. */
+  public long getLimitExceededCount() {
+    return limitExceededCount;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("limit", limit)
+        .add("inFlightCount", inFlightCount)
+        .add("queueDepth", queueDepth)
+        .add("limitExceededCount", limitExceededCount)
+        .toString();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.util.ObjectParser;
+import com.google.cloud.resourcemanager.MetricsListener;
+import com.google.common.io.CountingInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Initializes the requests like a delegate initializer, then negotiates their compression when they
+ * are sent: every request asks for gzip-compressed responses when response compression is enabled,
+ * and the bodies of {@code update} and {@code setIamPolicy} requests are gzip-compressed from a
+ * size threshold. The sizes of the request bodies and of the decoded response bodies are reported
+ * to a {@link MetricsListener}, if any.
+ *
+ * <p>This is done by an execute interceptor because the URL, the method and the content of a
+ * request are only set after its initialization.
+ */
+final class CompressionRequestInitializer implements HttpRequestInitializer {
+
+  private static final String GZIP = "gzip";
+
+  private final HttpRequestInitializer delegate;
+  private final boolean responseCompressionEnabled;
+  private final int requestCompressionThreshold;
+  private final MetricsListener metricsListener;
+
+  CompressionRequestInitializer(
+      HttpRequestInitializer delegate,
+      boolean responseCompressionEnabled,
+      int requestCompressionThreshold,
+      MetricsListener metricsListener) {
+    this.delegate = delegate;
+    this.responseCompressionEnabled = responseCompressionEnabled;
+    this.requestCompressionThreshold = requestCompressionThreshold;
+    this.metricsListener = metricsListener;
+  }
+
+  @Override
+  public void initialize(HttpRequest request) throws IOException {
+    if (delegate != null) {
+      delegate.initialize(request);
+    }
+    final HttpExecuteInterceptor interceptor = request.getInterceptor();
+    request.setInterceptor(
+        new HttpExecuteInterceptor() {
+          // The sizes of the body, once encoded, for the retries of the request.
+          private long bytes = -1;
+          private long uncompressedBytes;
+
+          @Override
+          public void intercept(HttpRequest request) throws IOException {
+            if (interceptor != null) {
+              interceptor.intercept(request);
+            }
+            if (responseCompressionEnabled) {
+              request.getHeaders().setAcceptEncoding(GZIP);
+            }
+            MetricsListener.Method method =
+                MeteredRequestInitializer.methodOf(
+                    request.getRequestMethod(), request.getUrl().getRawPath());
+            if ((method == MetricsListener.Method.REPLACE
+                    || method == MetricsListener.Method.REPLACE_POLICY)
+                && request.getContent() != null) {
+              if (bytes < 0) {
+                encodeContent(request);
+              }
+              if (metricsListener != null) {
+                metricsListener.onRequestBody(method, bytes, uncompressedBytes);
+              }
+            }
+            if (metricsListener != null
+                && method != MetricsListener.Method.BATCH
+                && request.getParser() != null
+                && !(request.getParser() instanceof CountingParser)) {
+              request.setParser(new CountingParser(request.getParser(), method, metricsListener));
+            }
+          }
+
+          private void encodeContent(HttpRequest request) throws IOException {
+            HttpContent content = request.getContent();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            content.writeTo(body);
+            uncompressedBytes = body.size();
+            // The body is compressed here, rather than by the request's own encoding, to know its
+            // compressed size and to compress only the bodies that are large enough.
+            request.setEncoding(null);
+            if (requestCompressionThreshold >= 0
+                && uncompressedBytes >= requestCompressionThreshold) {
+              ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+              try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                body.writeTo(gzip);
+              }
+              request.setContent(new ByteArrayContent(content.getType(), compressed.toByteArray()));
+              request.getHeaders().setContentEncoding(GZIP);
+              bytes = compressed.size();
+            } else {
+              request.setContent(new ByteArrayContent(content.getType(), body.toByteArray()));
+              bytes = uncompressedBytes;
+            }
+          }
+        });
+  }
+
+  /** Reports the decoded size of the response bodies parsed by a delegate parser. */
+  private static final class CountingParser implements ObjectParser {
+
+    private final ObjectParser delegate;
+    private final MetricsListener.Method method;
+    private final MetricsListener metricsListener;
+
+    CountingParser(
+        ObjectParser delegate, MetricsListener.Method method, MetricsListener metricsListener) {
+      this.delegate = delegate;
+      this.method = method;
+      this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public <T> T parseAndClose(InputStream in, Charset charset, Class<T> dataClass)
+        throws IOException {
+      CountingInputStream counting = new CountingInputStream(in);
+      T parsed = delegate.parseAndClose(counting, charset, dataClass);
+      metricsListener.onResponseBody(method, counting.getCount());
+      return parsed;
+    }
+
+    @Override
+    public Object parseAndClose(InputStream in, Charset charset, Type dataType)
+        throws IOException {
+      CountingInputStream counting = new CountingInputStream(in);
+      Object parsed = delegate.parseAndClose(counting, charset, dataType);
+      metricsListener.onResponseBody(method, counting.getCount());
+      return parsed;
+    }
+
+    // Responses are parsed from their streams; readers are passed through uncounted.
+
+    @Override
+    public <T> T parseAndClose(Reader reader, Class<T> dataClass) throws IOException {
+      return delegate.parseAndClose(reader, dataClass);
+    }
+
+    @Override
+    public Object parseAndClose(Reader reader, Type dataType) throws IOException {
+      return delegate.parseAndClose(reader, dataType);
+    }
+  }
+}
@@ -21,33 +21,40 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static java.net.HttpURLConnection.HTTP_FORBIDDEN;
 import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
 
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonErrorContainer;
+import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.HttpTransport;
 import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFunction;
 import com.google.api.gax.retrying.ResultRetryAlgorithm;
 import com.google.api.gax.retrying.RetrySettings;
 import com.google.api.gax.retrying.TimedAttemptSettings;
 import com.google.api.services.cloudresourcemanager.CloudResourceManager;
+import com.google.api.services.cloudresourcemanager.model.Empty;
 import com.google.api.services.cloudresourcemanager.model.GetIamPolicyRequest;
 import com.google.api.services.cloudresourcemanager.model.ListProjectsResponse;
-import com.google.api.services.cloudresourcemanager.model.Operation;
 import com.google.api.services.cloudresourcemanager.model.Policy;
 import com.google.api.services.cloudresourcemanager.model.Project;
 import com.google.api.services.cloudresourcemanager.model.SetIamPolicyRequest;
-import com.google.api.services.cloudresourcemanager.model.Status;
 import com.google.api.services.cloudresourcemanager.model.TestIamPermissionsRequest;
 import com.google.api.services.cloudresourcemanager.model.TestIamPermissionsResponse;
 import com.google.api.services.cloudresourcemanager.model.UndeleteProjectRequest;
 import com.google.cloud.Tuple;
-import com.google.cloud.http.BaseHttpServiceException;
 import com.google.cloud.http.HttpTransportOptions;
+import com.google.cloud.resourcemanager.MetricsListener;
 import com.google.cloud.resourcemanager.ResourceManagerException;
 import com.google.cloud.resourcemanager.ResourceManagerOptions;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingInputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
@@ -57,8 +64,6 @@ import org.threeten.bp.Duration;
 
 public class HttpResourceManagerRpc implements ResourceManagerRpc {
 
-  private static final JsonFactory JSON_FACTORY = new JacksonFactory();
-
   // See doc of create() for more details:
   // https://developers.google.com/resources/api-libraries/documentation/cloudresourcemanager/v1/java/latest/com/google/api/services/cloudresourcemanager/CloudResourceManager.Projects.html#create(com.google.api.services.cloudresourcemanager.model.Project)
   private static final RetrySettings CREATE_RETRY_SETTINGS =
@@ -76,115 +81,257 @@ public class HttpResourceManagerRpc implements ResourceManagerRpc {
           .setMaxRpcTimeout(Duration.ofSeconds(5))
           .build();
 
-  // reference: https://github.com/googleapis/googleapis/blob/master/google/rpc/code.proto
-  private static final ImmutableMap<Integer, Integer> RPC_TO_HTTP_CODES =
-      ImmutableMap.<Integer, Integer>builder()
-          .put(0, 200)
-          .put(1, 499)
-          .put(2, 500)
-          .put(3, 400)
-          .put(4, 504)
-          .put(5, 404)
-          .put(6, 409)
-          .put(7, 403)
-          .put(16, 401)
-          .put(8, 429)
-          .put(9, 400)
-          .put(10, 409)
-          .put(11, 400)
-          .put(12, 501)
-          .put(13, 500)
-          .put(14, 503)
-          .put(15, 500)
-          .build();
-
-  private static final ResultRetryAlgorithm<Operation> OPERATION_HANDLER =
-      new ResultRetryAlgorithm<Operation>() {
+  private static final ResultRetryAlgorithm<ProjectOperation> OPERATION_HANDLER =
+      new ResultRetryAlgorithm<ProjectOperation>() {
         @Override
         public TimedAttemptSettings createNextAttempt(
-            Throwable prevThrowable, Operation prevResponse, TimedAttemptSettings prevSettings) {
+            Throwable prevThrowable,
+            ProjectOperation prevResponse,
+            TimedAttemptSettings prevSettings) {
           return null;
         }
 
         @Override
-        public boolean shouldRetry(Throwable prevThrowable, Operation prevOp) {
+        public boolean shouldRetry(Throwable prevThrowable, ProjectOperation prevOp) {
           if (prevThrowable == null) {
-            return prevOp.getDone() == null || !prevOp.getDone();
+            return !prevOp.isDone();
           }
           return prevThrowable instanceof ResourceManagerException
               && ((ResourceManagerException) prevThrowable).isRetryable();
         }
       };
 
+  private static final String PROJECTS_PATH = "/projects/";
+
   private final CloudResourceManager resourceManager;
+  private final JsonFactory jsonFactory;
   private final ApiClock clock;
+  private final MetricsListener metricsListener;
+
+  private class DefaultRpcBatch implements RpcBatch {
+
+    private final BatchRequest batch;
+
+    private DefaultRpcBatch(BatchRequest batch) {
+      this.batch = batch;
+    }
+
+    @Override
+    public void addGet(
+        String projectId, Callback<Project> callback, Map<ResourceManagerRpc.Option, ?> options) {
+      try {
+        resourceManager
+            .projects()
+            .get(projectId)
+            .setFields(Option.FIELDS.getString(options))
+            .queue(batch, toJsonCallback(callback, true));
+      } catch (IOException ex) {
+        throw translate(ex);
+      }
+    }
+
+    @Override
+    public void addReplace(Project project, Callback<Project> callback) {
+      try {
+        resourceManager
+            .projects()
+            .update(project.getProjectId(), project)
+            .queue(batch, toJsonCallback(callback, false));
+      } catch (IOException ex) {
+        throw translate(ex);
+      }
+    }
+
+    @Override
+    public void addDelete(String projectId, Callback<Void> callback) {
+      try {
+        resourceManager.projects().delete(projectId).queue(batch, toEmptyJsonCallback(callback));
+      } catch (IOException ex) {
+        throw translate(ex);
+      }
+    }
+
+    @Override
+    public void addUndelete(String projectId, Callback<Void> callback) {
+      try {
+        resourceManager
+            .projects()
+            .undelete(projectId, new UndeleteProjectRequest())
+            .queue(batch, toEmptyJsonCallback(callback));
+      } catch (IOException ex) {
+        throw translate(ex);
+      }
+    }
+
+    @Override
+    public void addGetOperation(String name, Callback<ProjectOperation> callback) {
+      try {
+        batch.queue(
+            resourceManager.operations().get(name).buildHttpRequest(),
+            ProjectOperation.class,
+            GoogleJsonErrorContainer.class,
+            toJsonCallback(callback, false));
+      } catch (IOException ex) {
+        throw translate(ex);
+      }
+    }
+
+    @Override
+    public void submit() {
+      try {
+        batch.execute();
+      } catch (IOException ex) {
+        throw translate(ex);
+      }
+    }
+  }
+
+  private static <T> JsonBatchCallback<T> toJsonCallback(
+      final RpcBatch.Callback<T> callback, final boolean nullForNotFound) {
+    return new JsonBatchCallback<T>() {
+      @Override
+      public void onSuccess(T response, HttpHeaders httpHeaders) {
+        callback.onSuccess(response);
+      }
+
+      @Override
+      public void onFailure(GoogleJsonError googleJsonError, HttpHeaders httpHeaders) {
+        if (nullForNotFound
+            && (googleJsonError.getCode() == HTTP_FORBIDDEN
+                || googleJsonError.getCode() == HTTP_NOT_FOUND)) {
+          // Service can return either 403 or 404 to signify that the project doesn't exist.
+          callback.onSuccess(null);
+        } else {
+          callback.onFailure(googleJsonError);
+        }
+      }
+    };
+  }
+
+  private static JsonBatchCallback<Empty> toEmptyJsonCallback(
+      final RpcBatch.Callback<Void> callback) {
+    return new JsonBatchCallback<Empty>() {
+      @Override
+      public void onSuccess(Empty response, HttpHeaders httpHeaders) {
+        callback.onSuccess(null);
+      }
+
+      @Override
+      public void onFailure(GoogleJsonError googleJsonError, HttpHeaders httpHeaders) {
+        callback.onFailure(googleJsonError);
+      }
+    };
+  }
 
   public HttpResourceManagerRpc(ResourceManagerOptions options) {
     HttpTransportOptions transportOptions = (HttpTransportOptions) options.getTransportOptions();
     HttpTransport transport = transportOptions.getHttpTransportFactory().create();
     HttpRequestInitializer initializer = transportOptions.getHttpRequestInitializer(options);
+    initializer =
+        new CompressionRequestInitializer(
+            initializer,
+            options.isResponseCompressionEnabled(),
+            options.getRequestCompressionThreshold(),
+            options.getMetricsListener());
+    if (options.getTracer() != null) {
+      initializer = new TracingRequestInitializer(initializer, options.getTracer());
+    }
+    if (options.getMetricsListener() != null) {
+      initializer = new MeteredRequestInitializer(initializer, options.getMetricsListener());
+    }
+    // Thread-safe and stateless, so shared by all the instances.
+    jsonFactory = JacksonFactory.getDefaultInstance();
     resourceManager =
-        new CloudResourceManager.Builder(transport, new JacksonFactory(), initializer)
+        new CloudResourceManager.Builder(transport, jsonFactory, initializer)
             .setRootUrl(options.getHost())
             .setApplicationName(options.getApplicationName())
             .build();
     clock = options.getClock();
+    metricsListener = options.getMetricsListener();
+  }
+
+  /** Returns the ID of the project named by a request {@code path}, or {@code null} if none. */
+  static String projectIdOf(String path) {
+    int start = path.indexOf(PROJECTS_PATH);
+    if (start < 0) {
+      return null;
+    }
+    start += PROJECTS_PATH.length();
+    int end = start;
+    while (end < path.length() && path.charAt(end) != '/' && path.charAt(end) != ':') {
+      end++;
+    }
+    return end > start ? path.substring(start, end) : null;
   }
 
   private static ResourceManagerException translate(IOException exception) {
     return new ResourceManagerException(exception);
   }
 
-  private static ResourceManagerException translate(Status status) {
-    Integer code = RPC_TO_HTTP_CODES.get(status.getCode());
-    if (code == null) {
-      code = BaseHttpServiceException.UNKNOWN_CODE;
+  @Override
+  public Project create(Project project) {
+    return awaitCreate(this, startCreate(project), clock);
+  }
+
+  /**
+   * Polls the operation started by {@link ResourceManagerRpc#startCreate} with {@code rpc} until
+   * it is done, and returns the created project.
+   *
+   * @throws ResourceManagerException if the operation failed or polling it failed
+   */
+  static Project awaitCreate(
+      final ResourceManagerRpc rpc, final ProjectOperation operation, ApiClock clock) {
+    ProjectOperation finishedOp = operation;
+    if (!operation.isDone()) {
+      finishedOp =
+          runWithRetries(
+              new Callable<ProjectOperation>() {
+                @Override
+                public ProjectOperation call() {
+                  return rpc.getOperation(operation.getName());
+                }
+              },
+              CREATE_RETRY_SETTINGS,
+              OPERATION_HANDLER,
+              clock);
+    }
+    if (finishedOp.getError() != null) {
+      throw new ResourceManagerException(finishedOp.getError());
     }
-    return new ResourceManagerException(code, status.getMessage());
+    return finishedOp.getResponse();
   }
 
   @Override
-  public Project create(Project project) {
-    final Operation operation;
+  public ProjectOperation startCreate(Project project) {
     try {
-      operation = resourceManager.projects().create(project).execute();
+      return resourceManager
+          .projects()
+          .create(project)
+          .executeUnparsed()
+          .parseAs(ProjectOperation.class);
     } catch (IOException ex) {
       throw translate(ex);
     }
+  }
 
-    Operation finishedOp =
-        runWithRetries(
-            new Callable<Operation>() {
-              @Override
-              public Operation call() {
-                try {
-                  return resourceManager.operations().get(operation.getName()).execute();
-                } catch (IOException ex) {
-                  throw translate(ex);
-                }
-              }
-            },
-            CREATE_RETRY_SETTINGS,
-            OPERATION_HANDLER,
-            clock);
-    if (finishedOp.getError() != null) {
-      throw translate(finishedOp.getError());
-    }
-
-    // NOTE(pongad): Operation.getResponse() returns a Map<String, Object>.
-    // 1. `(Project) finishedOp.getResponse()` doesn't work,
-    // because JSON deserializer in execute() didn't know to create a Project object.
-    // 2. `new Project().putAll(finishedOp.getResponse())` doesn't work either.
-    // 64-bit integers are sent as strings in JSON,
-    // so execute(), not knowing the type, parses it as String, not Long.
+  @Override
+  public ProjectOperation getOperation(String name) {
     try {
-      String responseTxt = JSON_FACTORY.toString(finishedOp.getResponse());
-      return JSON_FACTORY.fromString(responseTxt, Project.class);
+      return resourceManager
+          .operations()
+          .get(name)
+          .executeUnparsed()
+          .parseAs(ProjectOperation.class);
     } catch (IOException ex) {
       throw translate(ex);
     }
   }
 
+  @Override
+  public RpcBatch createBatch() {
+    return new DefaultRpcBatch(resourceManager.batch());
+  }
+
   @Override
   public void delete(String projectId) {
     try {
@@ -232,6 +379,40 @@ public class HttpResourceManagerRpc implements ResourceManagerRpc {
     }
   }
 
+  @Override
+  public <T> Tuple<String, Iterable<T>> listStreaming(
+      Map<Option, ?> options, ApiFunction<Project, T> converter) {
+    try {
+      HttpResponse response =
+          resourceManager
+              .projects()
+              .list()
+              .setFields(Option.FIELDS.getString(options))
+              .setFilter(Option.FILTER.getString(options))
+              .setPageSize(Option.PAGE_SIZE.getInt(options))
+              .setPageToken(Option.PAGE_TOKEN.getString(options))
+              .executeUnparsed();
+      try {
+        CountingInputStream content = new CountingInputStream(response.getContent());
+        JsonParser parser = jsonFactory.createJsonParser(content, response.getContentCharset());
+        Tuple<String, Iterable<T>> page;
+        try {
+          page = ProjectListDecoder.decode(parser, converter);
+        } finally {
+          parser.close();
+        }
+        if (metricsListener != null) {
+          metricsListener.onResponseBody(MetricsListener.Method.LIST, content.getCount());
+        }
+        return page;
+      } finally {
+        response.disconnect();
+      }
+    } catch (IOException ex) {
+      throw translate(ex);
+    }
+  }
+
   @Override
   public void undelete(String projectId) {
     try {
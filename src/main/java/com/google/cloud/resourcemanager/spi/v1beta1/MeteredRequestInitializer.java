@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import com.google.cloud.resourcemanager.MetricsListener;
+import java.io.IOException;
+
+/**
+ * Initializes the requests like a delegate initializer, then reports the status, the size and the
+ * latency of their responses to a {@link MetricsListener}. The RPC method of a request is
+ * recognized from its HTTP method and URL path.
+ */
+final class MeteredRequestInitializer implements HttpRequestInitializer {
+
+  private final HttpRequestInitializer delegate;
+  private final MetricsListener metricsListener;
+
+  MeteredRequestInitializer(HttpRequestInitializer delegate, MetricsListener metricsListener) {
+    this.delegate = delegate;
+    this.metricsListener = metricsListener;
+  }
+
+  @Override
+  public void initialize(HttpRequest request) throws IOException {
+    if (delegate != null) {
+      delegate.initialize(request);
+    }
+    final long startNanos = System.nanoTime();
+    final HttpResponseInterceptor interceptor = request.getResponseInterceptor();
+    request.setResponseInterceptor(
+        new HttpResponseInterceptor() {
+          @Override
+          public void interceptResponse(HttpResponse response) throws IOException {
+            if (interceptor != null) {
+              interceptor.interceptResponse(response);
+            }
+            long latencyNanos = System.nanoTime() - startNanos;
+            HttpRequest request = response.getRequest();
+            String path = request.getUrl().getRawPath();
+            Long contentLength = response.getHeaders().getContentLength();
+            metricsListener.onResponse(
+                methodOf(request.getRequestMethod(), path),
+                HttpResourceManagerRpc.projectIdOf(path),
+                response.getStatusCode(),
+                contentLength != null ? contentLength : -1,
+                latencyNanos);
+          }
+        });
+  }
+
+  /** Returns the RPC method of a request sent with {@code httpMethod} to {@code path}. */
+  static MetricsListener.Method methodOf(String httpMethod, String path) {
+    int nameStart = path.lastIndexOf('/') + 1;
+    int customMethodStart = path.indexOf(':', nameStart);
+    if (customMethodStart >= 0) {
+      switch (path.substring(customMethodStart + 1)) {
+        case "undelete":
+          return MetricsListener.Method.UNDELETE;
+        case "getIamPolicy":
+          return MetricsListener.Method.GET_POLICY;
+        case "setIamPolicy":
+          return MetricsListener.Method.REPLACE_POLICY;
+        case "testIamPermissions":
+          return MetricsListener.Method.TEST_PERMISSIONS;
+        default:
+          break;
+      }
+    }
+    if (path.endsWith("/batch")) {
+      return MetricsListener.Method.BATCH;
+    }
+    if (path.contains("/operations/")) {
+      return MetricsListener.Method.GET_OPERATION;
+    }
+    if (path.endsWith("/projects")) {
+      return "POST".equals(httpMethod)
+          ? MetricsListener.Method.CREATE
+          : MetricsListener.Method.LIST;
+    }
+    switch (httpMethod) {
+      case "PUT":
+        return MetricsListener.Method.REPLACE;
+      case "DELETE":
+        return MetricsListener.Method.DELETE;
+      default:
+        return MetricsListener.Method.GET;
+    }
+  }
+}
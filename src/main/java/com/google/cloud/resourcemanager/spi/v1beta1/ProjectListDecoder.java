@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.core.ApiFunction;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.api.services.cloudresourcemanager.model.ResourceId;
+import com.google.cloud.Tuple;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a {@code ListProjectsResponse} token by token, converting every project as soon as its
+ * closing brace is read. Unlike the generic API client parser, it doesn't use reflection and
+ * doesn't build a response object holding all the projects of the page. Unknown fields are
+ * skipped.
+ */
+final class ProjectListDecoder {
+
+  private ProjectListDecoder() {}
+
+  /**
+   * Decodes the response read by {@code parser}, returning the next page token and the converted
+   * projects.
+   */
+  static <T> Tuple<String, Iterable<T>> decode(
+      JsonParser parser, ApiFunction<Project, T> converter) throws IOException {
+    String nextPageToken = null;
+    List<T> projects = null;
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new IOException("Expected a JSON object");
+    }
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("projects".equals(field) && token == JsonToken.START_ARRAY) {
+        projects = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+          projects.add(converter.apply(decodeProject(parser)));
+        }
+      } else if ("nextPageToken".equals(field) && token == JsonToken.VALUE_STRING) {
+        nextPageToken = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return Tuple.<String, Iterable<T>>of(
+        nextPageToken, projects == null ? Collections.<T>emptyList() : projects);
+  }
+
+  // The parser must be positioned on the project's START_OBJECT.
+  private static Project decodeProject(JsonParser parser) throws IOException {
+    Project project = new Project();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (field) {
+        case "projectId":
+          project.setProjectId(parser.getText());
+          break;
+        case "name":
+          project.setName(parser.getText());
+          break;
+        case "projectNumber":
+          // int64 values are encoded as JSON strings.
+          project.setProjectNumber(
+              token == JsonToken.VALUE_STRING
+                  ? Long.valueOf(parser.getText())
+                  : Long.valueOf(parser.getLongValue()));
+          break;
+        case "lifecycleState":
+          project.setLifecycleState(parser.getText());
+          break;
+        case "createTime":
+          project.setCreateTime(parser.getText());
+          break;
+        case "labels":
+          project.setLabels(decodeLabels(parser));
+          break;
+        case "parent":
+          project.setParent(decodeResourceId(parser));
+          break;
+        default:
+          parser.skipChildren();
+      }
+    }
+    return project;
+  }
+
+  private static Map<String, String> decodeLabels(JsonParser parser) throws IOException {
+    Map<String, String> labels = new HashMap<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String key = parser.getCurrentName();
+      if (parser.nextToken() != JsonToken.VALUE_NULL) {
+        labels.put(key, parser.getText());
+      }
+    }
+    return labels;
+  }
+
+  private static ResourceId decodeResourceId(JsonParser parser) throws IOException {
+    ResourceId resourceId = new ResourceId();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      if ("id".equals(field)) {
+        resourceId.setId(parser.getText());
+      } else if ("type".equals(field)) {
+        resourceId.setType(parser.getText());
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return resourceId;
+  }
+}
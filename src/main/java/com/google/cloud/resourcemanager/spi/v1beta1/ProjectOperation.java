@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.util.Key;
+import com.google.api.services.cloudresourcemanager.model.Operation;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.api.services.cloudresourcemanager.model.Status;
+
+/**
+ * A long-running {@link Operation} whose response is a {@link Project}.
+ *
+ * <p>{@code Operation.getResponse()} is an untyped map, so 64-bit fields such as the project number
+ * come back as strings. Parsing the operation into this class decodes the response directly as a
+ * {@code Project}.
+ */
+public final class ProjectOperation extends GenericJson {
+
+  @Key private String name;
+  @Key private Boolean done;
+  @Key private Status error;
+  @Key private Project response;
+
+  public String getName() {
+    return name;
+  }
+
+  public ProjectOperation setName(String name) {
+    this.name = name;
+    return this;
+  }
+
+  /** Returns whether the operation has completed, either with a response or with an error. */
+  public boolean isDone() {
+    return done != null && done;
+  }
+
+  public ProjectOperation setDone(Boolean done) {
+    this.done = done;
+    return this;
+  }
+
+  public Status getError() {
+    return error;
+  }
+
+  public ProjectOperation setError(Status error) {
+    this.error = error;
+    return this;
+  }
+
+  public Project getResponse() {
+    return response;
+  }
+
+  public ProjectOperation setResponse(Project response) {
+    this.response = response;
+    return this;
+  }
+
+  @Override
+  public ProjectOperation set(String fieldName, Object value) {
+    return (ProjectOperation) super.set(fieldName, value);
+  }
+
+  @Override
+  public ProjectOperation clone() {
+    return (ProjectOperation) super.clone();
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.cloud.resourcemanager.spi.v1beta1;
 
+import com.google.api.core.ApiFunction;
 import com.google.api.services.cloudresourcemanager.model.Policy;
 import com.google.api.services.cloudresourcemanager.model.Project;
 import com.google.cloud.ServiceRpc;
@@ -63,6 +64,21 @@ public interface ResourceManagerRpc extends ServiceRpc {
    */
   Project create(Project project);
 
+  /**
+   * Sends a request to create a new project, without waiting for the returned operation to
+   * complete.
+   *
+   * @throws ResourceManagerException upon failure
+   */
+  ProjectOperation startCreate(Project project);
+
+  /**
+   * Returns the current state of the long-running operation with the provided name.
+   *
+   * @throws ResourceManagerException upon failure
+   */
+  ProjectOperation getOperation(String name);
+
   /**
    * Marks the project identified by the specified project ID for deletion.
    *
@@ -85,6 +101,16 @@ public interface ResourceManagerRpc extends ServiceRpc {
    */
   Tuple<String, Iterable<Project>> list(Map<Option, ?> options);
 
+  /**
+   * Lists the projects visible to the current user, decoding the response as it is read. Each
+   * project is passed to {@code converter} as soon as it is decoded, so that at most one decoded
+   * project is held at a time instead of the whole page.
+   *
+   * @throws ResourceManagerException upon failure
+   */
+  <T> Tuple<String, Iterable<T>> listStreaming(
+      Map<Option, ?> options, ApiFunction<Project, T> converter);
+
   /**
    * Restores the project identified by the specified project ID. Undelete will only succeed if the
    * project has a lifecycle state of {@code DELETE_REQUESTED} state. The caller must have modify
@@ -124,5 +150,8 @@ public interface ResourceManagerRpc extends ServiceRpc {
    */
   List<Boolean> testPermissions(String projectId, List<String> permissions);
 
+  /** Creates an empty batch. */
+  RpcBatch createBatch();
+
   // TODO(ajaykannan): implement "Organization" functionality when available (issue #319)
 }
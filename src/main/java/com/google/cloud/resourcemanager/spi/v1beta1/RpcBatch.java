@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.cloud.resourcemanager.ResourceManagerException;
+import java.util.Map;
+
+/** An interface for the collection of batch operations. */
+public interface RpcBatch {
+
+  /**
+   * An interface for batch callbacks.
+   *
+   * @param <T> the type of the successful response
+   */
+  interface Callback<T> {
+
+    /** This method will be called upon success of the batch operation. */
+    void onSuccess(T response);
+
+    /** This method will be called upon failure of the batch operation. */
+    void onFailure(GoogleJsonError googleJsonError);
+  }
+
+  /**
+   * Adds a call to "get project" to the batch with the provided {@code callback} and {@code
+   * options}. The callback receives {@code null} if the project is not found or if the user doesn't
+   * have read permissions for the project.
+   */
+  void addGet(
+      String projectId, Callback<Project> callback, Map<ResourceManagerRpc.Option, ?> options);
+
+  /** Adds a call to "replace project" to the batch with the provided {@code callback}. */
+  void addReplace(Project project, Callback<Project> callback);
+
+  /** Adds a call to "delete project" to the batch with the provided {@code callback}. */
+  void addDelete(String projectId, Callback<Void> callback);
+
+  /** Adds a call to "undelete project" to the batch with the provided {@code callback}. */
+  void addUndelete(String projectId, Callback<Void> callback);
+
+  /**
+   * Adds a call to "get operation" to the batch with the provided {@code callback}. The callback
+   * receives the current state of the operation, which may not be done yet.
+   */
+  void addGetOperation(String name, Callback<ProjectOperation> callback);
+
+  /**
+   * Submits a batch of requests for processing using a single HTTP request to Cloud Resource
+   * Manager.
+   *
+   * @throws ResourceManagerException if the batch request as a whole fails
+   */
+  void submit();
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpExecuteInterceptor;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseInterceptor;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.BlankSpan;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.Tracer;
+import java.io.IOException;
+
+/**
+ * Initializes the requests like a delegate initializer, then adds the project ID, the page token
+ * presence and the HTTP status of each request, once sent, to the span that is current when the
+ * request is built, which is the span of the attempt sending it. Requests built without a current
+ * span, such as batch requests, are left alone.
+ */
+final class TracingRequestInitializer implements HttpRequestInitializer {
+
+  static final String PROJECT_ID = "resourcemanager.project_id";
+  static final String HAS_PAGE_TOKEN = "resourcemanager.has_page_token";
+  static final String HTTP_STATUS = "http.status_code";
+
+  private final HttpRequestInitializer delegate;
+  private final Tracer tracer;
+
+  TracingRequestInitializer(HttpRequestInitializer delegate, Tracer tracer) {
+    this.delegate = delegate;
+    this.tracer = tracer;
+  }
+
+  @Override
+  public void initialize(HttpRequest request) throws IOException {
+    if (delegate != null) {
+      delegate.initialize(request);
+    }
+    final Span span = tracer.getCurrentSpan();
+    if (span == null || span == BlankSpan.INSTANCE) {
+      return;
+    }
+    // The URL and the method of the request are only set after its initialization.
+    final HttpExecuteInterceptor executeInterceptor = request.getInterceptor();
+    request.setInterceptor(
+        new HttpExecuteInterceptor() {
+          @Override
+          public void intercept(HttpRequest request) throws IOException {
+            if (executeInterceptor != null) {
+              executeInterceptor.intercept(request);
+            }
+            GenericUrl url = request.getUrl();
+            String projectId = HttpResourceManagerRpc.projectIdOf(url.getRawPath());
+            if (projectId != null) {
+              span.putAttribute(PROJECT_ID, AttributeValue.stringAttributeValue(projectId));
+            }
+            if (url.getRawPath().endsWith("/projects")
+                && "GET".equals(request.getRequestMethod())) {
+              span.putAttribute(
+                  HAS_PAGE_TOKEN,
+                  AttributeValue.booleanAttributeValue(url.getFirst("pageToken") != null));
+            }
+          }
+        });
+    final HttpResponseInterceptor interceptor = request.getResponseInterceptor();
+    request.setResponseInterceptor(
+        new HttpResponseInterceptor() {
+          @Override
+          public void interceptResponse(HttpResponse response) throws IOException {
+            if (interceptor != null) {
+              interceptor.interceptResponse(response);
+            }
+            span.putAttribute(
+                HTTP_STATUS, AttributeValue.longAttributeValue(response.getStatusCode()));
+          }
+        });
+  }
+}
@@ -99,12 +99,15 @@ public class LocalResourceManagerHelper {
   private static final String VERSION = "v1";
   private static final String CONTEXT = "/" + VERSION + "/projects";
   private static final String OPERATION_CONTEXT = "/" + VERSION + "/operations";
+  private static final String BATCH_CONTEXT = "/batch";
   private static final URI BASE_CONTEXT;
   private static final Set<String> SUPPORTED_COMPRESSION_ENCODINGS =
       ImmutableSet.of("gzip", "x-gzip");
   private static final Pattern LIST_FIELDS_PATTERN =
       Pattern.compile("(.*?)projects\\((.*?)\\)(.*?)");
   private static final String[] NO_FIELDS = {};
+  private static final Pattern MULTIPART_BOUNDARY_PATTERN =
+      Pattern.compile("multipart/mixed;\\s*boundary=\"?([^\";]+)\"?");
 
   static {
     try {
@@ -188,40 +191,13 @@ public class LocalResourceManagerHelper {
   private class RequestHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) {
-      // see https://cloud.google.com/resource-manager/reference/rest/
       Response response;
-      String path = BASE_CONTEXT.relativize(exchange.getRequestURI()).getPath();
-      String requestMethod = exchange.getRequestMethod();
       try {
-        switch (requestMethod) {
-          case "POST":
-            response = handlePost(exchange, path);
-            break;
-          case "DELETE":
-            response = delete(projectIdFromUri(path));
-            break;
-          case "GET":
-            if (!path.isEmpty()) {
-              response =
-                  get(projectIdFromUri(path), parseFields(exchange.getRequestURI().getQuery()));
-            } else {
-              response = list(parseListOptions(exchange.getRequestURI().getQuery()));
-            }
-            break;
-          case "PUT":
-            String requestBody =
-                decodeContent(exchange.getRequestHeaders(), exchange.getRequestBody());
-            response =
-                replace(projectIdFromUri(path), jsonFactory.fromString(requestBody, Project.class));
-            break;
-          default:
-            response =
-                Error.BAD_REQUEST.response(
-                    "The server could not understand the following request URI: "
-                        + requestMethod
-                        + " "
-                        + path);
-        }
+        response =
+            handleRequest(
+                exchange.getRequestMethod(),
+                exchange.getRequestURI(),
+                decodeContent(exchange.getRequestHeaders(), exchange.getRequestBody()));
       } catch (IOException e) {
         response = Error.BAD_REQUEST.response(e.getMessage());
       }
@@ -229,8 +205,44 @@ public class LocalResourceManagerHelper {
     }
   }
 
-  private Response handlePost(HttpExchange exchange, String path) throws IOException {
-    String requestBody = decodeContent(exchange.getRequestHeaders(), exchange.getRequestBody());
+  private Response handleRequest(String requestMethod, URI requestUri, String requestBody) {
+    // see https://cloud.google.com/resource-manager/reference/rest/
+    Response response;
+    String path = BASE_CONTEXT.relativize(requestUri).getPath();
+    try {
+      switch (requestMethod) {
+        case "POST":
+          response = handlePost(path, requestBody);
+          break;
+        case "DELETE":
+          response = delete(projectIdFromUri(path));
+          break;
+        case "GET":
+          if (!path.isEmpty()) {
+            response = get(projectIdFromUri(path), parseFields(requestUri.getQuery()));
+          } else {
+            response = list(parseListOptions(requestUri.getQuery()));
+          }
+          break;
+        case "PUT":
+          response =
+              replace(projectIdFromUri(path), jsonFactory.fromString(requestBody, Project.class));
+          break;
+        default:
+          response =
+              Error.BAD_REQUEST.response(
+                  "The server could not understand the following request URI: "
+                      + requestMethod
+                      + " "
+                      + path);
+      }
+    } catch (IOException e) {
+      response = Error.BAD_REQUEST.response(e.getMessage());
+    }
+    return response;
+  }
+
+  private Response handlePost(String path, String requestBody) throws IOException {
     if (!path.contains(":")) {
       return create(jsonFactory.fromString(requestBody, Project.class));
     } else {
@@ -256,45 +268,126 @@ public class LocalResourceManagerHelper {
     }
   }
 
-  private class OperationRequestHandler implements HttpHandler {
+  private class BatchRequestHandler implements HttpHandler {
     @Override
     public void handle(HttpExchange exchange) {
-      // see https://cloud.google.com/resource-manager/reference/rest/
-      String projectId;
+      // see https://cloud.google.com/resource-manager/docs/batch
+      String contentType = exchange.getRequestHeaders().getFirst("Content-type");
+      Matcher matcher =
+          contentType == null ? null : MULTIPART_BOUNDARY_PATTERN.matcher(contentType);
+      if (!"POST".equals(exchange.getRequestMethod()) || matcher == null || !matcher.find()) {
+        writeResponse(
+            exchange,
+            Error.BAD_REQUEST.response("Batch requests must be multipart/mixed POST requests."));
+        return;
+      }
+      String requestBody;
       try {
-        projectId = new URI(OPERATION_CONTEXT).relativize(exchange.getRequestURI()).getPath();
-      } catch (URISyntaxException e) {
-        throw new IllegalStateException(e);
+        requestBody = decodeContent(exchange.getRequestHeaders(), exchange.getRequestBody());
+      } catch (IOException e) {
+        writeResponse(exchange, Error.BAD_REQUEST.response(e.getMessage()));
+        return;
       }
-      Response response;
-      String requestMethod = exchange.getRequestMethod();
-      switch (requestMethod) {
-        case "GET":
-          Project project = projects.get(projectId);
-          if (project == null) {
-            response = Error.PERMISSION_DENIED.response("Project " + projectId + " not found.");
-            break;
-          }
-          try {
-            response =
-                new Response(
-                    HTTP_OK,
-                    jsonFactory.toString(new Operation().setDone(true).setResponse(project)));
-          } catch (IOException e) {
-            response =
-                Error.INTERNAL_ERROR.response(
-                    "Error when serializing project " + project.getProjectId());
-          }
-          break;
-        default:
-          response =
-              Error.BAD_REQUEST.response(
-                  "The server could not understand the following request URI: "
-                      + requestMethod
-                      + " "
-                      + projectId);
+      String responseBoundary = "batch_" + UUID.randomUUID().toString();
+      StringBuilder responseBody = new StringBuilder();
+      int partIndex = 0;
+      for (String part : requestBody.split("--" + Pattern.quote(matcher.group(1)))) {
+        // Skip the preamble, the closing delimiter and anything that is not an HTTP request.
+        String[] partSections = part.split("\\r?\\n\\r?\\n", 2);
+        if (partSections.length < 2 || !partSections[0].contains("application/http")) {
+          continue;
+        }
+        partIndex++;
+        Response response = handleBatchPart(partSections[1]);
+        responseBody
+            .append("--")
+            .append(responseBoundary)
+            .append("\r\n")
+            .append("Content-Type: application/http\r\n")
+            .append("Content-ID: response-")
+            .append(partIndex)
+            .append("\r\n\r\n")
+            .append("HTTP/1.1 ")
+            .append(response.code())
+            .append(response.code() == HTTP_OK ? " OK" : " Error")
+            .append("\r\n")
+            .append("Content-Type: application/json; charset=UTF-8\r\n")
+            .append("Content-Length: ")
+            .append(response.body().getBytes(StandardCharsets.UTF_8).length)
+            .append("\r\n\r\n")
+            .append(response.body())
+            .append("\r\n");
       }
-      writeResponse(exchange, response);
+      responseBody.append("--").append(responseBoundary).append("--\r\n");
+      byte[] responseBytes = responseBody.toString().getBytes(StandardCharsets.UTF_8);
+      try {
+        exchange
+            .getResponseHeaders()
+            .set("Content-type", "multipart/mixed; boundary=" + responseBoundary);
+        exchange.getResponseHeaders().add("Connection", "close");
+        exchange.sendResponseHeaders(HTTP_OK, responseBytes.length);
+        OutputStream outputStream = exchange.getResponseBody();
+        outputStream.write(responseBytes);
+        outputStream.close();
+      } catch (IOException e) {
+        log.log(Level.WARNING, "IOException encountered when sending response.", e);
+      }
+    }
+  }
+
+  private Response handleBatchPart(String httpRequest) {
+    String[] requestSections = httpRequest.split("\\r?\\n\\r?\\n", 2);
+    String[] requestLine = requestSections[0].split("\\r?\\n", 2)[0].split(" ");
+    if (requestLine.length < 2) {
+      return Error.BAD_REQUEST.response("Malformed batch part: " + requestSections[0]);
+    }
+    URI requestUri = URI.create(requestLine[1]);
+    String requestBody = requestSections.length > 1 ? requestSections[1].trim() : "";
+    URI relativeUri =
+        URI.create(
+            requestUri.getRawPath()
+                + (requestUri.getRawQuery() != null ? "?" + requestUri.getRawQuery() : ""));
+    if (requestUri.getRawPath().startsWith(OPERATION_CONTEXT + "/")) {
+      return handleOperationRequest(requestLine[0], relativeUri);
+    }
+    return handleRequest(requestLine[0], relativeUri, requestBody);
+  }
+
+  private class OperationRequestHandler implements HttpHandler {
+    @Override
+    public void handle(HttpExchange exchange) {
+      // see https://cloud.google.com/resource-manager/reference/rest/
+      writeResponse(
+          exchange, handleOperationRequest(exchange.getRequestMethod(), exchange.getRequestURI()));
+    }
+  }
+
+  private Response handleOperationRequest(String requestMethod, URI requestUri) {
+    String projectId;
+    try {
+      projectId = new URI(OPERATION_CONTEXT + "/").relativize(requestUri).getPath();
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+    switch (requestMethod) {
+      case "GET":
+        Project project = projects.get(projectId);
+        if (project == null) {
+          return Error.PERMISSION_DENIED.response("Project " + projectId + " not found.");
+        }
+        try {
+          return new Response(
+              HTTP_OK, jsonFactory.toString(new Operation().setDone(true).setResponse(project)));
+        } catch (IOException e) {
+          return Error.INTERNAL_ERROR.response(
+              "Error when serializing project " + project.getProjectId());
+        }
+      default:
+        return Error.BAD_REQUEST.response(
+            "The server could not understand the following request URI: "
+                + requestMethod
+                + " "
+                + projectId);
     }
   }
 
@@ -580,11 +673,9 @@ public class LocalResourceManagerHelper {
         }
       } else if (filterType.startsWith("labels.")) {
         String labelKey = filterType.substring("labels.".length());
-        if (project.getLabels() != null) {
-          String labelValue = project.getLabels().get(labelKey);
-          if (!satisfiesFilter(labelValue, filterEntry[1])) {
-            return false;
-          }
+        String labelValue = project.getLabels() != null ? project.getLabels().get(labelKey) : null;
+        if (!satisfiesFilter(labelValue, filterEntry[1])) {
+          return false;
         }
       }
     }
@@ -595,7 +686,13 @@ public class LocalResourceManagerHelper {
     if (projectValue == null) {
       return false;
     }
-    return "*".equals(filterValue) || filterValue.equals(projectValue.toLowerCase());
+    if (filterValue.endsWith("*")) {
+      // A trailing wildcard matches any value starting with the rest of the filter value.
+      return projectValue
+          .toLowerCase()
+          .startsWith(filterValue.substring(0, filterValue.length() - 1));
+    }
+    return filterValue.equals(projectValue.toLowerCase());
   }
 
   private static Project extractFields(Project fullProject, String[] fields) {
@@ -735,6 +832,7 @@ public class LocalResourceManagerHelper {
       port = server.getAddress().getPort();
       server.createContext(CONTEXT, new RequestHandler());
       server.createContext(OPERATION_CONTEXT, new OperationRequestHandler());
+      server.createContext(BATCH_CONTEXT, new BatchRequestHandler());
     } catch (IOException e) {
       throw new RuntimeException("Could not bind the mock Resource Manager server.", e);
     }
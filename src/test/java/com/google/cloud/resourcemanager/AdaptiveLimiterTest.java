@@ -0,0 +1,271 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.core.ApiFuture;
+import com.google.common.collect.ImmutableList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class AdaptiveLimiterTest {
+
+  private static final Callable<String> SUCCESS =
+      new Callable<String>() {
+        @Override
+        public String call() {
+          return "ok";
+        }
+      };
+  private static final Callable<String> LIMIT_EXCEEDED =
+      new Callable<String>() {
+        @Override
+        public String call() {
+          throw new ResourceManagerException(429, "Too many requests");
+        }
+      };
+  private static final Callable<String> NOT_FOUND =
+      new Callable<String>() {
+        @Override
+        public String call() {
+          throw new ResourceManagerException(404, "Not found");
+        }
+      };
+
+  private static void callAndExpectFailure(AdaptiveLimiter limiter, Callable<String> callable) {
+    try {
+      limiter.call(callable);
+      fail("Expected a ResourceManagerException");
+    } catch (ResourceManagerException expected) {
+    }
+  }
+
+  private static Callable<String> blockingCallable(
+      final CountDownLatch started, final CountDownLatch release, final Callable<String> then) {
+    return new Callable<String>() {
+      @Override
+      public String call() throws Exception {
+        started.countDown();
+        release.await();
+        return then.call();
+      }
+    };
+  }
+
+  @Test
+  public void testLimitExceededHalvesLimit() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    assertEquals(AdaptiveLimiter.INITIAL_LIMIT, limiter.getStats().getLimit());
+    callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    assertEquals(AdaptiveLimiter.INITIAL_LIMIT / 2, limiter.getStats().getLimit());
+    assertEquals(1, limiter.getStats().getLimitExceededCount());
+    callAndExpectFailure(limiter, NOT_FOUND);
+    assertEquals(AdaptiveLimiter.INITIAL_LIMIT / 2, limiter.getStats().getLimit());
+    for (int i = 0; i < 10; i++) {
+      callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    }
+    assertEquals(AdaptiveLimiter.MIN_LIMIT, limiter.getStats().getLimit());
+    assertEquals(11, limiter.getStats().getLimitExceededCount());
+  }
+
+  @Test
+  public void testConcurrentLimitExceededBacksOffOnce() throws Exception {
+    final AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    CountDownLatch started = new CountDownLatch(2);
+    CountDownLatch release = new CountDownLatch(1);
+    final Callable<String> callable = blockingCallable(started, release, LIMIT_EXCEEDED);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Callable<String> task =
+          new Callable<String>() {
+            @Override
+            public String call() {
+              return limiter.call(callable);
+            }
+          };
+      Future<String> first = executor.submit(task);
+      Future<String> second = executor.submit(task);
+      started.await();
+      assertEquals(2, limiter.getStats().getInFlightCount());
+      release.countDown();
+      for (Future<String> future : ImmutableList.of(first, second)) {
+        try {
+          future.get();
+          fail("Expected a ResourceManagerException");
+        } catch (ExecutionException expected) {
+          assertEquals(429, ((ResourceManagerException) expected.getCause()).getCode());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(AdaptiveLimiter.INITIAL_LIMIT / 2, limiter.getStats().getLimit());
+    assertEquals(2, limiter.getStats().getLimitExceededCount());
+    assertEquals(0, limiter.getStats().getInFlightCount());
+  }
+
+  @Test
+  public void testSuccessIncreasesLimitOnlyWhenUtilized() throws Exception {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    for (int i = 0; i < 7; i++) {
+      callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    }
+    assertEquals(1, limiter.getStats().getLimit());
+    // One request in flight uses the whole limit.
+    assertEquals("ok", limiter.call(SUCCESS));
+    assertEquals(2, limiter.getStats().getLimit());
+    assertEquals("ok", limiter.call(SUCCESS));
+    assertEquals(3, limiter.getStats().getLimit());
+    // One request in flight out of three doesn't use half of the limit.
+    assertEquals("ok", limiter.call(SUCCESS));
+    assertEquals(3, limiter.getStats().getLimit());
+  }
+
+  @Test
+  public void testRequestsOverLimitWait() throws Exception {
+    final AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    for (int i = 0; i < 7; i++) {
+      callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    }
+    assertEquals(1, limiter.getStats().getLimit());
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first =
+          executor.submit(
+              new Callable<String>() {
+                @Override
+                public String call() {
+                  return limiter.call(blockingCallable(started, release, SUCCESS));
+                }
+              });
+      started.await();
+      Future<String> second =
+          executor.submit(
+              new Callable<String>() {
+                @Override
+                public String call() {
+                  return limiter.call(SUCCESS);
+                }
+              });
+      while (limiter.getStats().getQueueDepth() < 1) {
+        Thread.sleep(10);
+      }
+      assertFalse(second.isDone());
+      assertEquals(1, limiter.getStats().getInFlightCount());
+      release.countDown();
+      assertEquals("ok", first.get());
+      assertEquals("ok", second.get());
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(0, limiter.getStats().getQueueDepth());
+    assertEquals(0, limiter.getStats().getInFlightCount());
+  }
+
+  @Test
+  public void testAsyncRequestsOverLimitAreQueued() throws Exception {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    for (int i = 0; i < 7; i++) {
+      callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    }
+    assertEquals(1, limiter.getStats().getLimit());
+    ApiFuture<AdaptiveLimiter.Permit> first = limiter.acquireAsync();
+    assertTrue(first.isDone());
+    ApiFuture<AdaptiveLimiter.Permit> cancelled = limiter.acquireAsync();
+    ApiFuture<AdaptiveLimiter.Permit> second = limiter.acquireAsync();
+    assertEquals(2, limiter.getStats().getQueueDepth());
+    cancelled.cancel(false);
+    assertEquals(1, limiter.getStats().getQueueDepth());
+    first.get().release(true, false);
+    // The cancelled request gives its turn to the next one.
+    assertTrue(second.isDone());
+    assertEquals(1, limiter.getStats().getInFlightCount());
+    assertEquals(0, limiter.getStats().getQueueDepth());
+    second.get().release(false, false);
+    second.get().release(false, false);
+    assertEquals(0, limiter.getStats().getInFlightCount());
+  }
+
+  @Test
+  public void testCallWithPermitUsesBoundPermit() throws Exception {
+    final AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    for (int i = 0; i < 7; i++) {
+      callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    }
+    AdaptiveLimiter.Permit permit = limiter.acquireAsync().get();
+    // The limit of one is already used by the permit, so this would wait without it.
+    assertEquals(
+        "ok",
+        limiter.callWithPermit(
+            permit,
+            new Callable<String>() {
+              @Override
+              public String call() {
+                return limiter.call(SUCCESS);
+              }
+            }));
+    assertEquals(0, limiter.getStats().getInFlightCount());
+    assertEquals(2, limiter.getStats().getLimit());
+    // An unused permit is released.
+    assertEquals("ok", limiter.callWithPermit(limiter.acquireAsync().get(), SUCCESS));
+    assertEquals(0, limiter.getStats().getInFlightCount());
+  }
+
+  @Test
+  public void testDisabled() {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(false);
+    assertEquals(Integer.MAX_VALUE, limiter.getStats().getLimit());
+    for (int i = 0; i < 10; i++) {
+      callAndExpectFailure(limiter, LIMIT_EXCEEDED);
+    }
+    assertEquals("ok", limiter.call(SUCCESS));
+    assertEquals(Integer.MAX_VALUE, limiter.getStats().getLimit());
+    assertEquals(10, limiter.getStats().getLimitExceededCount());
+  }
+
+  @Test
+  public void testCheckedExceptionIsWrapped() throws Exception {
+    AdaptiveLimiter limiter = new AdaptiveLimiter(true);
+    final Exception cause = new Exception("checked");
+    try {
+      limiter
+          .wrap(
+              new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                  throw cause;
+                }
+              })
+          .call();
+      fail("Expected a ResourceManagerException");
+    } catch (ResourceManagerException expected) {
+      assertEquals(cause, expected.getCause());
+    }
+    assertEquals(AdaptiveLimiter.INITIAL_LIMIT, limiter.getStats().getLimit());
+  }
+}
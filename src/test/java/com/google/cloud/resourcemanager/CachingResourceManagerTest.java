@@ -0,0 +1,286 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.core.ApiClock;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.NoCredentials;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectField;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectGetOption;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+
+public class CachingResourceManagerTest {
+
+  private static final String PROJECT_ID = "cached-project";
+  private static final ProjectInfo PROJECT_INFO =
+      ProjectInfo.newBuilder(PROJECT_ID)
+          .setName("name")
+          .setLabels(ImmutableMap.of("k", "v"))
+          .build();
+  private static final ProjectGetOption NAME_ONLY = ProjectGetOption.fields(ProjectField.NAME);
+
+  private final FakeClock clock = new FakeClock();
+  private final Queue<Runnable> refreshTasks = new ArrayDeque<>();
+  private ResourceManagerOptions options;
+  private ResourceManager resourceManagerMock;
+  private CachingResourceManager cachingResourceManager;
+
+  private static class FakeClock implements ApiClock {
+
+    private long nanos;
+
+    @Override
+    public long nanoTime() {
+      return nanos;
+    }
+
+    @Override
+    public long millisTime() {
+      return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    void advance(Duration duration) {
+      nanos += duration.toNanos();
+    }
+  }
+
+  @Before
+  public void setUp() {
+    options =
+        ResourceManagerOptions.newBuilder()
+            .setProjectId("p")
+            .setCredentials(NoCredentials.getInstance())
+            .setClock(clock)
+            .build();
+    resourceManagerMock = EasyMock.createMock(ResourceManager.class);
+    EasyMock.expect(resourceManagerMock.getOptions()).andReturn(options).anyTimes();
+  }
+
+  @After
+  public void tearDown() {
+    EasyMock.verify(resourceManagerMock);
+  }
+
+  private void initializeCache() {
+    EasyMock.replay(resourceManagerMock);
+    cachingResourceManager =
+        CachingResourceManager.newBuilder(resourceManagerMock)
+            .setMaximumSize(2)
+            .setRefreshAfterWrite(Duration.ofMinutes(1))
+            .setExpireAfterWrite(Duration.ofMinutes(10))
+            .setRefreshExecutor(
+                new Executor() {
+                  @Override
+                  public void execute(Runnable command) {
+                    refreshTasks.add(command);
+                  }
+                })
+            .build();
+  }
+
+  private Project project(ProjectInfo info) {
+    return new Project(options.getService(), new ProjectInfo.BuilderImpl(info));
+  }
+
+  @Test
+  public void testGetIsCached() {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO));
+    initializeCache();
+    Project first = cachingResourceManager.get(PROJECT_ID);
+    Project second = cachingResourceManager.get(PROJECT_ID);
+    assertEquals(PROJECT_INFO.getName(), first.getName());
+    assertSame(first, second);
+    assertSame(cachingResourceManager, first.getResourceManager());
+    CachingResourceManager.Stats stats = cachingResourceManager.getStats();
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+  }
+
+  @Test
+  public void testFieldMaskIsPartOfTheKey() {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO));
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID, NAME_ONLY))
+        .andReturn(project(ProjectInfo.newBuilder(PROJECT_ID).setName("name").build()));
+    initializeCache();
+    assertEquals(PROJECT_INFO.getLabels(), cachingResourceManager.get(PROJECT_ID).getLabels());
+    assertEquals(ImmutableMap.of(), cachingResourceManager.get(PROJECT_ID, NAME_ONLY).getLabels());
+    assertEquals(
+        ImmutableMap.of(),
+        cachingResourceManager
+            .get(PROJECT_ID, ProjectGetOption.fields(ProjectField.NAME))
+            .getLabels());
+    assertEquals(1, cachingResourceManager.getStats().getHitCount());
+  }
+
+  @Test
+  public void testMissingProjectIsCached() {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(null);
+    initializeCache();
+    assertNull(cachingResourceManager.get(PROJECT_ID));
+    assertNull(cachingResourceManager.get(PROJECT_ID));
+  }
+
+  @Test
+  public void testStaleValueIsServedWhileRefreshing() {
+    ProjectInfo renamed = PROJECT_INFO.toBuilder().setName("new-name").build();
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO));
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(renamed));
+    initializeCache();
+    assertEquals("name", cachingResourceManager.get(PROJECT_ID).getName());
+    clock.advance(Duration.ofMinutes(2));
+    assertEquals("name", cachingResourceManager.get(PROJECT_ID).getName());
+    assertEquals(1, refreshTasks.size());
+    assertEquals("name", cachingResourceManager.get(PROJECT_ID).getName());
+    refreshTasks.poll().run();
+    assertEquals("new-name", cachingResourceManager.get(PROJECT_ID).getName());
+  }
+
+  @Test
+  public void testExpiredValueIsReloaded() {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO)).times(2);
+    initializeCache();
+    cachingResourceManager.get(PROJECT_ID);
+    clock.advance(Duration.ofMinutes(11));
+    cachingResourceManager.get(PROJECT_ID);
+    CachingResourceManager.Stats stats = cachingResourceManager.getStats();
+    assertEquals(2, stats.getMissCount());
+    assertEquals(1, stats.getEvictionCount());
+  }
+
+  @Test
+  public void testSizeBound() {
+    for (int i = 0; i < 3; i++) {
+      EasyMock.expect(resourceManagerMock.get(PROJECT_ID + i))
+          .andReturn(project(ProjectInfo.newBuilder(PROJECT_ID + i).build()));
+    }
+    initializeCache();
+    for (int i = 0; i < 3; i++) {
+      cachingResourceManager.get(PROJECT_ID + i);
+    }
+    assertEquals(1, cachingResourceManager.getStats().getEvictionCount());
+  }
+
+  @Test
+  public void testReplaceUpdatesCache() {
+    ProjectInfo replaced = PROJECT_INFO.toBuilder().setName("new-name").build();
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID, NAME_ONLY))
+        .andReturn(project(ProjectInfo.newBuilder(PROJECT_ID).setName("name").build()))
+        .times(2);
+    EasyMock.expect(resourceManagerMock.replace(replaced)).andReturn(project(replaced));
+    initializeCache();
+    cachingResourceManager.get(PROJECT_ID, NAME_ONLY);
+    Project project = cachingResourceManager.replace(replaced);
+    assertSame(cachingResourceManager, project.getResourceManager());
+    assertSame(project, cachingResourceManager.get(PROJECT_ID));
+    // Entries for other field masks are evicted.
+    cachingResourceManager.get(PROJECT_ID, NAME_ONLY);
+  }
+
+  @Test
+  public void testDeleteAndUndeleteInvalidate() {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO)).times(3);
+    resourceManagerMock.delete(PROJECT_ID);
+    EasyMock.expectLastCall();
+    EasyMock.expect(resourceManagerMock.undeleteAsync(PROJECT_ID))
+        .andReturn(ApiFutures.<Void>immediateFuture(null));
+    initializeCache();
+    cachingResourceManager.get(PROJECT_ID);
+    cachingResourceManager.delete(PROJECT_ID);
+    cachingResourceManager.get(PROJECT_ID);
+    cachingResourceManager.undeleteAsync(PROJECT_ID);
+    cachingResourceManager.get(PROJECT_ID);
+  }
+
+  @Test
+  public void testGetAsyncUsesCache() throws Exception {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO));
+    initializeCache();
+    ApiFuture<Project> future = cachingResourceManager.getAsync(PROJECT_ID);
+    assertEquals(1, refreshTasks.size());
+    refreshTasks.poll().run();
+    Project project = future.get();
+    assertSame(project, cachingResourceManager.getAsync(PROJECT_ID).get());
+    assertSame(project, cachingResourceManager.get(PROJECT_ID));
+    assertTrue(refreshTasks.isEmpty());
+    CachingResourceManager.Stats stats = cachingResourceManager.getStats();
+    assertEquals(2, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+  }
+
+  @Test
+  public void testConcurrentGetAsyncMissesShareLoad() throws Exception {
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO));
+    initializeCache();
+    ApiFuture<Project> first = cachingResourceManager.getAsync(PROJECT_ID);
+    ApiFuture<Project> second = cachingResourceManager.getAsync(PROJECT_ID);
+    assertEquals(2, refreshTasks.size());
+    while (!refreshTasks.isEmpty()) {
+      refreshTasks.poll().run();
+    }
+    assertSame(first.get(), second.get());
+  }
+
+  @Test
+  public void testInvalidateOnlyEvictsProject() {
+    String otherProjectId = PROJECT_ID + "-other";
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andReturn(project(PROJECT_INFO)).times(2);
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID, NAME_ONLY))
+        .andReturn(project(ProjectInfo.newBuilder(PROJECT_ID).setName("name").build()))
+        .times(2);
+    EasyMock.expect(resourceManagerMock.get(otherProjectId))
+        .andReturn(project(ProjectInfo.newBuilder(otherProjectId).build()));
+    EasyMock.replay(resourceManagerMock);
+    cachingResourceManager = CachingResourceManager.newBuilder(resourceManagerMock).build();
+    cachingResourceManager.get(PROJECT_ID);
+    cachingResourceManager.get(PROJECT_ID, NAME_ONLY);
+    cachingResourceManager.get(otherProjectId);
+    cachingResourceManager.invalidate(PROJECT_ID);
+    cachingResourceManager.get(PROJECT_ID);
+    cachingResourceManager.get(PROJECT_ID, NAME_ONLY);
+    cachingResourceManager.get(otherProjectId);
+    assertEquals(1, cachingResourceManager.getStats().getHitCount());
+  }
+
+  @Test
+  public void testGetFailure() {
+    ResourceManagerException exception = new ResourceManagerException(500, "Internal error");
+    EasyMock.expect(resourceManagerMock.get(PROJECT_ID)).andThrow(exception);
+    initializeCache();
+    try {
+      cachingResourceManager.get(PROJECT_ID);
+      fail("Should fail with the delegate's exception.");
+    } catch (ResourceManagerException ex) {
+      assertSame(exception, ex);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.ServiceOptions;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CheckpointedProjectListerTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final ResourceManager RESOURCE_MANAGER =
+      RESOURCE_MANAGER_HELPER.getOptions().getService();
+  private static final int PROJECT_COUNT = 11;
+  private static final String KEY = "inventory";
+
+  private final List<String> projectIds = new ArrayList<>();
+  private final InMemoryStore store = new InMemoryStore();
+
+  private static final class InMemoryStore implements ListCheckpointStore {
+
+    private final Map<String, ListCheckpoint> checkpoints = new ConcurrentHashMap<>();
+    private int saveCount;
+
+    @Override
+    public ListCheckpoint load(String key) {
+      return checkpoints.get(key);
+    }
+
+    @Override
+    public void save(String key, ListCheckpoint checkpoint) {
+      saveCount++;
+      checkpoints.put(key, checkpoint);
+    }
+
+    @Override
+    public void delete(String key) {
+      checkpoints.remove(key);
+    }
+  }
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+  }
+
+  @Before
+  public void setUp() {
+    for (Project project : RESOURCE_MANAGER.list().getValues()) {
+      RESOURCE_MANAGER_HELPER.removeProject(project.getProjectId());
+    }
+    for (int i = 0; i < PROJECT_COUNT; i++) {
+      String projectId = String.format("checkpoint-project-%02d", i);
+      RESOURCE_MANAGER.create(ProjectInfo.newBuilder(projectId).build());
+      projectIds.add(projectId);
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  private static List<String> projectIds(Iterator<Project> projects) {
+    List<String> ids = new ArrayList<>();
+    while (projects.hasNext()) {
+      ids.add(projects.next().getProjectId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testIterateAllDeletesCheckpointWhenDone() {
+    CheckpointedProjectLister lister =
+        CheckpointedProjectLister.newBuilder(RESOURCE_MANAGER, store)
+            .setCheckpointInterval(2)
+            .build();
+    Iterable<Project> projects = lister.iterateAll(KEY, ProjectListOption.pageSize(2));
+    assertEquals(projectIds, projectIds(projects.iterator()));
+    // Pages 1-2 and 3-4 were checkpointed before their next page was requested.
+    assertEquals(2, store.saveCount);
+    assertNull(lister.getCheckpoint(KEY));
+    // A completed listing starts over.
+    assertEquals(projectIds, projectIds(projects.iterator()));
+  }
+
+  @Test
+  public void testIterateAllResumesFromCheckpoint() {
+    CheckpointedProjectLister lister =
+        CheckpointedProjectLister.newBuilder(RESOURCE_MANAGER, store)
+            .setCheckpointInterval(1)
+            .build();
+    Iterable<Project> projects = lister.iterateAll(KEY, ProjectListOption.pageSize(3));
+    Iterator<Project> iterator = projects.iterator();
+    // Stop in the middle of the third page, as if the process ended.
+    for (int i = 0; i < 7; i++) {
+      assertEquals(projectIds.get(i), iterator.next().getProjectId());
+    }
+    ListCheckpoint checkpoint = lister.getCheckpoint(KEY);
+    assertEquals(6, checkpoint.getProjectCount());
+    // The third page, partially consumed, is listed again.
+    assertEquals(projectIds.subList(6, PROJECT_COUNT), projectIds(projects.iterator()));
+    assertNull(lister.getCheckpoint(KEY));
+  }
+
+  @Test
+  public void testIterateAllSavesCheckpointOnFailure() {
+    LocalResourceManagerHelper helper = LocalResourceManagerHelper.create();
+    helper.start();
+    ResourceManager resourceManager =
+        helper
+            .getOptions()
+            .toBuilder()
+            .setRetrySettings(ServiceOptions.getNoRetrySettings())
+            .build()
+            .getService();
+    for (int i = 0; i < 5; i++) {
+      resourceManager.create(ProjectInfo.newBuilder("failing-project-" + i).build());
+    }
+    CheckpointedProjectLister lister =
+        CheckpointedProjectLister.newBuilder(resourceManager, store)
+            .setCheckpointInterval(10)
+            .build();
+    Iterator<Project> iterator = lister.iterateAll(KEY, ProjectListOption.pageSize(2)).iterator();
+    for (int i = 0; i < 4; i++) {
+      iterator.next();
+    }
+    helper.stop();
+    try {
+      iterator.next();
+      fail("Should fail because the server is stopped.");
+    } catch (ResourceManagerException expected) {
+    }
+    ListCheckpoint checkpoint = lister.getCheckpoint(KEY);
+    assertEquals(4, checkpoint.getProjectCount());
+    assertEquals("failing-project-4", checkpoint.getPageToken());
+  }
+
+  @Test
+  public void testInvalidArguments() {
+    CheckpointedProjectLister.Builder builder =
+        CheckpointedProjectLister.newBuilder(RESOURCE_MANAGER, store);
+    try {
+      builder.setCheckpointInterval(0);
+      fail("Should reject a checkpoint interval of zero pages.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      builder.build().iterateAll(KEY, ProjectListOption.pageToken("token"));
+      fail("Should reject a page token.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
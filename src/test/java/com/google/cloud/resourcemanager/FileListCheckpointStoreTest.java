@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileListCheckpointStoreTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+  private FileListCheckpointStore store;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot().toPath().resolve("checkpoints");
+    store = new FileListCheckpointStore(directory);
+  }
+
+  @Test
+  public void testSaveLoadDelete() throws IOException {
+    assertNull(store.load("inventory"));
+    store.save("inventory", ListCheckpoint.of("token-1", 100));
+    assertEquals(ListCheckpoint.of("token-1", 100), store.load("inventory"));
+    store.save("inventory", ListCheckpoint.of("token-2", 200));
+    assertEquals(ListCheckpoint.of("token-2", 200), store.load("inventory"));
+    assertNull(store.load("other-inventory"));
+    store.delete("inventory");
+    assertNull(store.load("inventory"));
+    store.delete("inventory");
+  }
+
+  @Test
+  public void testSaveLeavesNoTemporaryFile() throws IOException {
+    store.save("inventory", ListCheckpoint.of("token", 1));
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      int count = 0;
+      for (Path file : files) {
+        assertEquals("inventory.checkpoint", file.getFileName().toString());
+        count++;
+      }
+      assertEquals(1, count);
+    }
+  }
+
+  @Test
+  public void testInvalidFile() throws IOException {
+    Files.createDirectories(directory);
+    Files.write(
+        directory.resolve("inventory.checkpoint"),
+        Collections.singletonList("pageToken=token"),
+        StandardCharsets.UTF_8);
+    try {
+      store.load("inventory");
+      fail("Should reject a checkpoint without a project count.");
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void testInvalidKey() throws IOException {
+    try {
+      store.save("../inventory", ListCheckpoint.of("token", 1));
+      fail("Should reject a key that is not a file name.");
+    } catch (IllegalArgumentException expected) {
+    }
+    assertFalse(Files.exists(directory));
+  }
+}
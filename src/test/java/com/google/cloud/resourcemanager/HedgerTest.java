@@ -0,0 +1,343 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.ListenableFutureToApiFuture;
+import com.google.api.core.NanoClock;
+import com.google.api.core.SettableApiFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+
+public class HedgerTest {
+
+  private static final Duration DELAY = Duration.ofMillis(20);
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private ScheduledExecutorService executor;
+
+  /** Records the futures of the legs it starts, which the tests complete. */
+  private static final class FakeLeg implements Hedger.Leg<String> {
+
+    private final List<SettableApiFuture<String>> legs = new ArrayList<>();
+    private final List<Boolean> hedges = new ArrayList<>();
+
+    @Override
+    public synchronized ApiFuture<String> start(boolean hedge) {
+      SettableApiFuture<String> future = SettableApiFuture.create();
+      legs.add(future);
+      hedges.add(hedge);
+      notifyAll();
+      return future;
+    }
+
+    synchronized SettableApiFuture<String> awaitLeg(int index) throws InterruptedException {
+      while (legs.size() <= index) {
+        wait();
+      }
+      return legs.get(index);
+    }
+
+    synchronized int size() {
+      return legs.size();
+    }
+  }
+
+  @Before
+  public void setUp() {
+    executor = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private Hedger newHedger(Duration delay, double percentile, double budgetRatio) {
+    return new Hedger(executor, NanoClock.getDefaultClock(), delay, percentile, budgetRatio);
+  }
+
+  @Test
+  public void testFastCallIsNotHedged() throws Exception {
+    Hedger hedger = newHedger(DELAY, 0, 0.1);
+    assertTrue(hedger.isEnabled());
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    leg.awaitLeg(0).set("first");
+    assertEquals("first", result.get());
+    Thread.sleep(DELAY.toMillis() * 3);
+    assertEquals(1, leg.size());
+    HedgingStats stats = hedger.getStats();
+    assertEquals(1, stats.getCallCount());
+    assertEquals(0, stats.getHedgesSent());
+    assertEquals(DELAY, stats.getHedgingDelay());
+  }
+
+  @Test
+  public void testHedgeWins() throws Exception {
+    Hedger hedger = newHedger(DELAY, 0, 0.1);
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    SettableApiFuture<String> first = leg.awaitLeg(0);
+    final CountDownLatch firstDone = new CountDownLatch(1);
+    first.addListener(
+        new Runnable() {
+          @Override
+          public void run() {
+            firstDone.countDown();
+          }
+        },
+        MoreExecutors.directExecutor());
+    leg.awaitLeg(1).set("second");
+    assertEquals("second", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    // The hedge may complete the result on the executor, which then cancels the first request.
+    assertTrue(firstDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertTrue(first.isCancelled());
+    assertEquals(false, leg.hedges.get(0));
+    assertEquals(true, leg.hedges.get(1));
+    HedgingStats stats = hedger.getStats();
+    assertEquals(1, stats.getHedgesSent());
+    assertEquals(1, stats.getHedgesWon());
+  }
+
+  @Test
+  public void testFirstRequestWinsAfterHedge() throws Exception {
+    Hedger hedger = newHedger(DELAY, 0, 0.1);
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    SettableApiFuture<String> second = leg.awaitLeg(1);
+    leg.awaitLeg(0).set("first");
+    assertEquals("first", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    assertTrue(second.isCancelled());
+    HedgingStats stats = hedger.getStats();
+    assertEquals(1, stats.getHedgesSent());
+    assertEquals(0, stats.getHedgesWon());
+  }
+
+  @Test
+  public void testFailureWaitsForOtherRequest() throws Exception {
+    Hedger hedger = newHedger(DELAY, 0, 0.1);
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    SettableApiFuture<String> second = leg.awaitLeg(1);
+    leg.awaitLeg(0).setException(new ResourceManagerException(503, "Unavailable"));
+    assertFalse(result.isDone());
+    second.set("second");
+    assertEquals("second", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testFailureBeforeHedge() throws Exception {
+    Hedger hedger = newHedger(Duration.ofSeconds(TIMEOUT_SECONDS), 0, 0.1);
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    ResourceManagerException exception = new ResourceManagerException(404, "Not found");
+    leg.awaitLeg(0).setException(exception);
+    try {
+      result.get();
+      fail("Should fail with the request's error.");
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+    }
+    assertEquals(0, hedger.getStats().getHedgesSent());
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    Hedger hedger = newHedger(DELAY, 0, 0.1);
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    SettableApiFuture<String> second = leg.awaitLeg(1);
+    result.cancel(true);
+    assertTrue(leg.awaitLeg(0).isCancelled());
+    assertTrue(second.isCancelled());
+  }
+
+  @Test
+  public void testBudget() throws Exception {
+    Hedger hedger = newHedger(Duration.ZERO, 0, 0);
+    for (int i = 0; i < Hedger.BUDGET_CAPACITY + 1; i++) {
+      FakeLeg leg = new FakeLeg();
+      ApiFuture<String> result = hedger.hedge(leg);
+      if (i < Hedger.BUDGET_CAPACITY) {
+        leg.awaitLeg(1).set("second");
+      } else {
+        // Let the hedge be scheduled before completing the call.
+        Thread.sleep(DELAY.toMillis() * 3);
+        assertEquals(1, leg.size());
+        leg.awaitLeg(0).set("first");
+      }
+      result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    HedgingStats stats = hedger.getStats();
+    assertEquals(Hedger.BUDGET_CAPACITY + 1, stats.getCallCount());
+    assertEquals(Hedger.BUDGET_CAPACITY, stats.getHedgesSent());
+    assertEquals(Hedger.BUDGET_CAPACITY, stats.getHedgesWon());
+  }
+
+  @Test
+  public void testPercentileDelay() throws Exception {
+    Hedger hedger = newHedger(null, 95, 0.1);
+    assertTrue(hedger.isEnabled());
+    assertNull(hedger.getStats().getHedgingDelay());
+    for (int i = 0; i < Hedger.MIN_SAMPLES; i++) {
+      FakeLeg leg = new FakeLeg();
+      ApiFuture<String> result = hedger.hedge(leg);
+      leg.awaitLeg(0).set("first");
+      result.get();
+    }
+    Duration delay = hedger.getStats().getHedgingDelay();
+    assertNotNull(delay);
+    assertTrue(delay.compareTo(Duration.ofSeconds(1)) < 0);
+    assertEquals(0, hedger.getStats().getHedgesSent());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    Hedger hedger = newHedger(null, 0, 0.1);
+    assertFalse(hedger.isEnabled());
+    assertNull(hedger.getStats().getHedgingDelay());
+    FakeLeg leg = new FakeLeg();
+    ApiFuture<String> result = hedger.hedge(leg);
+    Thread.sleep(DELAY.toMillis());
+    leg.awaitLeg(0).set("first");
+    assertEquals("first", result.get());
+    assertEquals(1, leg.size());
+  }
+
+  @Test
+  public void testCoalescedFollowerSurvivesHedgeWin() throws Exception {
+    final SingleFlight<String, String> flights = new SingleFlight<>(true);
+    final CountDownLatch leaderStarted = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExecutorService legExecutor = Executors.newFixedThreadPool(2);
+    try {
+      final ListenableFutureTask<String> primary =
+          ListenableFutureTask.create(
+              new Callable<String>() {
+                @Override
+                public String call() {
+                  return flights.call(
+                      "key",
+                      new Callable<String>() {
+                        @Override
+                        public String call() throws InterruptedException {
+                          leaderStarted.countDown();
+                          release.await();
+                          return "shared";
+                        }
+                      });
+                }
+              });
+      final CountDownLatch primaryDone = new CountDownLatch(1);
+      primary.addListener(
+          new Runnable() {
+            @Override
+            public void run() {
+              primaryDone.countDown();
+            }
+          },
+          MoreExecutors.directExecutor());
+      Hedger hedger = newHedger(DELAY, 0, 0.1);
+      ApiFuture<String> result =
+          hedger.hedge(
+              new Hedger.Leg<String>() {
+                @Override
+                public ApiFuture<String> start(boolean hedge) {
+                  if (hedge) {
+                    return ApiFutures.immediateFuture("hedge");
+                  }
+                  legExecutor.execute(primary);
+                  return new ListenableFutureToApiFuture<>(primary);
+                }
+              });
+      leaderStarted.await();
+      Future<String> follower =
+          legExecutor.submit(
+              new Callable<String>() {
+                @Override
+                public String call() {
+                  return flights.call(
+                      "key",
+                      new Callable<String>() {
+                        @Override
+                        public String call() {
+                          throw new AssertionError("The follower should share the leader's call.");
+                        }
+                      });
+                }
+              });
+      while (flights.getCollapsedCount() < 1) {
+        Thread.sleep(10);
+      }
+      assertEquals("hedge", result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      // The losing leg is cancelled by a listener of the result, which may run after get returns.
+      assertTrue(primaryDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertTrue(primary.isCancelled());
+      // The losing leg was not interrupted, so its request completes for the follower.
+      release.countDown();
+      assertEquals("shared", follower.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+      assertEquals(1, flights.getCallCount());
+      assertEquals(1, flights.getCollapsedCount());
+    } finally {
+      legExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testLegThatThrows() throws Exception {
+    Hedger hedger = newHedger(DELAY, 0, 0.1);
+    final ResourceManagerException exception = new ResourceManagerException(400, "Bad request");
+    ApiFuture<String> result =
+        hedger.hedge(
+            new Hedger.Leg<String>() {
+              @Override
+              public ApiFuture<String> start(boolean hedge) {
+                throw exception;
+              }
+            });
+    try {
+      result.get();
+      fail("Should fail with the leg's error.");
+    } catch (ExecutionException e) {
+      assertSame(exception, e.getCause());
+    }
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+
+public class InMemoryMetricsListenerTest {
+
+  private static final ResourceManagerException RATE_LIMITED = rateLimited();
+
+  private static ResourceManagerException rateLimited() {
+    GoogleJsonError.ErrorInfo errorInfo = new GoogleJsonError.ErrorInfo();
+    errorInfo.setReason("rateLimitExceeded");
+    GoogleJsonError error = new GoogleJsonError();
+    error.setCode(403);
+    error.setMessage("Rate limit exceeded");
+    error.setErrors(ImmutableList.of(errorInfo));
+    return new ResourceManagerException(error);
+  }
+
+  @Test
+  public void testLatencyBucket() {
+    assertEquals(0, InMemoryMetricsListener.latencyBucket(-1));
+    assertEquals(0, InMemoryMetricsListener.latencyBucket(999));
+    assertEquals(1, InMemoryMetricsListener.latencyBucket(1000));
+    assertEquals(2, InMemoryMetricsListener.latencyBucket(2000));
+    assertEquals(2, InMemoryMetricsListener.latencyBucket(3999));
+    // 1000 microseconds are in [512, 1024).
+    assertEquals(10, InMemoryMetricsListener.latencyBucket(TimeUnit.MILLISECONDS.toNanos(1)));
+    assertEquals(
+        InMemoryMetricsListener.LATENCY_BUCKETS - 1,
+        InMemoryMetricsListener.latencyBucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testAttempts() {
+    InMemoryMetricsListener listener = new InMemoryMetricsListener();
+    assertNull(listener.getMethodMetrics(MetricsListener.Method.GET).getLatencyPercentile(50));
+    for (int i = 0; i < 99; i++) {
+      listener.onAttempt(MetricsListener.Method.GET, TimeUnit.MICROSECONDS.toNanos(100), null);
+    }
+    listener.onAttempt(
+        MetricsListener.Method.GET, TimeUnit.MILLISECONDS.toNanos(100), RATE_LIMITED);
+    MethodMetrics metrics = listener.getMethodMetrics(MetricsListener.Method.GET);
+    assertEquals(MetricsListener.Method.GET, metrics.getMethod());
+    assertEquals(100, metrics.getAttemptCount());
+    assertEquals(1, metrics.getFailedAttemptCount());
+    assertEquals(Duration.ofNanos(128_000), metrics.getLatencyPercentile(50));
+    assertEquals(Duration.ofNanos(128_000), metrics.getLatencyPercentile(99));
+    assertEquals(Duration.ofNanos(131_072_000), metrics.getLatencyPercentile(100));
+    assertEquals(0, listener.getMethodMetrics(MetricsListener.Method.LIST).getAttemptCount());
+  }
+
+  @Test
+  public void testRetries() {
+    InMemoryMetricsListener listener = new InMemoryMetricsListener();
+    listener.onRetry(MetricsListener.Method.LIST, 2, 1000, RATE_LIMITED);
+    listener.onRetry(MetricsListener.Method.LIST, 3, 2000, RATE_LIMITED);
+    listener.onRetry(
+        MetricsListener.Method.LIST, 2, 1000, new ResourceManagerException(503, "Unavailable"));
+    listener.onRetry(MetricsListener.Method.LIST, 2, 1000, new IllegalStateException());
+    MethodMetrics metrics = listener.getMethodMetrics(MetricsListener.Method.LIST);
+    assertEquals(4, metrics.getRetryCount());
+    assertEquals(
+        ImmutableMap.of("rateLimitExceeded", 2L, "503", 1L, "IllegalStateException", 1L),
+        metrics.getRetryReasons());
+  }
+
+  @Test
+  public void testResponses() {
+    InMemoryMetricsListener listener = new InMemoryMetricsListener();
+    listener.onResponse(MetricsListener.Method.BATCH, null, 200, 1024, 1000);
+    listener.onResponse(MetricsListener.Method.BATCH, null, 200, -1, 1000);
+    MethodMetrics metrics = listener.getMethodMetrics(MetricsListener.Method.BATCH);
+    assertEquals(2, metrics.getResponseCount());
+    assertEquals(1024, metrics.getResponseBytes());
+  }
+
+  @Test
+  public void testBodies() {
+    InMemoryMetricsListener listener = new InMemoryMetricsListener();
+    listener.onRequestBody(MetricsListener.Method.REPLACE, 100, 400);
+    listener.onRequestBody(MetricsListener.Method.REPLACE, 50, 50);
+    listener.onResponseBody(MetricsListener.Method.REPLACE, 300);
+    MethodMetrics metrics = listener.getMethodMetrics(MetricsListener.Method.REPLACE);
+    assertEquals(150, metrics.getRequestBytes());
+    assertEquals(450, metrics.getUncompressedRequestBytes());
+    assertEquals(300, metrics.getUncompressedResponseBytes());
+    assertEquals(0, listener.getMethodMetrics(MetricsListener.Method.GET).getRequestBytes());
+  }
+
+  @Test
+  public void testPagesAndOperations() {
+    InMemoryMetricsListener listener = new InMemoryMetricsListener();
+    listener.onPage(100);
+    listener.onPage(7);
+    listener.onOperationDone(0);
+    listener.onOperationDone(3);
+    assertEquals(2, listener.getPageCount());
+    assertEquals(107, listener.getListedProjectCount());
+    assertEquals(100, listener.getMaxPageSize());
+    assertEquals(2, listener.getOperationCount());
+    assertEquals(3, listener.getOperationPollCount());
+  }
+}
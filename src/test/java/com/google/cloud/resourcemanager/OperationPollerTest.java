@@ -0,0 +1,449 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.core.ApiFutures;
+import com.google.api.core.NanoClock;
+import com.google.api.services.cloudresourcemanager.model.Project;
+import com.google.api.services.cloudresourcemanager.model.Status;
+import com.google.cloud.resourcemanager.spi.v1beta1.ProjectOperation;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.cloud.resourcemanager.spi.v1beta1.RpcBatch;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+
+public class OperationPollerTest {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  private final List<List<String>> polledBatches = new ArrayList<>();
+  private ScheduledExecutorService executor;
+  private ResourceManagerRpc resourceManagerRpcMock;
+  private RetryBudget retryBudget = new RetryBudget(false, RetryBudget.DEFAULT_RATIO);
+  private MetricsListener metricsListener;
+
+  /** Answers the polls of each batch with {@link #respond}. */
+  private abstract class FakeRpcBatch implements RpcBatch {
+
+    private final Map<String, Callback<ProjectOperation>> callbacks = new LinkedHashMap<>();
+
+    abstract void respond(String name, Callback<ProjectOperation> callback);
+
+    @Override
+    public void addGetOperation(String name, Callback<ProjectOperation> callback) {
+      callbacks.put(name, callback);
+    }
+
+    @Override
+    public void submit() {
+      synchronized (polledBatches) {
+        polledBatches.add(ImmutableList.copyOf(callbacks.keySet()));
+      }
+      for (Map.Entry<String, Callback<ProjectOperation>> entry : callbacks.entrySet()) {
+        respond(entry.getKey(), entry.getValue());
+      }
+    }
+
+    @Override
+    public void addGet(
+        String projectId, Callback<Project> callback, Map<ResourceManagerRpc.Option, ?> options) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addReplace(Project project, Callback<Project> callback) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addDelete(String projectId, Callback<Void> callback) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addUndelete(String projectId, Callback<Void> callback) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Before
+  public void setUp() {
+    executor = Executors.newSingleThreadScheduledExecutor();
+    resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private OperationPoller newPoller(Duration timeout) {
+    return newPoller(timeout, Duration.ZERO);
+  }
+
+  private OperationPoller newPoller(Duration timeout, Duration initialExpectedLatency) {
+    EasyMock.replay(resourceManagerRpcMock);
+    return new OperationPoller(
+        resourceManagerRpcMock,
+        executor,
+        executor,
+        NanoClock.getDefaultClock(),
+        timeout,
+        initialExpectedLatency,
+        retryBudget,
+        new AdaptiveLimiter(false),
+        metricsListener,
+        null);
+  }
+
+  private static ProjectOperation pending(String projectId) {
+    return new ProjectOperation().setName("operations/" + projectId).setDone(false);
+  }
+
+  private static ProjectOperation done(String projectId) {
+    return new ProjectOperation()
+        .setName("operations/" + projectId)
+        .setDone(true)
+        .setResponse(new Project().setProjectId(projectId).setProjectNumber(42L));
+  }
+
+  private static GoogleJsonError error(int code) {
+    GoogleJsonError error = new GoogleJsonError();
+    error.setCode(code);
+    error.setMessage("Error " + code);
+    return error;
+  }
+
+  private void expectBatches(final FakeRpcBatch... batches) {
+    for (final FakeRpcBatch batch : batches) {
+      EasyMock.expect(resourceManagerRpcMock.createBatch()).andReturn(batch);
+    }
+  }
+
+  @Test
+  public void testPendingOperationsArePolledTogether() throws Exception {
+    expectBatches(
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(done(name.substring("operations/".length())));
+          }
+        });
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    List<OperationFuture<Project>> futures = new ArrayList<>();
+    for (String projectId : ImmutableList.of("p1", "p2", "p3")) {
+      futures.add(poller.track(ApiFutures.immediateFuture(pending(projectId))));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      Project project = futures.get(i).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      assertEquals("p" + (i + 1), project.getProjectId());
+      assertEquals(Long.valueOf(42L), project.getProjectNumber());
+      assertEquals("operations/p" + (i + 1), futures.get(i).getName());
+    }
+    assertEquals(
+        ImmutableList.of(ImmutableList.of("operations/p1", "operations/p2", "operations/p3")),
+        polledBatches);
+    assertEquals(3, poller.getPollCount());
+    assertEquals(0, poller.getPendingCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testFirstOperationIsPolledAgainAfterInitialLatency() throws Exception {
+    expectBatches(
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(pending("p1"));
+          }
+        },
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(done("p1"));
+          }
+        });
+    Duration initialLatency = Duration.ofSeconds(1);
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT, initialLatency);
+    assertEquals(initialLatency, poller.getExpectedLatency());
+    long startNanos = System.nanoTime();
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    assertEquals("p1", future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getProjectId());
+    assertTrue(System.nanoTime() - startNanos >= initialLatency.toNanos());
+    assertEquals(2, poller.getPollCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testPollsAreReportedToMetricsListener() throws Exception {
+    InMemoryMetricsListener listener = new InMemoryMetricsListener();
+    metricsListener = listener;
+    expectBatches(
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(pending("p1"));
+          }
+        },
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(done("p1"));
+          }
+        });
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    poller.track(ApiFutures.immediateFuture(done("p0"))).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    poller.track(ApiFutures.immediateFuture(pending("p1"))).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    assertEquals(2, listener.getOperationCount());
+    assertEquals(2, listener.getOperationPollCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testDoneOperationIsNotPolled() throws Exception {
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(done("p1")));
+    assertEquals("p1", future.get().getProjectId());
+    assertEquals(0, poller.getPollCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testOperationError() throws Exception {
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    ProjectOperation failed =
+        new ProjectOperation()
+            .setName("operations/p1")
+            .setDone(true)
+            .setError(new Status().setCode(6).setMessage("Already exists"));
+    try {
+      poller.track(ApiFutures.immediateFuture(failed)).get();
+      fail("Should fail with the operation's error.");
+    } catch (ExecutionException e) {
+      ResourceManagerException cause = (ResourceManagerException) e.getCause();
+      assertEquals(409, cause.getCode());
+      assertEquals("Already exists", cause.getMessage());
+    }
+  }
+
+  @Test
+  public void testRetryablePollFailureIsPolledAgain() throws Exception {
+    expectBatches(
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onFailure(error(503));
+          }
+        },
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(pending("p1"));
+          }
+        },
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onSuccess(done("p1"));
+          }
+        });
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    assertEquals("p1", future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS).getProjectId());
+    assertEquals(3, poller.getPollCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testRetryablePollFailureIsLimitedByBudget() throws Exception {
+    expectBatches(
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onFailure(error(503));
+          }
+        });
+    retryBudget = new RetryBudget(true, 0);
+    for (int i = 0; i < RetryBudget.CAPACITY; i++) {
+      RetryBudget.Call<Void> call = retryBudget.newCall(null);
+      call.startAttempt();
+      call.shouldRetry(new ResourceManagerException(503, "Service unavailable"), null);
+    }
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Should fail with the poll's error.");
+    } catch (ExecutionException e) {
+      assertEquals(503, ((ResourceManagerException) e.getCause()).getCode());
+    }
+    assertEquals(1, poller.getPollCount());
+    assertEquals(1, retryBudget.getStats().getRetriesDenied());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testNonRetryablePollFailure() throws Exception {
+    expectBatches(
+        new FakeRpcBatch() {
+          @Override
+          void respond(String name, Callback<ProjectOperation> callback) {
+            callback.onFailure(error(404));
+          }
+        });
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Should fail with the poll's error.");
+    } catch (ExecutionException e) {
+      assertEquals(404, ((ResourceManagerException) e.getCause()).getCode());
+    }
+    assertEquals(0, poller.getPendingCount());
+  }
+
+  @Test
+  public void testBatchFailureFailsAllPolls() throws Exception {
+    // The two operations may be polled in one batch or in two.
+    EasyMock.expect(resourceManagerRpcMock.createBatch())
+        .andAnswer(
+            new IAnswer<RpcBatch>() {
+              @Override
+              public RpcBatch answer() {
+                return new FakeRpcBatch() {
+                  @Override
+                  public void submit() {
+                    throw new ResourceManagerException(400, "Bad request");
+                  }
+
+                  @Override
+                  void respond(String name, Callback<ProjectOperation> callback) {}
+                };
+              }
+            })
+        .times(1, 2);
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    OperationFuture<Project> first = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    OperationFuture<Project> second = poller.track(ApiFutures.immediateFuture(pending("p2")));
+    for (OperationFuture<Project> future : ImmutableList.of(first, second)) {
+      try {
+        future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        fail("Should fail with the batch's error.");
+      } catch (ExecutionException e) {
+        assertEquals(400, ((ResourceManagerException) e.getCause()).getCode());
+      }
+    }
+  }
+
+  @Test
+  public void testRejectedPollFailsOperations() throws Exception {
+    EasyMock.replay(resourceManagerRpcMock);
+    OperationPoller poller =
+        new OperationPoller(
+            resourceManagerRpcMock,
+            executor,
+            new Executor() {
+              @Override
+              public void execute(Runnable command) {
+                throw new RejectedExecutionException("Shut down");
+              }
+            },
+            NanoClock.getDefaultClock(),
+            OperationPoller.DEFAULT_TIMEOUT,
+            Duration.ZERO,
+            retryBudget,
+            new AdaptiveLimiter(false),
+            metricsListener,
+            null);
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Should fail because the poll was rejected.");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+    }
+    assertEquals(0, poller.getPendingCount());
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    EasyMock.expect(resourceManagerRpcMock.createBatch())
+        .andAnswer(
+            new IAnswer<RpcBatch>() {
+              @Override
+              public RpcBatch answer() {
+                return new FakeRpcBatch() {
+                  @Override
+                  void respond(String name, Callback<ProjectOperation> callback) {
+                    callback.onSuccess(pending("p1"));
+                  }
+                };
+              }
+            })
+        .atLeastOnce();
+    OperationPoller poller = newPoller(Duration.ofMillis(1));
+    OperationFuture<Project> future = poller.track(ApiFutures.immediateFuture(pending("p1")));
+    try {
+      future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      fail("Should fail because the operation never completes.");
+    } catch (ExecutionException e) {
+      ResourceManagerException cause = (ResourceManagerException) e.getCause();
+      assertEquals(504, cause.getCode());
+      assertTrue(cause.getMessage().contains("operations/p1"));
+    }
+  }
+
+  @Test
+  public void testFailedStart() throws Exception {
+    OperationPoller poller = newPoller(OperationPoller.DEFAULT_TIMEOUT);
+    ResourceManagerException exception = new ResourceManagerException(409, "Already exists");
+    OperationFuture<Project> future =
+        poller.track(ApiFutures.<ProjectOperation>immediateFailedFuture(exception));
+    try {
+      future.getName();
+      fail("Should fail because the operation was never started.");
+    } catch (ExecutionException e) {
+      assertEquals(exception, e.getCause());
+    }
+    try {
+      future.get();
+      fail("Should fail because the operation was never started.");
+    } catch (ExecutionException e) {
+      assertEquals(exception, e.getCause());
+    }
+  }
+}
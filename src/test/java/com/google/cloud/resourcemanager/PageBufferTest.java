@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.paging.AsyncPage;
+import com.google.cloud.AsyncPageImpl;
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class PageBufferTest {
+
+  /** Starts one request each time {@link #allowed} is positive, recording the page tokens. */
+  private static final class TestBuffer extends PageBuffer<String> {
+
+    private final List<SettableApiFuture<AsyncPage<String>>> requests = new ArrayList<>();
+    private final List<String> pageTokens = new ArrayList<>();
+    private int allowed;
+    private int buffered;
+
+    @Override
+    protected void maybeFetch() {
+      while (allowed > 0) {
+        allowed--;
+        SettableApiFuture<AsyncPage<String>> request = SettableApiFuture.create();
+        requests.add(request);
+        fetch(
+            request,
+            new PageListener<String>() {
+              @Override
+              public void onPage(List<String> values, String nextPageToken) {
+                pageTokens.add(nextPageToken);
+              }
+            });
+      }
+    }
+
+    @Override
+    protected void onBuffered() {
+      buffered++;
+    }
+
+    void allow(int requests) {
+      synchronized (this) {
+        allowed += requests;
+      }
+      fetchMore();
+    }
+  }
+
+  private static AsyncPage<String> page(String nextPageToken, String... values) {
+    return new AsyncPageImpl<>(null, nextPageToken, ImmutableList.copyOf(values));
+  }
+
+  @Test
+  public void testPagesInReceivedOrder() {
+    TestBuffer buffer = new TestBuffer();
+    buffer.allow(2);
+    assertEquals(2, buffer.requests.size());
+    assertNull(buffer.poll());
+    buffer.requests.get(1).set(page("token-1", "b"));
+    buffer.requests.get(0).set(page(null, "a"));
+    assertEquals(Arrays.asList("token-1", null), buffer.pageTokens);
+    assertEquals(2, buffer.buffered);
+    assertEquals(ImmutableList.of("b"), buffer.take());
+    assertEquals(ImmutableList.of("a"), buffer.take());
+    assertNull(buffer.take());
+  }
+
+  @Test
+  public void testTakeWaitsForRequestInFlight() throws Exception {
+    final TestBuffer buffer = new TestBuffer();
+    buffer.allow(1);
+    Thread completer =
+        new Thread() {
+          @Override
+          public void run() {
+            try {
+              Thread.sleep(50);
+            } catch (InterruptedException ex) {
+              return;
+            }
+            buffer.requests.get(0).set(page(null, "a"));
+          }
+        };
+    completer.start();
+    assertEquals(ImmutableList.of("a"), buffer.take());
+    completer.join();
+  }
+
+  @Test
+  public void testEmptyPagesAreNotBuffered() {
+    TestBuffer buffer = new TestBuffer();
+    buffer.allow(1);
+    buffer.requests.get(0).set(page(null));
+    assertEquals(1, buffer.pageTokens.size());
+    assertNull(buffer.take());
+  }
+
+  @Test
+  public void testFailureFollowsReceivedPages() {
+    TestBuffer buffer = new TestBuffer();
+    buffer.allow(2);
+    buffer.requests.get(0).set(page("token", "a"));
+    buffer.requests.get(1).setException(new IllegalStateException("failed"));
+    // No request is started after a failure.
+    buffer.allow(1);
+    assertEquals(2, buffer.requests.size());
+    assertNull(buffer.getFailure());
+    assertEquals(ImmutableList.of("a"), buffer.take());
+    ResourceManagerException failure = buffer.getFailure();
+    assertEquals(ResourceManagerException.UNKNOWN_CODE, failure.getCode());
+    assertTrue(failure.getCause() instanceof IllegalStateException);
+    try {
+      buffer.take();
+      fail();
+    } catch (ResourceManagerException ex) {
+      assertSame(failure, ex);
+    }
+  }
+
+  @Test
+  public void testCloseCancelsRequests() {
+    TestBuffer buffer = new TestBuffer();
+    buffer.allow(2);
+    buffer.requests.get(0).set(page("token", "a"));
+    buffer.close();
+    assertTrue(buffer.requests.get(1).isCancelled());
+    assertEquals(1, buffer.buffered);
+    assertNull(buffer.take());
+    buffer.allow(1);
+    assertEquals(2, buffer.requests.size());
+  }
+}
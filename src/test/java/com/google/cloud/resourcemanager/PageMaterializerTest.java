@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.api.core.ApiFunction;
+import com.google.cloud.resourcemanager.ResourceManagerOptions.PageMaterialization;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PageMaterializerTest {
+
+  private static ExecutorService executor;
+
+  @BeforeClass
+  public static void beforeClass() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    executor.shutdown();
+  }
+
+  private static final class CountingConverter implements ApiFunction<Integer, String> {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public String apply(Integer input) {
+      count.incrementAndGet();
+      return "value-" + input;
+    }
+  }
+
+  private static List<Integer> page(int size) {
+    List<Integer> page = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      page.add(i);
+    }
+    return page;
+  }
+
+  @Test
+  public void testLazy() {
+    CountingConverter converter = new CountingConverter();
+    Iterable<String> values =
+        PageMaterializer.materialize(PageMaterialization.LAZY, page(3), converter, executor);
+    assertEquals(0, converter.count.get());
+    assertEquals(ImmutableList.of("value-0", "value-1", "value-2"), ImmutableList.copyOf(values));
+    Iterables.size(values);
+    assertEquals(6, converter.count.get());
+  }
+
+  @Test
+  public void testEager() {
+    CountingConverter converter = new CountingConverter();
+    Iterable<String> values =
+        PageMaterializer.materialize(PageMaterialization.EAGER, page(3), converter, executor);
+    assertEquals(3, converter.count.get());
+    assertEquals(ImmutableList.of("value-0", "value-1", "value-2"), ImmutableList.copyOf(values));
+    assertSame(Iterables.get(values, 1), Iterables.get(values, 1));
+    assertEquals(3, converter.count.get());
+  }
+
+  @Test
+  public void testParallel() {
+    int size = PageMaterializer.PARALLEL_THRESHOLD * 4 + 1;
+    CountingConverter converter = new CountingConverter();
+    List<String> values =
+        (List<String>)
+            PageMaterializer.materialize(
+                PageMaterialization.PARALLEL, page(size), converter, executor);
+    assertEquals(size, converter.count.get());
+    assertEquals(size, values.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals("value-" + i, values.get(i));
+    }
+  }
+
+  @Test
+  public void testParallelSmallPage() {
+    CountingConverter converter = new CountingConverter();
+    Iterable<String> values =
+        PageMaterializer.materialize(PageMaterialization.PARALLEL, page(2), converter, executor);
+    assertEquals(ImmutableList.of("value-0", "value-1"), ImmutableList.copyOf(values));
+    assertEquals(2, converter.count.get());
+  }
+
+  @Test
+  public void testParallelFailure() {
+    try {
+      PageMaterializer.materialize(
+          PageMaterialization.PARALLEL,
+          page(PageMaterializer.PARALLEL_THRESHOLD),
+          new ApiFunction<Integer, String>() {
+            @Override
+            public String apply(Integer input) {
+              if (input == 100) {
+                throw new IllegalStateException("Invalid project");
+              }
+              return "value-" + input;
+            }
+          },
+          executor);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertEquals("Invalid project", expected.getMessage());
+    }
+  }
+
+  @Test
+  public void testParallelWithoutExecutorThreads() {
+    int size = PageMaterializer.PARALLEL_THRESHOLD * 4 + 1;
+    CountingConverter converter = new CountingConverter();
+    Executor neverRuns =
+        new Executor() {
+          @Override
+          public void execute(Runnable command) {}
+        };
+    List<String> values =
+        (List<String>)
+            PageMaterializer.materialize(
+                PageMaterialization.PARALLEL, page(size), converter, neverRuns);
+    assertEquals(size, converter.count.get());
+    assertEquals("value-" + (size - 1), values.get(size - 1));
+  }
+
+  @Test
+  public void testMaterializedListIsUnmodifiable() {
+    List<String> values =
+        (List<String>)
+            PageMaterializer.materialize(
+                PageMaterialization.EAGER, page(1), new CountingConverter(), executor);
+    try {
+      values.set(0, "other");
+      fail();
+    } catch (UnsupportedOperationException expected) {
+    }
+  }
+
+  @Test
+  public void testNullPage() {
+    for (PageMaterialization materialization : PageMaterialization.values()) {
+      assertFalse(
+          PageMaterializer.materialize(materialization, null, new CountingConverter(), executor)
+              .iterator()
+              .hasNext());
+    }
+  }
+}
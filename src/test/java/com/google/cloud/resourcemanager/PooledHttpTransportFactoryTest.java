@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.http.HttpTransportOptions;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+
+public class PooledHttpTransportFactoryTest {
+
+  @Test
+  public void testBuilder() throws Exception {
+    try (PooledHttpTransportFactory defaults = new PooledHttpTransportFactory()) {
+      assertEquals(200, defaults.getMaxConnections());
+      assertEquals(20, defaults.getMaxConnectionsPerRoute());
+      assertEquals(Duration.ofMinutes(2), defaults.getKeepAlive());
+      assertEquals(Duration.ofSeconds(30), defaults.getIdleTimeout());
+    }
+    try (PooledHttpTransportFactory factory =
+        PooledHttpTransportFactory.newBuilder()
+            .setMaxConnections(10)
+            .setMaxConnectionsPerRoute(5)
+            .setKeepAlive(Duration.ofSeconds(10))
+            .setIdleTimeout(Duration.ZERO)
+            .build()) {
+      assertEquals(10, factory.getMaxConnections());
+      assertEquals(5, factory.getMaxConnectionsPerRoute());
+      assertEquals(Duration.ofSeconds(10), factory.getKeepAlive());
+      assertEquals(Duration.ZERO, factory.getIdleTimeout());
+      assertEquals(10, factory.getPoolStats().getMaxConnections());
+    }
+  }
+
+  @Test
+  public void testInvalidSettings() {
+    try {
+      PooledHttpTransportFactory.newBuilder().setMaxConnectionsPerRoute(0);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      PooledHttpTransportFactory.newBuilder().setIdleTimeout(Duration.ofSeconds(-1));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testSharedPool() throws Exception {
+    LocalResourceManagerHelper helper = LocalResourceManagerHelper.create();
+    helper.start();
+    try (PooledHttpTransportFactory factory =
+        PooledHttpTransportFactory.newBuilder().setMaxConnectionsPerRoute(4).build()) {
+      HttpTransportOptions transportOptions =
+          HttpTransportOptions.newBuilder().setHttpTransportFactory(factory).build();
+      ResourceManagerOptions.Builder options =
+          helper.getOptions().toBuilder().setTransportOptions(transportOptions);
+      ResourceManager first = options.build().getService();
+      ResourceManager second = options.build().getService();
+      assertSame(factory.create(), factory.create());
+      first.create(ProjectInfo.newBuilder("pooled-project").build());
+      for (int i = 0; i < 5; i++) {
+        assertEquals("pooled-project", first.get("pooled-project").getProjectId());
+        assertEquals("pooled-project", second.get("pooled-project").getProjectId());
+      }
+      ConnectionPoolStats stats = factory.getPoolStats();
+      assertEquals(0, stats.getLeasedConnections());
+      assertEquals(0, stats.getPendingRequests());
+      assertEquals(1, stats.getRouteCount());
+      assertTrue(stats.getOpenedConnections() >= 1);
+      assertTrue(stats.getAvailableConnections() <= 4);
+    } finally {
+      helper.stop();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+
+public class PrefetchingProjectListerTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final ResourceManager RESOURCE_MANAGER =
+      RESOURCE_MANAGER_HELPER.getOptions().getService();
+  private static final int PROJECT_COUNT = 25;
+  private static final long TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final List<String> projectIds = new ArrayList<>();
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+  }
+
+  @Before
+  public void setUp() {
+    for (Project project : RESOURCE_MANAGER.list().getValues()) {
+      RESOURCE_MANAGER_HELPER.removeProject(project.getProjectId());
+    }
+    for (int i = 0; i < PROJECT_COUNT; i++) {
+      String projectId = String.format("prefetch-project-%02d", i);
+      RESOURCE_MANAGER.create(ProjectInfo.newBuilder(projectId).build());
+      projectIds.add(projectId);
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  private static List<String> projectIds(Iterable<Project> projects) {
+    List<String> ids = new ArrayList<>();
+    for (Project project : projects) {
+      ids.add(project.getProjectId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testIterateAllWithFixedPageSize() {
+    PrefetchingProjectLister lister =
+        PrefetchingProjectLister.newBuilder(RESOURCE_MANAGER).setReadAheadPages(2).build();
+    Iterable<Project> projects = lister.iterateAll(ProjectListOption.pageSize(3));
+    assertEquals(projectIds, projectIds(projects));
+    // Every iterator starts a new listing.
+    assertEquals(projectIds, projectIds(projects));
+  }
+
+  @Test
+  public void testIterateAllWithAdaptivePageSize() {
+    PrefetchingProjectLister lister =
+        PrefetchingProjectLister.newBuilder(RESOURCE_MANAGER)
+            .setReadAheadPages(1)
+            .setPageSizeBounds(2, 8)
+            .build();
+    assertEquals(projectIds, projectIds(lister.iterateAll()));
+  }
+
+  @Test
+  public void testIterateAllFromPageToken() {
+    PrefetchingProjectLister lister = PrefetchingProjectLister.newBuilder(RESOURCE_MANAGER).build();
+    Iterable<Project> projects =
+        lister.iterateAll(
+            ProjectListOption.pageToken(projectIds.get(10)), ProjectListOption.pageSize(4));
+    assertEquals(projectIds.subList(10, PROJECT_COUNT), projectIds(projects));
+  }
+
+  @Test
+  public void testIterateAllWithFilter() {
+    PrefetchingProjectLister lister = PrefetchingProjectLister.newBuilder(RESOURCE_MANAGER).build();
+    Iterator<Project> projects =
+        lister.iterateAll(ProjectListOption.filter("name:missing-name")).iterator();
+    assertFalse(projects.hasNext());
+  }
+
+  @Test
+  public void testIterateAllFailure() {
+    PrefetchingProjectLister lister = PrefetchingProjectLister.newBuilder(RESOURCE_MANAGER).build();
+    Iterator<Project> projects =
+        lister.iterateAll(ProjectListOption.filter("unsupported:filter")).iterator();
+    try {
+      projects.hasNext();
+      fail("Should fail because the filter is not supported.");
+    } catch (ResourceManagerException e) {
+      assertEquals(400, e.getCode());
+    }
+  }
+
+  @Test
+  public void testNextPageSize() {
+    // Fast responses grow the page, slow responses shrink it.
+    assertEquals(
+        200, PrefetchingProjectLister.nextPageSize(100, 100, false, 10, TARGET_NANOS, 10, 1000));
+    assertEquals(
+        50,
+        PrefetchingProjectLister.nextPageSize(
+            100, 100, false, 2 * TARGET_NANOS, TARGET_NANOS, 10, 1000));
+    assertEquals(
+        100,
+        PrefetchingProjectLister.nextPageSize(
+            100, 100, false, 3 * TARGET_NANOS / 4, TARGET_NANOS, 10, 1000));
+    // The result is kept within the bounds.
+    assertEquals(
+        1000, PrefetchingProjectLister.nextPageSize(800, 800, false, 10, TARGET_NANOS, 10, 1000));
+    assertEquals(
+        10,
+        PrefetchingProjectLister.nextPageSize(
+            12, 12, false, 2 * TARGET_NANOS, TARGET_NANOS, 10, 1000));
+    // A page the server truncated caps the next request.
+    assertEquals(
+        300, PrefetchingProjectLister.nextPageSize(500, 300, true, 10, TARGET_NANOS, 10, 1000));
+  }
+
+  @Test
+  public void testIsCappedPage() {
+    assertTrue(PrefetchingProjectLister.isCappedPage(500, 300, -1, true, false));
+    assertFalse(PrefetchingProjectLister.isCappedPage(500, 500, -1, true, false));
+    assertFalse(PrefetchingProjectLister.isCappedPage(500, 300, -1, false, false));
+    // Short pages of a filtered listing only count as capped once the same size repeats.
+    assertFalse(PrefetchingProjectLister.isCappedPage(500, 300, -1, true, true));
+    assertFalse(PrefetchingProjectLister.isCappedPage(500, 300, 120, true, true));
+    assertTrue(PrefetchingProjectLister.isCappedPage(500, 300, 300, true, true));
+    assertFalse(PrefetchingProjectLister.isCappedPage(500, 0, 0, true, true));
+  }
+
+  @Test
+  public void testBuilderRejectsInvalidSettings() {
+    PrefetchingProjectLister.Builder builder =
+        PrefetchingProjectLister.newBuilder(RESOURCE_MANAGER);
+    try {
+      builder.setReadAheadPages(0);
+      fail("Should reject a read-ahead of zero pages.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      builder.setPageSizeBounds(10, 5);
+      fail("Should reject a minimum page size above the maximum.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      builder.setTargetPageLatency(Duration.ZERO);
+      fail("Should reject a non-positive target latency.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
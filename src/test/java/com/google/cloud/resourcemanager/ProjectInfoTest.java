@@ -93,6 +93,22 @@ public class ProjectInfoTest {
             .build());
     compareProjects(PARTIAL_PROJECT_INFO, ProjectInfo.newBuilder(PROJECT_ID).build());
     assertNotEquals(FULL_PROJECT_INFO, PARTIAL_PROJECT_INFO);
+    assertNotEquals(FULL_PROJECT_INFO, FULL_PROJECT_INFO.toBuilder().addLabel("k3", "v3").build());
+    assertNotEquals(
+        FULL_PROJECT_INFO, FULL_PROJECT_INFO.toBuilder().setCreateTimeMillis(0L).build());
+    assertNotEquals(
+        FULL_PROJECT_INFO,
+        FULL_PROJECT_INFO
+            .toBuilder()
+            .setParent(new ProjectInfo.ResourceId("id", "folder"))
+            .build());
+    // Parent types are sent in lower case.
+    compareProjects(
+        FULL_PROJECT_INFO,
+        FULL_PROJECT_INFO
+            .toBuilder()
+            .setParent(new ProjectInfo.ResourceId("id", "ORGANIZATION"))
+            .build());
   }
 
   private void compareProjects(ProjectInfo expected, ProjectInfo value) {
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ProjectInventoryTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final ResourceManager RESOURCE_MANAGER =
+      RESOURCE_MANAGER_HELPER.getOptions().getService();
+  private static final ProjectInfo.ResourceId FOLDER = ProjectInfo.ResourceId.of("123", "folder");
+  private static final List<String> FILTERS =
+      ImmutableList.of(
+          "id:*",
+          "id:alpha-1",
+          "ID:BETA*",
+          "name:*",
+          "name:Alpha",
+          "name:al*",
+          "labels.env:prod",
+          "labels.env:*",
+          "labels.tier:*",
+          "LABELS.ENV:PR*",
+          "labels.missing:*",
+          "labels.env:prod name:beta",
+          "labels.env:test id:alpha* labels.tier:web",
+          "id:gamma-1 labels.env:prod");
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+  }
+
+  @Before
+  public void setUp() {
+    for (Project project : RESOURCE_MANAGER.list().getValues()) {
+      RESOURCE_MANAGER_HELPER.removeProject(project.getProjectId());
+    }
+    create("alpha-1", "Alpha", ImmutableMap.of("env", "prod", "tier", "web"), FOLDER);
+    create("alpha-2", "alpha", ImmutableMap.of("env", "test", "tier", "web"), null);
+    create("beta-1", "Beta", ImmutableMap.of("env", "prod"), FOLDER);
+    create("beta-2", null, ImmutableMap.of("env", "production"), null);
+    create("gamma-1", "Gamma", ImmutableMap.of("tier", "db"), null);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  private static void create(
+      String projectId,
+      String name,
+      ImmutableMap<String, String> labels,
+      ProjectInfo.ResourceId parent) {
+    ProjectInfo.Builder builder = ProjectInfo.newBuilder(projectId).setLabels(labels);
+    if (name != null) {
+      builder.setName(name);
+    }
+    if (parent != null) {
+      builder.setParent(parent);
+    }
+    RESOURCE_MANAGER.create(builder.build());
+  }
+
+  private static List<String> projectIds(Iterable<Project> projects) {
+    List<String> ids = new ArrayList<>();
+    for (Project project : projects) {
+      ids.add(project.getProjectId());
+    }
+    return ids;
+  }
+
+  private static ProjectInventory syncedInventory() {
+    ProjectInventory inventory = ProjectInventory.newBuilder(RESOURCE_MANAGER).build();
+    inventory.sync();
+    return inventory;
+  }
+
+  @Test
+  public void testQueryMatchesListFilter() {
+    ProjectInventory inventory = syncedInventory();
+    for (String filter : FILTERS) {
+      List<String> expected =
+          projectIds(RESOURCE_MANAGER.list(ProjectListOption.filter(filter)).iterateAll());
+      Collections.sort(expected);
+      assertEquals(filter, expected, projectIds(inventory.query(filter)));
+      assertEquals(filter, expected.size(), inventory.count(filter));
+    }
+  }
+
+  @Test
+  public void testQueryConjunction() {
+    ProjectInventory inventory = syncedInventory();
+    assertEquals(
+        ImmutableList.of("alpha-1", "beta-1"),
+        projectIds(inventory.query("labels.env:prod AND parent.id:123")));
+    assertEquals(
+        ImmutableList.of("alpha-1"),
+        projectIds(inventory.query("labels.env:prod and labels.tier:web")));
+  }
+
+  @Test
+  public void testQueryStateAndParent() {
+    RESOURCE_MANAGER.delete("beta-2");
+    ProjectInventory inventory = syncedInventory();
+    assertEquals(
+        ImmutableList.of("beta-2"), projectIds(inventory.query("lifecycleState:DELETE_REQUESTED")));
+    assertEquals(4, inventory.count("lifecycleState:active"));
+    assertEquals(
+        ImmutableList.of("alpha-1", "beta-1"), projectIds(inventory.query("parent.type:folder")));
+    assertEquals(2, inventory.count("parent.id:*"));
+    assertEquals(0, inventory.count("parent.id:456"));
+  }
+
+  @Test
+  public void testQueryWithoutFilter() {
+    ProjectInventory inventory = syncedInventory();
+    List<String> all = ImmutableList.of("alpha-1", "alpha-2", "beta-1", "beta-2", "gamma-1");
+    assertEquals(all, projectIds(inventory.query(null)));
+    assertEquals(all, projectIds(inventory.query("  ")));
+  }
+
+  @Test
+  public void testQueryInvalidFilter() {
+    ProjectInventory inventory = syncedInventory();
+    for (String filter : ImmutableList.of("env:prod", "labels.:prod", "name:", "name")) {
+      try {
+        inventory.query(filter);
+        fail(filter);
+      } catch (ResourceManagerException expected) {
+        assertEquals(400, expected.getCode());
+      }
+    }
+  }
+
+  @Test
+  public void testGetAndSize() {
+    ProjectInventory inventory = ProjectInventory.newBuilder(RESOURCE_MANAGER).build();
+    assertEquals(0, inventory.size());
+    assertEquals(-1, inventory.getSyncTimeMillis());
+    inventory.sync();
+    assertTrue(inventory.getSyncTimeMillis() >= 0);
+    assertEquals(5, inventory.size());
+    assertEquals("Beta", inventory.get("beta-1").getName());
+    assertNull(inventory.get("delta-1"));
+  }
+
+  @Test
+  public void testSyncWithListOptionsAndScanner() {
+    ProjectInventory inventory =
+        ProjectInventory.newBuilder(RESOURCE_MANAGER)
+            .setListOptions(ProjectListOption.filter("labels.env:*"))
+            .setScanner(ProjectScanner.newBuilder(RESOURCE_MANAGER).setParallelism(2).build())
+            .build();
+    inventory.sync();
+    assertEquals(
+        ImmutableList.of("alpha-1", "alpha-2", "beta-1", "beta-2"),
+        projectIds(inventory.query(null)));
+  }
+
+  @Test
+  public void testSyncReplacesProjects() {
+    ProjectInventory inventory = syncedInventory();
+    Project alpha = inventory.get("alpha-1");
+    RESOURCE_MANAGER_HELPER.removeProject("alpha-1");
+    assertSame(alpha, inventory.query("id:alpha-1").get(0));
+    inventory.sync();
+    assertNull(inventory.get("alpha-1"));
+    assertEquals(0, inventory.count("id:alpha-1"));
+  }
+
+  @Test
+  public void testListOptionsRejectPageToken() {
+    try {
+      ProjectInventory.newBuilder(RESOURCE_MANAGER)
+          .setListOptions(ProjectListOption.pageToken("token"));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.resourcemanager.ResourceManager.ProjectListOption;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ProjectScannerTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final ResourceManager RESOURCE_MANAGER =
+      RESOURCE_MANAGER_HELPER.getOptions().getService();
+  private static final int PROJECTS_PER_LETTER = 3;
+
+  private final List<String> projectIds = new ArrayList<>();
+  private final List<String> prodProjectIds = new ArrayList<>();
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+  }
+
+  @Before
+  public void setUp() {
+    for (Project project : RESOURCE_MANAGER.list().getValues()) {
+      RESOURCE_MANAGER_HELPER.removeProject(project.getProjectId());
+    }
+    // Projects spread over the first letters of the alphabet, some letters having none.
+    for (char letter = 'a'; letter <= 'z'; letter += 3) {
+      for (int i = 0; i < PROJECTS_PER_LETTER; i++) {
+        String projectId = letter + "-scan-project-" + i;
+        String env = i == 0 ? "prod" : "test";
+        RESOURCE_MANAGER.create(
+            ProjectInfo.newBuilder(projectId).setLabels(ImmutableMap.of("env", env)).build());
+        projectIds.add(projectId);
+        if (i == 0) {
+          prodProjectIds.add(projectId);
+        }
+      }
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  private static List<String> sortedProjectIds(Iterable<Project> projects) {
+    List<String> ids = new ArrayList<>();
+    for (Project project : projects) {
+      ids.add(project.getProjectId());
+    }
+    Collections.sort(ids);
+    return ids;
+  }
+
+  @Test
+  public void testIdPrefixShards() {
+    List<String> shards = ProjectScanner.idPrefixShards();
+    assertEquals(26, shards.size());
+    assertEquals("id:a*", shards.get(0));
+    assertEquals("id:z*", shards.get(25));
+  }
+
+  @Test
+  public void testScanCoversAllProjects() {
+    ProjectScanner scanner =
+        ProjectScanner.newBuilder(RESOURCE_MANAGER).setParallelism(3).setBufferedPages(4).build();
+    Iterable<Project> projects = scanner.scan(ProjectListOption.pageSize(2));
+    assertEquals(projectIds, sortedProjectIds(projects));
+    // Every iterator starts a new scan.
+    assertEquals(projectIds, sortedProjectIds(projects));
+  }
+
+  @Test
+  public void testScanWithFilter() {
+    ProjectScanner scanner = ProjectScanner.newBuilder(RESOURCE_MANAGER).build();
+    Iterable<Project> projects =
+        scanner.scan(ProjectListOption.filter("labels.env:prod"), ProjectListOption.pageSize(1));
+    assertEquals(prodProjectIds, sortedProjectIds(projects));
+  }
+
+  @Test
+  public void testScanDeduplicatesOverlappingShards() {
+    ProjectScanner scanner =
+        ProjectScanner.newBuilder(RESOURCE_MANAGER)
+            .setShards(ImmutableList.of("id:*", "labels.env:prod", "id:a*"))
+            .setParallelism(2)
+            .build();
+    assertEquals(projectIds, sortedProjectIds(scanner.scan(ProjectListOption.pageSize(2))));
+  }
+
+  @Test
+  public void testScanFailure() {
+    ProjectScanner scanner = ProjectScanner.newBuilder(RESOURCE_MANAGER).build();
+    Iterator<Project> projects =
+        scanner.scan(ProjectListOption.filter("unsupported:filter")).iterator();
+    try {
+      projects.hasNext();
+      fail("Should fail because the filter is not supported.");
+    } catch (ResourceManagerException e) {
+      assertEquals(400, e.getCode());
+    }
+  }
+
+  @Test
+  public void testBuilderRejectsInvalidSettings() {
+    ProjectScanner.Builder builder = ProjectScanner.newBuilder(RESOURCE_MANAGER);
+    try {
+      builder.setParallelism(0);
+      fail("Should reject a parallelism of zero shards.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      builder.setShards(ImmutableList.<String>of());
+      fail("Should reject an empty list of shards.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      builder.setParallelism(4).setBufferedPages(2).build();
+      fail("Should reject fewer buffered pages than the parallelism.");
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      ProjectScanner.newBuilder(RESOURCE_MANAGER).build().scan(ProjectListOption.pageToken("a"));
+      fail("Should reject a page token.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import com.google.common.collect.ImmutableList;
+import io.opencensus.trace.Annotation;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.EndSpanOptions;
+import io.opencensus.trace.Link;
+import io.opencensus.trace.Sampler;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.SpanBuilder;
+import io.opencensus.trace.SpanContext;
+import io.opencensus.trace.SpanId;
+import io.opencensus.trace.Status;
+import io.opencensus.trace.TraceId;
+import io.opencensus.trace.TraceOptions;
+import io.opencensus.trace.Tracer;
+import io.opencensus.trace.Tracestate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** A tracer that records the spans it creates, like an in-memory exporter. */
+final class RecordingTracer extends Tracer {
+
+  private final Random random = new Random();
+  private final List<RecordingSpan> spans = new ArrayList<>();
+
+  static final class RecordingSpan extends Span {
+
+    private final String name;
+    private final Span parent;
+    private final Map<String, AttributeValue> attributes = new ConcurrentHashMap<>();
+    private volatile Status status = Status.OK;
+    private volatile boolean ended;
+
+    private RecordingSpan(SpanContext context, String name, Span parent) {
+      super(context, EnumSet.of(Options.RECORD_EVENTS));
+      this.name = name;
+      this.parent = parent;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    Span getParent() {
+      return parent;
+    }
+
+    AttributeValue getAttribute(String key) {
+      return attributes.get(key);
+    }
+
+    Status getStatus() {
+      return status;
+    }
+
+    boolean isEnded() {
+      return ended;
+    }
+
+    @Override
+    public void putAttributes(Map<String, AttributeValue> attributes) {
+      this.attributes.putAll(attributes);
+    }
+
+    @Override
+    public void addAnnotation(String description, Map<String, AttributeValue> attributes) {}
+
+    @Override
+    public void addAnnotation(Annotation annotation) {}
+
+    @Override
+    public void addLink(Link link) {}
+
+    @Override
+    public void setStatus(Status status) {
+      this.status = status;
+    }
+
+    @Override
+    public void end(EndSpanOptions options) {
+      ended = true;
+    }
+  }
+
+  /** Returns the spans created so far, in creation order. */
+  synchronized List<RecordingSpan> getSpans() {
+    return ImmutableList.copyOf(spans);
+  }
+
+  /** Returns the spans named {@code name}, in creation order. */
+  synchronized List<RecordingSpan> getSpans(String name) {
+    ImmutableList.Builder<RecordingSpan> named = ImmutableList.builder();
+    for (RecordingSpan span : spans) {
+      if (span.getName().equals(name)) {
+        named.add(span);
+      }
+    }
+    return named.build();
+  }
+
+  /** Returns the spans whose parent is {@code parent}, in creation order. */
+  synchronized List<RecordingSpan> getChildren(Span parent) {
+    ImmutableList.Builder<RecordingSpan> children = ImmutableList.builder();
+    for (RecordingSpan span : spans) {
+      if (span.getParent() == parent) {
+        children.add(span);
+      }
+    }
+    return children.build();
+  }
+
+  private synchronized RecordingSpan newSpan(String name, Span parent) {
+    TraceId traceId =
+        parent != null ? parent.getContext().getTraceId() : TraceId.generateRandomId(random);
+    SpanContext context =
+        SpanContext.create(
+            traceId,
+            SpanId.generateRandomId(random),
+            TraceOptions.DEFAULT,
+            Tracestate.builder().build());
+    RecordingSpan span = new RecordingSpan(context, name, parent);
+    spans.add(span);
+    return span;
+  }
+
+  @Override
+  public SpanBuilder spanBuilderWithExplicitParent(final String spanName, final Span parent) {
+    return new SpanBuilder() {
+      @Override
+      public SpanBuilder setSampler(Sampler sampler) {
+        return this;
+      }
+
+      @Override
+      public SpanBuilder setParentLinks(List<Span> parentLinks) {
+        return this;
+      }
+
+      @Override
+      public SpanBuilder setRecordEvents(boolean recordEvents) {
+        return this;
+      }
+
+      @Override
+      public Span startSpan() {
+        return newSpan(spanName, parent);
+      }
+    };
+  }
+
+  @Override
+  public SpanBuilder spanBuilderWithRemoteParent(String spanName, SpanContext remoteParent) {
+    return spanBuilderWithExplicitParent(spanName, null);
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectField;
+import com.google.cloud.resourcemanager.ResourceManager.ProjectGetOption;
+import com.google.cloud.resourcemanager.spi.ResourceManagerRpcFactory;
+import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
+import com.google.cloud.resourcemanager.spi.v1beta1.RpcBatch;
+import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ResourceManagerBatchTest {
+
+  private static final LocalResourceManagerHelper RESOURCE_MANAGER_HELPER =
+      LocalResourceManagerHelper.create();
+  private static final ResourceManager RESOURCE_MANAGER =
+      RESOURCE_MANAGER_HELPER.getOptions().getService();
+  private static final ProjectInfo PROJECT1 =
+      ProjectInfo.newBuilder("batch-project1")
+          .setName("first")
+          .setLabels(ImmutableMap.of("k1", "v1"))
+          .build();
+  private static final ProjectInfo PROJECT2 = ProjectInfo.newBuilder("batch-project2").build();
+  private static final Map<ResourceManagerRpc.Option, ?> EMPTY_RPC_OPTIONS = ImmutableMap.of();
+
+  @BeforeClass
+  public static void beforeClass() {
+    RESOURCE_MANAGER_HELPER.start();
+  }
+
+  @Before
+  public void setUp() {
+    for (Project project : RESOURCE_MANAGER.list().getValues()) {
+      RESOURCE_MANAGER_HELPER.removeProject(project.getProjectId());
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    RESOURCE_MANAGER_HELPER.stop();
+  }
+
+  @Test
+  public void testSubmitMixedOperations() throws Exception {
+    RESOURCE_MANAGER.create(PROJECT1);
+    RESOURCE_MANAGER.create(PROJECT2);
+    RESOURCE_MANAGER.delete(PROJECT2.getProjectId());
+    ResourceManagerBatch batch = RESOURCE_MANAGER.batch();
+    ApiFuture<Project> get = batch.get(PROJECT1.getProjectId());
+    ApiFuture<Project> getWithFields =
+        batch.get(PROJECT1.getProjectId(), ProjectGetOption.fields(ProjectField.NAME));
+    ApiFuture<Project> getMissing = batch.get("missing-project");
+    ApiFuture<Project> replace = batch.replace(PROJECT1.toBuilder().addLabel("k2", "v2").build());
+    ApiFuture<Void> undelete = batch.undelete(PROJECT2.getProjectId());
+    ApiFuture<Void> deleteMissing = batch.delete("missing-project");
+    assertFalse(get.isDone());
+    batch.submit();
+    assertEquals(PROJECT1.getName(), get.get().getName());
+    assertSame(RESOURCE_MANAGER, get.get().getResourceManager());
+    assertEquals(PROJECT1.getName(), getWithFields.get().getName());
+    assertNull(getWithFields.get().getState());
+    assertNull(getMissing.get());
+    assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), replace.get().getLabels());
+    assertNull(undelete.get());
+    assertEquals(
+        ProjectInfo.State.ACTIVE, RESOURCE_MANAGER.get(PROJECT2.getProjectId()).getState());
+    try {
+      deleteMissing.get();
+      fail("Should fail because the project doesn't exist.");
+    } catch (ExecutionException e) {
+      ResourceManagerException cause = (ResourceManagerException) e.getCause();
+      assertEquals(403, cause.getCode());
+      assertTrue(cause.getMessage().contains("not found"));
+    }
+  }
+
+  @Test
+  public void testRetryableFailuresAreRetriedPerItem() throws Exception {
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    RpcBatch firstBatch = EasyMock.createMock(RpcBatch.class);
+    RpcBatch secondBatch = EasyMock.createMock(RpcBatch.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .build()
+            .getService();
+    EasyMock.expect(resourceManagerRpcMock.createBatch()).andReturn(firstBatch);
+    EasyMock.expect(resourceManagerRpcMock.createBatch()).andReturn(secondBatch);
+    final Capture<RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>>
+        okCallback = Capture.newInstance();
+    final Capture<RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>>
+        failingCallback = Capture.newInstance();
+    final Capture<RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>>
+        retriedCallback = Capture.newInstance();
+    firstBatch.addGet(
+        EasyMock.eq(PROJECT1.getProjectId()),
+        EasyMock.capture(okCallback),
+        EasyMock.eq(EMPTY_RPC_OPTIONS));
+    firstBatch.addGet(
+        EasyMock.eq(PROJECT2.getProjectId()),
+        EasyMock.capture(failingCallback),
+        EasyMock.eq(EMPTY_RPC_OPTIONS));
+    firstBatch.submit();
+    EasyMock.expectLastCall()
+        .andAnswer(
+            new IAnswer<Object>() {
+              @Override
+              public Object answer() {
+                okCallback.getValue().onSuccess(PROJECT1.toPb());
+                GoogleJsonError error = new GoogleJsonError();
+                error.setCode(503);
+                error.setMessage("Service unavailable");
+                failingCallback.getValue().onFailure(error);
+                return null;
+              }
+            });
+    secondBatch.addGet(
+        EasyMock.eq(PROJECT2.getProjectId()),
+        EasyMock.capture(retriedCallback),
+        EasyMock.eq(EMPTY_RPC_OPTIONS));
+    secondBatch.submit();
+    EasyMock.expectLastCall()
+        .andAnswer(
+            new IAnswer<Object>() {
+              @Override
+              public Object answer() {
+                retriedCallback.getValue().onSuccess(PROJECT2.toPb());
+                return null;
+              }
+            });
+    EasyMock.replay(resourceManagerRpcMock, firstBatch, secondBatch);
+    ResourceManagerBatch batch = resourceManagerMock.batch();
+    ApiFuture<Project> first = batch.get(PROJECT1.getProjectId());
+    ApiFuture<Project> second = batch.get(PROJECT2.getProjectId());
+    batch.submit();
+    assertEquals(PROJECT1.getProjectId(), first.get().getProjectId());
+    assertEquals(PROJECT2.getProjectId(), second.get().getProjectId());
+    assertEquals(1, resourceManagerMock.getRetryBudgetStats().getRetriesSpent());
+    EasyMock.verify(resourceManagerRpcMock, firstBatch, secondBatch);
+  }
+
+  @Test
+  public void testRetriesAreLimitedByBudget() throws Exception {
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    RpcBatch rpcBatch = EasyMock.createMock(RpcBatch.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .setRetryBudgetEnabled(true)
+            .setRetryBudgetRatio(0)
+            .build()
+            .getService();
+    // Exhausts the budget, the calls fail without being retried.
+    RetryBudget retryBudget = resourceManagerMock.getOptions().getRetryBudget();
+    for (int i = 0; i < RetryBudget.CAPACITY; i++) {
+      RetryBudget.Call<Void> call = retryBudget.newCall(null);
+      call.startAttempt();
+      assertTrue(call.shouldRetry(new ResourceManagerException(503, "Service unavailable"), null));
+    }
+    EasyMock.expect(resourceManagerRpcMock.createBatch()).andReturn(rpcBatch);
+    final Capture<RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>>
+        failingCallback = Capture.newInstance();
+    rpcBatch.addGet(
+        EasyMock.eq(PROJECT1.getProjectId()),
+        EasyMock.capture(failingCallback),
+        EasyMock.eq(EMPTY_RPC_OPTIONS));
+    rpcBatch.submit();
+    EasyMock.expectLastCall()
+        .andAnswer(
+            new IAnswer<Object>() {
+              @Override
+              public Object answer() {
+                GoogleJsonError error = new GoogleJsonError();
+                error.setCode(503);
+                error.setMessage("Service unavailable");
+                failingCallback.getValue().onFailure(error);
+                return null;
+              }
+            });
+    EasyMock.replay(resourceManagerRpcMock, rpcBatch);
+    ResourceManagerBatch batch = resourceManagerMock.batch();
+    ApiFuture<Project> project = batch.get(PROJECT1.getProjectId());
+    batch.submit();
+    try {
+      project.get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertEquals(503, ((ResourceManagerException) expected.getCause()).getCode());
+    }
+    assertEquals(1, resourceManagerMock.getRetryBudgetStats().getRetriesDenied());
+    EasyMock.verify(resourceManagerRpcMock, rpcBatch);
+  }
+
+  @Test
+  public void testUnexpectedFailureFailsPendingItems() throws Exception {
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    RpcBatch rpcBatch = EasyMock.createMock(RpcBatch.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .build()
+            .getService();
+    EasyMock.expect(resourceManagerRpcMock.createBatch()).andReturn(rpcBatch);
+    final Capture<RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>>
+        okCallback = Capture.newInstance();
+    rpcBatch.addGet(
+        EasyMock.eq(PROJECT1.getProjectId()),
+        EasyMock.capture(okCallback),
+        EasyMock.eq(EMPTY_RPC_OPTIONS));
+    rpcBatch.addGet(
+        EasyMock.eq(PROJECT2.getProjectId()),
+        EasyMock.<RpcBatch.Callback<com.google.api.services.cloudresourcemanager.model.Project>>
+            anyObject(),
+        EasyMock.eq(EMPTY_RPC_OPTIONS));
+    final IllegalStateException failure = new IllegalStateException("Unexpected");
+    rpcBatch.submit();
+    EasyMock.expectLastCall()
+        .andAnswer(
+            new IAnswer<Object>() {
+              @Override
+              public Object answer() {
+                okCallback.getValue().onSuccess(PROJECT1.toPb());
+                throw failure;
+              }
+            });
+    EasyMock.replay(resourceManagerRpcMock, rpcBatch);
+    ResourceManagerBatch batch = resourceManagerMock.batch();
+    ApiFuture<Project> first = batch.get(PROJECT1.getProjectId());
+    ApiFuture<Project> second = batch.get(PROJECT2.getProjectId());
+    batch.submit();
+    assertEquals(PROJECT1.getProjectId(), first.get().getProjectId());
+    try {
+      second.get();
+      fail();
+    } catch (ExecutionException expected) {
+      assertSame(failure, expected.getCause());
+    }
+    EasyMock.verify(resourceManagerRpcMock, rpcBatch);
+  }
+}
@@ -26,8 +26,10 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.cloud.BaseServiceException;
 import com.google.cloud.RetryHelper.RetryHelperException;
+import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
 import org.junit.Test;
@@ -75,6 +77,20 @@ public class ResourceManagerExceptionTest {
     assertSame(cause, exception.getCause());
   }
 
+  @Test
+  public void testIsLimitExceeded() {
+    assertTrue(new ResourceManagerException(429, "message").isLimitExceeded());
+    assertFalse(new ResourceManagerException(403, "message").isLimitExceeded());
+    assertFalse(new ResourceManagerException(503, "message").isLimitExceeded());
+    GoogleJsonError.ErrorInfo errorInfo = new GoogleJsonError.ErrorInfo();
+    errorInfo.setReason("rateLimitExceeded");
+    GoogleJsonError error = new GoogleJsonError();
+    error.setCode(403);
+    error.setMessage("message");
+    error.setErrors(ImmutableList.of(errorInfo));
+    assertTrue(new ResourceManagerException(error).isLimitExceeded());
+  }
+
   @Test
   public void testTranslateAndThrow() throws Exception {
     Exception cause = new ResourceManagerException(503, "message");
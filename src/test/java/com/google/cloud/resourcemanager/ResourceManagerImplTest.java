@@ -25,10 +25,12 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.google.api.gax.paging.AsyncPage;
 import com.google.api.gax.paging.Page;
 import com.google.cloud.Identity;
 import com.google.cloud.Policy;
 import com.google.cloud.Role;
+import com.google.cloud.ServiceOptions;
 import com.google.cloud.resourcemanager.ProjectInfo.ResourceId;
 import com.google.cloud.resourcemanager.ResourceManager.ProjectField;
 import com.google.cloud.resourcemanager.ResourceManager.ProjectGetOption;
@@ -38,14 +40,24 @@ import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
 import com.google.cloud.resourcemanager.testing.LocalResourceManagerHelper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import io.opencensus.trace.AttributeValue;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.threeten.bp.Duration;
 
 public class ResourceManagerImplTest {
 
@@ -190,6 +202,172 @@ public class ResourceManagerImplTest {
     }
   }
 
+  @Test
+  public void testListWithoutStreaming() {
+    ResourceManager resourceManager =
+        RESOURCE_MANAGER_HELPER
+            .getOptions()
+            .toBuilder()
+            .setStreamingListEnabled(false)
+            .build()
+            .getService();
+    RESOURCE_MANAGER.create(PARTIAL_PROJECT);
+    RESOURCE_MANAGER.create(COMPLETE_PROJECT);
+    Page<Project> page = resourceManager.list(ProjectListOption.pageSize(1));
+    assertNotNull(page.getNextPageToken());
+    Iterator<Project> iterator = page.getValues().iterator();
+    Project project = iterator.next();
+    compareReadWriteFields(COMPLETE_PROJECT, project);
+    assertSame(resourceManager, project.getResourceManager());
+    assertFalse(iterator.hasNext());
+    page = page.getNextPage();
+    iterator = page.getValues().iterator();
+    compareReadWriteFields(PARTIAL_PROJECT, iterator.next());
+    assertFalse(iterator.hasNext());
+    assertNull(page.getNextPageToken());
+  }
+
+  @Test
+  public void testListPageMaterialization() {
+    RESOURCE_MANAGER.create(PARTIAL_PROJECT);
+    for (ResourceManagerOptions.PageMaterialization materialization :
+        ResourceManagerOptions.PageMaterialization.values()) {
+      for (boolean streamingList : new boolean[] {true, false}) {
+        ResourceManager resourceManager =
+            RESOURCE_MANAGER_HELPER
+                .getOptions()
+                .toBuilder()
+                .setPageMaterialization(materialization)
+                .setStreamingListEnabled(streamingList)
+                .build()
+                .getService();
+        Page<Project> page = resourceManager.list();
+        Project project = Iterables.getOnlyElement(page.getValues());
+        compareReadWriteFields(PARTIAL_PROJECT, project);
+        assertSame(resourceManager, project.getResourceManager());
+        if (materialization != ResourceManagerOptions.PageMaterialization.LAZY) {
+          // Iterating the page again returns the same projects.
+          assertSame(project, Iterables.getOnlyElement(page.getValues()));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMetrics() {
+    InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+    ResourceManager resourceManager =
+        RESOURCE_MANAGER_HELPER
+            .getOptions()
+            .toBuilder()
+            .setMetricsListener(metricsListener)
+            .build()
+            .getService();
+    resourceManager.create(PARTIAL_PROJECT);
+    resourceManager.create(COMPLETE_PROJECT);
+    assertNotNull(resourceManager.get(PARTIAL_PROJECT.getProjectId()));
+    Page<Project> page = resourceManager.list(ProjectListOption.pageSize(1));
+    page.getNextPage();
+    MethodMetrics createMetrics = metricsListener.getMethodMetrics(MetricsListener.Method.CREATE);
+    assertEquals(2, createMetrics.getAttemptCount());
+    assertEquals(2, createMetrics.getResponseCount());
+    assertTrue(createMetrics.getResponseBytes() > 0);
+    assertEquals(2, metricsListener.getOperationCount());
+    // The emulator's creations are done on their first poll.
+    assertEquals(2, metricsListener.getOperationPollCount());
+    MethodMetrics getMetrics = metricsListener.getMethodMetrics(MetricsListener.Method.GET);
+    assertEquals(1, getMetrics.getAttemptCount());
+    assertEquals(0, getMetrics.getFailedAttemptCount());
+    assertEquals(0, getMetrics.getRetryCount());
+    assertEquals(1, getMetrics.getResponseCount());
+    assertTrue(getMetrics.getResponseBytes() > 0);
+    assertNotNull(getMetrics.getLatencyPercentile(50));
+    assertEquals(
+        2, metricsListener.getMethodMetrics(MetricsListener.Method.LIST).getAttemptCount());
+    assertEquals(2, metricsListener.getPageCount());
+    assertEquals(2, metricsListener.getListedProjectCount());
+    assertEquals(1, metricsListener.getMaxPageSize());
+  }
+
+  @Test
+  public void testCompressionMetrics() {
+    InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+    ResourceManager resourceManager =
+        RESOURCE_MANAGER_HELPER
+            .getOptions()
+            .toBuilder()
+            .setRequestCompressionThreshold(0)
+            .setMetricsListener(metricsListener)
+            .build()
+            .getService();
+    Project createdProject = resourceManager.create(COMPLETE_PROJECT);
+    ImmutableMap.Builder<String, String> labels = ImmutableMap.builder();
+    for (int i = 0; i < 100; i++) {
+      labels.put("label-" + i, "value");
+    }
+    Project replaced =
+        resourceManager.replace(createdProject.toBuilder().setLabels(labels.build()).build());
+    assertEquals(100, replaced.getLabels().size());
+    MethodMetrics replaceMetrics = metricsListener.getMethodMetrics(MetricsListener.Method.REPLACE);
+    assertTrue(replaceMetrics.getRequestBytes() > 0);
+    assertTrue(replaceMetrics.getUncompressedRequestBytes() > replaceMetrics.getRequestBytes());
+    assertTrue(replaceMetrics.getUncompressedResponseBytes() > 0);
+    resourceManager.replacePolicy(COMPLETE_PROJECT.getProjectId(), POLICY);
+    MethodMetrics replacePolicyMetrics =
+        metricsListener.getMethodMetrics(MetricsListener.Method.REPLACE_POLICY);
+    assertTrue(replacePolicyMetrics.getRequestBytes() > 0);
+    assertTrue(replacePolicyMetrics.getUncompressedRequestBytes() > 0);
+    assertEquals(
+        POLICY.getBindings(),
+        resourceManager.getPolicy(COMPLETE_PROJECT.getProjectId()).getBindings());
+    resourceManager.list();
+    assertTrue(
+        metricsListener
+                .getMethodMetrics(MetricsListener.Method.LIST)
+                .getUncompressedResponseBytes()
+            > 0);
+  }
+
+  @Test
+  public void testTracing() {
+    RecordingTracer tracer = new RecordingTracer();
+    ResourceManager resourceManager =
+        RESOURCE_MANAGER_HELPER.getOptions().toBuilder().setTracer(tracer).build().getService();
+    resourceManager.create(PARTIAL_PROJECT);
+    RecordingTracer.RecordingSpan createSpan =
+        Iterables.getOnlyElement(tracer.getSpans("ResourceManager.create"));
+    List<RecordingTracer.RecordingSpan> createChildren = tracer.getChildren(createSpan);
+    assertEquals("Attempt", createChildren.get(0).getName());
+    assertEquals(
+        AttributeValue.longAttributeValue(200),
+        createChildren.get(0).getAttribute("http.status_code"));
+    assertTrue(createChildren.size() >= 2);
+    for (RecordingTracer.RecordingSpan poll : createChildren.subList(1, createChildren.size())) {
+      assertEquals("Poll", poll.getName());
+      assertTrue(poll.isEnded());
+    }
+    assertNotNull(resourceManager.get(PARTIAL_PROJECT.getProjectId()));
+    RecordingTracer.RecordingSpan getSpan =
+        Iterables.getOnlyElement(tracer.getSpans("ResourceManager.get"));
+    assertTrue(getSpan.isEnded());
+    RecordingTracer.RecordingSpan getAttempt =
+        Iterables.getOnlyElement(tracer.getChildren(getSpan));
+    assertTrue(getAttempt.isEnded());
+    assertEquals(
+        AttributeValue.stringAttributeValue(PARTIAL_PROJECT.getProjectId()),
+        getAttempt.getAttribute("resourcemanager.project_id"));
+    assertEquals(
+        AttributeValue.longAttributeValue(200), getAttempt.getAttribute("http.status_code"));
+    resourceManager.list();
+    RecordingTracer.RecordingSpan listAttempt =
+        Iterables.getOnlyElement(
+            tracer.getChildren(
+                Iterables.getOnlyElement(tracer.getSpans("ResourceManager.list"))));
+    assertEquals(
+        AttributeValue.booleanAttributeValue(false),
+        listAttempt.getAttribute("resourcemanager.has_page_token"));
+  }
+
   @Test
   public void testListPaging() {
     RESOURCE_MANAGER.create(PARTIAL_PROJECT);
@@ -456,4 +634,444 @@ public class ResourceManagerImplTest {
       assertEquals(exceptionMessage, exception.getCause().getMessage());
     }
   }
+
+  private static ResourceManager mockedService(
+      ResourceManagerRpc resourceManagerRpcMock, boolean readCoalescingEnabled) {
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    return ResourceManagerOptions.newBuilder()
+        .setServiceRpcFactory(rpcFactoryMock)
+        .setReadCoalescingEnabled(readCoalescingEnabled)
+        .build()
+        .getService();
+  }
+
+  private static void awaitCount(Callable<Long> count, long expected) throws Exception {
+    while (count.call() < expected) {
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  public void testConcurrentGetPolicyIsCoalesced() throws Exception {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    final ResourceManager resourceManagerMock = mockedService(resourceManagerRpcMock, true);
+    final CountDownLatch release = new CountDownLatch(1);
+    EasyMock.expect(resourceManagerRpcMock.getPolicy(COMPLETE_PROJECT.getProjectId()))
+        .andAnswer(
+            new IAnswer<com.google.api.services.cloudresourcemanager.model.Policy>() {
+              @Override
+              public com.google.api.services.cloudresourcemanager.model.Policy answer()
+                  throws InterruptedException {
+                release.await();
+                return PolicyMarshaller.INSTANCE.toPb(POLICY);
+              }
+            })
+        .once();
+    EasyMock.replay(resourceManagerRpcMock);
+    Callable<Policy> getPolicy =
+        new Callable<Policy>() {
+          @Override
+          public Policy call() {
+            return resourceManagerMock.getPolicy(COMPLETE_PROJECT.getProjectId());
+          }
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Policy> first = executor.submit(getPolicy);
+      awaitCount(
+          new Callable<Long>() {
+            @Override
+            public Long call() {
+              return resourceManagerMock.getCoalescingStats().getGetPolicyRequestCount();
+            }
+          },
+          1);
+      Future<Policy> second = executor.submit(getPolicy);
+      awaitCount(
+          new Callable<Long>() {
+            @Override
+            public Long call() {
+              return resourceManagerMock.getCoalescingStats().getGetPolicyCollapsedCount();
+            }
+          },
+          1);
+      release.countDown();
+      assertEquals(POLICY, first.get());
+      assertEquals(POLICY, second.get());
+    } finally {
+      executor.shutdown();
+    }
+    CoalescingStats stats = resourceManagerMock.getCoalescingStats();
+    assertEquals(1, stats.getGetPolicyRequestCount());
+    assertEquals(1, stats.getGetPolicyCollapsedCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testConcurrentGetSharesException() throws Exception {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    final ResourceManager resourceManagerMock = mockedService(resourceManagerRpcMock, true);
+    final CountDownLatch release = new CountDownLatch(1);
+    EasyMock.expect(resourceManagerRpcMock.get(PARTIAL_PROJECT.getProjectId(), EMPTY_RPC_OPTIONS))
+        .andAnswer(
+            new IAnswer<com.google.api.services.cloudresourcemanager.model.Project>() {
+              @Override
+              public com.google.api.services.cloudresourcemanager.model.Project answer()
+                  throws InterruptedException {
+                release.await();
+                throw new ResourceManagerException(400, "Bad request");
+              }
+            })
+        .once();
+    EasyMock.replay(resourceManagerRpcMock);
+    Callable<Project> get =
+        new Callable<Project>() {
+          @Override
+          public Project call() {
+            return resourceManagerMock.get(PARTIAL_PROJECT.getProjectId());
+          }
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Project> first = executor.submit(get);
+      awaitCount(
+          new Callable<Long>() {
+            @Override
+            public Long call() {
+              return resourceManagerMock.getCoalescingStats().getGetRequestCount();
+            }
+          },
+          1);
+      Future<Project> second = executor.submit(get);
+      awaitCount(
+          new Callable<Long>() {
+            @Override
+            public Long call() {
+              return resourceManagerMock.getCoalescingStats().getGetCollapsedCount();
+            }
+          },
+          1);
+      release.countDown();
+      for (Future<Project> future : ImmutableList.of(first, second)) {
+        try {
+          future.get();
+          fail("Should fail with the shared exception.");
+        } catch (ExecutionException e) {
+          assertEquals(400, ((ResourceManagerException) e.getCause()).getCode());
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testInterruptedGetIsNotShared() throws Exception {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    final ResourceManager resourceManagerMock = mockedService(resourceManagerRpcMock, true);
+    final CountDownLatch release = new CountDownLatch(1);
+    EasyMock.expect(resourceManagerRpcMock.get(PARTIAL_PROJECT.getProjectId(), EMPTY_RPC_OPTIONS))
+        .andAnswer(
+            new IAnswer<com.google.api.services.cloudresourcemanager.model.Project>() {
+              @Override
+              public com.google.api.services.cloudresourcemanager.model.Project answer() {
+                try {
+                  release.await();
+                } catch (InterruptedException ex) {
+                  throw new ResourceManagerException(
+                      ResourceManagerException.UNKNOWN_CODE, "Interrupted", ex);
+                }
+                return PARTIAL_PROJECT.toPb();
+              }
+            })
+        .andReturn(PARTIAL_PROJECT.toPb());
+    EasyMock.replay(resourceManagerRpcMock);
+    Callable<Project> get =
+        new Callable<Project>() {
+          @Override
+          public Project call() {
+            return resourceManagerMock.get(PARTIAL_PROJECT.getProjectId());
+          }
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<Project> first = executor.submit(get);
+      awaitCount(
+          new Callable<Long>() {
+            @Override
+            public Long call() {
+              return resourceManagerMock.getCoalescingStats().getGetRequestCount();
+            }
+          },
+          1);
+      Future<Project> second = executor.submit(get);
+      awaitCount(
+          new Callable<Long>() {
+            @Override
+            public Long call() {
+              return resourceManagerMock.getCoalescingStats().getGetCollapsedCount();
+            }
+          },
+          1);
+      first.cancel(true);
+      // The waiting call runs the request again instead of failing with the interruption.
+      assertEquals(PARTIAL_PROJECT.getProjectId(), second.get().getProjectId());
+    } finally {
+      executor.shutdown();
+    }
+    CoalescingStats stats = resourceManagerMock.getCoalescingStats();
+    assertEquals(2, stats.getGetRequestCount());
+    assertEquals(0, stats.getGetCollapsedCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testReadCoalescingDisabled() {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    ResourceManager resourceManagerMock = mockedService(resourceManagerRpcMock, false);
+    EasyMock.expect(resourceManagerRpcMock.get(PARTIAL_PROJECT.getProjectId(), EMPTY_RPC_OPTIONS))
+        .andReturn(PARTIAL_PROJECT.toPb())
+        .times(2);
+    EasyMock.replay(resourceManagerRpcMock);
+    resourceManagerMock.get(PARTIAL_PROJECT.getProjectId());
+    resourceManagerMock.get(PARTIAL_PROJECT.getProjectId());
+    CoalescingStats stats = resourceManagerMock.getCoalescingStats();
+    assertEquals(2, stats.getGetRequestCount());
+    assertEquals(0, stats.getGetCollapsedCount());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testLimitExceededIsThrottled() {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .setRetrySettings(ServiceOptions.getNoRetrySettings())
+            .setAdaptiveThrottlingEnabled(true)
+            .build()
+            .getService();
+    EasyMock.expect(resourceManagerRpcMock.get(PARTIAL_PROJECT.getProjectId(), EMPTY_RPC_OPTIONS))
+        .andThrow(new ResourceManagerException(429, "Too many requests"));
+    EasyMock.replay(resourceManagerRpcMock);
+    try {
+      resourceManagerMock.get(PARTIAL_PROJECT.getProjectId());
+      fail("Should fail with the rate limit error.");
+    } catch (ResourceManagerException e) {
+      assertEquals(429, e.getCode());
+    }
+    ThrottlingStats stats = resourceManagerMock.getThrottlingStats();
+    assertEquals(AdaptiveLimiter.INITIAL_LIMIT / 2, stats.getLimit());
+    assertEquals(1, stats.getLimitExceededCount());
+    assertEquals(0, stats.getInFlightCount());
+    assertEquals(0, stats.getQueueDepth());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testRetryBudget() throws Exception {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .setRetrySettings(
+                ServiceOptions.getDefaultRetrySettings()
+                    .toBuilder()
+                    .setMaxAttempts(3)
+                    .setInitialRetryDelay(Duration.ofMillis(1))
+                    .setMaxRetryDelay(Duration.ofMillis(1))
+                    .build())
+            .setRetryBudgetEnabled(true)
+            .setRetryBudgetRatio(0)
+            .build()
+            .getService();
+    // 5 calls with 3 attempts each spend the 10 retries of the budget, then calls are not retried.
+    EasyMock.expect(resourceManagerRpcMock.getPolicy(COMPLETE_PROJECT.getProjectId()))
+        .andThrow(new ResourceManagerException(503, "Unavailable"))
+        .times(5 * 3 + 2);
+    EasyMock.replay(resourceManagerRpcMock);
+    for (int i = 0; i < 6; i++) {
+      try {
+        resourceManagerMock.getPolicy(COMPLETE_PROJECT.getProjectId());
+        fail("Should fail with the service's error.");
+      } catch (ResourceManagerException e) {
+        assertEquals(503, e.getCode());
+      }
+    }
+    try {
+      resourceManagerMock.getPolicyAsync(COMPLETE_PROJECT.getProjectId()).get();
+      fail("Should fail with the service's error.");
+    } catch (ExecutionException e) {
+      assertEquals(503, ((ResourceManagerException) e.getCause()).getCode());
+    }
+    RetryBudgetStats stats = resourceManagerMock.getRetryBudgetStats();
+    assertEquals(10, stats.getRetriesSpent());
+    // The last attempt of the fifth call is denied as well.
+    assertEquals(3, stats.getRetriesDenied());
+    assertEquals(0, stats.getAvailableRetries(), 0);
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testHedgedGetPolicy() throws Exception {
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .setHedgingDelay(Duration.ofMillis(10))
+            .build()
+            .getService();
+    // Let the second request be answered while the first one is blocked.
+    EasyMock.makeThreadSafe(resourceManagerRpcMock, false);
+    final CountDownLatch release = new CountDownLatch(1);
+    // The first request hangs until it is cancelled, the second one responds right away.
+    EasyMock.expect(resourceManagerRpcMock.getPolicy(COMPLETE_PROJECT.getProjectId()))
+        .andAnswer(
+            new IAnswer<com.google.api.services.cloudresourcemanager.model.Policy>() {
+              @Override
+              public com.google.api.services.cloudresourcemanager.model.Policy answer()
+                  throws InterruptedException {
+                release.await();
+                return PolicyMarshaller.INSTANCE.toPb(POLICY);
+              }
+            });
+    EasyMock.expect(resourceManagerRpcMock.getPolicy(COMPLETE_PROJECT.getProjectId()))
+        .andReturn(PolicyMarshaller.INSTANCE.toPb(POLICY));
+    EasyMock.replay(resourceManagerRpcMock);
+    try {
+      assertEquals(POLICY, resourceManagerMock.getPolicy(COMPLETE_PROJECT.getProjectId()));
+    } finally {
+      release.countDown();
+    }
+    HedgingStats stats = resourceManagerMock.getHedgingStats();
+    assertEquals(1, stats.getCallCount());
+    assertEquals(1, stats.getHedgesSent());
+    assertEquals(1, stats.getHedgesWon());
+    assertEquals(Duration.ofMillis(10), stats.getHedgingDelay());
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testAsyncCalls() throws Exception {
+    Project createdProject = RESOURCE_MANAGER.createAsync(COMPLETE_PROJECT).get();
+    compareReadWriteFields(COMPLETE_PROJECT, createdProject);
+    assertSame(RESOURCE_MANAGER, createdProject.getResourceManager());
+    Project returnedProject = RESOURCE_MANAGER.getAsync(COMPLETE_PROJECT.getProjectId()).get();
+    assertEquals(createdProject, returnedProject);
+    assertNull(RESOURCE_MANAGER.getAsync("some-nonexistant-project-id").get());
+    RESOURCE_MANAGER.replacePolicyAsync(COMPLETE_PROJECT.getProjectId(), POLICY).get();
+    assertEquals(
+        POLICY.getBindings(),
+        RESOURCE_MANAGER.getPolicyAsync(COMPLETE_PROJECT.getProjectId()).get().getBindings());
+    assertEquals(
+        ImmutableList.of(true),
+        RESOURCE_MANAGER
+            .testPermissionsAsync(
+                COMPLETE_PROJECT.getProjectId(), ImmutableList.of("resourcemanager.projects.get"))
+            .get());
+    RESOURCE_MANAGER.deleteAsync(COMPLETE_PROJECT.getProjectId()).get();
+    assertEquals(
+        ProjectInfo.State.DELETE_REQUESTED,
+        RESOURCE_MANAGER.get(COMPLETE_PROJECT.getProjectId()).getState());
+    RESOURCE_MANAGER.undeleteAsync(COMPLETE_PROJECT.getProjectId()).get();
+    assertEquals(
+        ProjectInfo.State.ACTIVE, RESOURCE_MANAGER.get(COMPLETE_PROJECT.getProjectId()).getState());
+    Project replacedProject =
+        RESOURCE_MANAGER
+            .replaceAsync(createdProject.toBuilder().addLabel("k2", "v2").build())
+            .get();
+    assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), replacedProject.getLabels());
+  }
+
+  @Test
+  public void testListAsyncPaging() throws Exception {
+    RESOURCE_MANAGER.create(PARTIAL_PROJECT);
+    RESOURCE_MANAGER.create(COMPLETE_PROJECT);
+    AsyncPage<Project> page = RESOURCE_MANAGER.listAsync(ProjectListOption.pageSize(1)).get();
+    assertNotNull(page.getNextPageToken());
+    Iterator<Project> iterator = page.getValues().iterator();
+    compareReadWriteFields(COMPLETE_PROJECT, iterator.next());
+    assertFalse(iterator.hasNext());
+    page = page.getNextPageAsync().get();
+    iterator = page.getValues().iterator();
+    compareReadWriteFields(PARTIAL_PROJECT, iterator.next());
+    assertFalse(iterator.hasNext());
+    assertNull(page.getNextPageToken());
+  }
+
+  @Test
+  public void testAsyncFailure() throws Exception {
+    try {
+      RESOURCE_MANAGER.deleteAsync("some-nonexistant-project-id").get();
+      fail("Should fail because the project doesn't exist.");
+    } catch (ExecutionException e) {
+      ResourceManagerException cause = (ResourceManagerException) e.getCause();
+      assertEquals(403, cause.getCode());
+      assertTrue(cause.getMessage().contains("not found."));
+    }
+  }
+
+  @Test
+  public void testAsyncRetryableException() throws Exception {
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .build()
+            .getService();
+    EasyMock.expect(resourceManagerRpcMock.get(PARTIAL_PROJECT.getProjectId(), EMPTY_RPC_OPTIONS))
+        .andThrow(new ResourceManagerException(500, "Internal Error"))
+        .andReturn(PARTIAL_PROJECT.toPb());
+    EasyMock.replay(resourceManagerRpcMock);
+    Project returnedProject = resourceManagerMock.getAsync(PARTIAL_PROJECT.getProjectId()).get();
+    assertEquals(
+        new Project(resourceManagerMock, new ProjectInfo.BuilderImpl(PARTIAL_PROJECT)),
+        returnedProject);
+    EasyMock.verify(resourceManagerRpcMock);
+  }
+
+  @Test
+  public void testAsyncRuntimeException() throws Exception {
+    ResourceManagerRpcFactory rpcFactoryMock = EasyMock.createMock(ResourceManagerRpcFactory.class);
+    ResourceManagerRpc resourceManagerRpcMock = EasyMock.createMock(ResourceManagerRpc.class);
+    EasyMock.expect(rpcFactoryMock.create(EasyMock.anyObject(ResourceManagerOptions.class)))
+        .andReturn(resourceManagerRpcMock);
+    EasyMock.replay(rpcFactoryMock);
+    ResourceManager resourceManagerMock =
+        ResourceManagerOptions.newBuilder()
+            .setServiceRpcFactory(rpcFactoryMock)
+            .build()
+            .getService();
+    String exceptionMessage = "Artificial runtime exception";
+    EasyMock.expect(resourceManagerRpcMock.get(PARTIAL_PROJECT.getProjectId(), EMPTY_RPC_OPTIONS))
+        .andThrow(new RuntimeException(exceptionMessage));
+    EasyMock.replay(resourceManagerRpcMock);
+    try {
+      resourceManagerMock.getAsync(PARTIAL_PROJECT.getProjectId()).get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ResourceManagerException);
+      assertEquals(exceptionMessage, e.getCause().getCause().getMessage());
+    }
+  }
 }
@@ -16,11 +16,19 @@
 
 package com.google.cloud.resourcemanager;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.cloud.TransportOptions;
 import org.easymock.EasyMock;
 import org.junit.Test;
+import org.threeten.bp.Duration;
 
 public class ResourceManagerOptionsTest {
 
@@ -33,4 +41,156 @@ public class ResourceManagerOptionsTest {
     } catch (IllegalArgumentException expected) {
     }
   }
+
+  @Test
+  public void testReadCoalescingEnabled() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertTrue(options.isReadCoalescingEnabled());
+    ResourceManagerOptions disabled = options.toBuilder().setReadCoalescingEnabled(false).build();
+    assertFalse(disabled.isReadCoalescingEnabled());
+    assertNotEquals(options, disabled);
+    assertEquals(options, disabled.toBuilder().setReadCoalescingEnabled(true).build());
+  }
+
+  @Test
+  public void testAdaptiveThrottlingEnabled() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertFalse(options.isAdaptiveThrottlingEnabled());
+    ResourceManagerOptions enabled = options.toBuilder().setAdaptiveThrottlingEnabled(true).build();
+    assertTrue(enabled.isAdaptiveThrottlingEnabled());
+    assertNotEquals(options, enabled);
+    assertEquals(options, enabled.toBuilder().setAdaptiveThrottlingEnabled(false).build());
+    assertSame(enabled.getLimiter(), enabled.getLimiter());
+    assertNotSame(options.getLimiter(), enabled.getLimiter());
+  }
+
+  @Test
+  public void testRetryBudget() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertFalse(options.isRetryBudgetEnabled());
+    assertEquals(0.1, options.getRetryBudgetRatio(), 0);
+    ResourceManagerOptions enabled = options.toBuilder().setRetryBudgetEnabled(true).build();
+    assertTrue(enabled.isRetryBudgetEnabled());
+    assertNotEquals(options, enabled);
+    ResourceManagerOptions ratio = options.toBuilder().setRetryBudgetRatio(0.5).build();
+    assertEquals(0.5, ratio.getRetryBudgetRatio(), 0);
+    assertNotEquals(options, ratio);
+    assertEquals(options, ratio.toBuilder().setRetryBudgetRatio(0.1).build());
+    assertSame(options.getRetryBudget(), options.getRetryBudget());
+    try {
+      options.toBuilder().setRetryBudgetRatio(-1);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testStreamingList() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertTrue(options.isStreamingListEnabled());
+    ResourceManagerOptions disabled = options.toBuilder().setStreamingListEnabled(false).build();
+    assertFalse(disabled.isStreamingListEnabled());
+    assertNotEquals(options, disabled);
+    assertEquals(options, disabled.toBuilder().setStreamingListEnabled(true).build());
+  }
+
+  @Test
+  public void testPageMaterialization() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertEquals(
+        ResourceManagerOptions.PageMaterialization.LAZY, options.getPageMaterialization());
+    ResourceManagerOptions eager =
+        options
+            .toBuilder()
+            .setPageMaterialization(ResourceManagerOptions.PageMaterialization.EAGER)
+            .build();
+    assertEquals(ResourceManagerOptions.PageMaterialization.EAGER, eager.getPageMaterialization());
+    assertNotEquals(options, eager);
+    assertEquals(eager, eager.toBuilder().build());
+  }
+
+  @Test
+  public void testCompression() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertFalse(options.isResponseCompressionEnabled());
+    assertEquals(-1, options.getRequestCompressionThreshold());
+    ResourceManagerOptions compressed =
+        options
+            .toBuilder()
+            .setResponseCompressionEnabled(true)
+            .setRequestCompressionThreshold(1024)
+            .build();
+    assertTrue(compressed.isResponseCompressionEnabled());
+    assertEquals(1024, compressed.getRequestCompressionThreshold());
+    assertNotEquals(options, compressed);
+    assertEquals(compressed, compressed.toBuilder().build());
+    assertEquals(compressed.hashCode(), compressed.toBuilder().build().hashCode());
+    try {
+      options.toBuilder().setRequestCompressionThreshold(-2);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testHedging() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertNull(options.getHedgingDelay());
+    assertEquals(0, options.getHedgingPercentile(), 0);
+    assertEquals(0.1, options.getHedgingBudgetRatio(), 0);
+    assertFalse(options.getHedger().isEnabled());
+    ResourceManagerOptions hedged =
+        options
+            .toBuilder()
+            .setHedgingDelay(Duration.ofMillis(100))
+            .setHedgingPercentile(95)
+            .setHedgingBudgetRatio(0.05)
+            .build();
+    assertEquals(Duration.ofMillis(100), hedged.getHedgingDelay());
+    assertEquals(95, hedged.getHedgingPercentile(), 0);
+    assertEquals(0.05, hedged.getHedgingBudgetRatio(), 0);
+    assertTrue(hedged.getHedger().isEnabled());
+    assertNotEquals(options, hedged);
+    assertEquals(
+        options,
+        hedged
+            .toBuilder()
+            .setHedgingDelay(null)
+            .setHedgingPercentile(0)
+            .setHedgingBudgetRatio(0.1)
+            .build());
+    try {
+      options.toBuilder().setHedgingPercentile(100);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+    try {
+      options.toBuilder().setHedgingDelay(Duration.ofMillis(-1));
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  @Test
+  public void testMetricsListener() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertNull(options.getMetricsListener());
+    InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+    ResourceManagerOptions metered =
+        options.toBuilder().setMetricsListener(metricsListener).build();
+    assertSame(metricsListener, metered.getMetricsListener());
+    assertSame(metricsListener, metered.toBuilder().build().getMetricsListener());
+  }
+
+  @Test
+  public void testTracer() {
+    ResourceManagerOptions options = ResourceManagerOptions.newBuilder().setProjectId("p").build();
+    assertNull(options.getTracer());
+    assertNull(options.getRpcTracer());
+    RecordingTracer tracer = new RecordingTracer();
+    ResourceManagerOptions traced = options.toBuilder().setTracer(tracer).build();
+    assertSame(tracer, traced.getTracer());
+    assertSame(tracer, traced.getRpcTracer().getTracer());
+    assertSame(tracer, traced.toBuilder().build().getTracer());
+  }
 }
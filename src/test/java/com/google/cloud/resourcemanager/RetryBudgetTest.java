@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.concurrent.Callable;
+import org.junit.Test;
+
+public class RetryBudgetTest {
+
+  private static final double DELTA = 1e-9;
+  private static final Callable<String> CALLABLE =
+      new Callable<String>() {
+        @Override
+        public String call() {
+          return "ok";
+        }
+      };
+  private static final ResourceManagerException RETRYABLE =
+      new ResourceManagerException(503, "Unavailable");
+  private static final ResourceManagerException NOT_RETRYABLE =
+      new ResourceManagerException(404, "Not found");
+
+  private static boolean failAndRetry(RetryBudget budget) throws Exception {
+    RetryBudget.Call<String> call = budget.newCall(CALLABLE);
+    call.call();
+    return call.shouldRetry(RETRYABLE, null);
+  }
+
+  @Test
+  public void testRetriesSpendTokens() throws Exception {
+    RetryBudget budget = new RetryBudget(true, 0.5);
+    RetryBudget.Call<String> call = budget.newCall(CALLABLE);
+    assertEquals("ok", call.call());
+    assertTrue(call.shouldRetry(RETRYABLE, null));
+    // The same attempt only spends one token, however many times it is asked about.
+    assertTrue(call.shouldRetry(RETRYABLE, null));
+    assertEquals("ok", call.call());
+    assertFalse(call.shouldRetry(NOT_RETRYABLE, null));
+    assertFalse(call.shouldRetry(null, "ok"));
+    call.finish();
+    RetryBudgetStats stats = budget.getStats();
+    assertEquals(RetryBudget.CAPACITY - 1, stats.getAvailableRetries(), DELTA);
+    assertEquals(1, stats.getRetriesSpent());
+    assertEquals(0, stats.getRetriesDenied());
+    // Only the first attempt of a call adds tokens.
+    for (int i = 0; i < 3; i++) {
+      budget.newCall(CALLABLE).call();
+    }
+    assertEquals(RetryBudget.CAPACITY, budget.getStats().getAvailableRetries(), DELTA);
+  }
+
+  @Test
+  public void testExhaustedBudgetDeniesRetries() throws Exception {
+    RetryBudget budget = new RetryBudget(true, 0.5);
+    // Each call adds half a token and its retry takes one, starting from a full bucket.
+    for (int i = 0; i < 19; i++) {
+      assertTrue(failAndRetry(budget));
+    }
+    assertFalse(failAndRetry(budget));
+    assertTrue(failAndRetry(budget));
+    RetryBudgetStats stats = budget.getStats();
+    assertEquals(20, stats.getRetriesSpent());
+    assertEquals(1, stats.getRetriesDenied());
+    assertEquals(0, stats.getAvailableRetries(), DELTA);
+  }
+
+  @Test
+  public void testUnattemptedRetryIsRefunded() throws Exception {
+    RetryBudget budget = new RetryBudget(true, 0);
+    RetryBudget.Call<String> call = budget.newCall(CALLABLE);
+    call.call();
+    assertTrue(call.shouldRetry(RETRYABLE, null));
+    call.finish();
+    RetryBudgetStats stats = budget.getStats();
+    assertEquals(RetryBudget.CAPACITY, stats.getAvailableRetries(), DELTA);
+    assertEquals(0, stats.getRetriesSpent());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    RetryBudget budget = new RetryBudget(false, 0);
+    for (int i = 0; i < 2 * RetryBudget.CAPACITY; i++) {
+      assertTrue(failAndRetry(budget));
+    }
+    RetryBudgetStats stats = budget.getStats();
+    assertEquals(2 * RetryBudget.CAPACITY, stats.getRetriesSpent());
+    assertEquals(0, stats.getRetriesDenied());
+  }
+
+  @Test
+  public void testMetrics() throws Exception {
+    RetryBudget budget = new RetryBudget(true, 0);
+    InMemoryMetricsListener metricsListener = new InMemoryMetricsListener();
+    RetryBudget.Call<String> call =
+        budget.newCall(
+            new Callable<String>() {
+              private int attempts;
+
+              @Override
+              public String call() {
+                if (attempts++ == 0) {
+                  throw RETRYABLE;
+                }
+                return "ok";
+              }
+            },
+            MetricsListener.Method.GET,
+            metricsListener);
+    try {
+      call.call();
+      fail();
+    } catch (ResourceManagerException expected) {
+    }
+    assertTrue(call.shouldRetry(RETRYABLE, null));
+    assertTrue(call.shouldRetry(RETRYABLE, null));
+    assertEquals("ok", call.call());
+    assertFalse(call.shouldRetry(null, "ok"));
+    call.finish();
+    MethodMetrics metrics = metricsListener.getMethodMetrics(MetricsListener.Method.GET);
+    assertEquals(2, metrics.getAttemptCount());
+    assertEquals(1, metrics.getFailedAttemptCount());
+    assertEquals(1, metrics.getRetryCount());
+    assertEquals(ImmutableMap.of("503", 1L), metrics.getRetryReasons());
+    assertEquals(
+        0, metricsListener.getMethodMetrics(MetricsListener.Method.LIST).getAttemptCount());
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import org.junit.Test;
+import org.threeten.bp.Instant;
+import org.threeten.bp.format.DateTimeParseException;
+
+public class Rfc3339Test {
+
+  private static final long[] MILLIS = {
+    0L,
+    1L,
+    -1L,
+    100L,
+    120L,
+    123L,
+    -999L,
+    123456789L,
+    951782400000L, // 2000-02-29
+    -62135596800000L, // 0001-01-01
+    253402300799999L, // 9999-12-31T23:59:59.999
+    -62135596800001L, // year 0, formatted by the fallback
+    253402300800000L // year 10000, formatted by the fallback
+  };
+
+  private static String format(long millis) {
+    return ProjectInfo.DATE_TIME_FORMATTER.format(Instant.ofEpochMilli(millis));
+  }
+
+  private static long parse(String value) {
+    return ProjectInfo.DATE_TIME_FORMATTER.parse(value, Instant.FROM).toEpochMilli();
+  }
+
+  @Test
+  public void testFormatMatchesFormatter() {
+    for (long millis : MILLIS) {
+      assertEquals(format(millis), Rfc3339.formatMillis(millis));
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      long millis = random.nextLong() % 253402300800000L;
+      assertEquals(format(millis), Rfc3339.formatMillis(millis));
+    }
+  }
+
+  @Test
+  public void testParseRoundTrip() {
+    for (long millis : MILLIS) {
+      assertEquals(millis, Rfc3339.parseMillis(Rfc3339.formatMillis(millis)));
+    }
+  }
+
+  @Test
+  public void testParseMatchesFormatter() {
+    String[] values = {
+      "2020-02-29T10:11:12Z",
+      "2020-02-29T10:11:12.5Z",
+      "2020-02-29T10:11:12.123456789Z",
+      "2020-02-29T10:11:12.123+05:30",
+      "2020-02-29T10:11:12-00:30",
+      "2019-12-31t23:59:59.9z",
+      "1970-01-01T00:00Z",
+      "2020-02-29T10:11:12Z[UTC]"
+    };
+    for (String value : values) {
+      assertEquals(value, parse(value), Rfc3339.parseMillis(value));
+    }
+  }
+
+  @Test
+  public void testParseInvalid() {
+    String[] values = {"2019-02-29T00:00:00Z", "2020-13-01T00:00:00Z", "2020-01-01 00:00:00Z", ""};
+    for (String value : values) {
+      try {
+        Rfc3339.parseMillis(value);
+        fail("Should reject " + value);
+      } catch (DateTimeParseException expected) {
+      }
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.cloud.resourcemanager.RecordingTracer.RecordingSpan;
+import io.opencensus.trace.AttributeValue;
+import io.opencensus.trace.Span;
+import io.opencensus.trace.Status;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.Test;
+
+public class RpcTracerTest {
+
+  @Test
+  public void testSpanName() {
+    assertEquals("ResourceManager.get", RpcTracer.spanName(MetricsListener.Method.GET));
+    assertEquals(
+        "ResourceManager.testPermissions",
+        RpcTracer.spanName(MetricsListener.Method.TEST_PERMISSIONS));
+  }
+
+  @Test
+  public void testTraceAttempts() throws Exception {
+    final RecordingTracer tracer = new RecordingTracer();
+    RpcTracer rpcTracer = new RpcTracer(tracer);
+    Span callSpan = rpcTracer.startCall(MetricsListener.Method.GET);
+    Callable<String> callable =
+        rpcTracer.traceAttempts(
+            callSpan,
+            new Callable<String>() {
+              private int attempts;
+
+              @Override
+              public String call() {
+                // The attempt's span is current while it runs.
+                assertEquals("Attempt", ((RecordingSpan) tracer.getCurrentSpan()).getName());
+                if (attempts++ == 0) {
+                  throw new ResourceManagerException(503, "Unavailable");
+                }
+                return "ok";
+              }
+            });
+    try {
+      callable.call();
+      fail();
+    } catch (ResourceManagerException expected) {
+    }
+    assertEquals("ok", callable.call());
+    RpcTracer.end(callSpan, null);
+    List<RecordingSpan> attempts = tracer.getChildren(callSpan);
+    assertEquals(2, attempts.size());
+    RecordingSpan first = attempts.get(0);
+    assertTrue(first.isEnded());
+    assertEquals(AttributeValue.longAttributeValue(1), first.getAttribute(RpcTracer.ATTEMPT));
+    assertEquals(AttributeValue.longAttributeValue(503), first.getAttribute(RpcTracer.HTTP_STATUS));
+    assertNull(first.getAttribute(RpcTracer.RETRY_REASON));
+    assertEquals(Status.CanonicalCode.UNAVAILABLE, first.getStatus().getCanonicalCode());
+    RecordingSpan second = attempts.get(1);
+    assertTrue(second.isEnded());
+    assertEquals(AttributeValue.longAttributeValue(2), second.getAttribute(RpcTracer.ATTEMPT));
+    assertEquals(
+        AttributeValue.stringAttributeValue("503"), second.getAttribute(RpcTracer.RETRY_REASON));
+    assertEquals(Status.OK, second.getStatus());
+    assertTrue(((RecordingSpan) callSpan).isEnded());
+  }
+
+  @Test
+  public void testPoll() {
+    RecordingTracer tracer = new RecordingTracer();
+    RpcTracer rpcTracer = new RpcTracer(tracer);
+    Span createSpan = rpcTracer.startCall(MetricsListener.Method.CREATE);
+    Span pollSpan = rpcTracer.startPoll(createSpan, "operations/p1");
+    RpcTracer.end(pollSpan, new ResourceManagerException(404, "Not found"));
+    List<RecordingSpan> polls = tracer.getChildren(createSpan);
+    assertEquals(1, polls.size());
+    assertSame(pollSpan, polls.get(0));
+    assertEquals(
+        AttributeValue.stringAttributeValue("operations/p1"),
+        polls.get(0).getAttribute(RpcTracer.OPERATION));
+    assertEquals(Status.CanonicalCode.NOT_FOUND, polls.get(0).getStatus().getCanonicalCode());
+  }
+}
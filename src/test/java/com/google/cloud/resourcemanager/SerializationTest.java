@@ -61,7 +61,8 @@ public class SerializationTest extends BaseSerializationTest {
       PROJECT_LIST_OPTION,
       RESOURCE_MANAGER_EXCEPTION,
       options,
-      otherOptions
+      otherOptions,
+      ListCheckpoint.of("token", 100)
     };
   }
 
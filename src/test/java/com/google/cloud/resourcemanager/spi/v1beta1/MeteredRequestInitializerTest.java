@@ -0,0 +1,42 @@
+/*
+ * Copyright 2020 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.cloud.resourcemanager.spi.v1beta1;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.cloud.resourcemanager.MetricsListener;
+import org.junit.Test;
+
+public class MeteredRequestInitializerTest {
+
+  @Test
+  public void testMethodOf() {
+    // Operation polls are sent in batch requests, whose responses are reported as BATCH.
+    assertEquals(
+        MetricsListener.Method.BATCH, MeteredRequestInitializer.methodOf("POST", "/batch"));
+    assertEquals(
+        MetricsListener.Method.GET_OPERATION,
+        MeteredRequestInitializer.methodOf("GET", "/v1/operations/cp.123"));
+    assertEquals(
+        MetricsListener.Method.CREATE, MeteredRequestInitializer.methodOf("POST", "/v1/projects"));
+    assertEquals(
+        MetricsListener.Method.LIST, MeteredRequestInitializer.methodOf("GET", "/v1/projects"));
+    assertEquals(
+        MetricsListener.Method.UNDELETE,
+        MeteredRequestInitializer.methodOf("POST", "/v1/projects/my-project:undelete"));
+  }
+}
@@ -31,6 +31,7 @@ import com.google.cloud.resourcemanager.spi.v1beta1.HttpResourceManagerRpc;
 import com.google.cloud.resourcemanager.spi.v1beta1.ResourceManagerRpc;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -496,6 +497,42 @@ public class LocalResourceManagerHelperTest {
     }
   }
 
+  @Test
+  public void testListFilterPrefixWildcard() {
+    for (String projectId : ImmutableList.of("apple-1", "apple-2", "berry-1")) {
+      rpc.create(
+          new com.google.api.services.cloudresourcemanager.model.Project()
+              .setProjectId(projectId));
+    }
+    Map<ResourceManagerRpc.Option, Object> rpcFilterOptions = new HashMap<>();
+    rpcFilterOptions.put(ResourceManagerRpc.Option.FILTER, "ID:A*");
+    List<String> projectIds = new ArrayList<>();
+    for (com.google.api.services.cloudresourcemanager.model.Project p :
+        rpc.list(rpcFilterOptions).y()) {
+      projectIds.add(p.getProjectId());
+    }
+    assertEquals(ImmutableList.of("apple-1", "apple-2"), projectIds);
+  }
+
+  @Test
+  public void testListFilterLabelsWithoutLabels() {
+    rpc.create(
+        new com.google.api.services.cloudresourcemanager.model.Project()
+            .setProjectId("labeled")
+            .setLabels(ImmutableMap.of("env", "prod")));
+    rpc.create(
+        new com.google.api.services.cloudresourcemanager.model.Project()
+            .setProjectId("unlabeled"));
+    Map<ResourceManagerRpc.Option, Object> rpcFilterOptions = new HashMap<>();
+    rpcFilterOptions.put(ResourceManagerRpc.Option.FILTER, "labels.env:*");
+    List<String> projectIds = new ArrayList<>();
+    for (com.google.api.services.cloudresourcemanager.model.Project p :
+        rpc.list(rpcFilterOptions).y()) {
+      projectIds.add(p.getProjectId());
+    }
+    assertEquals(ImmutableList.of("labeled"), projectIds);
+  }
+
   @Test
   public void testReplace() {
     com.google.api.services.cloudresourcemanager.model.Project createdProject =